@@ -0,0 +1,162 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask;
+
+/**
+ * Observes a layout dimension, reading it at most once per animation frame.<p>
+ * 
+ * The observer is a task of the {@link LayoutScheduler}, so the dimension is read in the read phase together with 
+ * the other layout tasks and changes are applied in the write phase. The dimension is read once per frame 
+ * until it stayed unchanged for a few frames, so layout changes of widgets initializing asynchronously are followed
+ * without polling timers. {@link #onLayoutChange(int)} is only called when the measured value actually changed.<p>
+ * 
+ * Frequent triggers, like value changes on every keystroke, should use {@link #triggerSingleFrame()},
+ * reading the dimension only once in the next frame.<p>
+ */
+public abstract class A_LayoutObserver implements I_LayoutTask {
+
+    /** The number of frames without change after which the observation stops. */
+    private static final int STABLE_FRAME_COUNT = 3;
+
+    /** Flag indicating the observation is active. */
+    private boolean m_active;
+
+    /** Flag indicating the value measured in the current frame differs from the previous one. */
+    private boolean m_changed;
+
+    /** Flag indicating a value has been measured. */
+    private boolean m_measured;
+
+    /** The last measured value. */
+    private int m_measuredValue;
+
+    /** Flag indicating the dimension is only read in the next frame. */
+    private boolean m_singleFrame;
+
+    /** The number of frames the measured value stayed unchanged. */
+    private int m_stableFrames;
+
+    /**
+     * Stops observing until triggered again.<p>
+     */
+    public void cancel() {
+
+        m_active = false;
+        m_changed = false;
+        m_singleFrame = false;
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#readLayout()
+     */
+    public void readLayout() {
+
+        if (!m_active) {
+            return;
+        }
+        int value = measure();
+        if (!m_measured || (value != m_measuredValue)) {
+            m_measured = true;
+            m_measuredValue = value;
+            m_stableFrames = 0;
+            m_changed = true;
+        } else {
+            m_stableFrames++;
+        }
+    }
+
+    /**
+     * Forgets the last measured value, so the next frame will call {@link #onLayoutChange(int)}.<p>
+     */
+    public void reset() {
+
+        m_measured = false;
+    }
+
+    /**
+     * Triggers the observation, the layout will be read in the next animation frame.<p>
+     */
+    public void trigger() {
+
+        m_stableFrames = 0;
+        m_singleFrame = false;
+        m_active = true;
+        LayoutScheduler.getInstance().schedule(this);
+    }
+
+    /**
+     * Triggers reading the layout once in the next animation frame, without observing the following frames.<p>
+     * 
+     * Has no effect if the observation is already active.<p>
+     */
+    public void triggerSingleFrame() {
+
+        if (m_active) {
+            return;
+        }
+        m_singleFrame = true;
+        m_active = true;
+        LayoutScheduler.getInstance().schedule(this);
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#writeLayout()
+     */
+    public void writeLayout() {
+
+        if (!m_active) {
+            return;
+        }
+        if (m_changed) {
+            m_changed = false;
+            onLayoutChange(m_measuredValue);
+        }
+        if (!m_singleFrame && (m_stableFrames < STABLE_FRAME_COUNT)) {
+            // tasks scheduled within the write phase are executed in the next frame
+            LayoutScheduler.getInstance().schedule(this);
+        } else {
+            m_active = false;
+            m_singleFrame = false;
+        }
+    }
+
+    /**
+     * Reads the observed layout dimension.<p>
+     * 
+     * Called within the read phase, styles and DOM structure must not be changed here.<p>
+     * 
+     * @return the measured value
+     */
+    protected abstract int measure();
+
+    /**
+     * Called within the write phase when the measured value changed, the layout must not be read here.<p>
+     * 
+     * @param value the new value
+     */
+    protected abstract void onLayoutChange(int value);
+}
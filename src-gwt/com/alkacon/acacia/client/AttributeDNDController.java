@@ -73,6 +73,7 @@ public class AttributeDNDController implements I_DNDController {
      */
     public void onDragCancel(I_Draggable draggable, I_DropTarget target, final DNDHandler handler) {
 
+        ((AttributeValueView)draggable).getHandler().setValueDragging(false);
         removeDragOverlay();
         clearTargets(handler);
         // remove the drag helper reference from handler, to avoid helper.removeFromParent() call
@@ -90,6 +91,8 @@ public class AttributeDNDController implements I_DNDController {
             installDragOverlay();
             handler.setOrientation(Orientation.VERTICAL);
             m_startPosition = ((AttributeValueView)draggable).getValueIndex();
+            // the value views must not be rebound to other values while dragging
+            ((AttributeValueView)draggable).getHandler().setValueDragging(true);
             handler.clearTargets();
             handler.addTarget(target);
             target.getElement().getStyle().setPosition(Position.RELATIVE);
@@ -106,11 +109,13 @@ public class AttributeDNDController implements I_DNDController {
     public void onDrop(I_Draggable draggable, I_DropTarget target, DNDHandler handler) {
 
         AttributeValueView attributeValue = (AttributeValueView)draggable;
-        int targetIndex = target.getPlaceholderIndex();
+        AttributeHandler attributeHandler = attributeValue.getHandler();
+        int targetIndex = attributeHandler.getDropValueIndex((ValuePanel)target, handler.getPlaceholder());
         if (targetIndex > m_startPosition) {
             targetIndex--;
         }
-        attributeValue.getHandler().moveAttributeValue(attributeValue, m_startPosition, targetIndex);
+        attributeHandler.setValueDragging(false);
+        attributeHandler.moveAttributeValue(attributeValue, m_startPosition, targetIndex);
         removeDragOverlay();
         clearTargets(handler);
         // remove the drag helper reference from handler, to avoid helper.removeFromParent() call
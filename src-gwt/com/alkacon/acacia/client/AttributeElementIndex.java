@@ -0,0 +1,162 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.vie.client.I_Vie;
+import com.alkacon.vie.shared.I_Entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gwt.dom.client.Element;
+
+/**
+ * Index of the RDFa attribute elements within a context element, built by walking the DOM once.<p>
+ * 
+ * Elements with a <code>property</code> attribute are indexed by the property and the id of their entity, 
+ * which is the <code>about</code> attribute of the closest ancestor element declaring one.
+ * This matches the element lookup of {@link I_Vie#getAttributeElements(I_Entity, String, Element)} as long as 
+ * the property values are the attribute names. As this can not be known up front, each lookup of an attribute not 
+ * found within the index is delegated to VIE once, and the result is kept for the following lookups.<p>
+ * 
+ * The index reflects the DOM at creation time, use it only while the DOM structure does not change.<p>
+ */
+public class AttributeElementIndex {
+
+    /** The RDFa attribute holding the entity id. */
+    private static final String ATTR_ABOUT = "about";
+
+    /** The RDFa attribute holding the attribute name. */
+    private static final String ATTR_PROPERTY = "property";
+
+    /** The context element. */
+    private Element m_context;
+
+    /** The attribute elements by entity id and attribute name. */
+    private Map<String, Map<String, List<Element>>> m_elements;
+
+    /** The VIE instance. */
+    private I_Vie m_vie;
+
+    /**
+     * Constructor, indexes the attribute elements within the given context element.<p>
+     * 
+     * @param vie the VIE instance
+     * @param context the context element
+     */
+    public AttributeElementIndex(I_Vie vie, Element context) {
+
+        m_vie = vie;
+        m_context = context;
+        m_elements = new HashMap<String, Map<String, List<Element>>>();
+        index(context, getEntityId(context));
+    }
+
+    /**
+     * Returns the elements representing the values of the given entity attribute, in document order.<p>
+     * 
+     * @param entity the entity
+     * @param attributeName the attribute name
+     * 
+     * @return the attribute elements
+     */
+    public List<Element> getAttributeElements(I_Entity entity, String attributeName) {
+
+        Map<String, List<Element>> entityElements = m_elements.get(entity.getId());
+        if (entityElements == null) {
+            entityElements = new HashMap<String, List<Element>>();
+            m_elements.put(entity.getId(), entityElements);
+        }
+        List<Element> elements = entityElements.get(attributeName);
+        if (elements == null) {
+            // the property values may differ from the attribute names, so misses are confirmed by VIE
+            elements = new ArrayList<Element>(m_vie.getAttributeElements(entity, attributeName, m_context));
+            entityElements.put(attributeName, elements);
+        }
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Returns the context element.<p>
+     * 
+     * @return the context element
+     */
+    public Element getContext() {
+
+        return m_context;
+    }
+
+    /**
+     * Returns the id of the entity the children of the given element belong to.<p>
+     * 
+     * @param element the element
+     * 
+     * @return the entity id, <code>null</code> if not available
+     */
+    private static String getEntityId(Element element) {
+
+        while (element != null) {
+            String about = element.getAttribute(ATTR_ABOUT);
+            if ((about != null) && (about.length() > 0)) {
+                return about;
+            }
+            element = element.getParentElement();
+        }
+        return null;
+    }
+
+    /**
+     * Indexes the descendants of the given element.<p>
+     * 
+     * @param element the element
+     * @param entityId the id of the entity the children of the element belong to
+     */
+    private void index(Element element, String entityId) {
+
+        Element child = element.getFirstChildElement();
+        while (child != null) {
+            String property = child.getAttribute(ATTR_PROPERTY);
+            if ((entityId != null) && (property != null) && (property.length() > 0)) {
+                Map<String, List<Element>> entityElements = m_elements.get(entityId);
+                if (entityElements == null) {
+                    entityElements = new HashMap<String, List<Element>>();
+                    m_elements.put(entityId, entityElements);
+                }
+                List<Element> elements = entityElements.get(property);
+                if (elements == null) {
+                    elements = new ArrayList<Element>();
+                    entityElements.put(property, elements);
+                }
+                elements.add(child);
+            }
+            String about = child.getAttribute(ATTR_ABOUT);
+            index(child, (about != null) && (about.length() > 0) ? about : entityId);
+            child = child.getNextSiblingElement();
+        }
+    }
+}
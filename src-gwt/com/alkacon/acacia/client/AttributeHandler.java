@@ -25,10 +25,18 @@
 package com.alkacon.acacia.client;
 
 import com.alkacon.acacia.client.UndoRedoHandler.ChangeType;
+import com.alkacon.acacia.client.UndoRedoHandler.StorageMode;
 import com.alkacon.acacia.client.css.I_LayoutBundle;
 import com.alkacon.acacia.client.ui.AttributeValueView;
 import com.alkacon.acacia.client.ui.InlineEntityWidget;
+import com.alkacon.acacia.client.ui.ValuePanel;
 import com.alkacon.acacia.client.widgets.I_FormEditWidget;
+import com.alkacon.acacia.shared.AttributeConfiguration;
+import com.alkacon.acacia.shared.AttributePath;
+import com.alkacon.acacia.shared.Entity;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.EntityPatchOperation;
+import com.alkacon.acacia.shared.EntityPatchOperation.OperationType;
 import com.alkacon.acacia.shared.Type;
 import com.alkacon.geranium.client.dnd.DNDHandler;
 import com.alkacon.geranium.client.dnd.DNDHandler.Orientation;
@@ -40,6 +48,7 @@ import com.alkacon.vie.shared.I_EntityAttribute;
 import com.alkacon.vie.shared.I_Type;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.gwt.dom.client.Element;
@@ -47,6 +56,7 @@ import com.google.gwt.dom.client.Style.Position;
 import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.event.logical.shared.ResizeHandler;
 import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.Widget;
 
@@ -55,6 +65,24 @@ import com.google.gwt.user.client.ui.Widget;
  */
 public class AttributeHandler extends RootHandler {
 
+    /** The number of value views initially rendered for attributes rendering their values within a window. */
+    public static final int VALUE_WINDOW_SIZE = 25;
+
+    /** The value count above which the values of an attribute are rendered when scrolled into view. */
+    public static final int VALUE_WINDOW_THRESHOLD = 50;
+
+    /** The value height used to size the spacers of the value window, until the rendered values have been measured. */
+    private static final int ESTIMATED_VALUE_HEIGHT = 40;
+
+    /** The maximum length of the summary displayed for collapsed entity values. */
+    private static final int SUMMARY_MAX_LENGTH = 100;
+
+    /** The maximum number of nested values shown in the summary of collapsed entity values, if no summary attributes are configured. */
+    private static final int SUMMARY_MAX_VALUES = 3;
+
+    /** The distance in pixels around the viewport within which values are rendered. */
+    private static final int VIEWPORT_MARGIN = 500;
+
     /** The global widget resize handler. */
     private static ResizeHandler m_resizeHandler;
 
@@ -70,6 +98,9 @@ public class AttributeHandler extends RootHandler {
     /** Registered attribute values. */
     private List<AttributeValueView> m_attributeValueViews;
 
+    /** The spacer standing in for the values below the value window, <code>null</code> if not rendered within a window. */
+    private FlowPanel m_bottomSpacer;
+
     /** The attribute drag and drop handler. */
     private DNDHandler m_dndHandler;
 
@@ -79,18 +110,48 @@ public class AttributeHandler extends RootHandler {
     /** The entity type. */
     private I_Type m_entityType;
 
+    /** The normalized attribute path of this handler within the path index, <code>null</code> if not indexed. */
+    private AttributePath m_handlerPath;
+
+    /** The normalized simple path of this handler within the path index, <code>null</code> if not indexed. */
+    private AttributePath m_handlerSimplePath;
+
     /** The parent attribute handler. */
     private I_AttributeHandler m_parentHandler;
 
+    /** The index of the form tab the attribute values will be rendered to when first selected, -1 if rendered. */
+    private int m_pendingTabIndex;
+
     /** The single value index. */
     private int m_singleValueIndex;
 
+    /** The pool size read from the layout, see {@link #readValueWindow()}. */
+    private int m_targetPoolSize;
+
+    /** The window start read from the layout, <code>-1</code> if the window is not to be changed. */
+    private int m_targetWindowStart;
+
+    /** The spacer standing in for the values above the value window, <code>null</code> if not rendered within a window. */
+    private FlowPanel m_topSpacer;
+
+    /** Flag indicating one of the value views is dragged. */
+    private boolean m_valueDragging;
+
+    /** The average value height measured, used to size the spacers of the value window. */
+    private int m_valueHeight;
+
+    /** Flag indicating the values are rendered within a window following the viewport. */
+    private boolean m_valueWindow;
+
     /** The VIE instance. */
     private I_Vie m_vie;
 
     /** The widget service. */
     private I_WidgetService m_widgetService;
 
+    /** The index of the value bound to the first value view, if the values are rendered within a window. */
+    private int m_windowStart;
+
     /**
      * Constructor.<p>
      * 
@@ -103,6 +164,8 @@ public class AttributeHandler extends RootHandler {
 
         // single value handling is disable by default
         m_singleValueIndex = -1;
+        m_pendingTabIndex = -1;
+        m_targetWindowStart = -1;
         m_vie = vie;
         m_entity = entity;
         m_attributeName = attributeName;
@@ -153,6 +216,33 @@ public class AttributeHandler extends RootHandler {
         return m_resizeHandler != null;
     }
 
+    /**
+     * Marks the given tab as containing errors.<p>
+     * 
+     * @param tabbedPanel the tabbed panel
+     * @param tabIndex the tab index
+     */
+    public static void markTabError(TabbedPanel<?> tabbedPanel, int tabIndex) {
+
+        Widget tab = tabbedPanel.getTabWidget(tabIndex);
+        tab.setTitle("This tab has errors.");
+        tab.getParent().removeStyleName(I_LayoutBundle.INSTANCE.form().hasWarning());
+        tab.getParent().addStyleName(I_LayoutBundle.INSTANCE.form().hasError());
+    }
+
+    /**
+     * Marks the given tab as containing warnings.<p>
+     * 
+     * @param tabbedPanel the tabbed panel
+     * @param tabIndex the tab index
+     */
+    public static void markTabWarning(TabbedPanel<?> tabbedPanel, int tabIndex) {
+
+        Widget tab = tabbedPanel.getTabWidget(tabIndex);
+        tab.setTitle("This tab has warnings.");
+        tab.getParent().addStyleName(I_LayoutBundle.INSTANCE.form().hasWarning());
+    }
+
     /**
      * Sets the global widget resize handler.<p>
      * 
@@ -183,6 +273,16 @@ public class AttributeHandler extends RootHandler {
         return m_entity.getId();
     }
 
+    /**
+     * @see com.alkacon.acacia.client.RootHandler#getValidationHandler()
+     */
+    @Override
+    public ValidationHandler getValidationHandler() {
+
+        // the validation handler is set on the root handler of the form
+        return m_parentHandler instanceof RootHandler ? ((RootHandler)m_parentHandler).getValidationHandler() : null;
+    }
+
     /**
      * @see com.alkacon.acacia.client.RootHandler#setHandlerById(java.lang.String, com.alkacon.acacia.client.AttributeHandler)
      */
@@ -206,7 +306,15 @@ public class AttributeHandler extends RootHandler {
         I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
         boolean mayHaveMore = ((attribute == null) || (attribute.getValueCount() < maxOccurrence));
         if (mayHaveMore) {
-            if (getAttributeType().isSimpleType()) {
+            if (m_valueWindow && getAttributeType().isSimpleType()) {
+                // the pooled value views are bound to the following values again
+                int valueIndex = reference.getValueIndex() + 1;
+                m_entity.insertAttributeValue(
+                    m_attributeName,
+                    m_widgetService.getDefaultAttributeValue(m_attributeName),
+                    valueIndex);
+                rebindValueViews(valueIndex);
+            } else if (getAttributeType().isSimpleType()) {
                 String defaultValue = m_widgetService.getDefaultAttributeValue(m_attributeName);
                 I_FormEditWidget widget = m_widgetService.getAttributeFormWidget(m_attributeName);
                 int valueIndex = -1;
@@ -230,6 +338,7 @@ public class AttributeHandler extends RootHandler {
                         ((FlowPanel)reference.getParent()).add(valueWidget);
                     } else {
                         ((FlowPanel)reference.getParent()).insert(valueWidget, valueIndex);
+                        updateValueViewIndex(valueWidget, valueIndex);
                     }
 
                 }
@@ -238,10 +347,8 @@ public class AttributeHandler extends RootHandler {
                 I_Entity value = m_vie.createEntity(null, getAttributeType().getId());
                 insertValueAfterReference(value, reference);
             }
-            UndoRedoHandler handler = UndoRedoHandler.getInstance();
-            if (handler.isIntitalized()) {
-                handler.addChange(m_entity.getId(), m_attributeName, reference.getValueIndex() + 1, ChangeType.add);
-            }
+            markValidationDirty();
+            addUndoInsertChange(reference.getValueIndex(), ChangeType.add);
         }
         updateButtonVisisbility();
     }
@@ -275,6 +382,7 @@ public class AttributeHandler extends RootHandler {
                 }
                 insertHandlers(referenceIndex + 1);
             }
+            markValidationDirty();
         }
     }
 
@@ -293,11 +401,42 @@ public class AttributeHandler extends RootHandler {
             addComplexChoiceValue(reference, choicePath);
         }
         updateButtonVisisbility();
-        UndoRedoHandler handler = UndoRedoHandler.getInstance();
-        if (handler.isIntitalized()) {
-            handler.addChange(m_entity.getId(), m_attributeName, reference.getValueIndex() + 1, ChangeType.choice);
-        }
+        markValidationDirty();
+        addUndoInsertChange(reference.getValueIndex(), ChangeType.choice);
+    }
+
+    /**
+     * Applies an undo/redo operation on the values of this attribute and re-renders the changed values only.<p>
+     * 
+     * @param operation the operation
+     * 
+     * @return <code>false</code> if the operation could not be applied and a complete form re-render is required
+     */
+    public boolean applyOperation(EntityPatchOperation operation) {
 
+        if (getEntityType().isChoice()) {
+            return false;
+        }
+        if (OperationType.replace.equals(operation.getType()) && hasValueView(operation.getIndex())) {
+            changeValue(operation.getSimpleValue(), operation.getIndex());
+            return true;
+        }
+        // apply the operation to a copy of the attribute values, the changed values are rendered from the copy
+        Entity values = new Entity(m_entity.getId(), m_entity.getTypeName());
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
+        if (attribute != null) {
+            if (attribute.isSimpleValue()) {
+                for (String value : attribute.getSimpleValues()) {
+                    values.addAttributeValue(m_attributeName, value);
+                }
+            } else {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    values.addAttributeValue(m_attributeName, value);
+                }
+            }
+        }
+        new EntityPatch(Collections.singletonList(operation)).apply(values);
+        return rerenderValues(values.getAttribute(m_attributeName));
     }
 
     /**
@@ -319,10 +458,21 @@ public class AttributeHandler extends RootHandler {
      */
     public void handleValueChange(int valueIndex, String value) {
 
+        EntityPatchOperation inverseOperation = null;
+        if (isRecordingUndoOperations()) {
+            inverseOperation = createReplaceOperation(getEntityValue(valueIndex), valueIndex);
+        }
         changeEntityValue(value, valueIndex);
+        markValidationDirty();
         UndoRedoHandler handler = UndoRedoHandler.getInstance();
         if (handler.isIntitalized()) {
-            handler.addChange(m_entity.getId(), m_attributeName, valueIndex, ChangeType.value);
+            handler.addChange(
+                m_entity.getId(),
+                m_attributeName,
+                valueIndex,
+                ChangeType.value,
+                inverseOperation != null ? createReplaceOperation(value, valueIndex) : null,
+                inverseOperation);
         }
     }
 
@@ -334,8 +484,12 @@ public class AttributeHandler extends RootHandler {
      */
     public void changeValue(String value, int valueIndex) {
 
-        m_attributeValueViews.get(valueIndex).getValueWidget().setValue(value, false);
+        AttributeValueView valueView = getValueView(valueIndex);
+        if (valueView != null) {
+            valueView.getValueWidget().setValue(value, false);
+        }
         changeEntityValue(value, valueIndex);
+        markValidationDirty();
     }
 
     /**
@@ -364,11 +518,42 @@ public class AttributeHandler extends RootHandler {
         }
     }
 
+    /**
+     * Renders the attribute values within a window following the viewport, starting with the value views rendered so far.<p>
+     * 
+     * The rendered value views form a pool, that is bound to the values scrolled into view.
+     * The values above and below the window are represented by spacers sized according to the average value height,
+     * so the scroll height stays stable. See {@link #readValueWindow()} and {@link #writeValueWindow()}.<p>
+     * 
+     * @param valuePanel the panel containing the rendered value views
+     */
+    public void deferValueRendering(FlowPanel valuePanel) {
+
+        if (m_valueWindow) {
+            return;
+        }
+        m_topSpacer = new FlowPanel();
+        valuePanel.insert(m_topSpacer, 0);
+        m_bottomSpacer = new FlowPanel();
+        valuePanel.add(m_bottomSpacer);
+        m_windowStart = 0;
+        m_valueHeight = ESTIMATED_VALUE_HEIGHT;
+        m_valueWindow = true;
+        updateValueSpacers();
+        ValueWindowHandler.getInstance().register(this);
+    }
+
     /**
      * Destroys the attribute handler instance.<p>
      */
     public void destroy() {
 
+        if (m_valueWindow) {
+            ValueWindowHandler.getInstance().unregister(this);
+            m_valueWindow = false;
+        }
+        m_topSpacer = null;
+        m_bottomSpacer = null;
         m_attributeName = null;
         m_attributeType = null;
         m_attributeValueViews.clear();
@@ -380,6 +565,21 @@ public class AttributeHandler extends RootHandler {
         m_widgetService = null;
     }
 
+    /**
+     * Expands the collapsed entity value with the given index, rendering its form.<p>
+     * 
+     * Values outside of the value window are left unchanged.<p>
+     * 
+     * @param valueIndex the value index
+     */
+    public void expandValue(int valueIndex) {
+
+        AttributeValueView valueView = getValueView(valueIndex);
+        if (valueView != null) {
+            valueView.expandValueEntity();
+        }
+    }
+
     /**
      * Returns the attribute name.<p>
      * 
@@ -390,6 +590,40 @@ public class AttributeHandler extends RootHandler {
         return m_attributeName;
     }
 
+    /**
+     * Returns the path of this attribute, as used for attribute validation.<p>
+     * 
+     * The path consists of the attribute names of all parent handlers followed by the index
+     * of the value containing the next level, and this handler's attribute name without index.<p>
+     * 
+     * @return the attribute path
+     */
+    public String[] getAttributePath() {
+
+        List<String> path = new ArrayList<String>();
+        path.add(m_attributeName);
+        I_Entity entity = m_entity;
+        I_AttributeHandler parent = m_parentHandler;
+        while (parent instanceof AttributeHandler) {
+            AttributeHandler parentHandler = (AttributeHandler)parent;
+            int index = 0;
+            I_EntityAttribute attribute = parentHandler.m_entity.getAttribute(parentHandler.m_attributeName);
+            if ((attribute != null) && attribute.isComplexValue()) {
+                List<I_Entity> values = attribute.getComplexValues();
+                for (int i = 0; i < values.size(); i++) {
+                    if (values.get(i).getId().equals(entity.getId())) {
+                        index = i;
+                        break;
+                    }
+                }
+            }
+            path.add(0, parentHandler.m_attributeName + "[" + index + "]");
+            entity = parentHandler.m_entity;
+            parent = parentHandler.m_parentHandler;
+        }
+        return path.toArray(new String[path.size()]);
+    }
+
     /**
      * Returns the attribute type.<p>
      * 
@@ -419,6 +653,48 @@ public class AttributeHandler extends RootHandler {
         return m_dndHandler;
     }
 
+    /**
+     * Returns the index a dragged value is dropped at, according to the current placeholder position.<p>
+     * 
+     * The dragged value is still counted at its original index. If the values are rendered within a window,
+     * drop positions within the spacers are mapped to the values they stand in for, using the average value height.<p>
+     * 
+     * @param target the value panel
+     * @param placeholder the drag and drop placeholder
+     * 
+     * @return the value index
+     */
+    public int getDropValueIndex(ValuePanel target, Element placeholder) {
+
+        if (!m_valueWindow) {
+            return target.getPlaceholderIndex();
+        }
+        int position = target.getDragPositionY() + Window.getScrollTop();
+        Element topSpacer = m_topSpacer.getElement();
+        if (position < (topSpacer.getAbsoluteTop() + topSpacer.getOffsetHeight())) {
+            int index = ((position - topSpacer.getAbsoluteTop()) + (m_valueHeight / 2)) / m_valueHeight;
+            return Math.max(0, Math.min(index, m_windowStart));
+        }
+        int bottomSpacerTop = m_bottomSpacer.getElement().getAbsoluteTop();
+        if (position >= bottomSpacerTop) {
+            int index = m_windowStart
+                + m_attributeValueViews.size()
+                + (((position - bottomSpacerTop) + (m_valueHeight / 2)) / m_valueHeight);
+            return Math.min(index, getValueCount());
+        }
+        // within the window, the placeholder follows the view of the preceding value
+        Element previous = placeholder.getPreviousSiblingElement();
+        while ((previous != null) && (previous != topSpacer)) {
+            for (AttributeValueView valueView : m_attributeValueViews) {
+                if (valueView.getElement() == previous) {
+                    return valueView.getValueIndex() + 1;
+                }
+            }
+            previous = previous.getPreviousSiblingElement();
+        }
+        return m_windowStart;
+    }
+
     /**
      * Gets the maximum occurrence of the attribute.<p>
      * 
@@ -429,6 +705,66 @@ public class AttributeHandler extends RootHandler {
         return getEntityType().getAttributeMaxOccurrence(m_attributeName);
     }
 
+    /**
+     * Returns the index of the form tab the attribute values will be rendered to when the tab is first selected.<p>
+     * 
+     * @return the tab index, <code>-1</code> if the attribute values have been rendered
+     */
+    public int getPendingTabIndex() {
+
+        return m_pendingTabIndex;
+    }
+
+    /**
+     * Returns the summary text displayed for the given collapsed entity value.<p>
+     * 
+     * The summary consists of the simple values of the configured summary attributes,
+     * or of the first simple values of the entity if none are configured.<p>
+     * 
+     * @param value the entity value
+     * 
+     * @return the summary text
+     */
+    public String getValueSummary(I_Entity value) {
+
+        List<String> attributeNames = null;
+        int maxValues = SUMMARY_MAX_VALUES;
+        AttributeConfiguration config = m_widgetService instanceof I_ExtendedWidgetService
+        ? ((I_ExtendedWidgetService)m_widgetService).getAttributeConfiguration(m_attributeName)
+        : null;
+        if ((config != null) && (config.getSummaryAttributes() != null) && !config.getSummaryAttributes().isEmpty()) {
+            attributeNames = config.getSummaryAttributes();
+            maxValues = attributeNames.size();
+        } else {
+            attributeNames = m_vie.getType(value.getTypeName()).getAttributeNames();
+        }
+        StringBuffer summary = new StringBuffer();
+        int count = 0;
+        for (String attributeName : attributeNames) {
+            I_EntityAttribute attribute = value.getAttribute(attributeName);
+            if ((attribute != null) && attribute.isSimpleValue()) {
+                String text = attribute.getSimpleValue().replaceAll("\\<.*?\\>", "").trim();
+                if (text.length() > 0) {
+                    if (summary.length() > 0) {
+                        summary.append(" | ");
+                    }
+                    summary.append(text);
+                    count++;
+                    if (count >= maxValues) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (summary.length() > SUMMARY_MAX_LENGTH) {
+            summary.setLength(SUMMARY_MAX_LENGTH);
+            summary.append("...");
+        } else if (summary.length() == 0) {
+            summary.append("...");
+        }
+        return summary.toString();
+    }
+
     /**
      * Gets the widget service.<p>
      * 
@@ -453,13 +789,18 @@ public class AttributeHandler extends RootHandler {
     /**
      * Returns if there is a value view widget registered for the given index.<p>
      * 
+     * Values outside of the value window are considered as well, they are bound to a view once scrolled into view.<p>
+     * 
      * @param valueIndex the value index
      * 
      * @return <code>true</code> if there is a value view widget registered for the given index
      */
     public boolean hasValueView(int valueIndex) {
 
-        return m_attributeValueViews.size() > valueIndex;
+        if (getValueView(valueIndex) != null) {
+            return true;
+        }
+        return m_valueWindow && (valueIndex < getValueCount());
     }
 
     /**
@@ -472,6 +813,35 @@ public class AttributeHandler extends RootHandler {
         return Type.CHOICE_ATTRIBUTE_NAME.equals(m_attributeName);
     }
 
+    /**
+     * Returns if the nested entity values of this attribute are rendered collapsed, showing only a summary until expanded.<p>
+     * 
+     * @return <code>true</code> if the entity values are rendered collapsed
+     */
+    public boolean isCollapsedValueRendering() {
+
+        return !getAttributeType().isSimpleType()
+            && !getAttributeType().isChoice()
+            && !isChoiceHandler()
+            && (m_widgetService instanceof I_ExtendedWidgetService)
+            && ((I_ExtendedWidgetService)m_widgetService).isDisplayCollapsed(m_attributeName);
+    }
+
+    /**
+     * Returns if the values should be rendered within a window following the viewport, for the given value count.<p>
+     * 
+     * @param valueCount the attribute value count
+     * 
+     * @return <code>true</code> if the values should be rendered within a window
+     */
+    public boolean isDeferredValueRendering(int valueCount) {
+
+        return (valueCount > VALUE_WINDOW_THRESHOLD)
+            && !isSingleValueHandler()
+            && !isChoiceHandler()
+            && !m_widgetService.isDisplayCompact(m_attributeName);
+    }
+
     /**
      * Moves the give attribute value from one position to another.<p>
      * 
@@ -484,80 +854,22 @@ public class AttributeHandler extends RootHandler {
         if (currentPosition == targetPosition) {
             return;
         }
-        FlowPanel parent = (FlowPanel)valueView.getParent();
-
-        valueView.removeFromParent();
-        m_attributeValueViews.remove(valueView);
-        AttributeValueView valueWidget = null;
-        if (isChoiceHandler()) {
-            removeHandlers(currentPosition);
-            I_Entity value = m_entity.getAttribute(m_attributeName).getComplexValues().get(currentPosition);
-            m_entity.removeAttributeValue(m_attributeName, currentPosition);
-            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
-            String attributeChoice = getChoiceName(targetPosition);
-            I_Type optionType = getAttributeType().getAttributeType(attributeChoice);
-            valueWidget = new AttributeValueView(
-                this,
-                m_widgetService.getAttributeLabel(attributeChoice),
-                m_widgetService.getAttributeHelp(attributeChoice));
-            if (optionType.isSimpleType() && m_widgetService.isDisplaySingleLine(attributeChoice)) {
-                valueWidget.setCompactMode(AttributeValueView.COMPACT_MODE_SINGLE_LINE);
-            }
-            parent.insert(valueWidget, targetPosition);
-            insertHandlers(targetPosition);
-            if (optionType.isSimpleType()) {
-                valueWidget.setValueWidget(
-                    m_widgetService.getAttributeFormWidget(attributeChoice),
-                    value.getAttribute(attributeChoice).getSimpleValue(),
-                    m_widgetService.getDefaultAttributeValue(attributeChoice),
-                    true);
-            } else {
-                valueWidget.setValueEntity(
-                    m_widgetService.getRendererForAttribute(attributeChoice, getAttributeType()),
-                    value.getAttribute(attributeChoice).getComplexValue());
-            }
-
-            List<ChoiceMenuEntryBean> menuEntries = Renderer.getChoiceEntries(getAttributeType(), true);
-            for (ChoiceMenuEntryBean menuEntry : menuEntries) {
-                valueWidget.addChoice(m_widgetService, menuEntry);
-            }
-        } else if (getAttributeType().isSimpleType()) {
-            String value = m_entity.getAttribute(m_attributeName).getSimpleValues().get(currentPosition);
-            m_entity.removeAttributeValue(m_attributeName, currentPosition);
-            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
-            valueWidget = new AttributeValueView(
-                this,
-                m_widgetService.getAttributeLabel(m_attributeName),
-                m_widgetService.getAttributeHelp(m_attributeName));
-            if (m_widgetService.isDisplaySingleLine(m_attributeName)) {
-                valueWidget.setCompactMode(AttributeValueView.COMPACT_MODE_SINGLE_LINE);
-            }
-            parent.insert(valueWidget, targetPosition);
-            valueWidget.setValueWidget(
-                m_widgetService.getAttributeFormWidget(m_attributeName),
-                value,
-                m_widgetService.getDefaultAttributeValue(m_attributeName),
-                true);
+        if (m_valueWindow) {
+            moveWindowedValue(currentPosition, targetPosition);
         } else {
-            removeHandlers(currentPosition);
-            I_Entity value = m_entity.getAttribute(m_attributeName).getComplexValues().get(currentPosition);
-            m_entity.removeAttributeValue(m_attributeName, currentPosition);
-            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
-            valueWidget = new AttributeValueView(
-                this,
-                m_widgetService.getAttributeLabel(m_attributeName),
-                m_widgetService.getAttributeHelp(m_attributeName));
-            parent.insert(valueWidget, targetPosition);
-            insertHandlers(targetPosition);
-            valueWidget.setValueEntity(
-                m_widgetService.getRendererForAttribute(m_attributeName, getAttributeType()),
-                value);
-
+            moveValueView(valueView, currentPosition, targetPosition);
         }
         updateButtonVisisbility();
+        markValidationDirty();
         UndoRedoHandler handler = UndoRedoHandler.getInstance();
         if (handler.isIntitalized()) {
-            handler.addChange(m_entity.getId(), m_attributeName, 0, ChangeType.sort);
+            handler.addChange(
+                m_entity.getId(),
+                m_attributeName,
+                0,
+                ChangeType.sort,
+                EntityPatchOperation.createMove(m_entity.getId(), m_attributeName, currentPosition, targetPosition),
+                EntityPatchOperation.createMove(m_entity.getId(), m_attributeName, targetPosition, currentPosition));
         }
     }
 
@@ -572,6 +884,11 @@ public class AttributeHandler extends RootHandler {
         if (index >= (m_entity.getAttribute(m_attributeName).getValueCount() - 1)) {
             return;
         }
+        if (getValueView(index + 1) == null) {
+            // the next value is outside of the value window, there is no view to animate against
+            moveAttributeValue(reference, index, index + 1);
+            return;
+        }
         reference.hideAllButtons();
         Element parent = reference.getElement().getParentElement();
         parent.getStyle().setPosition(Position.RELATIVE);
@@ -594,10 +911,6 @@ public class AttributeHandler extends RootHandler {
 
             }
         }).run(200);
-        UndoRedoHandler handler = UndoRedoHandler.getInstance();
-        if (handler.isIntitalized()) {
-            handler.addChange(m_entity.getId(), m_attributeName, 0, ChangeType.sort);
-        }
     }
 
     /**
@@ -611,6 +924,11 @@ public class AttributeHandler extends RootHandler {
         if (index == 0) {
             return;
         }
+        if (getValueView(index - 1) == null) {
+            // the previous value is outside of the value window, there is no view to animate against
+            moveAttributeValue(reference, index, index - 1);
+            return;
+        }
         reference.hideAllButtons();
         Element parent = reference.getElement().getParentElement();
         parent.getStyle().setPosition(Position.RELATIVE);
@@ -633,10 +951,49 @@ public class AttributeHandler extends RootHandler {
 
             }
         }).run(200);
-        UndoRedoHandler handler = UndoRedoHandler.getInstance();
-        if (handler.isIntitalized()) {
-            handler.addChange(m_entity.getId(), m_attributeName, 0, ChangeType.sort);
+    }
+
+    /**
+     * Reads the layout to determine the values the pooled value views should be bound to.<p>
+     * 
+     * To be called within the read phase of the {@link LayoutScheduler}, followed by {@link #writeValueWindow()}.
+     * The window covers the viewport extended by a margin. The pool grows to cover the window,
+     * it does not shrink while scrolling.<p>
+     * 
+     * @return <code>false</code> if the values are no longer rendered within a window
+     */
+    public boolean readValueWindow() {
+
+        m_targetWindowStart = -1;
+        if (!m_valueWindow || m_attributeValueViews.isEmpty() || !m_attributeValueViews.get(0).isAttached()) {
+            // not windowed or the form has been removed
+            return false;
+        }
+        if (m_valueDragging || (m_topSpacer.getParent().getOffsetHeight() == 0)) {
+            // the dragged view has to keep its value, or the values are hidden, for example within an inactive tab
+            return true;
         }
+        int windowTop = Window.getScrollTop();
+        int windowBottom = windowTop + Window.getClientHeight();
+        if ((m_scrollElement != null) && (m_scrollElement.getOffsetHeight() > 0)) {
+            windowTop = Math.max(windowTop, m_scrollElement.getAbsoluteTop());
+            windowBottom = Math.min(windowBottom, m_scrollElement.getAbsoluteTop() + m_scrollElement.getOffsetHeight());
+        }
+        windowTop -= VIEWPORT_MARGIN;
+        windowBottom += VIEWPORT_MARGIN;
+        AttributeValueView first = m_attributeValueViews.get(0);
+        AttributeValueView last = m_attributeValueViews.get(m_attributeValueViews.size() - 1);
+        int viewsHeight = (last.getAbsoluteTop() + last.getOffsetHeight()) - first.getAbsoluteTop();
+        if (viewsHeight > 0) {
+            m_valueHeight = Math.max(viewsHeight / m_attributeValueViews.size(), 1);
+        }
+        int valueCount = getValueCount();
+        m_targetPoolSize = Math.min(
+            valueCount,
+            Math.max(m_attributeValueViews.size(), ((windowBottom - windowTop) / m_valueHeight) + 1));
+        int start = (windowTop - m_topSpacer.getAbsoluteTop()) / m_valueHeight;
+        m_targetWindowStart = Math.max(0, Math.min(start, valueCount - m_targetPoolSize));
+        return true;
     }
 
     /**
@@ -646,9 +1003,25 @@ public class AttributeHandler extends RootHandler {
      */
     public void registerAttributeValue(AttributeValueView attributeValue) {
 
+        // views are registered when created, the index is adjusted if the view is not appended as last value
+        attributeValue.setValueIndex(m_windowStart + m_attributeValueViews.size());
         m_attributeValueViews.add(attributeValue);
     }
 
+    /**
+     * Releases the editing widgets of all value views of this attribute for reuse.<p>
+     * 
+     * To be called once the value views are discarded.<p>
+     */
+    public void releaseValueWidgets() {
+
+        if (m_attributeValueViews != null) {
+            for (AttributeValueView valueView : m_attributeValueViews) {
+                valueView.releaseValueWidget();
+            }
+        }
+    }
+
     /**
      * Removes the reference attribute value view.<p>
      * 
@@ -656,66 +1029,89 @@ public class AttributeHandler extends RootHandler {
      */
     public void removeAttributeValue(AttributeValueView reference) {
 
-        AttributeHandler parentHandler = null;
-        AttributeValueView parentView = null;
-        boolean removeParent = false;
+        removeAttributeValue(reference, false);
+    }
 
-        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
-        if (isChoiceHandler() && attribute.isSingleValue()) {
-            // removing last choice value, so remove choice itself 
-            parentHandler = (AttributeHandler)m_parentHandler;
-            parentView = reference.getParentView();
-            removeParent = true;
-        }
+    /**
+     * Removes the attribute value with the given index.<p>
+     * This will not execute any DOM manipulations.<p>
+     * 
+     * @param valueIndex the index of the attribute value to remove
+     */
+    public void removeAttributeValue(int valueIndex) {
 
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
         if (attribute.isSingleValue()) {
-
-            reference.removeValue();
-            if (!attribute.isSimpleValue()) {
+            if (attribute.isComplexValue()) {
                 removeHandlers(0);
             }
             m_entity.removeAttribute(m_attributeName);
         } else {
-            int index = reference.getValueIndex();
             if (attribute.isComplexValue()) {
-                removeHandlers(index);
+                removeHandlers(valueIndex);
             }
-            m_entity.removeAttributeValue(m_attributeName, index);
-            reference.removeFromParent();
-            m_attributeValueViews.remove(reference);
-
-        }
-        updateButtonVisisbility();
-        if (removeParent && (parentHandler != null) && (parentView != null)) {
-            parentHandler.removeAttributeValue(parentView);
-            parentView.setCollapsed(false);
-        }
-        UndoRedoHandler handler = UndoRedoHandler.getInstance();
-        if (handler.isIntitalized()) {
-            handler.addChange(m_entity.getId(), m_attributeName, 0, ChangeType.remove);
+            m_entity.removeAttributeValue(m_attributeName, valueIndex);
         }
+        markValidationDirty();
     }
 
     /**
-     * Removes the attribute value with the given index.<p>
-     * This will not execute any DOM manipulations.<p>
+     * Replaces the attribute values with the given ones and re-renders the values of this attribute only.<p>
+     * Used to apply structural undo/redo changes without re-rendering the whole form.<p>
      * 
-     * @param valueIndex the index of the attribute value to remove
+     * @param attribute the new attribute values, <code>null</code> if the attribute has no values
+     * 
+     * @return <code>false</code> if the values could not be re-rendered and a complete form re-render is required
      */
-    public void removeAttributeValue(int valueIndex) {
+    public boolean rerenderValues(I_EntityAttribute attribute) {
 
-        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
-        if (attribute.isSingleValue()) {
-            if (attribute.isComplexValue()) {
-                removeHandlers(0);
-            }
-            m_entity.removeAttribute(m_attributeName);
-        } else {
-            if (attribute.isComplexValue()) {
-                removeHandlers(valueIndex);
+        if (isSingleValueHandler()
+            || isChoiceHandler()
+            || m_attributeValueViews.isEmpty()
+            || (getAttributeType().isSimpleType() && m_widgetService.isDisplayCompact(m_attributeName))) {
+            return false;
+        }
+        Widget firstView = m_attributeValueViews.get(0);
+        if (!firstView.isAttached() || !(firstView.getParent() instanceof ValuePanel)) {
+            // the handler has been replaced by an earlier re-render
+            return false;
+        }
+        I_EntityRenderer entityRenderer = m_widgetService.getRendererForType(getEntityType());
+        if (!(entityRenderer instanceof Renderer)) {
+            // the values are rendered by a custom renderer
+            return false;
+        }
+        ValuePanel parent = (ValuePanel)firstView.getParent();
+        ValueFocusHandler.getInstance().clearFocus();
+        m_entity.removeAttributeSilent(m_attributeName);
+        if (attribute != null) {
+            if (attribute.isSimpleValue()) {
+                for (String value : attribute.getSimpleValues()) {
+                    m_entity.addAttributeValue(m_attributeName, value);
+                }
+            } else {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    m_entity.addAttributeValue(m_attributeName, createValueEntity(value));
+                }
             }
-            m_entity.removeAttributeValue(m_attributeName, valueIndex);
         }
+        removeValueSpacers();
+        if (m_valueWindow) {
+            // the values are windowed again if still required
+            ValueWindowHandler.getInstance().unregister(this);
+            m_valueWindow = false;
+        }
+        for (AttributeValueView valueView : new ArrayList<AttributeValueView>(m_attributeValueViews)) {
+            valueView.removeFromParent();
+            valueView.releaseValueWidget();
+        }
+        m_attributeValueViews.clear();
+        clearHandlers();
+        I_EntityAttribute currentAttribute = m_entity.getAttribute(m_attributeName);
+        initHandlers(currentAttribute != null ? currentAttribute.getValueCount() : 0);
+        ((Renderer)entityRenderer).renderAttributeValues(m_entity, this, parent);
+        markValidationDirty();
+        return true;
     }
 
     /**
@@ -727,23 +1123,29 @@ public class AttributeHandler extends RootHandler {
      */
     public void setErrorMessage(int valueIndex, String message, TabbedPanel<?> tabbedPanel) {
 
-        if (!m_attributeValueViews.isEmpty()) {
-            FlowPanel parent = (FlowPanel)m_attributeValueViews.get(0).getParent();
-            AttributeValueView valueView = (AttributeValueView)parent.getWidget(valueIndex);
+        AttributeValueView valueView = getValueView(valueIndex);
+        if (valueView != null) {
             valueView.setErrorMessage(message);
             if (tabbedPanel != null) {
                 int tabIndex = tabbedPanel.getTabIndex(valueView.getElement());
                 if (tabIndex > -1) {
-                    Widget tab = tabbedPanel.getTabWidget(tabIndex);
-                    tab.setTitle("This tab has errors.");
-                    tab.getParent().removeStyleName(I_LayoutBundle.INSTANCE.form().hasWarning());
-                    tab.getParent().addStyleName(I_LayoutBundle.INSTANCE.form().hasError());
+                    markTabError(tabbedPanel, tabIndex);
                 }
 
             }
         }
     }
 
+    /**
+     * Sets the index of the form tab the attribute values will be rendered to when the tab is first selected.<p>
+     * 
+     * @param tabIndex the tab index, <code>-1</code> once the attribute values are rendered
+     */
+    public void setPendingTabIndex(int tabIndex) {
+
+        m_pendingTabIndex = tabIndex;
+    }
+
     /**
      * Sets the parent attribute handler.<p>
      * 
@@ -754,6 +1156,19 @@ public class AttributeHandler extends RootHandler {
         m_parentHandler = handler;
     }
 
+    /**
+     * Sets if one of the value views is dragged, the value window is kept while dragging.<p>
+     * 
+     * @param dragging <code>true</code> if a value view is dragged
+     */
+    public void setValueDragging(boolean dragging) {
+
+        m_valueDragging = dragging;
+        if (!dragging && m_valueWindow) {
+            ValueWindowHandler.getInstance().scheduleCheck();
+        }
+    }
+
     /**
      * Sets the warning message for the given value index.<p>
      * 
@@ -763,16 +1178,13 @@ public class AttributeHandler extends RootHandler {
      */
     public void setWarningMessage(int valueIndex, String message, TabbedPanel<?> tabbedPanel) {
 
-        if (!m_attributeValueViews.isEmpty()) {
-            FlowPanel parent = (FlowPanel)m_attributeValueViews.get(0).getParent();
-            AttributeValueView valueView = (AttributeValueView)parent.getWidget(valueIndex);
+        AttributeValueView valueView = getValueView(valueIndex);
+        if (valueView != null) {
             valueView.setWarningMessage(message);
             if (tabbedPanel != null) {
                 int tabIndex = tabbedPanel.getTabIndex(valueView.getElement());
                 if (tabIndex > -1) {
-                    Widget tab = tabbedPanel.getTabWidget(tabIndex);
-                    tab.setTitle("This tab has warnings.");
-                    tab.getParent().addStyleName(I_LayoutBundle.INSTANCE.form().hasWarning());
+                    markTabWarning(tabbedPanel, tabIndex);
                 }
 
             }
@@ -823,6 +1235,33 @@ public class AttributeHandler extends RootHandler {
         updateButtonVisibilty(null);
     }
 
+    /**
+     * Binds the pooled value views to the values determined by {@link #readValueWindow()}.<p>
+     * 
+     * To be called within the write phase of the {@link LayoutScheduler}, the layout is not read here.<p>
+     */
+    public void writeValueWindow() {
+
+        if (m_targetWindowStart < 0) {
+            return;
+        }
+        int windowStart = m_targetWindowStart;
+        m_targetWindowStart = -1;
+        if ((windowStart != m_windowStart) || (m_targetPoolSize > m_attributeValueViews.size())) {
+            moveValueWindow(windowStart);
+            while (m_attributeValueViews.size() < m_targetPoolSize) {
+                addPooledValueView();
+            }
+            updateButtonVisisbility();
+            ValidationHandler validationHandler = getValidationHandler();
+            if (validationHandler != null) {
+                // display the messages of the values bound to the recycled views
+                validationHandler.refreshValidation();
+            }
+        }
+        updateValueSpacers();
+    }
+
     /**
      * Returns if the attribute handler is handling a single value only.<p>
      * 
@@ -859,6 +1298,44 @@ public class AttributeHandler extends RootHandler {
         reference.showButtons();
     }
 
+    /**
+     * @see com.alkacon.acacia.client.RootHandler#getHandlerPath()
+     */
+    @Override
+    AttributePath getHandlerPath() {
+
+        return m_handlerPath;
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.RootHandler#getHandlerSimplePath()
+     */
+    @Override
+    AttributePath getHandlerSimplePath() {
+
+        return m_handlerSimplePath;
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.RootHandler#getIndexRoot()
+     */
+    @Override
+    RootHandler getIndexRoot() {
+
+        // the path index is maintained by the root handler of the form
+        return m_parentHandler instanceof RootHandler ? ((RootHandler)m_parentHandler).getIndexRoot() : null;
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.RootHandler#setHandlerPaths(com.alkacon.acacia.shared.AttributePath, com.alkacon.acacia.shared.AttributePath)
+     */
+    @Override
+    void setHandlerPaths(AttributePath path, AttributePath simplePath) {
+
+        m_handlerPath = path;
+        m_handlerSimplePath = simplePath;
+    }
+
     /**
      * Adds a new choice option.<p>
      * 
@@ -889,6 +1366,7 @@ public class AttributeHandler extends RootHandler {
 
         m_entity.insertAttributeValue(m_attributeName, choiceEntity, valueIndex);
         ((FlowPanel)reference.getParent()).insert(valueWidget, valueIndex);
+        updateValueViewIndex(valueWidget, valueIndex);
         insertHandlers(valueWidget.getValueIndex());
 
         if (optionType.isSimpleType()) {
@@ -939,6 +1417,113 @@ public class AttributeHandler extends RootHandler {
         }
     }
 
+    /**
+     * Adds a value view to the pool, bound to the value following the value window.<p>
+     */
+    private void addPooledValueView() {
+
+        FlowPanel parent = (FlowPanel)m_bottomSpacer.getParent();
+        AttributeValueView valueWidget = new AttributeValueView(
+            this,
+            m_widgetService.getAttributeLabel(m_attributeName),
+            m_widgetService.getAttributeHelp(m_attributeName));
+        // the view has been registered with the index following the window
+        int valueIndex = valueWidget.getValueIndex();
+        parent.insert(valueWidget, parent.getWidgetIndex(m_bottomSpacer));
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
+        if (attribute.isSimpleValue()) {
+            valueWidget.setValueWidget(
+                m_widgetService.getAttributeFormWidget(m_attributeName),
+                attribute.getSimpleValues().get(valueIndex),
+                m_widgetService.getDefaultAttributeValue(m_attributeName),
+                true);
+            if (m_widgetService.isDisplaySingleLine(m_attributeName)) {
+                valueWidget.setCompactMode(AttributeValueView.COMPACT_MODE_SINGLE_LINE);
+            }
+        } else {
+            I_Entity value = attribute.getComplexValues().get(valueIndex);
+            I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(m_attributeName, getAttributeType());
+            if (isCollapsedValueRendering()) {
+                valueWidget.setCollapsedValueEntity(renderer, value, getValueSummary(value));
+            } else {
+                valueWidget.setValueEntity(renderer, value);
+            }
+        }
+        Renderer.setAttributeChoice(m_widgetService, valueWidget, getAttributeType());
+    }
+
+    /**
+     * Adds the insertion of a value below the given reference index to the undo stack.<p>
+     * 
+     * @param referenceIndex the reference value index
+     * @param changeType the change type
+     */
+    private void addUndoInsertChange(int referenceIndex, ChangeType changeType) {
+
+        UndoRedoHandler handler = UndoRedoHandler.getInstance();
+        if (handler.isIntitalized()) {
+            EntityPatchOperation operation = null;
+            EntityPatchOperation inverseOperation = null;
+            if (isRecordingUndoOperations()) {
+                // the first value of an empty attribute is inserted at the reference index
+                int valueIndex = Math.min(
+                    referenceIndex + 1,
+                    m_entity.getAttribute(m_attributeName).getValueCount() - 1);
+                operation = createInsertOperation(valueIndex);
+                inverseOperation = EntityPatchOperation.createRemove(m_entity.getId(), m_attributeName, valueIndex);
+            }
+            handler.addChange(
+                m_entity.getId(),
+                m_attributeName,
+                referenceIndex + 1,
+                changeType,
+                operation,
+                inverseOperation);
+        }
+    }
+
+    /**
+     * Binds the pooled value views within the given position range to the values within the window.<p>
+     * 
+     * The handlers of the nested entity forms previously rendered by these views are discarded.<p>
+     * 
+     * @param fromPosition the first pool position
+     * @param toPosition the last pool position
+     */
+    private void bindValueViews(int fromPosition, int toPosition) {
+
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
+        AttributeValueView focus = ValueFocusHandler.getInstance().getFocus();
+        for (int i = fromPosition; i <= toPosition; i++) {
+            AttributeValueView valueView = m_attributeValueViews.get(i);
+            if (valueView == focus) {
+                ValueFocusHandler.getInstance().clearFocus();
+            }
+            if (attribute.isComplexValue()) {
+                resetHandlers(valueView.getValueIndex());
+            }
+        }
+        if (attribute.isSimpleValue()) {
+            List<String> values = attribute.getSimpleValues();
+            for (int i = fromPosition; i <= toPosition; i++) {
+                AttributeValueView valueView = m_attributeValueViews.get(i);
+                valueView.setValueIndex(m_windowStart + i);
+                valueView.rebindValue(values.get(m_windowStart + i));
+            }
+        } else {
+            List<I_Entity> values = attribute.getComplexValues();
+            I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(m_attributeName, getAttributeType());
+            boolean collapsed = isCollapsedValueRendering();
+            for (int i = fromPosition; i <= toPosition; i++) {
+                AttributeValueView valueView = m_attributeValueViews.get(i);
+                I_Entity value = values.get(m_windowStart + i);
+                valueView.setValueIndex(m_windowStart + i);
+                resetHandlers(m_windowStart + i);
+                valueView.rebindValueEntity(renderer, value, collapsed ? getValueSummary(value) : null);
+            }
+        }
+    }
+
     /**
      * Changes the attribute value.<p>
      * 
@@ -958,6 +1543,76 @@ public class AttributeHandler extends RootHandler {
         }
     }
 
+    /**
+     * Creates the operation inserting the current value with the given index.<p>
+     * 
+     * @param valueIndex the value index
+     * 
+     * @return the operation
+     */
+    private EntityPatchOperation createInsertOperation(int valueIndex) {
+
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
+        if (attribute.isSimpleValue()) {
+            return EntityPatchOperation.createInsert(
+                m_entity.getId(),
+                m_attributeName,
+                valueIndex,
+                attribute.getSimpleValues().get(valueIndex));
+        }
+        return EntityPatchOperation.createInsert(
+            m_entity.getId(),
+            m_attributeName,
+            valueIndex,
+            Entity.serializeEntity(attribute.getComplexValues().get(valueIndex)));
+    }
+
+    /**
+     * Creates the operation setting the value with the given index.<p>
+     * 
+     * @param value the value
+     * @param valueIndex the value index
+     * 
+     * @return the operation, <code>null</code> if the value can not be set
+     */
+    private EntityPatchOperation createReplaceOperation(String value, int valueIndex) {
+
+        if (getEntityType().isChoice()) {
+            I_Entity choice = m_entity.getAttribute(Type.CHOICE_ATTRIBUTE_NAME).getComplexValues().get(valueIndex);
+            String attributeName = getChoiceName(valueIndex);
+            if (attributeName == null) {
+                return null;
+            }
+            return EntityPatchOperation.createReplace(choice.getId(), attributeName, 0, value);
+        }
+        return EntityPatchOperation.createReplace(m_entity.getId(), m_attributeName, valueIndex, value);
+    }
+
+    /**
+     * Creates a new entity with the id and content of the given entity data.<p>
+     * 
+     * @param entityData the entity data
+     * 
+     * @return the new entity
+     */
+    private I_Entity createValueEntity(I_Entity entityData) {
+
+        // keep the id, so the entity still matches the stored undo/redo states
+        I_Entity result = m_vie.createEntity(entityData.getId(), entityData.getTypeName());
+        for (I_EntityAttribute attribute : entityData.getAttributes()) {
+            if (attribute.isSimpleValue()) {
+                for (String value : attribute.getSimpleValues()) {
+                    result.addAttributeValue(attribute.getAttributeName(), value);
+                }
+            } else {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    result.addAttributeValue(attribute.getAttributeName(), createValueEntity(value));
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the attribute choice name for the given index.<p>
      * 
@@ -994,6 +1649,68 @@ public class AttributeHandler extends RootHandler {
         return m_entityType;
     }
 
+    /**
+     * Returns the current value with the given index, as changed by {@link #changeEntityValue(String, int)}.<p>
+     * 
+     * @param valueIndex the value index
+     * 
+     * @return the value
+     */
+    private String getEntityValue(int valueIndex) {
+
+        if (getEntityType().isChoice()) {
+            I_Entity choice = m_entity.getAttribute(Type.CHOICE_ATTRIBUTE_NAME).getComplexValues().get(valueIndex);
+            String attributeName = getChoiceName(valueIndex);
+            return attributeName != null ? choice.getAttribute(attributeName).getSimpleValue() : null;
+        }
+        return m_entity.getAttribute(m_attributeName).getSimpleValues().get(valueIndex);
+    }
+
+    /**
+     * Returns the number of values of this attribute.<p>
+     * 
+     * @return the value count
+     */
+    private int getValueCount() {
+
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
+        return attribute != null ? attribute.getValueCount() : 0;
+    }
+
+    /**
+     * Returns the value view bound to the value with the given index.<p>
+     * 
+     * @param valueIndex the value index
+     * 
+     * @return the value view, <code>null</code> if the value is outside of the value window
+     */
+    private AttributeValueView getValueView(int valueIndex) {
+
+        int position = valueIndex - m_windowStart;
+        if ((position >= 0) && (position < m_attributeValueViews.size())) {
+            return m_attributeValueViews.get(position);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the position of the given view within the registered value views.<p>
+     * 
+     * @param valueView the value view
+     * 
+     * @return the position or <code>-1</code> if the view is not registered
+     */
+    private int indexOfValueView(AttributeValueView valueView) {
+
+        int index = valueView.getValueIndex() - m_windowStart;
+        if ((index >= 0)
+            && (index < m_attributeValueViews.size())
+            && (m_attributeValueViews.get(index) == valueView)) {
+            return index;
+        }
+        return m_attributeValueViews.indexOf(valueView);
+    }
+
     /**
      * Inserts an entity value after the given reference.<p>
      * 
@@ -1003,6 +1720,14 @@ public class AttributeHandler extends RootHandler {
     private void insertValueAfterReference(I_Entity value, AttributeValueView reference) {
 
         int valueIndex = -1;
+        if (m_valueWindow) {
+            // the pooled value views are bound to the following values again
+            valueIndex = reference.getValueIndex() + 1;
+            m_entity.insertAttributeValue(m_attributeName, value, valueIndex);
+            insertHandlers(valueIndex);
+            rebindValueViews(valueIndex);
+            return;
+        }
         if (reference.getElement().getNextSiblingElement() == null) {
             m_entity.addAttributeValue(m_attributeName, value);
         } else {
@@ -1020,6 +1745,7 @@ public class AttributeHandler extends RootHandler {
                 ((FlowPanel)reference.getParent()).add(valueWidget);
             } else {
                 ((FlowPanel)reference.getParent()).insert(valueWidget, valueIndex);
+                updateValueViewIndex(valueWidget, valueIndex);
             }
         }
         valueIndex = valueWidget.getValueIndex();
@@ -1028,6 +1754,329 @@ public class AttributeHandler extends RootHandler {
         valueWidget.setValueEntity(renderer, value);
     }
 
+    /**
+     * Returns if value changes are recorded as undo/redo operations, see {@link StorageMode#delta}.<p>
+     * 
+     * @return <code>true</code> if value changes are recorded as undo/redo operations
+     */
+    private boolean isRecordingUndoOperations() {
+
+        UndoRedoHandler handler = UndoRedoHandler.getInstance();
+        return handler.isIntitalized() && StorageMode.delta.equals(handler.getStorageMode());
+    }
+
+    /**
+     * Marks this attribute as changed for the incremental validation of the form.<p>
+     */
+    private void markValidationDirty() {
+
+        ValidationHandler validationHandler = getValidationHandler();
+        if (validationHandler != null) {
+            validationHandler.markDirty(this);
+        }
+    }
+
+    /**
+     * Moves the value view of the given attribute value from one position to another, replacing the view.<p>
+     * 
+     * @param valueView the value to move
+     * @param currentPosition the current position
+     * @param targetPosition the target position
+     */
+    private void moveValueView(AttributeValueView valueView, int currentPosition, int targetPosition) {
+
+        FlowPanel parent = (FlowPanel)valueView.getParent();
+
+        valueView.removeFromParent();
+        unregisterAttributeValue(valueView);
+        // the view is replaced, its widget may be reused for the new view
+        valueView.releaseValueWidget();
+        AttributeValueView valueWidget = null;
+        if (isChoiceHandler()) {
+            removeHandlers(currentPosition);
+            I_Entity value = m_entity.getAttribute(m_attributeName).getComplexValues().get(currentPosition);
+            m_entity.removeAttributeValue(m_attributeName, currentPosition);
+            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
+            String attributeChoice = getChoiceName(targetPosition);
+            I_Type optionType = getAttributeType().getAttributeType(attributeChoice);
+            valueWidget = new AttributeValueView(
+                this,
+                m_widgetService.getAttributeLabel(attributeChoice),
+                m_widgetService.getAttributeHelp(attributeChoice));
+            if (optionType.isSimpleType() && m_widgetService.isDisplaySingleLine(attributeChoice)) {
+                valueWidget.setCompactMode(AttributeValueView.COMPACT_MODE_SINGLE_LINE);
+            }
+            parent.insert(valueWidget, targetPosition);
+            updateValueViewIndex(valueWidget, targetPosition);
+            insertHandlers(targetPosition);
+            if (optionType.isSimpleType()) {
+                valueWidget.setValueWidget(
+                    m_widgetService.getAttributeFormWidget(attributeChoice),
+                    value.getAttribute(attributeChoice).getSimpleValue(),
+                    m_widgetService.getDefaultAttributeValue(attributeChoice),
+                    true);
+            } else {
+                valueWidget.setValueEntity(
+                    m_widgetService.getRendererForAttribute(attributeChoice, getAttributeType()),
+                    value.getAttribute(attributeChoice).getComplexValue());
+            }
+
+            List<ChoiceMenuEntryBean> menuEntries = Renderer.getChoiceEntries(getAttributeType(), true);
+            for (ChoiceMenuEntryBean menuEntry : menuEntries) {
+                valueWidget.addChoice(m_widgetService, menuEntry);
+            }
+        } else if (getAttributeType().isSimpleType()) {
+            String value = m_entity.getAttribute(m_attributeName).getSimpleValues().get(currentPosition);
+            m_entity.removeAttributeValue(m_attributeName, currentPosition);
+            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
+            valueWidget = new AttributeValueView(
+                this,
+                m_widgetService.getAttributeLabel(m_attributeName),
+                m_widgetService.getAttributeHelp(m_attributeName));
+            if (m_widgetService.isDisplaySingleLine(m_attributeName)) {
+                valueWidget.setCompactMode(AttributeValueView.COMPACT_MODE_SINGLE_LINE);
+            }
+            parent.insert(valueWidget, targetPosition);
+            updateValueViewIndex(valueWidget, targetPosition);
+            valueWidget.setValueWidget(
+                m_widgetService.getAttributeFormWidget(m_attributeName),
+                value,
+                m_widgetService.getDefaultAttributeValue(m_attributeName),
+                true);
+        } else {
+            removeHandlers(currentPosition);
+            I_Entity value = m_entity.getAttribute(m_attributeName).getComplexValues().get(currentPosition);
+            m_entity.removeAttributeValue(m_attributeName, currentPosition);
+            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
+            valueWidget = new AttributeValueView(
+                this,
+                m_widgetService.getAttributeLabel(m_attributeName),
+                m_widgetService.getAttributeHelp(m_attributeName));
+            parent.insert(valueWidget, targetPosition);
+            updateValueViewIndex(valueWidget, targetPosition);
+            insertHandlers(targetPosition);
+            I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(m_attributeName, getAttributeType());
+            if (valueView.isValueEntityCollapsed()) {
+                // keep collapsed values collapsed, avoiding to render their form
+                valueWidget.setCollapsedValueEntity(renderer, value, getValueSummary(value));
+            } else {
+                valueWidget.setValueEntity(renderer, value);
+            }
+
+        }
+    }
+
+    /**
+     * Moves the value window to start at the given value index.<p>
+     * 
+     * The views leaving the window are moved to the other end of the pool and bound to the values entering the window.
+     * The views of the values staying within the window are not changed.<p>
+     * 
+     * @param windowStart the index of the first value within the window
+     */
+    private void moveValueWindow(int windowStart) {
+
+        int shift = windowStart - m_windowStart;
+        int poolSize = m_attributeValueViews.size();
+        if (shift == 0) {
+            return;
+        }
+        if (Math.abs(shift) >= poolSize) {
+            // none of the values stays within the window, all views are bound in place
+            m_windowStart = windowStart;
+            bindValueViews(0, poolSize - 1);
+            return;
+        }
+        FlowPanel parent = (FlowPanel)m_topSpacer.getParent();
+        if (shift > 0) {
+            for (int i = 0; i < shift; i++) {
+                AttributeValueView valueView = m_attributeValueViews.remove(0);
+                m_attributeValueViews.add(valueView);
+                parent.insert(valueView, parent.getWidgetIndex(m_bottomSpacer));
+            }
+            m_windowStart = windowStart;
+            bindValueViews(poolSize - shift, poolSize - 1);
+        } else {
+            for (int i = 0; i < -shift; i++) {
+                AttributeValueView valueView = m_attributeValueViews.remove(poolSize - 1);
+                m_attributeValueViews.add(0, valueView);
+                parent.insert(valueView, parent.getWidgetIndex(m_topSpacer) + 1);
+            }
+            m_windowStart = windowStart;
+            bindValueViews(0, -shift - 1);
+        }
+    }
+
+    /**
+     * Moves an attribute value rendered within a window from one position to another.<p>
+     * 
+     * @param currentPosition the current position
+     * @param targetPosition the target position
+     */
+    private void moveWindowedValue(int currentPosition, int targetPosition) {
+
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
+        if (attribute.isSimpleValue()) {
+            String value = attribute.getSimpleValues().get(currentPosition);
+            m_entity.removeAttributeValue(m_attributeName, currentPosition);
+            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
+        } else {
+            removeHandlers(currentPosition);
+            I_Entity value = attribute.getComplexValues().get(currentPosition);
+            m_entity.removeAttributeValue(m_attributeName, currentPosition);
+            m_entity.insertAttributeValue(m_attributeName, value, targetPosition);
+            insertHandlers(targetPosition);
+        }
+        rebindValueViews(Math.min(currentPosition, targetPosition));
+    }
+
+    /**
+     * Binds the pooled value views to the values again, after values have been added, removed or moved.<p>
+     * 
+     * The pool shrinks if there are fewer values than views, the window follows the last value.<p>
+     * 
+     * @param fromIndex the index of the first changed value
+     */
+    private void rebindValueViews(int fromIndex) {
+
+        int valueCount = getValueCount();
+        while ((m_attributeValueViews.size() > valueCount) && (m_attributeValueViews.size() > 1)) {
+            AttributeValueView valueView = m_attributeValueViews.remove(m_attributeValueViews.size() - 1);
+            valueView.removeFromParent();
+            valueView.releaseValueWidget();
+        }
+        int fromPosition = Math.max(fromIndex - m_windowStart, 0);
+        if ((m_windowStart + m_attributeValueViews.size()) > valueCount) {
+            m_windowStart = Math.max(valueCount - m_attributeValueViews.size(), 0);
+            fromPosition = 0;
+        }
+        if (fromPosition < m_attributeValueViews.size()) {
+            bindValueViews(fromPosition, m_attributeValueViews.size() - 1);
+        }
+        releaseHiddenValueHandlers();
+        updateValueSpacers();
+        ValueWindowHandler.getInstance().scheduleCheck();
+    }
+
+    /**
+     * Discards the handlers of the nested entity values outside of the value window.<p>
+     */
+    private void releaseHiddenValueHandlers() {
+
+        if (getAttributeType().isSimpleType()) {
+            return;
+        }
+        int windowEnd = m_windowStart + m_attributeValueViews.size();
+        int valueCount = getValueCount();
+        for (int i = 0; i < valueCount; i++) {
+            if ((i < m_windowStart) || (i >= windowEnd)) {
+                resetHandlers(i);
+            }
+        }
+    }
+
+    /**
+     * Removes the reference attribute value view.<p>
+     * 
+     * @param reference the reference view
+     * @param mergeUndoChange <code>true</code> to add the removal to the latest undo change
+     */
+    private void removeAttributeValue(AttributeValueView reference, boolean mergeUndoChange) {
+
+        AttributeHandler parentHandler = null;
+        AttributeValueView parentView = null;
+        boolean removeParent = false;
+
+        I_EntityAttribute attribute = m_entity.getAttribute(m_attributeName);
+        if (isChoiceHandler() && attribute.isSingleValue()) {
+            // removing last choice value, so remove choice itself 
+            parentHandler = (AttributeHandler)m_parentHandler;
+            parentView = reference.getParentView();
+            removeParent = true;
+        }
+        int valueIndex = attribute.isSingleValue() ? 0 : reference.getValueIndex();
+        EntityPatchOperation inverseOperation = null;
+        if (isRecordingUndoOperations()) {
+            inverseOperation = createInsertOperation(valueIndex);
+        }
+
+        if (attribute.isSingleValue()) {
+
+            reference.removeValue();
+            if (!attribute.isSimpleValue()) {
+                removeHandlers(0);
+            }
+            m_entity.removeAttribute(m_attributeName);
+        } else {
+            if (attribute.isComplexValue()) {
+                removeHandlers(valueIndex);
+            }
+            m_entity.removeAttributeValue(m_attributeName, valueIndex);
+            if (m_valueWindow) {
+                // the view is kept in the pool, bound to the following value
+                rebindValueViews(valueIndex);
+            } else {
+                reference.removeFromParent();
+                unregisterAttributeValue(reference);
+                reference.releaseValueWidget();
+            }
+        }
+        updateButtonVisisbility();
+        markValidationDirty();
+        UndoRedoHandler handler = UndoRedoHandler.getInstance();
+        if (handler.isIntitalized()) {
+            EntityPatchOperation operation = EntityPatchOperation.createRemove(
+                m_entity.getId(),
+                m_attributeName,
+                valueIndex);
+            if (mergeUndoChange) {
+                handler.addToLastChange(
+                    m_entity.getId(),
+                    m_attributeName,
+                    0,
+                    ChangeType.remove,
+                    operation,
+                    inverseOperation);
+            } else {
+                handler.addChange(m_entity.getId(), m_attributeName, 0, ChangeType.remove, operation, inverseOperation);
+            }
+        }
+        if (removeParent && (parentHandler != null) && (parentView != null)) {
+            // the choice is removed in the same undo step as its last value
+            parentHandler.removeAttributeValue(parentView, true);
+            parentView.setCollapsed(false);
+        }
+    }
+
+    /**
+     * Removes the spacers of the value window.<p>
+     */
+    private void removeValueSpacers() {
+
+        if (m_topSpacer != null) {
+            m_topSpacer.removeFromParent();
+            m_topSpacer = null;
+        }
+        if (m_bottomSpacer != null) {
+            m_bottomSpacer.removeFromParent();
+            m_bottomSpacer = null;
+        }
+        m_windowStart = 0;
+    }
+
+    /**
+     * Re-numbers the value views within the given index range.<p>
+     * 
+     * @param fromIndex the first index to update
+     * @param toIndex the last index to update
+     */
+    private void renumberValueViews(int fromIndex, int toIndex) {
+
+        for (int i = fromIndex; i <= toIndex; i++) {
+            m_attributeValueViews.get(i).setValueIndex(m_windowStart + i);
+        }
+    }
+
     /**
      * Creates a list consisting of all but the first element of another list.<p>
      * 
@@ -1048,4 +2097,45 @@ public class AttributeHandler extends RootHandler {
         return result;
 
     }
+
+    /**
+     * Removes the given value view from the registered views and re-numbers the following views.<p>
+     * 
+     * @param valueView the value view to remove
+     */
+    private void unregisterAttributeValue(AttributeValueView valueView) {
+
+        int index = indexOfValueView(valueView);
+        if (index > -1) {
+            m_attributeValueViews.remove(index);
+            renumberValueViews(index, m_attributeValueViews.size() - 1);
+        }
+    }
+
+    /**
+     * Sizes the spacers of the value window according to the number of values they stand in for.<p>
+     */
+    private void updateValueSpacers() {
+
+        int belowCount = getValueCount() - m_windowStart - m_attributeValueViews.size();
+        m_topSpacer.getElement().getStyle().setHeight(m_windowStart * m_valueHeight, Unit.PX);
+        m_bottomSpacer.getElement().getStyle().setHeight(Math.max(belowCount, 0) * m_valueHeight, Unit.PX);
+    }
+
+    /**
+     * Moves the given value view to the index it has been inserted at within the parent panel.<p>
+     * 
+     * @param valueView the value view
+     * @param valueIndex the value index
+     */
+    private void updateValueViewIndex(AttributeValueView valueView, int valueIndex) {
+
+        int currentIndex = indexOfValueView(valueView);
+        if ((currentIndex == -1) || (currentIndex == valueIndex)) {
+            return;
+        }
+        m_attributeValueViews.remove(currentIndex);
+        m_attributeValueViews.add(valueIndex, valueView);
+        renumberValueViews(Math.min(currentIndex, valueIndex), Math.max(currentIndex, valueIndex));
+    }
 }
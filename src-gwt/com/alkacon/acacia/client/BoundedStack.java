@@ -0,0 +1,175 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.client;
+
+/**
+ * Stack with a maximum size, backed by a ring buffer. Pushing onto a full stack drops the oldest element.<p>
+ * 
+ * @param <T> the element type
+ */
+public class BoundedStack<T> {
+
+    /** The ring buffer. */
+    private Object[] m_elements;
+
+    /** The number of elements. */
+    private int m_size;
+
+    /** The buffer index of the oldest element. */
+    private int m_start;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param maxSize the maximum number of elements
+     */
+    public BoundedStack(int maxSize) {
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size has to be positive.");
+        }
+        m_elements = new Object[maxSize];
+    }
+
+    /**
+     * Removes all elements.<p>
+     */
+    public void clear() {
+
+        for (int i = 0; i < m_elements.length; i++) {
+            m_elements[i] = null;
+        }
+        m_size = 0;
+        m_start = 0;
+    }
+
+    /**
+     * Returns the maximum number of elements.<p>
+     * 
+     * @return the maximum number of elements
+     */
+    public int getMaxSize() {
+
+        return m_elements.length;
+    }
+
+    /**
+     * Returns if the stack is empty.<p>
+     * 
+     * @return <code>true</code> if the stack is empty
+     */
+    public boolean isEmpty() {
+
+        return m_size == 0;
+    }
+
+    /**
+     * Returns the top element without removing it.<p>
+     * 
+     * @return the top element, <code>null</code> if the stack is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+
+        if (m_size == 0) {
+            return null;
+        }
+        return (T)m_elements[index(m_size - 1)];
+    }
+
+    /**
+     * Removes and returns the top element.<p>
+     * 
+     * @return the top element, <code>null</code> if the stack is empty
+     */
+    public T pop() {
+
+        T result = peek();
+        if (m_size > 0) {
+            m_size--;
+            m_elements[index(m_size)] = null;
+        }
+        return result;
+    }
+
+    /**
+     * Pushes an element onto the stack, dropping the oldest element if the stack is full.<p>
+     * 
+     * @param element the element
+     */
+    public void push(T element) {
+
+        if (m_size == m_elements.length) {
+            m_elements[m_start] = element;
+            m_start = index(1);
+        } else {
+            m_elements[index(m_size)] = element;
+            m_size++;
+        }
+    }
+
+    /**
+     * Changes the maximum number of elements, dropping the oldest elements if required.<p>
+     * 
+     * @param maxSize the maximum number of elements
+     */
+    public void setMaxSize(int maxSize) {
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size has to be positive.");
+        }
+        int size = Math.min(m_size, maxSize);
+        Object[] elements = new Object[maxSize];
+        for (int i = 0; i < size; i++) {
+            elements[i] = m_elements[index((m_size - size) + i)];
+        }
+        m_elements = elements;
+        m_size = size;
+        m_start = 0;
+    }
+
+    /**
+     * Returns the number of elements.<p>
+     * 
+     * @return the number of elements
+     */
+    public int size() {
+
+        return m_size;
+    }
+
+    /**
+     * Returns the buffer index for the given position counted from the oldest element.<p>
+     * 
+     * @param position the position
+     * 
+     * @return the buffer index
+     */
+    private int index(int position) {
+
+        return (m_start + position) % m_elements.length;
+    }
+}
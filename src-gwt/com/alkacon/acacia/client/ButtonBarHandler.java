@@ -33,6 +33,7 @@ import com.alkacon.acacia.client.ui.InlineEntityWidget;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.EventTarget;
 import com.google.gwt.dom.client.NativeEvent;
@@ -344,17 +345,25 @@ public class ButtonBarHandler implements MouseOverHandler, MouseOutHandler {
     /**
      * Sets the button bar visibility.<p>
      * 
+     * The styles are changed with the other layout updates of the next animation frame.<p>
+     * 
      * @param buttonBar the button bar
      * @param visible <code>true</code> to show the button bar
      */
-    private void setButtonBarVisibility(Widget buttonBar, boolean visible) {
+    private void setButtonBarVisibility(final Widget buttonBar, final boolean visible) {
 
-        String hoverStyle = I_LayoutBundle.INSTANCE.form().hoverButton();
-        if (visible) {
-            buttonBar.addStyleName(hoverStyle);
-        } else {
-            buttonBar.removeStyleName(hoverStyle);
-        }
+        LayoutScheduler.getInstance().scheduleWrite(new ScheduledCommand() {
+
+            public void execute() {
+
+                String hoverStyle = I_LayoutBundle.INSTANCE.form().hoverButton();
+                if (visible) {
+                    buttonBar.addStyleName(hoverStyle);
+                } else {
+                    buttonBar.removeStyleName(hoverStyle);
+                }
+            }
+        });
         if (buttonBar instanceof InlineEntityWidget) {
             ((InlineEntityWidget)buttonBar).setContentHighlightingVisible(visible);
         }
@@ -0,0 +1,387 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.shared.AttributeConfiguration;
+import com.alkacon.acacia.shared.AttributePath;
+import com.alkacon.vie.client.I_Vie;
+import com.alkacon.vie.shared.I_Entity;
+import com.alkacon.vie.shared.I_EntityAttribute;
+import com.alkacon.vie.shared.I_Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gwt.regexp.shared.RegExp;
+
+/**
+ * Evaluates the declarative validation rules of the attribute configurations on the client.<p>
+ * 
+ * Supported are the rules 'required', 'pattern', 'min/max length' and 'numeric range'.
+ * Attributes flagged for server validation, or without configuration, still need to be validated by the content service.<p>
+ */
+public class ClientValidator {
+
+    /** The compiled patterns by regular expression, <code>null</code> values mark invalid expressions. */
+    private Map<String, RegExp> m_patterns;
+
+    /** The VIE instance. */
+    private I_Vie m_vie;
+
+    /** The widget service providing the attribute configurations. */
+    private I_WidgetService m_widgetService;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param vie the VIE instance
+     * @param widgetService the widget service providing the attribute configurations
+     */
+    public ClientValidator(I_Vie vie, I_WidgetService widgetService) {
+
+        m_vie = vie;
+        m_widgetService = widgetService;
+        m_patterns = new HashMap<String, RegExp>();
+    }
+
+    /**
+     * Returns if any attribute of the given entity has validation rules only the server can evaluate.<p>
+     * 
+     * @param entity the entity
+     * 
+     * @return <code>true</code> if the server needs to validate the entity
+     */
+    public boolean requiresServerValidation(I_Entity entity) {
+
+        for (String attributeName : getAttributeNames(entity)) {
+            I_EntityAttribute attribute = entity.getAttribute(attributeName);
+            if ((attribute != null) && attribute.isComplexValue()) {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    if (requiresServerValidation(value)) {
+                        return true;
+                    }
+                }
+            } else if (requiresServerValidation(attributeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns if any of the given attributes of the entity has validation rules only the server can evaluate.<p>
+     * 
+     * The values at the given paths are resolved, so nested entity values are checked like by 
+     * {@link #requiresServerValidation(I_Entity)}.<p>
+     * 
+     * @param entity the entity
+     * @param attributePaths the attribute paths, see {@link AttributeHandler#getAttributePath()}
+     * 
+     * @return <code>true</code> if the server needs to validate any of the attributes
+     */
+    public boolean requiresServerValidation(I_Entity entity, List<String[]> attributePaths) {
+
+        for (String[] pathElements : attributePaths) {
+            AttributePath path = AttributePath.valueOf(pathElements);
+            int last = path.getLength() - 1;
+            I_Entity parent = entity;
+            for (int i = 0; (parent != null) && (i < last); i++) {
+                I_EntityAttribute attribute = parent.getAttribute(path.getName(i));
+                if ((attribute != null) && attribute.isComplexValue() && (attribute.getValueCount() > path.getIndex(i))) {
+                    parent = attribute.getComplexValues().get(path.getIndex(i));
+                } else {
+                    parent = null;
+                }
+            }
+            if (parent == null) {
+                // the value containing the attribute has been removed, its parent attribute is validated instead
+                continue;
+            }
+            I_EntityAttribute attribute = parent.getAttribute(path.getName(last));
+            if ((attribute != null) && attribute.isComplexValue()) {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    if (requiresServerValidation(value)) {
+                        return true;
+                    }
+                }
+            } else if (requiresServerValidation(path.getName(last))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validates the given entity against the client side rules.<p>
+     * 
+     * @param entity the entity to validate
+     * 
+     * @return the error messages by attribute path, empty if the entity is valid
+     */
+    public Map<String[], String> validate(I_Entity entity) {
+
+        Map<String[], String> errors = new HashMap<String[], String>();
+        validateEntity(entity, new ArrayList<String>(), errors);
+        return errors;
+    }
+
+    /**
+     * Formats the given number for display within a message.<p>
+     * 
+     * @param number the number
+     * 
+     * @return the formatted number
+     */
+    private static String formatNumber(double number) {
+
+        if ((number == Math.floor(number)) && !Double.isInfinite(number)) {
+            return String.valueOf((long)number);
+        }
+        return String.valueOf(number);
+    }
+
+    /**
+     * Returns the localized message, or the given fallback text if no dictionary is available.<p>
+     * 
+     * @param key the message key
+     * @param fallback the fallback text
+     * @param arg the message argument, may be <code>null</code>
+     * 
+     * @return the message
+     */
+    private static String getMessage(String key, String fallback, String arg) {
+
+        String result = EditorBase.getMessageForKey(key, arg);
+        if (result.length() == 0) {
+            result = fallback;
+            if (arg != null) {
+                result = result.replace("{0}", arg);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds an error message for the given attribute value.<p>
+     * 
+     * @param parentPath the path elements of the parent entity
+     * @param attributeName the attribute name
+     * @param index the value index
+     * @param message the error message
+     * @param errors the error map
+     */
+    private void addError(
+        List<String> parentPath,
+        String attributeName,
+        int index,
+        String message,
+        Map<String[], String> errors) {
+
+        String[] path = parentPath.toArray(new String[parentPath.size() + 1]);
+        path[parentPath.size()] = attributeName + "[" + index + "]";
+        errors.put(path, message);
+    }
+
+    /**
+     * Returns the attribute configuration, if provided by the widget service.<p>
+     * 
+     * @param attributeName the attribute name
+     * 
+     * @return the attribute configuration, <code>null</code> if not available
+     */
+    private AttributeConfiguration getAttributeConfiguration(String attributeName) {
+
+        return m_widgetService instanceof I_ExtendedWidgetService
+        ? ((I_ExtendedWidgetService)m_widgetService).getAttributeConfiguration(attributeName)
+        : null;
+    }
+
+    /**
+     * Returns the names of the attributes to validate for the given entity.<p>
+     * 
+     * @param entity the entity
+     * 
+     * @return the attribute names
+     */
+    private List<String> getAttributeNames(I_Entity entity) {
+
+        I_Type type = m_vie.getType(entity.getTypeName());
+        if (type != null) {
+            return type.getAttributeNames();
+        }
+        List<String> result = new ArrayList<String>();
+        for (I_EntityAttribute attribute : entity.getAttributes()) {
+            result.add(attribute.getAttributeName());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the compiled pattern for the given regular expression.<p>
+     * 
+     * @param pattern the regular expression
+     * 
+     * @return the compiled pattern, <code>null</code> if the expression can not be evaluated on the client
+     */
+    private RegExp getPattern(String pattern) {
+
+        if (!m_patterns.containsKey(pattern)) {
+            RegExp regExp = null;
+            try {
+                // the whole value has to match
+                regExp = RegExp.compile("^(?:" + pattern + ")$");
+            } catch (RuntimeException e) {
+                // the expression syntax is not supported by the browser, leave it to the server
+            }
+            m_patterns.put(pattern, regExp);
+        }
+        return m_patterns.get(pattern);
+    }
+
+    /**
+     * Returns if the given attribute has validation rules only the server can evaluate.<p>
+     * 
+     * This includes patterns the browser can not compile, as they are skipped by the client validation.<p>
+     * 
+     * @param attributeName the attribute name
+     * 
+     * @return <code>true</code> if the server needs to validate the attribute
+     */
+    private boolean requiresServerValidation(String attributeName) {
+
+        AttributeConfiguration config = getAttributeConfiguration(attributeName);
+        return (config == null)
+            || config.isServerValidation()
+            || ((config.getPattern() != null) && (getPattern(config.getPattern()) == null));
+    }
+
+    /**
+     * Validates the attributes of the given entity.<p>
+     * 
+     * @param entity the entity
+     * @param parentPath the path elements of the entity
+     * @param errors the error map to fill
+     */
+    private void validateEntity(I_Entity entity, List<String> parentPath, Map<String[], String> errors) {
+
+        I_Type type = m_vie.getType(entity.getTypeName());
+        // in choice types only one of the options is present, so values are never required
+        boolean choice = (type != null) && type.isChoice();
+        for (String attributeName : getAttributeNames(entity)) {
+            I_EntityAttribute attribute = entity.getAttribute(attributeName);
+            if ((attribute != null) && attribute.isComplexValue()) {
+                List<I_Entity> values = attribute.getComplexValues();
+                for (int i = 0; i < values.size(); i++) {
+                    parentPath.add(attributeName + "[" + i + "]");
+                    validateEntity(values.get(i), parentPath, errors);
+                    parentPath.remove(parentPath.size() - 1);
+                }
+                continue;
+            }
+            AttributeConfiguration config = getAttributeConfiguration(attributeName);
+            if ((config == null) || !config.hasClientValidation()) {
+                continue;
+            }
+            List<String> values = attribute != null ? attribute.getSimpleValues() : Collections.<String> emptyList();
+            if (values.isEmpty()) {
+                I_Type attributeType = type != null ? type.getAttributeType(attributeName) : null;
+                if (!choice && config.isRequired() && ((attributeType == null) || attributeType.isSimpleType())) {
+                    addError(
+                        parentPath,
+                        attributeName,
+                        0,
+                        getMessage(EditorBase.GUI_VALIDATION_REQUIRED_0, "A value is required", null),
+                        errors);
+                }
+                continue;
+            }
+            for (int i = 0; i < values.size(); i++) {
+                String message = validateValue(config, values.get(i));
+                if (message != null) {
+                    addError(parentPath, attributeName, i, message, errors);
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates a single attribute value.<p>
+     * 
+     * @param config the attribute configuration
+     * @param value the value
+     * 
+     * @return the error message, <code>null</code> if the value is valid
+     */
+    private String validateValue(AttributeConfiguration config, String value) {
+
+        if ((value == null) || (value.trim().length() == 0)) {
+            return config.isRequired()
+            ? getMessage(EditorBase.GUI_VALIDATION_REQUIRED_0, "A value is required", null)
+            : null;
+        }
+        if ((config.getMinLength() != null) && (value.length() < config.getMinLength().intValue())) {
+            return getMessage(
+                EditorBase.GUI_VALIDATION_MIN_LENGTH_1,
+                "The value must be at least {0} characters long",
+                String.valueOf(config.getMinLength()));
+        }
+        if ((config.getMaxLength() != null) && (value.length() > config.getMaxLength().intValue())) {
+            return getMessage(
+                EditorBase.GUI_VALIDATION_MAX_LENGTH_1,
+                "The value must not be longer than {0} characters",
+                String.valueOf(config.getMaxLength()));
+        }
+        if (config.getPattern() != null) {
+            RegExp pattern = getPattern(config.getPattern());
+            if ((pattern != null) && !pattern.test(value)) {
+                return getMessage(EditorBase.GUI_VALIDATION_PATTERN_0, "The value has an invalid format", null);
+            }
+        }
+        if ((config.getMinValue() != null) || (config.getMaxValue() != null)) {
+            double number;
+            try {
+                number = Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                return getMessage(EditorBase.GUI_VALIDATION_NUMBER_0, "The value must be a number", null);
+            }
+            if ((config.getMinValue() != null) && (number < config.getMinValue().doubleValue())) {
+                return getMessage(
+                    EditorBase.GUI_VALIDATION_MIN_VALUE_1,
+                    "The value must not be less than {0}",
+                    formatNumber(config.getMinValue().doubleValue()));
+            }
+            if ((config.getMaxValue() != null) && (number > config.getMaxValue().doubleValue())) {
+                return getMessage(
+                    EditorBase.GUI_VALIDATION_MAX_VALUE_1,
+                    "The value must not be greater than {0}",
+                    formatNumber(config.getMaxValue().doubleValue()));
+            }
+        }
+        return null;
+    }
+}
@@ -30,11 +30,15 @@ import com.alkacon.acacia.client.widgets.I_EditWidget;
 import com.alkacon.acacia.client.widgets.I_FormEditWidget;
 import com.alkacon.acacia.client.widgets.StringWidget;
 import com.alkacon.acacia.client.widgets.TinyMCEWidget;
+import com.alkacon.acacia.shared.AttributePath;
 import com.alkacon.acacia.shared.ContentDefinition;
 import com.alkacon.acacia.shared.EntityHtml;
+import com.alkacon.acacia.shared.EntityHtmlFragment;
+import com.alkacon.acacia.shared.EntityPatch;
 import com.alkacon.acacia.shared.TabInfo;
 import com.alkacon.acacia.shared.ValidationResult;
 import com.alkacon.acacia.shared.rpc.I_ContentServiceAsync;
+import com.alkacon.acacia.shared.rpc.I_PatchContentServiceAsync;
 import com.alkacon.geranium.client.ui.TabbedPanel;
 import com.alkacon.geranium.client.ui.css.I_ImageBundle;
 import com.alkacon.geranium.client.ui.css.I_LayoutBundle;
@@ -45,6 +49,7 @@ import com.alkacon.vie.shared.I_Entity;
 import com.alkacon.vie.shared.I_Type;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -67,9 +72,115 @@ import com.google.gwt.user.client.ui.Panel;
  */
 public class EditorBase implements I_InlineHtmlUpdateHandler {
 
+    /**
+     * Completes rendering the entity form.<p>
+     * 
+     * The form is registered for validation and undo/redo as soon as the renderer has returned the form tabs, 
+     * before any user input may happen in between incrementally rendered batches. The entity is validated if 
+     * required and the callback is executed once all attributes have been rendered, which may have happened 
+     * before the renderer returned.<p>
+     */
+    protected class FormRenderedCommand implements Command {
+
+        /** The command to execute once the form has been rendered completely. */
+        private Command m_callback;
+
+        /** Flag indicating undo/redo should be initialized for the entity. */
+        private boolean m_initUndo;
+
+        /** Flag indicating the form has been registered. */
+        private boolean m_registered;
+
+        /** Flag indicating all attributes have been rendered. */
+        private boolean m_rendered;
+
+        /** Flag indicating the entity should be validated once rendered. */
+        private boolean m_validate;
+
+        /**
+         * Constructor.<p>
+         * 
+         * @param initUndo <code>true</code> to initialize undo/redo for the entity
+         * @param validate <code>true</code> to validate the entity once rendered
+         * @param callback the command to execute once the form has been rendered completely, may be <code>null</code>
+         */
+        protected FormRenderedCommand(boolean initUndo, boolean validate, Command callback) {
+
+            m_initUndo = initUndo;
+            m_validate = validate;
+            m_callback = callback;
+        }
+
+        /**
+         * @see com.google.gwt.user.client.Command#execute()
+         */
+        public void execute() {
+
+            m_rendered = true;
+            if (m_registered) {
+                complete();
+            }
+        }
+
+        /**
+         * Registers the form once the renderer has returned the form tabs.<p>
+         * 
+         * @param formTabs the form tabs, <code>null</code> if the form has no tabs
+         */
+        protected void register(TabbedPanel<?> formTabs) {
+
+            m_formTabs = formTabs;
+            m_validationHandler.setFormTabPanel(formTabs);
+            m_validationHandler.registerEntity(m_entity);
+            m_validationHandler.setRootHandler(m_rootHandler);
+            if (m_initUndo) {
+                UndoRedoHandler.getInstance().initialize(m_entity, EditorBase.this, m_rootHandler);
+            }
+            m_registered = true;
+            if (m_rendered) {
+                complete();
+            }
+        }
+
+        /**
+         * Validates the entity if required and executes the callback.<p>
+         */
+        private void complete() {
+
+            if (m_validate) {
+                // trigger validation right away
+                m_validationHandler.validate(m_entity);
+            }
+            if (m_callback != null) {
+                m_callback.execute();
+            }
+        }
+    }
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_CHOICE_ADD_CHOICE_1 = "GUI_CHOICE_ADD_CHOICE_1"; //Add choice {0}
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_VALIDATION_MAX_LENGTH_1 = "GUI_VALIDATION_MAX_LENGTH_1"; //The value must not be longer than {0} characters
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_VALIDATION_MAX_VALUE_1 = "GUI_VALIDATION_MAX_VALUE_1"; //The value must not be greater than {0}
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_VALIDATION_MIN_LENGTH_1 = "GUI_VALIDATION_MIN_LENGTH_1"; //The value must be at least {0} characters long
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_VALIDATION_MIN_VALUE_1 = "GUI_VALIDATION_MIN_VALUE_1"; //The value must not be less than {0}
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_VALIDATION_NUMBER_0 = "GUI_VALIDATION_NUMBER_0"; //The value must be a number
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_VALIDATION_PATTERN_0 = "GUI_VALIDATION_PATTERN_0"; //The value has an invalid format
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_VALIDATION_REQUIRED_0 = "GUI_VALIDATION_REQUIRED_0"; //A value is required
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_VIEW_ADD_1 = "GUI_VIEW_ADD_1"; //Add {0}
 
@@ -112,12 +223,21 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
     /** The form panel. */
     private FlowPanel m_formPanel;
 
+    /** The HTML fragment handler. */
+    private HtmlFragmentHandler m_fragmentHandler;
+
+    /** Flag indicating the inline HTML should be updated fragment wise. */
+    private boolean m_fragmentUpdates;
+
     /** The tab panel if tabs are used. */
     private TabbedPanel<?> m_formTabs;
 
     /** The window resize handler registration. */
     private HandlerRegistration m_resizeHandlerRegistration;
 
+    /** The tracker of the entity revision acknowledged by the server. */
+    private EntityRevisionTracker m_revisionTracker;
+
     /** The root attribute handler. */
     private RootHandler m_rootHandler;
 
@@ -149,6 +269,8 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
         I_LayoutBundle.INSTANCE.dialogCss().ensureInjected();
         com.alkacon.acacia.client.css.I_LayoutBundle.INSTANCE.form().ensureInjected();
         com.alkacon.acacia.client.css.I_LayoutBundle.INSTANCE.attributeChoice().ensureInjected();
+        // the client is single threaded, so the attribute paths are interned within a plain map
+        AttributePath.setInternTable(new HashMap<AttributePath, AttributePath>());
         m_service = service;
         m_vie = Vie.getInstance();
         m_widgetService = widgetService;
@@ -184,6 +306,10 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
         m_widgetService.addRenderer(new NativeComplexWidgetRenderer());
         m_validationHandler = new ValidationHandler();
         m_validationHandler.setContentService(m_service);
+        m_validationHandler.setClientValidator(new ClientValidator(m_vie, m_widgetService));
+        m_revisionTracker = new EntityRevisionTracker();
+        m_validationHandler.setRevisionTracker(m_revisionTracker);
+        m_fragmentHandler = new HtmlFragmentHandler(m_vie, m_widgetService);
     }
 
     /**
@@ -287,8 +413,14 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
     public void destroyForm(boolean clearEntities) {
 
         ValueFocusHandler.getInstance().destroy();
+        ValueWindowHandler.getInstance().destroy();
+        m_validationHandler.destroy();
+        if (m_widgetService instanceof I_ExtendedWidgetService) {
+            ((I_ExtendedWidgetService)m_widgetService).clearWidgetPool();
+        }
         if (clearEntities) {
             m_vie.clearEntities();
+            m_revisionTracker.clear();
         }
     }
 
@@ -312,6 +444,16 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
         return m_service;
     }
 
+    /**
+     * Returns if the inline HTML is updated fragment wise.<p>
+     * 
+     * @return <code>true</code> if the inline HTML is updated fragment wise
+     */
+    public boolean isFragmentUpdates() {
+
+        return m_fragmentUpdates;
+    }
+
     /**
      * Loads the content definition for the given entity and executes the callback on success.<p>
      * 
@@ -348,6 +490,7 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
         m_vie.registerTypes(baseType, definition.getTypes());
         m_vie.registerTypes(baseType, definition.getTypes());
         m_vie.registerEntity(definition.getEntity());
+        m_revisionTracker.setInitialRevision(definition.getEntity());
     }
 
     /**
@@ -355,7 +498,13 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
      */
     public void reinitWidgets(I_InlineFormParent formParent) {
 
-        renderInlineEntity(m_entityId, formParent);
+        if (m_fragmentHandler.hasUpdatedFragments(formParent)) {
+            // only parts of the HTML have been replaced, keep the widgets outside of them
+            m_fragmentHandler.rebindWidgets(formParent, this);
+        } else {
+            InlineEditOverlay.getRootOverlay().clearButtonPanel();
+            renderInlineEntity(m_entityId, formParent);
+        }
     }
 
     /**
@@ -369,6 +518,28 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
      */
     public void renderEntityForm(String entityId, List<TabInfo> tabInfos, Panel context, Element scrollParent) {
 
+        renderEntityForm(entityId, tabInfos, context, scrollParent, null);
+    }
+
+    /**
+     * Renders the entity form within the given context.<p>
+     * 
+     * In case the renderer renders the form in time sliced batches, the entity is validated once the last 
+     * attribute has been rendered, followed by the callback.<p>
+     * 
+     * @param entityId the entity id
+     * @param tabInfos the tab informations
+     * @param context the context element
+     * @param scrollParent the scroll element to be used for automatic scrolling during drag and drop
+     * @param callback the command to execute once the form has been rendered completely, may be <code>null</code>
+     */
+    public void renderEntityForm(
+        String entityId,
+        List<TabInfo> tabInfos,
+        Panel context,
+        Element scrollParent,
+        Command callback) {
+
         Entity entity = (Entity)m_vie.getEntity(entityId);
         if (entity != null) {
             boolean initUndo = (m_entity == null) || !entity.getId().equals(m_entity.getId());
@@ -383,21 +554,24 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
             } else {
                 m_rootHandler.clearHandlers();
             }
+            m_rootHandler.setValidationHandler(m_validationHandler);
             m_tabInfos = tabInfos;
-            m_formTabs = m_widgetService.getRendererForType(type).renderForm(
-                m_entity,
-                m_tabInfos,
-                m_formPanel,
-                m_rootHandler,
-                0);
-            m_validationHandler.registerEntity(m_entity);
-            m_validationHandler.setRootHandler(m_rootHandler);
-            m_validationHandler.setFormTabPanel(m_formTabs);
-            if (initUndo) {
-                UndoRedoHandler.getInstance().initialize(m_entity, this, m_rootHandler);
+            FormRenderedCommand formRendered = new FormRenderedCommand(initUndo, true, callback);
+            I_EntityRenderer renderer = m_widgetService.getRendererForType(type);
+            TabbedPanel<?> formTabs;
+            if (renderer instanceof I_IncrementalEntityRenderer) {
+                formTabs = ((I_IncrementalEntityRenderer)renderer).renderForm(
+                    m_entity,
+                    m_tabInfos,
+                    m_formPanel,
+                    m_rootHandler,
+                    0,
+                    formRendered);
+            } else {
+                formTabs = renderer.renderForm(m_entity, m_tabInfos, m_formPanel, m_rootHandler, 0);
+                formRendered.execute();
             }
-            // trigger validation right away
-            m_validationHandler.validate(m_entity);
+            formRendered.register(formTabs);
         }
     }
 
@@ -410,6 +584,22 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
      */
     public void renderEntityForm(String entityId, Panel context, Element scrollParent) {
 
+        renderEntityForm(entityId, context, scrollParent, null);
+    }
+
+    /**
+     * Renders the entity form within the given context.<p>
+     * 
+     * In case the renderer renders the form in time sliced batches, the callback is executed once the last 
+     * attribute has been rendered.<p>
+     * 
+     * @param entityId the entity id
+     * @param context the context element
+     * @param scrollParent the scroll element to be used for automatic scrolling during drag and drop
+     * @param callback the command to execute once the form has been rendered completely, may be <code>null</code>
+     */
+    public void renderEntityForm(String entityId, Panel context, Element scrollParent, Command callback) {
+
         Entity entity = (Entity)m_vie.getEntity(entityId);
         if (entity != null) {
             boolean initUndo = (m_entity == null) || !entity.getId().equals(m_entity.getId());
@@ -424,16 +614,25 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
             } else {
                 m_rootHandler.clearHandlers();
             }
-            m_widgetService.getRendererForType(type).renderForm(m_entity, m_formPanel, m_rootHandler, 0);
+            m_rootHandler.setValidationHandler(m_validationHandler);
             m_formTabs = null;
             m_tabInfos = null;
             m_validationHandler.setContentService(m_service);
-            m_validationHandler.registerEntity(m_entity);
-            m_validationHandler.setRootHandler(m_rootHandler);
-            m_validationHandler.setFormTabPanel(null);
-            if (initUndo) {
-                UndoRedoHandler.getInstance().initialize(m_entity, this, m_rootHandler);
+            FormRenderedCommand formRendered = new FormRenderedCommand(initUndo, false, callback);
+            I_EntityRenderer renderer = m_widgetService.getRendererForType(type);
+            if (renderer instanceof I_IncrementalEntityRenderer) {
+                ((I_IncrementalEntityRenderer)renderer).renderForm(
+                    m_entity,
+                    null,
+                    m_formPanel,
+                    m_rootHandler,
+                    0,
+                    formRendered);
+            } else {
+                renderer.renderForm(m_entity, m_formPanel, m_rootHandler, 0);
+                formRendered.execute();
             }
+            formRendered.register(null);
         }
     }
 
@@ -448,6 +647,7 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
         m_entity = (Entity)m_vie.getEntity(entityId);
         if (m_entity != null) {
             m_rootHandler = new RootHandler();
+            m_rootHandler.setValidationHandler(m_validationHandler);
             m_validationHandler.setContentService(m_service);
             m_validationHandler.registerEntity(m_entity);
             m_validationHandler.setRootHandler(m_rootHandler);
@@ -455,6 +655,11 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
             ButtonBarHandler.INSTANCE.setWidgetService(m_widgetService);
             m_widgetService.getRendererForType(type).renderInline(m_entity, formParent, this);
             UndoRedoHandler.getInstance().initialize(m_entity, this, m_rootHandler);
+            if (m_fragmentUpdates && !m_fragmentHandler.hasRenderedEntity(formParent)) {
+                m_fragmentHandler.setRenderedEntity(
+                    formParent,
+                    com.alkacon.acacia.shared.Entity.serializeEntity(m_entity));
+            }
         }
     }
 
@@ -546,9 +751,9 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
      * @param clearOnSuccess <code>true</code> to clear all entities from VIE on success
      * @param callback the callback executed on success
      */
-    public void saveEntity(I_Entity entity, final boolean clearOnSuccess, final Command callback) {
+    public void saveEntity(final I_Entity entity, final boolean clearOnSuccess, final Command callback) {
 
-        AsyncCallback<ValidationResult> asyncCallback = new AsyncCallback<ValidationResult>() {
+        final AsyncCallback<ValidationResult> asyncCallback = new AsyncCallback<ValidationResult>() {
 
             public void onFailure(Throwable caught) {
 
@@ -563,7 +768,26 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
                 }
             }
         };
-        getService().saveEntity(com.alkacon.acacia.shared.Entity.serializeEntity(entity), asyncCallback);
+        EntityPatch patch = getService() instanceof I_PatchContentServiceAsync
+        ? m_revisionTracker.createPatch(entity)
+        : null;
+        if (patch != null) {
+            ((I_PatchContentServiceAsync)getService()).saveEntityPatch(
+                entity.getId(),
+                m_revisionTracker.getRevision(),
+                patch,
+                m_revisionTracker.wrapCallback(asyncCallback, new Command() {
+
+                    public void execute() {
+
+                        getService().saveEntity(
+                            com.alkacon.acacia.shared.Entity.serializeEntity(entity),
+                            asyncCallback);
+                    }
+                }));
+        } else {
+            getService().saveEntity(com.alkacon.acacia.shared.Entity.serializeEntity(entity), asyncCallback);
+        }
     }
 
     /**
@@ -591,29 +815,62 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
         saveEntity(entity, false, callback);
     }
 
+    /**
+     * Sets if the inline HTML should be updated fragment wise.<p>
+     * 
+     * In fragment mode, only the HTML of the elements representing the changed attributes or nested entities
+     * is requested from the server and replaced, and the widgets are re-bound within these elements only.
+     * This requires the content service to implement 
+     * {@link com.alkacon.acacia.shared.rpc.I_ContentService#updateEntityHtmlFragments(com.alkacon.acacia.shared.Entity, List, String, String)}.<p>
+     * 
+     * @param fragmentUpdates <code>true</code> to update the inline HTML fragment wise
+     */
+    public void setFragmentUpdates(boolean fragmentUpdates) {
+
+        m_fragmentUpdates = fragmentUpdates;
+    }
+
     /**
     * @see com.alkacon.acacia.client.I_InlineHtmlUpdateHandler#updateHtml(com.alkacon.acacia.client.I_InlineFormParent, com.google.gwt.user.client.Command)
     */
     public void updateHtml(final I_InlineFormParent formParent, final Command onSuccess) {
 
+        final com.alkacon.acacia.shared.Entity entity = com.alkacon.acacia.shared.Entity.serializeEntity(
+            getCurrentEntity());
+        List<EntityHtmlFragment> fragments = null;
+        if (m_fragmentUpdates) {
+            fragments = m_fragmentHandler.getChangedFragments(formParent, entity);
+        }
+        if (fragments == null) {
+            updateCompleteHtml(formParent, entity, onSuccess);
+            return;
+        }
+        if (fragments.isEmpty()) {
+            // nothing changed since the HTML has been rendered, keep the HTML and widgets
+            m_fragmentHandler.keepHtml(formParent);
+            onSuccess.execute();
+            return;
+        }
         AsyncCallback<EntityHtml> callback = new AsyncCallback<EntityHtml>() {
 
             public void onFailure(Throwable caught) {
 
                 onRpcError(caught);
+                // the HTML stays unchanged, but the caller has to be able to run the next update
+                onSuccess.execute();
             }
 
             public void onSuccess(EntityHtml result) {
 
-                formParent.replaceHtml(result.getHtmlContent());
-                onSuccess.execute();
+                if (m_fragmentHandler.applyHtml(formParent, entity, result)) {
+                    onSuccess.execute();
+                } else {
+                    // the fragments don't match the current HTML, request the complete HTML instead
+                    updateCompleteHtml(formParent, entity, onSuccess);
+                }
             }
         };
-        getService().updateEntityHtml(
-            com.alkacon.acacia.shared.Entity.serializeEntity(getCurrentEntity()),
-            getContextUri(),
-            getHtmlContextInfo(),
-            callback);
+        getService().updateEntityHtmlFragments(entity, fragments, getContextUri(), getHtmlContextInfo(), callback);
     }
 
     /**
@@ -641,6 +898,7 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
         m_rootHandler = null;
         m_formPanel = null;
         m_formTabs = null;
+        m_fragmentHandler.clear();
     }
 
     /**
@@ -766,4 +1024,57 @@ public class EditorBase implements I_InlineHtmlUpdateHandler {
             m_editOverlay.updatePosition();
         }
     }
+
+    /**
+     * Updates the complete HTML inside the form parent.<p>
+     * 
+     * @param formParent the form parent
+     * @param entity the entity state to render
+     * @param onSuccess the callback to execute on success
+     */
+    private void updateCompleteHtml(
+        final I_InlineFormParent formParent,
+        final com.alkacon.acacia.shared.Entity entity,
+        final Command onSuccess) {
+
+        final AsyncCallback<EntityHtml> callback = new AsyncCallback<EntityHtml>() {
+
+            public void onFailure(Throwable caught) {
+
+                onRpcError(caught);
+                // the HTML stays unchanged, but the caller has to be able to run the next update
+                onSuccess.execute();
+            }
+
+            public void onSuccess(EntityHtml result) {
+
+                if (m_fragmentUpdates) {
+                    m_fragmentHandler.applyHtml(formParent, entity, result);
+                } else {
+                    formParent.replaceHtml(result.getHtmlContent());
+                }
+                onSuccess.execute();
+            }
+        };
+        EntityPatch patch = getService() instanceof I_PatchContentServiceAsync
+        ? m_revisionTracker.createPatch(entity)
+        : null;
+        if (patch != null) {
+            ((I_PatchContentServiceAsync)getService()).updateEntityHtmlPatch(
+                entity.getId(),
+                m_revisionTracker.getRevision(),
+                patch,
+                getContextUri(),
+                getHtmlContextInfo(),
+                m_revisionTracker.wrapCallback(callback, new Command() {
+
+                    public void execute() {
+
+                        getService().updateEntityHtml(entity, getContextUri(), getHtmlContextInfo(), callback);
+                    }
+                }));
+        } else {
+            getService().updateEntityHtml(entity, getContextUri(), getHtmlContextInfo(), callback);
+        }
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.shared.Entity;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.rpc.EntityRevisionException;
+import com.alkacon.vie.shared.I_Entity;
+
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Tracks the entity revision acknowledged by the server, to send entity patches instead of complete entities.<p>
+ * 
+ * Only one patch request may be running at a time, as each patch creates the revision following its base revision.
+ * While a patch request is running, and once the server failed to apply a patch, no patches are created 
+ * and the complete entity has to be sent instead.
+ * See {@link com.alkacon.acacia.shared.rpc.I_PatchContentService}.<p>
+ */
+public class EntityRevisionTracker {
+
+    /** The snapshot of the acknowledged revision, <code>null</code> if no entity is tracked. */
+    private Entity m_acknowledgedState;
+
+    /** The number of times the tracked entity has been reset, used to ignore responses to earlier patches. */
+    private int m_initCount;
+
+    /** The snapshot of the entity state sent with the running patch request. */
+    private Entity m_pendingState;
+
+    /** The acknowledged revision. */
+    private int m_revision;
+
+    /**
+     * Constructor.<p>
+     */
+    public EntityRevisionTracker() {
+
+        // nothing to do
+    }
+
+    /**
+     * Stops tracking the entity.<p>
+     */
+    public void clear() {
+
+        m_acknowledgedState = null;
+        m_pendingState = null;
+        m_initCount++;
+    }
+
+    /**
+     * Creates the patch from the acknowledged revision to the current state of the given entity.<p>
+     * 
+     * The patch has to be sent with the revision returned by {@link #getRevision()} and a callback 
+     * wrapped by {@link #wrapCallback(AsyncCallback, Command)}.<p>
+     * 
+     * @param entity the entity
+     * 
+     * @return the patch, <code>null</code> if the complete entity has to be sent
+     */
+    public EntityPatch createPatch(I_Entity entity) {
+
+        if ((m_acknowledgedState == null)
+            || (m_pendingState != null)
+            || !m_acknowledgedState.getId().equals(entity.getId())) {
+            return null;
+        }
+        m_pendingState = Entity.createSnapshot(entity, m_acknowledgedState);
+        return EntityPatch.createPatch(m_acknowledgedState, m_pendingState);
+    }
+
+    /**
+     * Returns the acknowledged revision, the base revision of created patches.<p>
+     * 
+     * @return the acknowledged revision
+     */
+    public int getRevision() {
+
+        return m_revision;
+    }
+
+    /**
+     * Starts tracking the given entity, as loaded from the server as revision 0.<p>
+     * 
+     * @param entity the entity
+     */
+    public void setInitialRevision(I_Entity entity) {
+
+        clear();
+        m_acknowledgedState = Entity.createSnapshot(entity, null);
+        m_revision = 0;
+    }
+
+    /**
+     * Wraps the callback of a patch request.<p>
+     * 
+     * A successful response acknowledges the patched state as the following revision.
+     * If the server failed to apply the patch, patches are not created any more and the fallback is executed,
+     * which should send the complete entity.<p>
+     * 
+     * @param <T> the result type
+     * @param callback the callback
+     * @param fallback the command sending the complete entity
+     * 
+     * @return the wrapped callback
+     */
+    public <T> AsyncCallback<T> wrapCallback(final AsyncCallback<T> callback, final Command fallback) {
+
+        final int initCount = m_initCount;
+        return new AsyncCallback<T>() {
+
+            public void onFailure(Throwable caught) {
+
+                if (initCount == m_initCount) {
+                    m_pendingState = null;
+                    if (caught instanceof EntityRevisionException) {
+                        // the revisions known here are not available on the server any more
+                        m_acknowledgedState = null;
+                    }
+                }
+                if (caught instanceof EntityRevisionException) {
+                    fallback.execute();
+                } else {
+                    callback.onFailure(caught);
+                }
+            }
+
+            public void onSuccess(T result) {
+
+                if (initCount == m_initCount) {
+                    m_acknowledgedState = m_pendingState;
+                    m_pendingState = null;
+                    m_revision++;
+                }
+                callback.onSuccess(result);
+            }
+        };
+    }
+}
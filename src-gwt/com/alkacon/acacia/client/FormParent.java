@@ -36,7 +36,7 @@ import com.google.gwt.user.client.ui.Widget;
  * Inline form parent widget.<p>
  * Use to wrap any HTML element of the DOM as the parent of an inline form.<p>
  */
-public class FormParent extends ComplexPanel implements I_InlineFormParent {
+public class FormParent extends ComplexPanel implements I_FragmentFormParent {
 
     /** The wrapped widget. This will be a @link com.google.gwt.user.client.RootPanel. */
     private Widget m_widget;
@@ -85,6 +85,19 @@ public class FormParent extends ComplexPanel implements I_InlineFormParent {
         m_widget.onBrowserEvent(event);
     }
 
+    /**
+     * @see com.alkacon.acacia.client.I_FragmentFormParent#removeWidgets(com.google.gwt.dom.client.Element)
+     */
+    public void removeWidgets(Element element) {
+
+        for (int i = getChildren().size() - 1; i >= 0; i--) {
+            Widget child = getChildren().get(i);
+            if (element.isOrHasChild(child.getElement())) {
+                child.removeFromParent();
+            }
+        }
+    }
+
     /**
      * @see com.alkacon.acacia.client.I_InlineFormParent#replaceHtml(java.lang.String)
      */
@@ -0,0 +1,448 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.client.ui.InlineEditOverlay;
+import com.alkacon.acacia.shared.Entity;
+import com.alkacon.acacia.shared.EntityHtml;
+import com.alkacon.acacia.shared.EntityHtmlFragment;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.EntityPatchOperation;
+import com.alkacon.acacia.shared.EntityPatchOperation.OperationType;
+import com.alkacon.vie.client.I_Vie;
+import com.alkacon.vie.shared.I_Entity;
+import com.alkacon.vie.shared.I_EntityAttribute;
+import com.alkacon.vie.shared.I_Type;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.user.client.DOM;
+
+/**
+ * Updates the HTML of inline form parents fragment wise.<p>
+ * 
+ * Keeps the entity state the HTML of each form parent has been rendered for. The differences to the current entity
+ * determine the HTML fragments to request from the server, these replace the matching elements only.
+ * Simple value changes replace the elements of the changed attribute, structural changes replace the content of the 
+ * elements of the nested entity holding the attribute. Structural changes of the root entity require the complete HTML.<p>
+ * 
+ * The replaced parts are remembered per form parent, so the widgets are re-bound within these parts only.<p>
+ */
+public class HtmlFragmentHandler {
+
+    /** The RDFa attribute holding the entity id. */
+    private static final String ATTR_ABOUT = "about";
+
+    /** The separator of the entity id and the attribute name within fragment keys. */
+    private static final String KEY_SEPARATOR = "#";
+
+    /** The entity states the form parent HTML has been rendered for. */
+    private Map<I_InlineFormParent, Entity> m_renderedEntities;
+
+    /** The fragments replaced since the widgets have been bound, by form parent. */
+    private Map<I_InlineFormParent, Map<String, EntityHtmlFragment>> m_updatedFragments;
+
+    /** The VIE instance. */
+    private I_Vie m_vie;
+
+    /** The widget service. */
+    private I_WidgetService m_widgetService;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param vie the VIE instance
+     * @param widgetService the widget service
+     */
+    public HtmlFragmentHandler(I_Vie vie, I_WidgetService widgetService) {
+
+        m_vie = vie;
+        m_widgetService = widgetService;
+        m_renderedEntities = new HashMap<I_InlineFormParent, Entity>();
+        m_updatedFragments = new HashMap<I_InlineFormParent, Map<String, EntityHtmlFragment>>();
+    }
+
+    /**
+     * Applies the updated HTML to the form parent.<p>
+     * 
+     * The complete HTML representation replaces the form parent content, HTML fragments replace the matching elements.
+     * Fragments are only applied if all of them match the current HTML and the form parent supports fragment
+     * replacement, otherwise the HTML is left unchanged.<p>
+     * 
+     * @param formParent the form parent
+     * @param entity the entity state the HTML has been rendered for
+     * @param html the updated HTML
+     * 
+     * @return <code>false</code> if the fragments don't match the current HTML
+     */
+    public boolean applyHtml(I_InlineFormParent formParent, Entity entity, EntityHtml html) {
+
+        if (!html.isFragmentUpdate()) {
+            formParent.replaceHtml(html.getHtmlContent());
+            m_updatedFragments.remove(formParent);
+            m_renderedEntities.put(formParent, entity);
+            return true;
+        }
+        if (!(formParent instanceof I_FragmentFormParent)) {
+            return false;
+        }
+        List<EntityHtmlFragment> fragments = html.getFragments();
+        List<List<Element>> targets = new ArrayList<List<Element>>();
+        List<List<Element>> replacements = new ArrayList<List<Element>>();
+        for (EntityHtmlFragment fragment : fragments) {
+            List<Element> elements = getElements(formParent, fragment);
+            List<Element> newElements = parseElements(fragment.getHtmlContent());
+            if ((elements == null) || (elements.size() != newElements.size())) {
+                return false;
+            }
+            targets.add(elements);
+            replacements.add(newElements);
+        }
+        Map<String, EntityHtmlFragment> updated = m_updatedFragments.get(formParent);
+        if (updated == null) {
+            updated = new LinkedHashMap<String, EntityHtmlFragment>();
+            m_updatedFragments.put(formParent, updated);
+        }
+        for (int i = 0; i < fragments.size(); i++) {
+            EntityHtmlFragment fragment = fragments.get(i);
+            List<Element> elements = targets.get(i);
+            List<Element> newElements = replacements.get(i);
+            for (int j = 0; j < elements.size(); j++) {
+                if (fragment.isEntityFragment()) {
+                    replaceContent((I_FragmentFormParent)formParent, elements.get(j), newElements.get(j));
+                } else {
+                    replaceElement((I_FragmentFormParent)formParent, elements.get(j), newElements.get(j));
+                }
+            }
+            updated.put(
+                getKey(fragment),
+                new EntityHtmlFragment(fragment.getEntityId(), fragment.getAttributeName(), null));
+        }
+        m_renderedEntities.put(formParent, entity);
+        return true;
+    }
+
+    /**
+     * Clears all form parent states.<p>
+     */
+    public void clear() {
+
+        m_renderedEntities.clear();
+        m_updatedFragments.clear();
+    }
+
+    /**
+     * Returns the fragments changed between the rendered HTML of the form parent and the given entity state.<p>
+     * 
+     * @param formParent the form parent
+     * @param entity the current entity state
+     * 
+     * @return the changed fragments, empty if nothing changed,
+     *         <code>null</code> if the complete HTML needs to be updated
+     */
+    public List<EntityHtmlFragment> getChangedFragments(I_InlineFormParent formParent, I_Entity entity) {
+
+        Entity rendered = m_renderedEntities.get(formParent);
+        if (!(formParent instanceof I_FragmentFormParent)
+            || (rendered == null)
+            || !rendered.getId().equals(entity.getId())) {
+            return null;
+        }
+        EntityPatch patch = EntityPatch.createPatch(rendered, entity);
+        if (patch.isEmpty()) {
+            return new ArrayList<EntityHtmlFragment>();
+        }
+        Map<String, EntityHtmlFragment> fragments = new LinkedHashMap<String, EntityHtmlFragment>();
+        for (EntityPatchOperation operation : patch.getOperations()) {
+            EntityHtmlFragment fragment;
+            if (operation.getType() == OperationType.replace) {
+                fragment = new EntityHtmlFragment(operation.getEntityId(), operation.getAttributeName(), null);
+            } else if (operation.getEntityId().equals(entity.getId())) {
+                // the number of elements within the root entity changes
+                return null;
+            } else {
+                fragment = new EntityHtmlFragment(operation.getEntityId(), null, null);
+            }
+            fragments.put(getKey(fragment), fragment);
+        }
+        removeCoveredFragments(fragments);
+        return new ArrayList<EntityHtmlFragment>(fragments.values());
+    }
+
+    /**
+     * Returns if the entity state the form parent HTML has been rendered for is known.<p>
+     * 
+     * @param formParent the form parent
+     * 
+     * @return <code>true</code> if the rendered entity state is known
+     */
+    public boolean hasRenderedEntity(I_InlineFormParent formParent) {
+
+        return m_renderedEntities.containsKey(formParent);
+    }
+
+    /**
+     * Returns if fragments of the form parent HTML have been replaced since the widgets have been bound.<p>
+     * 
+     * @param formParent the form parent
+     * 
+     * @return <code>true</code> if fragments have been replaced
+     */
+    public boolean hasUpdatedFragments(I_InlineFormParent formParent) {
+
+        return m_updatedFragments.containsKey(formParent);
+    }
+
+    /**
+     * Marks the form parent HTML as up to date without replacing any fragments.<p>
+     * 
+     * Re-binding the widgets will keep all present widgets.<p>
+     * 
+     * @param formParent the form parent
+     */
+    public void keepHtml(I_InlineFormParent formParent) {
+
+        if (!m_updatedFragments.containsKey(formParent)) {
+            m_updatedFragments.put(formParent, new LinkedHashMap<String, EntityHtmlFragment>());
+        }
+    }
+
+    /**
+     * Binds the editing widgets within the replaced fragments of the form parent HTML.<p>
+     * 
+     * The buttons of replaced elements are removed, the widgets outside the replaced fragments are kept.<p>
+     * 
+     * @param formParent the form parent
+     * @param updateHandler the HTML update handler
+     */
+    public void rebindWidgets(I_InlineFormParent formParent, I_InlineHtmlUpdateHandler updateHandler) {
+
+        InlineEditOverlay.getRootOverlay().removeDetachedButtons();
+        Map<String, EntityHtmlFragment> updated = m_updatedFragments.remove(formParent);
+        if (updated == null) {
+            return;
+        }
+        removeCoveredFragments(updated);
+        for (EntityHtmlFragment fragment : updated.values()) {
+            I_Entity entity = m_vie.getEntity(fragment.getEntityId());
+            if (entity == null) {
+                // the entity has been removed in the meantime
+                continue;
+            }
+            I_Type type = m_vie.getType(entity.getTypeName());
+            if (fragment.isEntityFragment()) {
+                m_widgetService.getRendererForType(type).renderInline(entity, formParent, updateHandler);
+            } else {
+                String attributeName = fragment.getAttributeName();
+                I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(
+                    attributeName,
+                    type.getAttributeType(attributeName));
+                renderer.renderInline(
+                    entity,
+                    attributeName,
+                    formParent,
+                    updateHandler,
+                    type.getAttributeMinOccurrence(attributeName),
+                    type.getAttributeMaxOccurrence(attributeName));
+            }
+        }
+    }
+
+    /**
+     * Sets the entity state the form parent HTML has been rendered for.<p>
+     * 
+     * @param formParent the form parent
+     * @param entity the entity state, must not be modified afterwards
+     */
+    public void setRenderedEntity(I_InlineFormParent formParent, Entity entity) {
+
+        m_renderedEntities.put(formParent, entity);
+    }
+
+    /**
+     * Collects the elements with the RDFa about attribute set to the given entity id, in document order.<p>
+     * 
+     * @param parent the parent element to search
+     * @param entityId the entity id
+     * @param result the list to add the elements to
+     */
+    private static void collectEntityElements(Element parent, String entityId, List<Element> result) {
+
+        Element child = parent.getFirstChildElement();
+        while (child != null) {
+            if (entityId.equals(child.getAttribute(ATTR_ABOUT))) {
+                result.add(child);
+            } else {
+                collectEntityElements(child, entityId, result);
+            }
+            child = child.getNextSiblingElement();
+        }
+    }
+
+    /**
+     * Returns the key identifying the elements the given fragment stands for.<p>
+     * 
+     * @param fragment the fragment
+     * 
+     * @return the key
+     */
+    private static String getKey(EntityHtmlFragment fragment) {
+
+        if (fragment.isEntityFragment()) {
+            return fragment.getEntityId();
+        }
+        return fragment.getEntityId() + KEY_SEPARATOR + fragment.getAttributeName();
+    }
+
+    /**
+     * Parses the given HTML and returns the top level elements.<p>
+     * 
+     * @param html the HTML
+     * 
+     * @return the elements
+     */
+    private static List<Element> parseElements(String html) {
+
+        List<Element> result = new ArrayList<Element>();
+        if (html != null) {
+            Element tempDiv = DOM.createDiv();
+            tempDiv.setInnerHTML(html);
+            Element child = tempDiv.getFirstChildElement();
+            while (child != null) {
+                result.add(child);
+                child = child.getNextSiblingElement();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the content of the given element with the content of the replacement.<p>
+     * 
+     * @param formParent the form parent
+     * @param element the element
+     * @param replacement the replacement element
+     */
+    private static void replaceContent(I_FragmentFormParent formParent, Element element, Element replacement) {
+
+        Element child = element.getFirstChildElement();
+        while (child != null) {
+            Element next = child.getNextSiblingElement();
+            formParent.removeWidgets(child);
+            child = next;
+        }
+        element.setInnerHTML(replacement.getInnerHTML());
+    }
+
+    /**
+     * Replaces the given element.<p>
+     * 
+     * @param formParent the form parent
+     * @param element the element
+     * @param replacement the replacement element
+     */
+    private static void replaceElement(I_FragmentFormParent formParent, Element element, Element replacement) {
+
+        element.getParentElement().insertBefore(replacement, element);
+        formParent.removeWidgets(element);
+        if (element.getParentElement() != null) {
+            element.removeFromParent();
+        }
+    }
+
+    /**
+     * Collects the ids of all entities nested within the given entity.<p>
+     * 
+     * @param entity the entity
+     * @param entityIds the set to add the ids to
+     */
+    private void collectNestedEntityIds(I_Entity entity, Set<String> entityIds) {
+
+        for (I_EntityAttribute attribute : entity.getAttributes()) {
+            if (attribute.isComplexValue()) {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    entityIds.add(value.getId());
+                    collectNestedEntityIds(value, entityIds);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the current elements the given fragment stands for.<p>
+     * 
+     * @param formParent the form parent
+     * @param fragment the fragment
+     * 
+     * @return the elements, <code>null</code> if the fragment entity is not available
+     */
+    private List<Element> getElements(I_InlineFormParent formParent, EntityHtmlFragment fragment) {
+
+        if (fragment.isEntityFragment()) {
+            List<Element> result = new ArrayList<Element>();
+            collectEntityElements(formParent.getElement(), fragment.getEntityId(), result);
+            return result;
+        }
+        I_Entity entity = m_vie.getEntity(fragment.getEntityId());
+        if (entity == null) {
+            return null;
+        }
+        return m_vie.getAttributeElements(entity, fragment.getAttributeName(), formParent.getElement());
+    }
+
+    /**
+     * Removes the fragments contained within the entity fragments of the given map.<p>
+     * 
+     * @param fragments the fragments by key
+     */
+    private void removeCoveredFragments(Map<String, EntityHtmlFragment> fragments) {
+
+        Set<String> coveredIds = new HashSet<String>();
+        for (EntityHtmlFragment fragment : fragments.values()) {
+            if (fragment.isEntityFragment()) {
+                I_Entity entity = m_vie.getEntity(fragment.getEntityId());
+                if (entity != null) {
+                    collectNestedEntityIds(entity, coveredIds);
+                }
+            }
+        }
+        Iterator<EntityHtmlFragment> it = fragments.values().iterator();
+        while (it.hasNext()) {
+            EntityHtmlFragment fragment = it.next();
+            if (coveredIds.contains(fragment.getEntityId())
+                || (!fragment.isEntityFragment() && fragments.containsKey(fragment.getEntityId()))) {
+                it.remove();
+            }
+        }
+    }
+}
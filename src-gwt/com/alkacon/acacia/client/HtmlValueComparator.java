@@ -0,0 +1,379 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.user.client.DOM;
+
+/**
+ * Compares simple attribute values with the HTML content of their in-line elements,
+ * to decide whether an element may be edited directly.<p>
+ * 
+ * The comparison works on normalized HTML strings, the way the browser would serialize the value,
+ * instead of parsing the value into a temporary DOM element. Only values differing after normalization 
+ * are parsed, to avoid rejecting values using markup the normalization does not cover.
+ * The decisions are cached by element content and value, so re-initializing the widgets for 
+ * unchanged elements does not compare them again.<p>
+ */
+public final class HtmlValueComparator {
+
+    /** The maximum number of cached decisions. */
+    private static final int MAX_CACHE_SIZE = 1000;
+
+    /** The comparator instance. */
+    private static HtmlValueComparator INSTANCE;
+
+    /** The cached decisions, keyed by the value and the element content. */
+    private Map<String, Boolean> m_decisions;
+
+    /**
+     * Constructor.<p>
+     */
+    private HtmlValueComparator() {
+
+        m_decisions = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+            /** The serial version id. */
+            private static final long serialVersionUID = 4519203487265011453L;
+
+            /**
+             * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+
+                return size() > MAX_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Returns the comparator instance.<p>
+     * 
+     * @return the comparator instance
+     */
+    public static HtmlValueComparator getInstance() {
+
+        if (INSTANCE == null) {
+            INSTANCE = new HtmlValueComparator();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Normalizes the given HTML the way the browser serializes it.<p>
+     * 
+     * Tag and attribute names are lower cased, attribute values double quoted, void element slashes removed
+     * and character references in text decoded, re-encoding only the characters the browser encodes.
+     * Named character references other than the basic ones are kept as they are.<p>
+     * 
+     * @param html the HTML
+     * 
+     * @return the normalized HTML
+     */
+    public static String normalizeHtml(String html) {
+
+        String source = html.trim();
+        StringBuilder result = new StringBuilder(source.length());
+        int index = 0;
+        while (index < source.length()) {
+            if (source.charAt(index) == '<') {
+                if (source.startsWith("<!--", index)) {
+                    int end = source.indexOf("-->", index);
+                    end = end < 0 ? source.length() : end + 3;
+                    result.append(source.substring(index, end));
+                    index = end;
+                    continue;
+                }
+                int end = source.indexOf('>', index);
+                if (end < 0) {
+                    appendText(result, source.substring(index));
+                    break;
+                }
+                appendTag(result, source.substring(index + 1, end));
+                index = end + 1;
+            } else {
+                int end = source.indexOf('<', index);
+                if (end < 0) {
+                    end = source.length();
+                }
+                appendText(result, source.substring(index, end));
+                index = end;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns if the HTML content of the given element represents the given value,
+     * so the element may be edited directly.<p>
+     * 
+     * @param element the element
+     * @param value the value
+     * 
+     * @return <code>true</code> if the element content represents the value
+     */
+    public boolean isElementValue(Element element, String value) {
+
+        String html = element.getInnerHTML().trim();
+        // the length prefix separates value and content unambiguously
+        String key = value.length() + ":" + value + html;
+        Boolean decision = m_decisions.get(key);
+        if (decision == null) {
+            decision = Boolean.valueOf(compare(html, value));
+            m_decisions.put(key, decision);
+        }
+        return decision.booleanValue();
+    }
+
+    /**
+     * Appends the given character, encoded the way the browser serializes text.<p>
+     * 
+     * @param result the result to append to
+     * @param c the character
+     */
+    private static void appendCharacter(StringBuilder result, char c) {
+
+        switch (c) {
+            case '&':
+                result.append("&amp;");
+                break;
+            case '<':
+                result.append("&lt;");
+                break;
+            case '>':
+                result.append("&gt;");
+                break;
+            case '\u00a0':
+                result.append("&nbsp;");
+                break;
+            default:
+                result.append(c);
+        }
+    }
+
+    /**
+     * Appends the normalized tag.<p>
+     * 
+     * @param result the result to append to
+     * @param tag the tag content between the angle brackets
+     */
+    private static void appendTag(StringBuilder result, String tag) {
+
+        String content = tag.trim();
+        if (content.startsWith("/")) {
+            result.append("</").append(content.substring(1).trim().toLowerCase()).append(">");
+            return;
+        }
+        if (content.endsWith("/")) {
+            content = content.substring(0, content.length() - 1);
+        }
+        int index = 0;
+        while ((index < content.length()) && !isWhitespace(content.charAt(index))) {
+            index++;
+        }
+        result.append("<").append(content.substring(0, index).toLowerCase());
+        while (index < content.length()) {
+            while ((index < content.length()) && isWhitespace(content.charAt(index))) {
+                index++;
+            }
+            int nameStart = index;
+            while ((index < content.length())
+                && !isWhitespace(content.charAt(index))
+                && (content.charAt(index) != '=')) {
+                index++;
+            }
+            if (nameStart == index) {
+                // stray equals sign
+                index++;
+                continue;
+            }
+            String name = content.substring(nameStart, index).toLowerCase();
+            while ((index < content.length()) && isWhitespace(content.charAt(index))) {
+                index++;
+            }
+            String value = "";
+            if ((index < content.length()) && (content.charAt(index) == '=')) {
+                index++;
+                while ((index < content.length()) && isWhitespace(content.charAt(index))) {
+                    index++;
+                }
+                if (index < content.length()) {
+                    char quote = content.charAt(index);
+                    int valueEnd;
+                    if ((quote == '"') || (quote == '\'')) {
+                        valueEnd = content.indexOf(quote, index + 1);
+                        if (valueEnd < 0) {
+                            valueEnd = content.length();
+                        }
+                        value = content.substring(index + 1, valueEnd);
+                        index = valueEnd + 1;
+                    } else {
+                        valueEnd = index;
+                        while ((valueEnd < content.length()) && !isWhitespace(content.charAt(valueEnd))) {
+                            valueEnd++;
+                        }
+                        value = content.substring(index, valueEnd);
+                        index = valueEnd;
+                    }
+                }
+            }
+            result.append(" ").append(name).append("=\"").append(value.replace("\"", "&quot;")).append("\"");
+        }
+        result.append(">");
+    }
+
+    /**
+     * Appends the normalized text.<p>
+     * 
+     * @param result the result to append to
+     * @param text the text
+     */
+    private static void appendText(StringBuilder result, String text) {
+
+        int index = 0;
+        while (index < text.length()) {
+            char c = text.charAt(index);
+            if (c == '&') {
+                int end = text.indexOf(';', index);
+                if (end > (index + 1)) {
+                    String reference = text.substring(index + 1, end);
+                    int decoded = decodeReference(reference);
+                    if (decoded >= 0) {
+                        appendCharacter(result, (char)decoded);
+                        index = end + 1;
+                        continue;
+                    }
+                    if (isName(reference)) {
+                        // unknown named reference, keep it
+                        result.append(text.substring(index, end + 1));
+                        index = end + 1;
+                        continue;
+                    }
+                }
+            }
+            appendCharacter(result, c);
+            index++;
+        }
+    }
+
+    /**
+     * Decodes the given character reference.<p>
+     * 
+     * @param reference the reference without the leading ampersand and the trailing semicolon
+     * 
+     * @return the character, -1 if the reference is not known
+     */
+    private static int decodeReference(String reference) {
+
+        if ("amp".equals(reference)) {
+            return '&';
+        }
+        if ("lt".equals(reference)) {
+            return '<';
+        }
+        if ("gt".equals(reference)) {
+            return '>';
+        }
+        if ("nbsp".equals(reference)) {
+            return '\u00a0';
+        }
+        if ("quot".equals(reference)) {
+            return '"';
+        }
+        if ("apos".equals(reference)) {
+            return '\'';
+        }
+        if (reference.startsWith("#") && (reference.length() > 1)) {
+            try {
+                int code = ((reference.charAt(1) == 'x') || (reference.charAt(1) == 'X'))
+                ? Integer.parseInt(reference.substring(2), 16)
+                : Integer.parseInt(reference.substring(1));
+                if ((code > 0) && (code <= 0xffff)) {
+                    return code;
+                }
+            } catch (NumberFormatException e) {
+                // not a valid numeric reference
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns if the given string is a valid character reference name.<p>
+     * 
+     * @param reference the reference
+     * 
+     * @return <code>true</code> if the string is a valid name
+     */
+    private static boolean isName(String reference) {
+
+        for (int i = 0; i < reference.length(); i++) {
+            if (!Character.isLetterOrDigit(reference.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns if the given character is HTML whitespace.<p>
+     * 
+     * @param c the character
+     * 
+     * @return <code>true</code> if the character is whitespace
+     */
+    private static boolean isWhitespace(char c) {
+
+        return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\r') || (c == '\f');
+    }
+
+    /**
+     * Compares the element HTML with the value.<p>
+     * 
+     * @param html the trimmed element HTML
+     * @param value the value
+     * 
+     * @return <code>true</code> if the element HTML represents the value
+     */
+    private boolean compare(String html, String value) {
+
+        String trimmedValue = value.trim();
+        if (html.equals(trimmedValue)) {
+            return true;
+        }
+        String normalizedValue = normalizeHtml(trimmedValue);
+        if (html.equals(normalizedValue) || normalizeHtml(html).equals(normalizedValue)) {
+            return true;
+        }
+        // the normalization does not cover all markup, let the browser serialize the value to be sure
+        Element tempSpan = DOM.createSpan();
+        tempSpan.setInnerHTML(value);
+        return html.equals(tempSpan.getInnerHTML().trim());
+    }
+}
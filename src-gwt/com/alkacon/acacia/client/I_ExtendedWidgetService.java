@@ -0,0 +1,74 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.client.widgets.I_FormEditWidget;
+import com.alkacon.acacia.shared.AttributeConfiguration;
+
+/**
+ * Widget service additionally providing the attribute configurations, the collapsed display of nested values 
+ * and the reuse of form widgets.<p>
+ * 
+ * Callers check for this interface, so implementations of {@link I_WidgetService} alone keep working 
+ * without these features.<p>
+ */
+public interface I_ExtendedWidgetService extends I_WidgetService {
+
+    /**
+     * Discards all released form widgets kept for reuse.<p>
+     */
+    void clearWidgetPool();
+
+    /**
+     * Returns the attribute configuration.<p>
+     *
+     * @param attributeName the attribute name
+     *
+     * @return the attribute configuration, <code>null</code> if not configured
+     */
+    AttributeConfiguration getAttributeConfiguration(String attributeName);
+
+    /**
+     * Returns if nested entity values of the attribute should be displayed collapsed.<p>
+     * 
+     * @param attributeName the attribute name
+     * 
+     * @return <code>true</code> if nested entity values should be displayed collapsed
+     */
+    boolean isDisplayCollapsed(String attributeName);
+
+    /**
+     * Releases a form widget that is no longer used by its attribute value view, so it may be reused.<p>
+     * 
+     * Only widgets implementing {@link com.alkacon.acacia.client.widgets.I_ReusableWidget} are kept for reuse,
+     * all other widgets are left untouched.<p>
+     * 
+     * The caller has to remove all handlers it registered on the widget before.<p>
+     * 
+     * @param widget the form widget
+     */
+    void releaseFormWidget(I_FormEditWidget widget);
+}
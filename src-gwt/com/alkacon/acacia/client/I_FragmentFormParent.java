@@ -0,0 +1,46 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client;
+
+import com.google.gwt.dom.client.Element;
+
+/**
+ * An inline form parent widget supporting the replacement of HTML fragments.<p>
+ * 
+ * Fragment wise HTML updates are only applied to form parents implementing this interface,
+ * all other form parents get the complete HTML replaced.<p>
+ */
+public interface I_FragmentFormParent extends I_InlineFormParent {
+
+    /**
+     * Removes all child widgets whose elements are the given element or one of its descendants.<p>
+     * 
+     * Call this before replacing parts of the HTML, the widget elements are removed from the DOM.<p>
+     * 
+     * @param element the element
+     */
+    void removeWidgets(Element element);
+
+}
@@ -0,0 +1,68 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.shared.TabInfo;
+import com.alkacon.geranium.client.ui.TabbedPanel;
+import com.alkacon.vie.shared.I_Entity;
+
+import java.util.List;
+
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.Panel;
+
+/**
+ * Entity renderer able to render forms in time sliced batches.<p>
+ * 
+ * Callers check for this interface, for other renderers the form is rendered completely 
+ * by {@link I_EntityRenderer#renderForm(I_Entity, List, Panel, I_AttributeHandler, int)}.<p>
+ */
+public interface I_IncrementalEntityRenderer extends I_EntityRenderer {
+
+    /**
+     * Renders the given entity into a form with tabs, executing the callback once all attributes have been rendered.<p>
+     * 
+     * Renderers may render the attributes in time sliced batches after this method returns,
+     * otherwise the callback is executed before this method returns.<p>
+     * 
+     * @param entity the entity to render
+     * @param tabInfos the tab infos
+     * @param context the context widget panel
+     * @param parentHandler the parent attribute handler
+     * @param attributeIndex the attribute index
+     * @param callback the command to execute once all attributes have been rendered, may be <code>null</code>
+     * 
+     * @return the tabbed panel 
+     */
+    TabbedPanel<FlowPanel> renderForm(
+        I_Entity entity,
+        List<TabInfo> tabInfos,
+        Panel context,
+        I_AttributeHandler parentHandler,
+        int attributeIndex,
+        Command callback);
+}
@@ -34,6 +34,8 @@ public interface I_InlineHtmlUpdateHandler {
     /**
      * Reinitializes the editing widget inside the form parent.<p>
      * 
+     * Replaces the existing edit buttons, or only those within replaced HTML fragments.<p>
+     * 
      * @param formParent the form parent
      */
     void reinitWidgets(I_InlineFormParent formParent);
@@ -41,8 +43,10 @@ public interface I_InlineHtmlUpdateHandler {
     /**
      * Updates the HTML inside the form parent according to the currently edited entiy data.<p>
      * 
+     * The callback is also executed if the update failed, so a following update is not blocked.<p>
+     * 
      * @param formParent the form parent
-     * @param onSuccess the callback to execute on success
+     * @param onSuccess the callback to execute once the update has finished
      */
     void updateHtml(I_InlineFormParent formParent, Command onSuccess);
 }
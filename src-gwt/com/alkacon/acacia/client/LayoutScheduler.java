@@ -0,0 +1,173 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationHandle;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+
+/**
+ * Batches layout reads and style writes of overlays, button bars and pop-ups into one animation frame.<p>
+ * 
+ * Within a frame, all scheduled tasks read the layout first, then all of them write their styles,
+ * followed by the scheduled write commands. This way the browser computes the layout at most once per frame,
+ * instead of once per component interleaving reads and writes.<p>
+ */
+public final class LayoutScheduler implements AnimationCallback {
+
+    /**
+     * A task reading the layout and writing styles in separate phases.<p>
+     */
+    public interface I_LayoutTask {
+
+        /**
+         * Reads the layout. Styles and DOM structure must not be changed here.<p>
+         */
+        void readLayout();
+
+        /**
+         * Writes the styles according to the layout read before. The layout must not be read here.<p>
+         */
+        void writeLayout();
+    }
+
+    /** The scheduler instance. */
+    private static LayoutScheduler INSTANCE;
+
+    /** The handle of the requested animation frame. */
+    private AnimationHandle m_frameHandle;
+
+    /** The scheduled tasks. */
+    private List<I_LayoutTask> m_tasks;
+
+    /** The scheduled write commands. */
+    private List<ScheduledCommand> m_writeCommands;
+
+    /**
+     * Constructor.<p>
+     */
+    private LayoutScheduler() {
+
+        m_tasks = new ArrayList<I_LayoutTask>();
+        m_writeCommands = new ArrayList<ScheduledCommand>();
+    }
+
+    /**
+     * Returns the scheduler instance.<p>
+     * 
+     * @return the scheduler instance
+     */
+    public static LayoutScheduler getInstance() {
+
+        if (INSTANCE == null) {
+            INSTANCE = new LayoutScheduler();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @see com.google.gwt.animation.client.AnimationScheduler.AnimationCallback#execute(double)
+     */
+    public void execute(double timestamp) {
+
+        m_frameHandle = null;
+        // tasks and commands scheduled while running are executed in the next frame
+        List<I_LayoutTask> tasks = m_tasks;
+        List<ScheduledCommand> writeCommands = m_writeCommands;
+        m_tasks = new ArrayList<I_LayoutTask>();
+        m_writeCommands = new ArrayList<ScheduledCommand>();
+        RuntimeException error = null;
+        for (I_LayoutTask task : tasks) {
+            try {
+                task.readLayout();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        for (I_LayoutTask task : tasks) {
+            try {
+                task.writeLayout();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        for (ScheduledCommand command : writeCommands) {
+            try {
+                command.execute();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            // a failing component should not prevent the others from being updated
+            throw error;
+        }
+    }
+
+    /**
+     * Schedules the given task for the next animation frame.<p>
+     * 
+     * Scheduling a task that is already pending has no effect.<p>
+     * 
+     * @param task the task
+     */
+    public void schedule(I_LayoutTask task) {
+
+        if (!m_tasks.contains(task)) {
+            m_tasks.add(task);
+            requestFrame();
+        }
+    }
+
+    /**
+     * Schedules the given command for the write phase of the next animation frame.<p>
+     * 
+     * Write commands are executed in the order they were scheduled. Scheduling a command that is already pending
+     * has no effect.<p>
+     * 
+     * @param command the command, must not read the layout
+     */
+    public void scheduleWrite(ScheduledCommand command) {
+
+        if (!m_writeCommands.contains(command)) {
+            m_writeCommands.add(command);
+            requestFrame();
+        }
+    }
+
+    /**
+     * Requests an animation frame if not done yet.<p>
+     */
+    private void requestFrame() {
+
+        if (m_frameHandle == null) {
+            m_frameHandle = AnimationScheduler.get().requestAnimationFrame(this);
+        }
+    }
+}
@@ -40,9 +40,14 @@ import com.alkacon.vie.shared.I_Entity;
 import com.alkacon.vie.shared.I_EntityAttribute;
 import com.alkacon.vie.shared.I_Type;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
@@ -55,7 +60,7 @@ import com.google.gwt.event.logical.shared.SelectionEvent;
 import com.google.gwt.event.logical.shared.SelectionHandler;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
-import com.google.gwt.user.client.DOM;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.Panel;
 import com.google.gwt.user.client.ui.Widget;
@@ -63,7 +68,226 @@ import com.google.gwt.user.client.ui.Widget;
 /**
  * Renders the widgets for an in-line form.<p>
  */
-public class Renderer implements I_EntityRenderer {
+public class Renderer implements I_IncrementalEntityRenderer {
+
+    /**
+     * Renders the attributes of the form tabs in time sliced batches.<p>
+     */
+    protected class IncrementalRenderCommand implements RepeatingCommand {
+
+        /** The command to execute once all attributes have been rendered. */
+        private Command m_callback;
+
+        /** Flag indicating the rendering has been cancelled. */
+        private boolean m_cancelled;
+
+        /** The form context panel. */
+        private Panel m_context;
+
+        /** Flag indicating the context panel was attached when the rendering started. */
+        private boolean m_contextAttached;
+
+        /** The index of the tab currently rendered. */
+        private int m_tabIndex;
+
+        /** The render commands of the tabs to render. */
+        private List<TabRenderCommand> m_tabs;
+
+        /**
+         * Constructor.<p>
+         * 
+         * @param tabs the render commands of the tabs to render
+         * @param context the form context panel
+         * @param callback the command to execute once all attributes have been rendered, may be <code>null</code>
+         */
+        protected IncrementalRenderCommand(List<TabRenderCommand> tabs, Panel context, Command callback) {
+
+            m_tabs = tabs;
+            m_context = context;
+            m_contextAttached = context.isAttached();
+            m_callback = callback;
+        }
+
+        /**
+         * @see com.google.gwt.core.client.Scheduler.RepeatingCommand#execute()
+         */
+        public boolean execute() {
+
+            if (m_cancelled || (m_contextAttached && !m_context.isAttached())) {
+                // the form has been removed or rendered again
+                return false;
+            }
+            Duration duration = new Duration();
+            while (m_tabIndex < m_tabs.size()) {
+                TabRenderCommand tab = m_tabs.get(m_tabIndex);
+                if (tab.hasMoreAttributes()) {
+                    tab.renderNextAttribute();
+                    if (duration.elapsedMillis() > INCREMENTAL_RENDERING_TIME_SLICE) {
+                        return true;
+                    }
+                } else {
+                    m_tabIndex++;
+                }
+            }
+            if (m_incrementalRenderCommand == this) {
+                m_incrementalRenderCommand = null;
+            }
+            if (m_callback != null) {
+                m_callback.execute();
+            }
+            return false;
+        }
+
+        /**
+         * Cancels the rendering, the callback will not be executed.<p>
+         */
+        protected void cancel() {
+
+            m_cancelled = true;
+        }
+    }
+
+    /**
+     * Renders the attributes of a form tab.<p>
+     */
+    protected class TabRenderCommand implements ScheduledCommand {
+
+        /** The attribute handlers. */
+        private List<AttributeHandler> m_attributeHandlers;
+
+        /** The names of the attributes displayed in the tab. */
+        private List<String> m_attributeNames;
+
+        /** Flag indicating the tab content may be collapsed. */
+        private boolean m_collapsed;
+
+        /** The entity. */
+        private I_Entity m_entity;
+
+        /** The last attribute view rendered in compact mode. */
+        private AttributeValueView m_lastCompactView;
+
+        /** The index of the next attribute to render. */
+        private int m_nextIndex;
+
+        /** The tab panel. */
+        private Panel m_tabPanel;
+
+        /**
+         * Constructor.<p>
+         * 
+         * @param entity the entity
+         * @param tabPanel the tab panel
+         * @param collapsed <code>true</code> if the tab content may be collapsed
+         */
+        protected TabRenderCommand(I_Entity entity, Panel tabPanel, boolean collapsed) {
+
+            m_entity = entity;
+            m_tabPanel = tabPanel;
+            m_collapsed = collapsed;
+            m_attributeNames = new ArrayList<String>();
+            m_attributeHandlers = new ArrayList<AttributeHandler>();
+        }
+
+        /**
+         * @see com.google.gwt.core.client.Scheduler.ScheduledCommand#execute()
+         */
+        public void execute() {
+
+            while (hasMoreAttributes()) {
+                renderNextAttribute();
+            }
+        }
+
+        /**
+         * Adds an attribute to the tab.<p>
+         * 
+         * @param attributeName the attribute name
+         * @param handler the attribute handler
+         */
+        protected void addAttribute(String attributeName, AttributeHandler handler) {
+
+            m_attributeNames.add(attributeName);
+            m_attributeHandlers.add(handler);
+        }
+
+        /**
+         * Returns the validation handler of the form.<p>
+         * 
+         * @return the validation handler, <code>null</code> if not available
+         */
+        protected ValidationHandler getValidationHandler() {
+
+            return m_attributeHandlers.isEmpty() ? null : m_attributeHandlers.get(0).getValidationHandler();
+        }
+
+        /**
+         * Returns if there are attributes left to render.<p>
+         * 
+         * @return <code>true</code> if there are attributes left to render
+         */
+        protected boolean hasMoreAttributes() {
+
+            return m_nextIndex < m_attributeNames.size();
+        }
+
+        /**
+         * Renders the next attribute of the tab.<p>
+         */
+        protected void renderNextAttribute() {
+
+            I_Type entityType = m_vie.getType(m_entity.getTypeName());
+            String attributeName = m_attributeNames.get(m_nextIndex);
+            AttributeHandler handler = m_attributeHandlers.get(m_nextIndex);
+            m_nextIndex++;
+            handler.setPendingTabIndex(-1);
+            I_Type attributeType = entityType.getAttributeType(attributeName);
+            int minOccurrence = entityType.getAttributeMinOccurrence(attributeName);
+            I_EntityAttribute attribute = m_entity.getAttribute(attributeName);
+            // only single complex values may be collapsed
+            if (m_collapsed
+                && (attribute != null)
+                && !attributeType.isSimpleType()
+                && (minOccurrence == 1)
+                && (entityType.getAttributeMaxOccurrence(attributeName) == 1)) {
+                I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(attributeName, attributeType);
+                renderer.renderForm(attribute.getComplexValue(), m_tabPanel, handler, 0);
+            } else {
+                ValuePanel attributeElement = new ValuePanel();
+                m_tabPanel.add(attributeElement);
+                if ((attribute == null) && (minOccurrence > 0)) {
+                    attribute = createEmptyAttribute(m_entity, attributeName, minOccurrence);
+                }
+                m_lastCompactView = renderAttribute(
+                    entityType,
+                    attributeType,
+                    attribute,
+                    handler,
+                    attributeElement,
+                    attributeName,
+                    m_lastCompactView);
+            }
+            handler.updateButtonVisisbility();
+            if (!hasMoreAttributes() && (m_lastCompactView != null)) {
+                // previous widget was set to first column mode,
+                // revert that as no following widget will occupy the second column
+                m_lastCompactView.setCompactMode(AttributeValueView.COMPACT_MODE_WIDE);
+                m_lastCompactView = null;
+            }
+        }
+
+        /**
+         * Marks the tab attributes as not rendered yet.<p>
+         * 
+         * @param tabIndex the tab index
+         */
+        protected void setPending(int tabIndex) {
+
+            for (AttributeHandler handler : m_attributeHandlers) {
+                handler.setPendingTabIndex(tabIndex);
+            }
+        }
+    }
 
     /**
      * Calls resize on tab selection on the tabs child hierarchy.<p> 
@@ -73,6 +297,9 @@ public class Renderer implements I_EntityRenderer {
         /** The tabbed panel. */
         TabbedPanel<FlowPanel> m_tabsPanel;
 
+        /** The render commands of the tabs not rendered yet, by tab index. */
+        private Map<Integer, TabRenderCommand> m_pendingTabs;
+
         /**
          * Constructor.<p>
          * 
@@ -81,6 +308,7 @@ public class Renderer implements I_EntityRenderer {
         TabSelectionHandler(TabbedPanel<FlowPanel> tabsPanel) {
 
             m_tabsPanel = tabsPanel;
+            m_pendingTabs = new HashMap<Integer, TabRenderCommand>();
         }
 
         /**
@@ -88,6 +316,17 @@ public class Renderer implements I_EntityRenderer {
          */
         public void onSelection(final SelectionEvent<Integer> event) {
 
+            TabRenderCommand renderCommand = m_pendingTabs.remove(event.getSelectedItem());
+            if (renderCommand != null) {
+                renderCommand.execute();
+                // display the validation messages of the attributes just rendered
+                ValidationHandler validationHandler = renderCommand.getValidationHandler();
+                if (validationHandler != null) {
+                    validationHandler.refreshValidation();
+                }
+            }
+            // deferred attribute values may have become visible
+            ValueWindowHandler.getInstance().scheduleCheck();
             Scheduler.get().scheduleDeferred(new ScheduledCommand() {
 
                 public void execute() {
@@ -102,12 +341,29 @@ public class Renderer implements I_EntityRenderer {
             });
 
         }
+
+        /**
+         * Adds a tab to be rendered when first selected.<p>
+         * 
+         * @param tabIndex the tab index
+         * @param renderCommand the tab render command
+         */
+        void addPendingTab(int tabIndex, TabRenderCommand renderCommand) {
+
+            renderCommand.setPending(tabIndex);
+            m_pendingTabs.put(Integer.valueOf(tabIndex), renderCommand);
+        }
     }
 
     /**
      * Handles the size of a tabbed panel.<p>
+     * 
+     * The height adjustment is coalesced into the next animation frame and the context height is only written
+     * when the height of the current tab content actually changed. Widget resizes and tab selections observe
+     * the height for a few frames, entity changes only read it once.<p>
      */
-    protected class TabSizeHandler implements SelectionHandler<Integer>, ValueChangeHandler<I_Entity>, ResizeHandler {
+    protected class TabSizeHandler extends A_LayoutObserver
+    implements SelectionHandler<Integer>, ValueChangeHandler<I_Entity>, ResizeHandler {
 
         /** The context panel. */
         private Panel m_context;
@@ -132,7 +388,7 @@ public class Renderer implements I_EntityRenderer {
          */
         public void onResize(ResizeEvent event) {
 
-            triggerHeightAdjustment();
+            trigger();
         }
 
         /**
@@ -140,7 +396,7 @@ public class Renderer implements I_EntityRenderer {
          */
         public void onSelection(SelectionEvent<Integer> event) {
 
-            triggerHeightAdjustment();
+            trigger();
         }
 
         /**
@@ -148,32 +404,28 @@ public class Renderer implements I_EntityRenderer {
          */
         public void onValueChange(ValueChangeEvent<I_Entity> event) {
 
-            triggerHeightAdjustment();
+            // fired on every keystroke, widgets changing their size asynchronously fire resize events
+            triggerSingleFrame();
         }
 
         /**
-         * Adjusts the tabbed panel height to the height of the current tab content.<p> 
+         * @see com.alkacon.acacia.client.A_LayoutObserver#measure()
          */
-        protected void adjustContextHeight() {
+        @Override
+        protected int measure() {
 
             int tabIndex = m_tabbedPanel.getSelectedIndex();
             FlowPanel tab = m_tabbedPanel.getWidget(tabIndex);
-            int height = PositionBean.getInnerDimensions(tab.getElement(), 1, false).getHeight();
-            m_context.getElement().getStyle().setHeight(50 + height, Unit.PX);
+            return PositionBean.getInnerDimensions(tab.getElement(), 1, false).getHeight();
         }
 
         /**
-         * Triggers the tab panel height adjustment scheduled after the browsers event loop.<p>
+         * @see com.alkacon.acacia.client.A_LayoutObserver#onLayoutChange(int)
          */
-        private void triggerHeightAdjustment() {
-
-            Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+        @Override
+        protected void onLayoutChange(int height) {
 
-                public void execute() {
-
-                    adjustContextHeight();
-                }
-            });
+            m_context.getElement().getStyle().setHeight(50 + height, Unit.PX);
         }
     }
 
@@ -212,6 +464,9 @@ public class Renderer implements I_EntityRenderer {
     /** The entity CSS class. */
     public static final String ENTITY_CLASS = I_LayoutBundle.INSTANCE.form().entity();
 
+    /** The maximum time in milliseconds spent rendering attributes before yielding to the browser. */
+    public static final int INCREMENTAL_RENDERING_TIME_SLICE = 16;
+
     /** The attribute label CSS class. */
     public static final String LABEL_CLASS = I_LayoutBundle.INSTANCE.form().label();
 
@@ -221,12 +476,24 @@ public class Renderer implements I_EntityRenderer {
     /** The widget holder CSS class. */
     public static final String WIDGET_HOLDER_CLASS = I_LayoutBundle.INSTANCE.form().widgetHolder();
 
+    /** The attribute element index of the in-line rendering currently running. */
+    private static AttributeElementIndex m_inlineElementIndex;
+
+    /** The incremental rendering currently running. */
+    IncrementalRenderCommand m_incrementalRenderCommand;
+
     /** The VIE instance. */
     I_Vie m_vie;
 
     /** The widget service. */
     I_WidgetService m_widgetService;
 
+    /** Flag indicating the form attributes should be rendered in time sliced batches. */
+    private boolean m_incrementalRendering;
+
+    /** Flag indicating only the selected form tab should be rendered, other tabs are rendered when first selected. */
+    private boolean m_lazyTabRendering;
+
     /**
      * Constructor.<p>
      * 
@@ -306,6 +573,39 @@ public class Renderer implements I_EntityRenderer {
         return this;
     }
 
+    /**
+     * Creates the values of all required attributes missing in the given entity and its nested entities.<p>
+     * 
+     * The form rendering is lazy for not selected tabs and collapsed values, so the entity data is completed 
+     * up front to not have validation and saving depend on what has been rendered.<p>
+     * 
+     * @param entity the entity
+     */
+    public void ensureRequiredValues(I_Entity entity) {
+
+        I_Type entityType = m_vie.getType(entity.getTypeName());
+        if (entityType == null) {
+            return;
+        }
+        for (String attributeName : entityType.getAttributeNames()) {
+            I_Type attributeType = entityType.getAttributeType(attributeName);
+            I_EntityAttribute attribute = entity.getAttribute(attributeName);
+            int minOccurrence = entityType.getAttributeMinOccurrence(attributeName);
+            // choice entities only contain the selected option
+            if ((attribute == null) && (minOccurrence > 0) && !entityType.isChoice()) {
+                attribute = createEmptyAttribute(entity, attributeName, minOccurrence);
+            }
+            // values rendered by other renderers are completed by these
+            if ((attribute != null)
+                && attribute.isComplexValue()
+                && (m_widgetService.getRendererForAttribute(attributeName, attributeType) instanceof Renderer)) {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    ensureRequiredValues(value);
+                }
+            }
+        }
+    }
+
     /**
      * @see com.alkacon.acacia.client.I_EntityRenderer#getName()
      */
@@ -314,6 +614,26 @@ public class Renderer implements I_EntityRenderer {
         return RENDERER_NAME;
     }
 
+    /**
+     * Returns if the form attributes are rendered in time sliced batches.<p>
+     * 
+     * @return <code>true</code> if the form attributes are rendered in time sliced batches
+     */
+    public boolean isIncrementalRendering() {
+
+        return m_incrementalRendering;
+    }
+
+    /**
+     * Returns if only the selected form tab is rendered up front.<p>
+     * 
+     * @return <code>true</code> if form tabs are rendered when first selected
+     */
+    public boolean isLazyTabRendering() {
+
+        return m_lazyTabRendering;
+    }
+
     /**
      * @see com.alkacon.acacia.client.I_EntityRenderer#renderAttributeValue(com.alkacon.vie.shared.I_Entity, com.alkacon.acacia.client.AttributeHandler, int, com.google.gwt.user.client.ui.Panel)
      */
@@ -373,10 +693,31 @@ public class Renderer implements I_EntityRenderer {
         attributeHandler.updateButtonVisisbility();
     }
 
+    /**
+     * Renders the value views of the given attribute handler into its value panel, the same way as during form rendering.<p>
+     * 
+     * Used to re-render the values of a single attribute without re-rendering the whole form.<p>
+     * 
+     * @param entity the entity containing the attribute
+     * @param handler the attribute handler
+     * @param attributeElement the value panel of the attribute
+     */
+    public void renderAttributeValues(I_Entity entity, AttributeHandler handler, ValuePanel attributeElement) {
+
+        String attributeName = handler.getAttributeName();
+        renderAttribute(
+            m_vie.getType(entity.getTypeName()),
+            handler.getAttributeType(),
+            entity.getAttribute(attributeName),
+            handler,
+            attributeElement,
+            attributeName,
+            null);
+    }
+
     /**
      * @see com.alkacon.acacia.client.I_EntityRenderer#renderForm(com.alkacon.vie.shared.I_Entity, java.util.List, com.google.gwt.user.client.ui.Panel, com.alkacon.acacia.client.I_AttributeHandler, int)
      */
-    @SuppressWarnings("unchecked")
     public TabbedPanel<FlowPanel> renderForm(
         I_Entity entity,
         List<TabInfo> tabInfos,
@@ -384,106 +725,28 @@ public class Renderer implements I_EntityRenderer {
         I_AttributeHandler parentHandler,
         int attributeIndex) {
 
-        if ((tabInfos == null) || (tabInfos.size() < 2)) {
-            renderForm(entity, context, parentHandler, attributeIndex);
-            return null;
-        } else {
+        return renderTabbedForm(entity, tabInfos, context, parentHandler, attributeIndex, false, null);
+    }
 
-            context.getElement().getStyle().setHeight(600, Unit.PX);
-            context.getElement().setAttribute("typeof", entity.getTypeName());
-            context.getElement().setAttribute("about", entity.getId());
-            context.getElement().getStyle().setPadding(0, Unit.PX);
-            TabbedPanel<FlowPanel> tabbedPanel = new TabbedPanel<FlowPanel>(TabbedPanelStyle.classicTabs);
-            final TabSizeHandler tabSizeHandler = new TabSizeHandler(tabbedPanel, context);
-            tabbedPanel.addSelectionHandler(tabSizeHandler);
-            if (entity instanceof HasValueChangeHandlers) {
-                ((HasValueChangeHandlers<I_Entity>)entity).addValueChangeHandler(tabSizeHandler);
-            }
-            // adjust the tab panel height after a delay as some widgets may need time to initialize
-            Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
-
-                private int counter = 0;
-
-                /**
-                 * @see com.google.gwt.core.client.Scheduler.RepeatingCommand#execute()
-                 */
-                public boolean execute() {
-
-                    tabSizeHandler.adjustContextHeight();
-                    counter++;
-                    return counter < 6;
-                }
-            }, 200);
-            AttributeHandler.setResizeHandler(tabSizeHandler);
-            tabbedPanel.addSelectionHandler(new TabSelectionHandler(tabbedPanel));
-            tabbedPanel.getElement().getStyle().setBorderWidth(0, Unit.PX);
-            Iterator<TabInfo> tabIt = tabInfos.iterator();
-            TabInfo currentTab = tabIt.next();
-            TabInfo nextTab = tabIt.next();
-            FlowPanel tabPanel = createTab();
-            tabbedPanel.addNamed(tabPanel, currentTab.getTabName(), currentTab.getTabId());
-            I_Type entityType = m_vie.getType(entity.getTypeName());
-            List<String> attributeNames = entityType.getAttributeNames();
-            AttributeValueView lastCompactView = null;
-            boolean collapsed = currentTab.isCollapsed()
-                && ((nextTab != null) && attributeNames.get(1).endsWith("/" + nextTab.getStartName()));
-            for (final String attributeName : attributeNames) {
-                if ((nextTab != null) && attributeName.endsWith("/" + nextTab.getStartName())) {
-                    currentTab = nextTab;
-                    nextTab = tabIt.hasNext() ? tabIt.next() : null;
-                    tabPanel = createTab();
-                    tabbedPanel.addNamed(tabPanel, currentTab.getTabName(), currentTab.getTabId());
-                    // check if the tab content may be collapsed
-                    if (currentTab.isCollapsed()) {
-                        int currentIndex = attributeNames.indexOf(attributeName);
-                        collapsed = ((currentIndex + 1) == attributeNames.size())
-                            || ((nextTab != null) && attributeNames.get(currentIndex + 1).endsWith(
-                                "/" + nextTab.getStartName()));
-                    }
-                    if (lastCompactView != null) {
-                        // previous widget was set to first column mode,
-                        // revert that as no following widget will occupy the second column
-                        lastCompactView.setCompactMode(AttributeValueView.COMPACT_MODE_WIDE);
-                    }
-                }
-                AttributeHandler handler = new AttributeHandler(m_vie, entity, attributeName, m_widgetService);
-                parentHandler.setHandler(attributeIndex, attributeName, handler);
-                I_Type attributeType = entityType.getAttributeType(attributeName);
-                int minOccurrence = entityType.getAttributeMinOccurrence(attributeName);
-                I_EntityAttribute attribute = entity.getAttribute(attributeName);
-                // only single complex values may be collapsed
-                if (collapsed
-                    && (attribute != null)
-                    && !attributeType.isSimpleType()
-                    && (minOccurrence == 1)
-                    && (entityType.getAttributeMaxOccurrence(attributeName) == 1)) {
-                    I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(attributeName, attributeType);
-                    renderer.renderForm(attribute.getComplexValue(), tabPanel, handler, 0);
-                } else {
-                    ValuePanel attributeElement = new ValuePanel();
-                    tabPanel.add(attributeElement);
-                    if ((attribute == null) && (minOccurrence > 0)) {
-                        attribute = createEmptyAttribute(entity, attributeName, minOccurrence);
-                    }
-                    lastCompactView = renderAttribute(
-                        entityType,
-                        attributeType,
-                        attribute,
-                        handler,
-                        attributeElement,
-                        attributeName,
-                        lastCompactView);
-                }
-                handler.updateButtonVisisbility();
-            }
-            if (lastCompactView != null) {
-                // previous widget was set to first column mode,
-                // revert that as no following widget will occupy the second column
-                lastCompactView.setCompactMode(AttributeValueView.COMPACT_MODE_WIDE);
-            }
-            context.add(tabbedPanel);
-            return tabbedPanel;
-        }
+    /**
+     * @see com.alkacon.acacia.client.I_IncrementalEntityRenderer#renderForm(com.alkacon.vie.shared.I_Entity, java.util.List, com.google.gwt.user.client.ui.Panel, com.alkacon.acacia.client.I_AttributeHandler, int, com.google.gwt.user.client.Command)
+     */
+    public TabbedPanel<FlowPanel> renderForm(
+        I_Entity entity,
+        List<TabInfo> tabInfos,
+        Panel context,
+        I_AttributeHandler parentHandler,
+        int attributeIndex,
+        Command callback) {
+
+        return renderTabbedForm(
+            entity,
+            tabInfos,
+            context,
+            parentHandler,
+            attributeIndex,
+            m_incrementalRendering,
+            callback);
     }
 
     /**
@@ -569,18 +832,29 @@ public class Renderer implements I_EntityRenderer {
      */
     public void renderInline(I_Entity entity, I_InlineFormParent formParent, I_InlineHtmlUpdateHandler updateHandler) {
 
-        I_Type entityType = m_vie.getType(entity.getTypeName());
-        List<String> attributeNames = entityType.getAttributeNames();
-        for (String attributeName : attributeNames) {
-            I_Type attributeType = entityType.getAttributeType(attributeName);
-            I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(attributeName, attributeType);
-            renderer.renderInline(
-                entity,
-                attributeName,
-                formParent,
-                updateHandler,
-                entityType.getAttributeMinOccurrence(attributeName),
-                entityType.getAttributeMaxOccurrence(attributeName));
+        // walk the DOM once for the whole rendering, instead of once per attribute lookup
+        boolean createIndex = m_inlineElementIndex == null;
+        if (createIndex) {
+            m_inlineElementIndex = new AttributeElementIndex(m_vie, formParent.getElement());
+        }
+        try {
+            I_Type entityType = m_vie.getType(entity.getTypeName());
+            List<String> attributeNames = entityType.getAttributeNames();
+            for (String attributeName : attributeNames) {
+                I_Type attributeType = entityType.getAttributeType(attributeName);
+                I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(attributeName, attributeType);
+                renderer.renderInline(
+                    entity,
+                    attributeName,
+                    formParent,
+                    updateHandler,
+                    entityType.getAttributeMinOccurrence(attributeName),
+                    entityType.getAttributeMaxOccurrence(attributeName));
+            }
+        } finally {
+            if (createIndex) {
+                m_inlineElementIndex = null;
+            }
         }
     }
 
@@ -597,19 +871,17 @@ public class Renderer implements I_EntityRenderer {
 
         I_EntityAttribute attribute = parentEntity.getAttribute(attributeName);
         if (attribute != null) {
-            List<Element> elements = m_vie.getAttributeElements(parentEntity, attributeName, formParent.getElement());
+            List<Element> elements = getAttributeElements(parentEntity, attributeName, formParent);
             if (!elements.isEmpty()) {
                 AttributeHandler handler = new AttributeHandler(m_vie, parentEntity, attributeName, m_widgetService);
                 for (int i = 0; i < elements.size(); i++) {
                     Element element = elements.get(i);
                     I_EditWidget widget = m_widgetService.getAttributeInlineWidget(attributeName, element);
                     if (attribute.isSimpleValue() && (widget != null)) {
-                        Element tempSpan = DOM.createSpan();
-                        tempSpan.setInnerHTML(attribute.getSimpleValues().get(i));
-                        String value = tempSpan.getInnerHTML().trim();
                         // verify the current value equals the element content
-                        String innerHtml = element.getInnerHTML().trim();
-                        if (innerHtml.equals(value)) {
+                        if (HtmlValueComparator.getInstance().isElementValue(
+                            element,
+                            attribute.getSimpleValues().get(i))) {
                             widget.addValueChangeHandler(new WidgetChangeHandler(handler, i));
                             formParent.adoptWidget(widget);
                         } else {
@@ -640,7 +912,7 @@ public class Renderer implements I_EntityRenderer {
                 }
             }
         } else {
-            List<Element> elements = m_vie.getAttributeElements(parentEntity, attributeName, formParent.getElement());
+            List<Element> elements = getAttributeElements(parentEntity, attributeName, formParent);
             if (!elements.isEmpty() && (elements.size() == 1)) {
                 AttributeHandler handler = new AttributeHandler(m_vie, parentEntity, attributeName, m_widgetService);
                 InlineEntityWidget.createWidgetForEntity(
@@ -656,6 +928,34 @@ public class Renderer implements I_EntityRenderer {
 
     }
 
+    /**
+     * Sets if the form attributes should be rendered in time sliced batches.<p>
+     * 
+     * In incremental mode, {@link #renderForm(I_Entity, List, Panel, I_AttributeHandler, int, Command)} 
+     * registers all attribute handlers right away, but renders the attribute widgets in batches, 
+     * yielding to the browser after {@link #INCREMENTAL_RENDERING_TIME_SLICE} milliseconds, 
+     * so the first screen is displayed quickly and the UI stays responsive for large entities.<p>
+     * 
+     * @param incrementalRendering <code>true</code> to render the form attributes in time sliced batches
+     */
+    public void setIncrementalRendering(boolean incrementalRendering) {
+
+        m_incrementalRendering = incrementalRendering;
+    }
+
+    /**
+     * Sets if only the selected form tab should be rendered up front.<p>
+     * 
+     * In lazy mode the other tabs are rendered when first selected.
+     * Their attribute handlers are registered right away, so validation messages still mark the right tab.<p>
+     * 
+     * @param lazyTabRendering <code>true</code> to render form tabs when first selected
+     */
+    public void setLazyTabRendering(boolean lazyTabRendering) {
+
+        m_lazyTabRendering = lazyTabRendering;
+    }
+
     /**
      * Creates an empty attribute.<p>
      * 
@@ -698,6 +998,25 @@ public class Renderer implements I_EntityRenderer {
         return tabPanel;
     }
 
+    /**
+     * Returns the elements representing the values of the given entity attribute within the form parent.<p>
+     * 
+     * Uses the attribute element index while an in-line rendering of the form parent is running.<p>
+     * 
+     * @param entity the entity
+     * @param attributeName the attribute name
+     * @param formParent the form parent
+     * 
+     * @return the attribute elements
+     */
+    private List<Element> getAttributeElements(I_Entity entity, String attributeName, I_InlineFormParent formParent) {
+
+        if ((m_inlineElementIndex != null) && (m_inlineElementIndex.getContext() == formParent.getElement())) {
+            return m_inlineElementIndex.getAttributeElements(entity, attributeName);
+        }
+        return m_vie.getAttributeElements(entity, attributeName, formParent.getElement());
+    }
+
     /**
      * Renders a single attribute.<p>
      * 
@@ -724,7 +1043,10 @@ public class Renderer implements I_EntityRenderer {
         String help = m_widgetService.getAttributeHelp(attributeName);
         if (attribute != null) {
             I_EntityRenderer renderer = m_widgetService.getRendererForAttribute(attributeName, attributeType);
-            for (int i = 0; i < attribute.getValueCount(); i++) {
+            // large attributes start with a pool of value views, bound to the values scrolled into view later on
+            boolean deferValues = handler.isDeferredValueRendering(attribute.getValueCount());
+            int renderCount = deferValues ? AttributeHandler.VALUE_WINDOW_SIZE : attribute.getValueCount();
+            for (int i = 0; i < renderCount; i++) {
                 AttributeValueView valueWidget = new AttributeValueView(handler, label, help);
                 if (attributeType.isChoice() && (entityType.getAttributeMaxOccurrence(attributeName) == 1)) {
                     valueWidget.setCollapsed(true);
@@ -760,7 +1082,13 @@ public class Renderer implements I_EntityRenderer {
                         }
                     }
                 } else {
-                    valueWidget.setValueEntity(renderer, attribute.getComplexValues().get(i));
+                    I_Entity value = attribute.getComplexValues().get(i);
+                    if (handler.isCollapsedValueRendering()) {
+                        // render the form of the nested entity once expanded
+                        valueWidget.setCollapsedValueEntity(renderer, value, handler.getValueSummary(value));
+                    } else {
+                        valueWidget.setValueEntity(renderer, value);
+                    }
                     if (lastCompactView != null) {
                         // previous widget was set to first column mode,
                         // revert that as the current widget will be displayed in a new line
@@ -773,6 +1101,9 @@ public class Renderer implements I_EntityRenderer {
                 }
                 setAttributeChoice(valueWidget, attributeType);
             }
+            if (deferValues) {
+                handler.deferValueRendering(attributeElement);
+            }
         } else {
             AttributeValueView valueWidget = new AttributeValueView(handler, label, help);
             attributeElement.add(valueWidget);
@@ -823,6 +1154,153 @@ public class Renderer implements I_EntityRenderer {
         return lastCompactView;
     }
 
+    /**
+     * Renders the given entity into a form with tabs.<p>
+     * 
+     * The attribute handlers are registered right away, in incremental mode the attribute widgets are rendered
+     * in time sliced batches afterwards. A rendering still running for a previous form is cancelled.<p>
+     * 
+     * @param entity the entity to render
+     * @param tabInfos the tab infos
+     * @param context the context widget panel
+     * @param parentHandler the parent attribute handler
+     * @param attributeIndex the attribute index
+     * @param incremental <code>true</code> to render the attributes in time sliced batches
+     * @param callback the command to execute once all attributes have been rendered, may be <code>null</code>
+     * 
+     * @return the tabbed panel, <code>null</code> if no tabs are rendered
+     */
+    @SuppressWarnings("unchecked")
+    private TabbedPanel<FlowPanel> renderTabbedForm(
+        I_Entity entity,
+        List<TabInfo> tabInfos,
+        Panel context,
+        I_AttributeHandler parentHandler,
+        int attributeIndex,
+        boolean incremental,
+        final Command callback) {
+
+        if (m_incrementalRenderCommand != null) {
+            m_incrementalRenderCommand.cancel();
+            m_incrementalRenderCommand = null;
+        }
+        ensureRequiredValues(entity);
+        if ((tabInfos == null) || (tabInfos.size() < 2)) {
+            I_Type entityType = m_vie.getType(entity.getTypeName());
+            if (incremental && !entityType.isChoice()) {
+                context.addStyleName(ENTITY_CLASS);
+                context.getElement().setAttribute("typeof", entity.getTypeName());
+                context.getElement().setAttribute("about", entity.getId());
+                TabRenderCommand content = new TabRenderCommand(entity, context, false);
+                for (String attributeName : entityType.getAttributeNames()) {
+                    AttributeHandler handler = new AttributeHandler(m_vie, entity, attributeName, m_widgetService);
+                    parentHandler.setHandler(attributeIndex, attributeName, handler);
+                    content.addAttribute(attributeName, handler);
+                }
+                scheduleIncrementalRendering(Collections.singletonList(content), context, callback);
+            } else {
+                renderForm(entity, context, parentHandler, attributeIndex);
+                if (callback != null) {
+                    callback.execute();
+                }
+            }
+            return null;
+        }
+        context.getElement().getStyle().setHeight(600, Unit.PX);
+        context.getElement().setAttribute("typeof", entity.getTypeName());
+        context.getElement().setAttribute("about", entity.getId());
+        context.getElement().getStyle().setPadding(0, Unit.PX);
+        TabbedPanel<FlowPanel> tabbedPanel = new TabbedPanel<FlowPanel>(TabbedPanelStyle.classicTabs);
+        final TabSizeHandler tabSizeHandler = new TabSizeHandler(tabbedPanel, context);
+        tabbedPanel.addSelectionHandler(tabSizeHandler);
+        if (entity instanceof HasValueChangeHandlers) {
+            ((HasValueChangeHandlers<I_Entity>)entity).addValueChangeHandler(tabSizeHandler);
+        }
+        // the height is adjusted once the content has been laid out, following widgets that initialize asynchronously
+        tabSizeHandler.trigger();
+        AttributeHandler.setResizeHandler(tabSizeHandler);
+        TabSelectionHandler tabSelectionHandler = new TabSelectionHandler(tabbedPanel);
+        tabbedPanel.addSelectionHandler(tabSelectionHandler);
+        tabbedPanel.getElement().getStyle().setBorderWidth(0, Unit.PX);
+        Iterator<TabInfo> tabIt = tabInfos.iterator();
+        TabInfo currentTab = tabIt.next();
+        TabInfo nextTab = tabIt.next();
+        FlowPanel tabPanel = createTab();
+        tabbedPanel.addNamed(tabPanel, currentTab.getTabName(), currentTab.getTabId());
+        I_Type entityType = m_vie.getType(entity.getTypeName());
+        List<String> attributeNames = entityType.getAttributeNames();
+        boolean collapsed = currentTab.isCollapsed()
+            && ((nextTab != null) && attributeNames.get(1).endsWith("/" + nextTab.getStartName()));
+        TabRenderCommand tabContent = new TabRenderCommand(entity, tabPanel, collapsed);
+        List<TabRenderCommand> tabContents = new ArrayList<TabRenderCommand>();
+        tabContents.add(tabContent);
+        for (final String attributeName : attributeNames) {
+            if ((nextTab != null) && attributeName.endsWith("/" + nextTab.getStartName())) {
+                currentTab = nextTab;
+                nextTab = tabIt.hasNext() ? tabIt.next() : null;
+                tabPanel = createTab();
+                tabbedPanel.addNamed(tabPanel, currentTab.getTabName(), currentTab.getTabId());
+                // check if the tab content may be collapsed
+                if (currentTab.isCollapsed()) {
+                    int currentIndex = attributeNames.indexOf(attributeName);
+                    collapsed = ((currentIndex + 1) == attributeNames.size())
+                        || ((nextTab != null) && attributeNames.get(currentIndex + 1).endsWith(
+                            "/" + nextTab.getStartName()));
+                }
+                tabContent = new TabRenderCommand(entity, tabPanel, collapsed);
+                tabContents.add(tabContent);
+            }
+            // the handlers of all tabs are registered right away, so attribute paths always resolve
+            AttributeHandler handler = new AttributeHandler(m_vie, entity, attributeName, m_widgetService);
+            parentHandler.setHandler(attributeIndex, attributeName, handler);
+            tabContent.addAttribute(attributeName, handler);
+        }
+        List<TabRenderCommand> tabsToRender = new ArrayList<TabRenderCommand>();
+        for (int i = 0; i < tabContents.size(); i++) {
+            // the first tab is selected initially
+            if (m_lazyTabRendering && (i > 0)) {
+                tabSelectionHandler.addPendingTab(i, tabContents.get(i));
+            } else {
+                tabsToRender.add(tabContents.get(i));
+            }
+        }
+        if (incremental) {
+            context.add(tabbedPanel);
+            scheduleIncrementalRendering(tabsToRender, context, new Command() {
+
+                public void execute() {
+
+                    tabSizeHandler.trigger();
+                    if (callback != null) {
+                        callback.execute();
+                    }
+                }
+            });
+        } else {
+            for (TabRenderCommand tabToRender : tabsToRender) {
+                tabToRender.execute();
+            }
+            context.add(tabbedPanel);
+            if (callback != null) {
+                callback.execute();
+            }
+        }
+        return tabbedPanel;
+    }
+
+    /**
+     * Schedules the rendering of the given tab contents in time sliced batches.<p>
+     * 
+     * @param tabContents the tab contents to render
+     * @param context the form context panel
+     * @param callback the command to execute once all attributes have been rendered, may be <code>null</code>
+     */
+    private void scheduleIncrementalRendering(List<TabRenderCommand> tabContents, Panel context, Command callback) {
+
+        m_incrementalRenderCommand = new IncrementalRenderCommand(tabContents, context, callback);
+        Scheduler.get().scheduleIncremental(m_incrementalRenderCommand);
+    }
+
     /**
      * Sets the attribute choices if present.<p>
      * 
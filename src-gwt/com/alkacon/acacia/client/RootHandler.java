@@ -24,7 +24,7 @@
 
 package com.alkacon.acacia.client;
 
-import com.alkacon.acacia.shared.ContentDefinition;
+import com.alkacon.acacia.shared.AttributePath;
 import com.alkacon.acacia.shared.Type;
 
 import java.util.ArrayList;
@@ -37,12 +37,24 @@ import java.util.Map;
  */
 public class RootHandler implements I_AttributeHandler {
 
+    /** The path of the root handler, the paths of the root entity attributes are its child paths. */
+    private static final AttributePath ROOT_PATH = AttributePath.valueOf(new String[0]);
+
     /** The attribute handler by id. */
     private Map<String, AttributeHandler> m_handlerById;
 
+    /** The handlers of the handler hierarchy by their normalized attribute path, maintained by the root handler. */
+    private Map<AttributePath, AttributeHandler> m_handlerByPath;
+
+    /** The handlers of the handler hierarchy by their normalized simple path, maintained by the root handler. */
+    private Map<AttributePath, AttributeHandler> m_handlerBySimplePath;
+
     /** The sub handlers. */
     private List<Map<String, AttributeHandler>> m_handlers;
 
+    /** The validation handler of the form. */
+    private ValidationHandler m_validationHandler;
+
     /**
      * Constructor.<p>
      */
@@ -51,6 +63,8 @@ public class RootHandler implements I_AttributeHandler {
         m_handlers = new ArrayList<Map<String, AttributeHandler>>();
         m_handlers.add(new HashMap<String, AttributeHandler>());
         m_handlerById = new HashMap<String, AttributeHandler>();
+        m_handlerByPath = new HashMap<AttributePath, AttributeHandler>();
+        m_handlerBySimplePath = new HashMap<AttributePath, AttributeHandler>();
     }
 
     /**
@@ -58,8 +72,11 @@ public class RootHandler implements I_AttributeHandler {
      */
     public void clearHandlers() {
 
+        RootHandler root = getIndexRoot();
         for (Map<String, AttributeHandler> handlers : m_handlers) {
             for (AttributeHandler handler : handlers.values()) {
+                removeFromPathIndex(root, handler);
+                handler.releaseValueWidgets();
                 handler.clearHandlers();
             }
             handlers.clear();
@@ -103,9 +120,15 @@ public class RootHandler implements I_AttributeHandler {
     public AttributeHandler getChildHandlerBySimpleName(String name, int index) {
 
         if (m_handlers.size() > index) {
-            for (String attributeName : m_handlers.get(index).keySet()) {
-                if (attributeName.equals(name) || attributeName.endsWith(name)) {
-                    return m_handlers.get(index).get(attributeName);
+            Map<String, AttributeHandler> handlers = m_handlers.get(index);
+            AttributeHandler result = handlers.get(name);
+            if (result != null) {
+                return result;
+            }
+            // the attribute names may be qualified, match them by suffix
+            for (Map.Entry<String, AttributeHandler> entry : handlers.entrySet()) {
+                if (entry.getKey().endsWith(name)) {
+                    return entry.getValue();
                 }
             }
         }
@@ -125,6 +148,25 @@ public class RootHandler implements I_AttributeHandler {
         return m_handlerById.get(entityId + "/" + attributeName);
     }
 
+    /**
+     * Returns the attribute handler for the given path.<p>
+     * 
+     * @param path the attribute path
+     * 
+     * @return the attribute handler
+     */
+    public AttributeHandler getHandlerByPath(AttributePath path) {
+
+        // the value index of the last element does not matter, see findHandlerByPath
+        AttributePath attributePath = path.getAttributePath();
+        AttributeHandler result = m_handlerByPath.get(attributePath);
+        if (result == null) {
+            // choice option names are not part of the indexed paths, resolve them by walking the hierarchy
+            result = findHandlerByPath(attributePath);
+        }
+        return result;
+    }
+
     /**
      * Returns the attribute handler for the given path.<p>
      * 
@@ -134,48 +176,38 @@ public class RootHandler implements I_AttributeHandler {
      */
     public AttributeHandler getHandlerByPath(String[] pathNames) {
 
-        I_AttributeHandler handler = this;
-        int index = 0;
-        for (int i = 0; i < pathNames.length; i++) {
-            String attributeName = pathNames[i];
-            int nextIndex = ContentDefinition.extractIndex(attributeName);
-            attributeName = ContentDefinition.removeIndex(attributeName);
-            if ((handler instanceof AttributeHandler) && ((AttributeHandler)handler).getAttributeType().isChoice()) {
-                // in case of a choice attribute, skip to the next level
-                attributeName = Type.CHOICE_ATTRIBUTE_NAME;
-            }
-            handler = handler.getChildHandler(attributeName, index);
-            index = nextIndex;
-        }
-        return (AttributeHandler)handler;
+        return getHandlerByPath(AttributePath.valueOf(pathNames));
     }
 
     /**
      * Returns the attribute handler to the given simple path.<p>
      * 
+     * The simple names are looked up within the index of simple paths first. Otherwise they are matched against 
+     * the attribute names by suffix, walking the handler hierarchy.<p>
+     * 
      * @param pathNames the simple path elements
      * 
      * @return the attribute handler
      */
     public AttributeHandler getHandlersBySimplePath(String[] pathNames) {
 
-        I_AttributeHandler handler = this;
-        int index = 0;
-        for (int i = 0; i < pathNames.length; i++) {
-            String attributeName = pathNames[i];
-            int nextIndex = ContentDefinition.extractIndex(attributeName);
-            if (nextIndex > 0) {
-                nextIndex--;
-            }
-            attributeName = ContentDefinition.removeIndex(attributeName);
-            if ((handler instanceof AttributeHandler) && ((AttributeHandler)handler).getAttributeType().isChoice()) {
-                // in case of a choice attribute, skip to the next level
-                attributeName = Type.CHOICE_ATTRIBUTE_NAME;
-            }
-            handler = handler.getChildHandlerBySimpleName(attributeName, index);
-            index = nextIndex;
+        // the value index of the last element does not matter, the interned path keeps its attribute path
+        AttributePath path = AttributePath.valueOf(pathNames).getAttributePath();
+        AttributeHandler result = m_handlerBySimplePath.get(getSimpleIndexPath(path));
+        if (result == null) {
+            result = findHandlerBySimplePath(path);
         }
-        return (AttributeHandler)handler;
+        return result;
+    }
+
+    /**
+     * Returns the validation handler of the form.<p>
+     * 
+     * @return the validation handler, <code>null</code> if not set
+     */
+    public ValidationHandler getValidationHandler() {
+
+        return m_validationHandler;
     }
 
     /**
@@ -185,6 +217,8 @@ public class RootHandler implements I_AttributeHandler {
 
         if (index <= m_handlers.size()) {
             m_handlers.add(index, new HashMap<String, AttributeHandler>());
+            // the value indexes of all following handlers have changed
+            updatePathIndex(index + 1);
         } else {
             throw new IndexOutOfBoundsException("index of " + index + " too big, current size: " + m_handlers.size());
         }
@@ -195,7 +229,36 @@ public class RootHandler implements I_AttributeHandler {
      */
     public void removeHandlers(int index) {
 
-        m_handlers.remove(index);
+        RootHandler root = getIndexRoot();
+        for (AttributeHandler handler : m_handlers.remove(index).values()) {
+            // the nested value views are discarded
+            removeFromPathIndex(root, handler);
+            handler.releaseValueWidgets();
+            handler.clearHandlers();
+        }
+        // the value indexes of all following handlers have changed
+        updatePathIndex(index);
+    }
+
+    /**
+     * Discards the sub handlers of the value with the given index, keeping the value indexes of the following handlers.<p>
+     * 
+     * Used once the form of a nested entity value is no longer rendered.<p>
+     * 
+     * @param index the value index
+     */
+    public void resetHandlers(int index) {
+
+        if ((index >= m_handlers.size()) || m_handlers.get(index).isEmpty()) {
+            return;
+        }
+        RootHandler root = getIndexRoot();
+        for (AttributeHandler handler : m_handlers.get(index).values()) {
+            removeFromPathIndex(root, handler);
+            handler.releaseValueWidgets();
+            handler.clearHandlers();
+        }
+        m_handlers.set(index, new HashMap<String, AttributeHandler>());
     }
 
     /**
@@ -203,8 +266,13 @@ public class RootHandler implements I_AttributeHandler {
      */
     public void setHandler(int index, String attributeName, AttributeHandler handler) {
 
-        m_handlers.get(index).put(attributeName, handler);
+        AttributeHandler previous = m_handlers.get(index).put(attributeName, handler);
         handler.setParentHandler(this);
+        RootHandler root = getIndexRoot();
+        if ((previous != null) && (previous != handler)) {
+            removeFromPathIndex(root, previous);
+        }
+        addToPathIndex(root, index, attributeName, handler);
         setHandlerById(attributeName, handler);
     }
 
@@ -216,6 +284,16 @@ public class RootHandler implements I_AttributeHandler {
         m_handlerById.put(handler.getEntityId() + "/" + attributeName, handler);
     }
 
+    /**
+     * Sets the validation handler of the form.<p>
+     * 
+     * @param validationHandler the validation handler
+     */
+    public void setValidationHandler(ValidationHandler validationHandler) {
+
+        m_validationHandler = validationHandler;
+    }
+
     /**
      * Initializes the sub handlers maps for the given value count.<p>
      * 
@@ -224,6 +302,12 @@ public class RootHandler implements I_AttributeHandler {
     protected void initHandlers(int count) {
 
         if (count == 0) {
+            RootHandler root = getIndexRoot();
+            for (Map<String, AttributeHandler> handlers : m_handlers) {
+                for (AttributeHandler handler : handlers.values()) {
+                    removeFromPathIndex(root, handler);
+                }
+            }
             m_handlers.clear();
         } else {
             while (m_handlers.size() < count) {
@@ -233,4 +317,212 @@ public class RootHandler implements I_AttributeHandler {
         m_handlerById.clear();
     }
 
+    /**
+     * Returns the normalized attribute path of this handler, used to index the child handlers.<p>
+     * 
+     * @return the attribute path, <code>null</code> if the handler is not reachable by path
+     */
+    AttributePath getHandlerPath() {
+
+        return ROOT_PATH;
+    }
+
+    /**
+     * Returns the normalized simple path of this handler, used to index the child handlers.<p>
+     * 
+     * @return the simple path, <code>null</code> if the handler is not reachable by path
+     */
+    AttributePath getHandlerSimplePath() {
+
+        return ROOT_PATH;
+    }
+
+    /**
+     * Returns the root handler maintaining the path index of the handler hierarchy.<p>
+     * 
+     * @return the root handler, <code>null</code> if this handler has not been added to a root handler yet
+     */
+    RootHandler getIndexRoot() {
+
+        return this;
+    }
+
+    /**
+     * Sets the normalized paths of this handler.<p>
+     * 
+     * @param path the attribute path, <code>null</code> if the handler is not reachable by path
+     * @param simplePath the simple path, <code>null</code> if the handler is not reachable by path
+     */
+    void setHandlerPaths(AttributePath path, AttributePath simplePath) {
+
+        // the root handler path never changes
+    }
+
+    /**
+     * Returns the simple path as used within the simple path index, using 1-based value indexes.<p>
+     * 
+     * @param path the normalized simple path
+     * 
+     * @return the indexed simple path
+     */
+    private static AttributePath getSimpleIndexPath(AttributePath path) {
+
+        int last = path.getLength() - 1;
+        String[] elements = new String[path.getLength()];
+        for (int i = 0; i < last; i++) {
+            // a missing index within a simple path addresses the first value
+            elements[i] = path.getName(i) + "[" + Math.max(path.getIndex(i), 1) + "]";
+        }
+        if (last >= 0) {
+            elements[last] = path.getName(last);
+        }
+        // the path is interned, so repeated lookups don't parse the elements again
+        return AttributePath.valueOf(elements);
+    }
+
+    /**
+     * Returns the simple name of the given attribute name, as used within simple paths.<p>
+     * 
+     * @param attributeName the attribute name
+     * 
+     * @return the simple name
+     */
+    private static String getSimpleName(String attributeName) {
+
+        return attributeName.substring(attributeName.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Removes the given handler and its descendants from the path index.<p>
+     * 
+     * @param root the root handler maintaining the index, may be <code>null</code>
+     * @param handler the handler
+     */
+    private static void removeFromPathIndex(RootHandler root, AttributeHandler handler) {
+
+        if (root != null) {
+            // entries are only removed if they have not been taken over by another handler already
+            if (root.m_handlerByPath.get(handler.getHandlerPath()) == handler) {
+                root.m_handlerByPath.remove(handler.getHandlerPath());
+            }
+            if (root.m_handlerBySimplePath.get(handler.getHandlerSimplePath()) == handler) {
+                root.m_handlerBySimplePath.remove(handler.getHandlerSimplePath());
+            }
+        }
+        handler.setHandlerPaths(null, null);
+        for (Map<String, AttributeHandler> handlers : ((RootHandler)handler).m_handlers) {
+            for (AttributeHandler child : handlers.values()) {
+                removeFromPathIndex(root, child);
+            }
+        }
+    }
+
+    /**
+     * Adds the given child handler and its descendants to the path index, replacing any entries for previous paths.<p>
+     * 
+     * @param root the root handler maintaining the index, may be <code>null</code>
+     * @param index the value index
+     * @param attributeName the attribute name
+     * @param handler the child handler
+     */
+    private void addToPathIndex(RootHandler root, int index, String attributeName, AttributeHandler handler) {
+
+        AttributePath path = getHandlerPath();
+        if ((root == null) || (path == null) || ((path.getLength() == 0) && (index > 0))) {
+            // the handler is not reachable by path, like the handlers of further root values during inline editing
+            removeFromPathIndex(root, handler);
+            return;
+        }
+        if (root.m_handlerByPath.get(handler.getHandlerPath()) == handler) {
+            root.m_handlerByPath.remove(handler.getHandlerPath());
+        }
+        if (root.m_handlerBySimplePath.get(handler.getHandlerSimplePath()) == handler) {
+            root.m_handlerBySimplePath.remove(handler.getHandlerSimplePath());
+        }
+        AttributePath childPath = path.getChildPath(index, attributeName);
+        AttributePath childSimplePath = getHandlerSimplePath().getChildPath(index + 1, getSimpleName(attributeName));
+        handler.setHandlerPaths(childPath, childSimplePath);
+        root.m_handlerByPath.put(childPath, handler);
+        root.m_handlerBySimplePath.put(childSimplePath, handler);
+        List<Map<String, AttributeHandler>> childHandlers = ((RootHandler)handler).m_handlers;
+        for (int i = 0; i < childHandlers.size(); i++) {
+            for (Map.Entry<String, AttributeHandler> entry : childHandlers.get(i).entrySet()) {
+                ((RootHandler)handler).addToPathIndex(root, i, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Resolves the attribute handler for the given path by walking the handler hierarchy.<p>
+     * 
+     * @param path the attribute path
+     * 
+     * @return the attribute handler
+     */
+    private AttributeHandler findHandlerByPath(AttributePath path) {
+
+        I_AttributeHandler handler = this;
+        int index = 0;
+        for (int i = 0; i < path.getLength(); i++) {
+            String attributeName = path.getName(i);
+            int nextIndex = path.getIndex(i);
+            if ((handler instanceof AttributeHandler) && ((AttributeHandler)handler).getAttributeType().isChoice()) {
+                // in case of a choice attribute, skip to the next level
+                attributeName = Type.CHOICE_ATTRIBUTE_NAME;
+            }
+            handler = handler.getChildHandler(attributeName, index);
+            if (handler == null) {
+                // the handler has not been created, for example within a collapsed entity value
+                return null;
+            }
+            index = nextIndex;
+        }
+        return (AttributeHandler)handler;
+    }
+
+    /**
+     * Resolves the attribute handler for the given simple path by walking the handler hierarchy.<p>
+     * 
+     * @param path the simple path, using 1-based value indexes
+     * 
+     * @return the attribute handler
+     */
+    private AttributeHandler findHandlerBySimplePath(AttributePath path) {
+
+        I_AttributeHandler handler = this;
+        int index = 0;
+        for (int i = 0; i < path.getLength(); i++) {
+            String attributeName = path.getName(i);
+            int nextIndex = path.getIndex(i);
+            if (nextIndex > 0) {
+                nextIndex--;
+            }
+            if ((handler instanceof AttributeHandler) && ((AttributeHandler)handler).getAttributeType().isChoice()) {
+                // in case of a choice attribute, skip to the next level
+                attributeName = Type.CHOICE_ATTRIBUTE_NAME;
+            }
+            handler = handler.getChildHandlerBySimpleName(attributeName, index);
+            if (handler == null) {
+                return null;
+            }
+            index = nextIndex;
+        }
+        return (AttributeHandler)handler;
+    }
+
+    /**
+     * Updates the paths of the child handlers starting at the given value index, after the value indexes changed.<p>
+     * 
+     * @param fromIndex the first value index to update
+     */
+    private void updatePathIndex(int fromIndex) {
+
+        RootHandler root = getIndexRoot();
+        for (int i = fromIndex; i < m_handlers.size(); i++) {
+            for (Map.Entry<String, AttributeHandler> entry : m_handlers.get(i).entrySet()) {
+                addToPathIndex(root, i, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
 }
@@ -25,10 +25,14 @@
 package com.alkacon.acacia.client;
 
 import com.alkacon.acacia.client.UndoRedoHandler.UndoRedoState;
+import com.alkacon.acacia.shared.AttributeDelta;
 import com.alkacon.acacia.shared.Entity;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.EntityPatchOperation;
 import com.alkacon.vie.shared.I_Entity;
 
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.google.gwt.event.logical.shared.HasValueChangeHandlers;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
@@ -62,6 +66,15 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         value
     }
 
+    /** The storage modes of the change history. */
+    public enum StorageMode {
+        /** Each change stores the attribute value operations leading to the new state and their inverse operations. */
+        delta,
+
+        /** Each change stores a snapshot of the complete entity state. */
+        snapshot
+    }
+
     /** Representing the undo/redo state. */
     public class UndoRedoState {
 
@@ -115,6 +128,12 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         /** The change type. */
         private ChangeType m_changeType;
 
+        /** The inverse operation restoring the value before the first of the delayed changes. */
+        private EntityPatchOperation m_inverseOperation;
+
+        /** The operation setting the value of the latest of the delayed changes. */
+        private EntityPatchOperation m_operation;
+
         /** The value index. */
         private int m_valueIndex;
 
@@ -128,13 +147,23 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
          * @param attributeName the attribute name
          * @param valueIndex the value index
          * @param changeType the change type
+         * @param operation the operation leading to the changed value, only set in delta storage mode
+         * @param inverseOperation the inverse operation, only set in delta storage mode
          */
-        protected ChangeTimer(String valuePath, String attributeName, int valueIndex, ChangeType changeType) {
+        protected ChangeTimer(
+            String valuePath,
+            String attributeName,
+            int valueIndex,
+            ChangeType changeType,
+            EntityPatchOperation operation,
+            EntityPatchOperation inverseOperation) {
 
             m_valuePath = valuePath;
             m_attributeName = attributeName;
             m_valueIndex = valueIndex;
             m_changeType = changeType;
+            m_operation = operation;
+            m_inverseOperation = inverseOperation;
         }
 
         /**
@@ -143,7 +172,14 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         @Override
         public void run() {
 
-            internalAddChange(m_valuePath, m_attributeName, m_valueIndex, m_changeType);
+            internalAddChange(
+                m_valuePath,
+                m_attributeName,
+                m_valueIndex,
+                m_changeType,
+                m_operation,
+                m_inverseOperation,
+                false);
         }
 
         /**
@@ -161,6 +197,16 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
                 && m_attributeName.equals(attributeName)
                 && (m_valueIndex == valueIndex);
         }
+
+        /**
+         * Sets the operation leading to the latest changed value, keeping the inverse operation of the first change.<p>
+         * 
+         * @param operation the operation
+         */
+        protected void setOperation(EntityPatchOperation operation) {
+
+            m_operation = operation;
+        }
     }
 
     /**
@@ -177,6 +223,12 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         /** The entity id. */
         private String m_entityId;
 
+        /** The inverse operations, in the order they have to be applied to revert the change. */
+        private List<EntityPatchOperation> m_inverseOperations;
+
+        /** The operations leading to the change state. */
+        private List<EntityPatchOperation> m_operations;
+
         /** The change type. */
         private ChangeType m_type;
 
@@ -186,7 +238,7 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         /**
          * Constructor.<p>
          * 
-         * @param entityData the chane entity data
+         * @param entityData the change entity data, only set in snapshot storage mode
          * @param entityId the entity id
          * @param attributeName the attribute name
          * @param valueIndex the value index
@@ -199,6 +251,21 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
             m_valueIndex = valueIndex;
             m_type = type;
             m_entityData = entityData;
+            m_operations = new ArrayList<EntityPatchOperation>(1);
+            m_inverseOperations = new ArrayList<EntityPatchOperation>(1);
+        }
+
+        /**
+         * Adds an operation to this change.<p>
+         * 
+         * @param operation the operation
+         * @param inverseOperation the inverse operation
+         */
+        public void addOperation(EntityPatchOperation operation, EntityPatchOperation inverseOperation) {
+
+            m_operations.add(operation);
+            // operations are reverted in reverse order
+            m_inverseOperations.add(0, inverseOperation);
         }
 
         /**
@@ -231,6 +298,26 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
             return m_entityId;
         }
 
+        /**
+         * Returns the inverse operations, in the order they have to be applied to revert the change.<p>
+         * 
+         * @return the inverse operations
+         */
+        public List<EntityPatchOperation> getInverseOperations() {
+
+            return m_inverseOperations;
+        }
+
+        /**
+         * Returns the operations leading to the change state.<p>
+         * 
+         * @return the operations
+         */
+        public List<EntityPatchOperation> getOperations() {
+
+            return m_operations;
+        }
+
         /**
          * The change type.<p>
          * 
@@ -255,6 +342,9 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
     /** The change timer delay. */
     private static final int CHANGE_TIMER_DELAY = 500;
 
+    /** The default maximum number of changes kept in the undo and redo history. */
+    private static final int DEFAULT_HISTORY_DEPTH = 100;
+
     /** The static instance. */
     private static UndoRedoHandler INSTANCE;
 
@@ -274,21 +364,28 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
     private SimpleEventBus m_eventBus;
 
     /** The redo stack. */
-    private Stack<Change> m_redo;
+    private BoundedStack<Change> m_redo;
 
     /** The root attribute handler. */
     private RootHandler m_rootHandler;
 
+    /** The snapshot of the current entity state, only kept in snapshot storage mode. */
+    private Entity m_state;
+
+    /** The storage mode. */
+    private StorageMode m_storageMode;
+
     /** The undo stack. */
-    private Stack<Change> m_undo;
+    private BoundedStack<Change> m_undo;
 
     /**
      * Constructor.<p>
      */
     private UndoRedoHandler() {
 
-        m_undo = new Stack<Change>();
-        m_redo = new Stack<Change>();
+        m_undo = new BoundedStack<Change>(DEFAULT_HISTORY_DEPTH);
+        m_redo = new BoundedStack<Change>(DEFAULT_HISTORY_DEPTH);
+        m_storageMode = StorageMode.snapshot;
     }
 
     /**
@@ -307,6 +404,8 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
     /**
      * Adds a change to the undo stack.<p>
      * 
+     * In delta storage mode, changes added without operations can not be reverted and clear the history.<p>
+     * 
      * @param valuePath the entity value path
      * @param attributeName the attribute name
      * @param valueIndex the value index
@@ -314,6 +413,29 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
      */
     public void addChange(String valuePath, String attributeName, int valueIndex, ChangeType changeType) {
 
+        addChange(valuePath, attributeName, valueIndex, changeType, null, null);
+    }
+
+    /**
+     * Adds a change to the undo stack.<p>
+     * 
+     * In delta storage mode, only the given operation and its inverse operation are stored.<p>
+     * 
+     * @param valuePath the entity value path
+     * @param attributeName the attribute name
+     * @param valueIndex the value index
+     * @param changeType the change type
+     * @param operation the operation leading to the new state, only required in delta storage mode
+     * @param inverseOperation the operation reverting the change, only required in delta storage mode
+     */
+    public void addChange(
+        String valuePath,
+        String attributeName,
+        int valueIndex,
+        ChangeType changeType,
+        EntityPatchOperation operation,
+        EntityPatchOperation inverseOperation) {
+
         if (ChangeType.value.equals(changeType)) {
             if (m_changeTimer != null) {
                 if (!m_changeTimer.matches(valuePath, attributeName, valueIndex)) {
@@ -321,22 +443,57 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
                     // add the last change and start a new timer
                     m_changeTimer.cancel();
                     m_changeTimer.run();
-                    m_changeTimer = new ChangeTimer(valuePath, attributeName, valueIndex, changeType);
+                    m_changeTimer = new ChangeTimer(
+                        valuePath,
+                        attributeName,
+                        valueIndex,
+                        changeType,
+                        operation,
+                        inverseOperation);
                     m_changeTimer.schedule(CHANGE_TIMER_DELAY);
+                } else {
+                    m_changeTimer.setOperation(operation);
                 }
             } else {
-                m_changeTimer = new ChangeTimer(valuePath, attributeName, valueIndex, changeType);
+                m_changeTimer = new ChangeTimer(
+                    valuePath,
+                    attributeName,
+                    valueIndex,
+                    changeType,
+                    operation,
+                    inverseOperation);
                 m_changeTimer.schedule(CHANGE_TIMER_DELAY);
             }
         } else {
-            if (m_changeTimer != null) {
-                m_changeTimer.cancel();
-                m_changeTimer.run();
-            }
-            internalAddChange(valuePath, attributeName, valueIndex, changeType);
+            flushChangeTimer();
+            internalAddChange(valuePath, attributeName, valueIndex, changeType, operation, inverseOperation, false);
         }
     }
 
+    /**
+     * Adds a change to the latest change, so both are undone and redone in a single step.<p>
+     * 
+     * Used for changes caused by another change, like removing a choice value when its last option is removed.<p>
+     * 
+     * @param valuePath the entity value path
+     * @param attributeName the attribute name
+     * @param valueIndex the value index
+     * @param changeType the change type
+     * @param operation the operation leading to the new state, only required in delta storage mode
+     * @param inverseOperation the operation reverting the change, only required in delta storage mode
+     */
+    public void addToLastChange(
+        String valuePath,
+        String attributeName,
+        int valueIndex,
+        ChangeType changeType,
+        EntityPatchOperation operation,
+        EntityPatchOperation inverseOperation) {
+
+        flushChangeTimer();
+        internalAddChange(valuePath, attributeName, valueIndex, changeType, operation, inverseOperation, true);
+    }
+
     /**
      * @see com.google.gwt.event.logical.shared.HasValueChangeHandlers#addValueChangeHandler(com.google.gwt.event.logical.shared.ValueChangeHandler)
      */
@@ -355,6 +512,7 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         m_entity = null;
         m_editor = null;
         m_rootHandler = null;
+        m_state = null;
     }
 
     /**
@@ -365,6 +523,26 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         ensureHandlers().fireEventFromSource(event, this);
     }
 
+    /**
+     * Returns the maximum number of changes kept in the undo and redo history.<p>
+     * 
+     * @return the history depth
+     */
+    public int getHistoryDepth() {
+
+        return m_undo.getMaxSize();
+    }
+
+    /**
+     * Returns the storage mode.<p>
+     * 
+     * @return the storage mode
+     */
+    public StorageMode getStorageMode() {
+
+        return m_storageMode;
+    }
+
     /**
      * Indicates if there are changes to be undone.<p>
      * 
@@ -399,7 +577,8 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         m_entity = entity;
         m_editor = editor;
         m_rootHandler = rootHandler;
-        m_current = new Change(Entity.serializeEntity(m_entity), null, null, 0, null);
+        m_state = isSnapshotMode() ? Entity.createSnapshot(m_entity, null) : null;
+        m_current = new Change(m_state, null, null, 0, null);
         fireStateChange();
     }
 
@@ -421,29 +600,73 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         if (!m_redo.isEmpty()) {
             m_undo.push(m_current);
             m_current = m_redo.pop();
-            changeEntityContentValues(
-                m_current.getEntityData(),
-                m_current.getEntityId(),
-                m_current.getAttributeName(),
-                m_current.getValueIndex(),
-                m_current.getType());
+            if (isSnapshotMode()) {
+                Entity previousState = m_state;
+                m_state = m_current.getEntityData();
+                changeEntityContentValues(
+                    previousState,
+                    m_state,
+                    m_current.getEntityId(),
+                    m_current.getAttributeName(),
+                    m_current.getValueIndex(),
+                    m_current.getType());
+            } else {
+                applyOperations(m_current.getOperations());
+            }
             fireStateChange();
         }
     }
 
+    /**
+     * Sets the maximum number of changes kept in the undo and redo history.<p>
+     * Older changes are dropped once the limit is reached.<p>
+     * 
+     * @param historyDepth the history depth
+     */
+    public void setHistoryDepth(int historyDepth) {
+
+        m_undo.setMaxSize(historyDepth);
+        m_redo.setMaxSize(historyDepth);
+        fireStateChange();
+    }
+
+    /**
+     * Sets the storage mode. Changing the mode clears the undo and redo history.<p>
+     * 
+     * @param storageMode the storage mode
+     */
+    public void setStorageMode(StorageMode storageMode) {
+
+        if (m_storageMode != storageMode) {
+            m_storageMode = storageMode;
+            if (isIntitalized()) {
+                initialize(m_entity, m_editor, m_rootHandler);
+            }
+        }
+    }
+
     /**
      * Reverts to the latest state in the undo stack.<p>
      */
     public void undo() {
 
         if (hasUndo()) {
-            ChangeType type = m_current.getType();
-            String entityId = m_current.getEntityId();
-            String attributeName = m_current.getAttributeName();
-            int valueIndex = m_current.getValueIndex();
-            m_redo.push(m_current);
+            Change change = m_current;
+            m_redo.push(change);
             m_current = m_undo.pop();
-            changeEntityContentValues(m_current.getEntityData(), entityId, attributeName, valueIndex, type);
+            if (isSnapshotMode()) {
+                Entity previousState = m_state;
+                m_state = m_current.getEntityData();
+                changeEntityContentValues(
+                    previousState,
+                    m_state,
+                    change.getEntityId(),
+                    change.getAttributeName(),
+                    change.getValueIndex(),
+                    change.getType());
+            } else {
+                applyOperations(change.getInverseOperations());
+            }
             fireStateChange();
         }
     }
@@ -468,22 +691,79 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
      * @param attributeName the attribute name
      * @param valueIndex the value index
      * @param changeType the change type
+     * @param operation the operation leading to the new state, only required in delta storage mode
+     * @param inverseOperation the operation reverting the change, only required in delta storage mode
+     * @param merge <code>true</code> to add the change to the latest change
      */
-    void internalAddChange(String valuePath, String attributeName, int valueIndex, ChangeType changeType) {
+    void internalAddChange(
+        String valuePath,
+        String attributeName,
+        int valueIndex,
+        ChangeType changeType,
+        EntityPatchOperation operation,
+        EntityPatchOperation inverseOperation,
+        boolean merge) {
 
         m_changeTimer = null;
-        Entity currentData = Entity.serializeEntity(m_entity);
-        if (!currentData.equals(m_current.getEntityData())) {
-            m_undo.push(m_current);
-            m_current = new Change(currentData, valuePath, attributeName, valueIndex, changeType);
+        // the initial state can not be merged with
+        boolean addChange = !merge || m_undo.isEmpty();
+        if (isSnapshotMode()) {
+            // snapshots share unchanged structure with the previous state and are identical if nothing has changed
+            Entity currentData = Entity.createSnapshot(m_entity, m_state);
+            if (currentData != m_state) {
+                if (addChange) {
+                    m_undo.push(m_current);
+                }
+                m_current = new Change(currentData, valuePath, attributeName, valueIndex, changeType);
+                m_state = currentData;
+                m_redo.clear();
+                fireStateChange();
+            }
+        } else if ((operation == null) || (inverseOperation == null)) {
+            // a change without operations can not be reverted, so neither can the changes before
+            m_undo.clear();
+            m_redo.clear();
+            m_current = new Change(null, valuePath, attributeName, valueIndex, changeType);
+            fireStateChange();
+        } else {
+            if (addChange) {
+                m_undo.push(m_current);
+                m_current = new Change(null, valuePath, attributeName, valueIndex, changeType);
+            }
+            m_current.addOperation(operation, inverseOperation);
             m_redo.clear();
             fireStateChange();
         }
     }
 
+    /**
+     * Applies the given operations to the edited entity.<p>
+     * 
+     * Each operation is applied by the handler of the changed attribute, re-rendering the changed values only.
+     * Otherwise the remaining operations are applied to a copy of the entity and the form is re-rendered.<p>
+     * 
+     * @param operations the operations
+     */
+    private void applyOperations(List<EntityPatchOperation> operations) {
+
+        for (int i = 0; i < operations.size(); i++) {
+            EntityPatchOperation operation = operations.get(i);
+            AttributeHandler handler = m_rootHandler.getHandlerById(
+                operation.getEntityId(),
+                operation.getAttributeName());
+            if ((handler == null) || !handler.applyOperation(operation)) {
+                Entity content = Entity.serializeEntity(m_entity);
+                new EntityPatch(operations.subList(i, operations.size())).apply(content);
+                m_editor.rerenderForm(content);
+                return;
+            }
+        }
+    }
+
     /**
      * Sets the editor to the given state.<p>
      * 
+     * @param previousContent the previous state content
      * @param newContent the state content
      * @param entityId the value path elements
      * @param attributeName the attribute name
@@ -491,6 +771,7 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
      * @param type the change type
      */
     private void changeEntityContentValues(
+        Entity previousContent,
         Entity newContent,
         String entityId,
         String attributeName,
@@ -510,7 +791,9 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
                 }
                 //$FALL-THROUGH$
             default:
-                m_editor.rerenderForm(newContent);
+                if (!rerenderChangedAttributes(previousContent, newContent)) {
+                    m_editor.rerenderForm(newContent);
+                }
         }
     }
 
@@ -527,6 +810,17 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
         return m_eventBus;
     }
 
+    /**
+     * Adds the change delayed by the change timer, if any.<p>
+     */
+    private void flushChangeTimer() {
+
+        if (m_changeTimer != null) {
+            m_changeTimer.cancel();
+            m_changeTimer.run();
+        }
+    }
+
     /**
      * Fires a value change event to indicate the undo/redo state has changed.<p>
      */
@@ -534,4 +828,36 @@ public class UndoRedoHandler implements HasValueChangeHandlers<UndoRedoState> {
 
         ValueChangeEvent.fire(this, new UndoRedoState(hasUndo(), hasRedo()));
     }
+
+    /**
+     * Returns if changes store complete entity snapshots.<p>
+     * 
+     * @return <code>true</code> in snapshot storage mode
+     */
+    private boolean isSnapshotMode() {
+
+        return StorageMode.snapshot.equals(m_storageMode);
+    }
+
+    /**
+     * Re-renders only the attributes changed between the given states.<p>
+     * 
+     * @param previousContent the previous state content
+     * @param newContent the state content
+     * 
+     * @return <code>false</code> if the changes could not be applied incrementally and the form needs to be re-rendered
+     */
+    private boolean rerenderChangedAttributes(Entity previousContent, Entity newContent) {
+
+        for (AttributeDelta delta : Entity.getSnapshotDeltas(previousContent, newContent)) {
+            AttributeHandler handler = m_rootHandler.getHandlerById(delta.getEntityId(), delta.getAttributeName());
+            Entity entity = newContent.getEntityById(delta.getEntityId());
+            if ((handler == null)
+                || (entity == null)
+                || !handler.rerenderValues(entity.getAttribute(delta.getAttributeName()))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -24,15 +24,25 @@
 
 package com.alkacon.acacia.client;
 
+import com.alkacon.acacia.shared.AttributePath;
 import com.alkacon.acacia.shared.ContentDefinition;
 import com.alkacon.acacia.shared.Entity;
+import com.alkacon.acacia.shared.EntityPatch;
 import com.alkacon.acacia.shared.ValidationResult;
 import com.alkacon.acacia.shared.rpc.I_ContentServiceAsync;
+import com.alkacon.acacia.shared.rpc.I_PatchContentServiceAsync;
 import com.alkacon.geranium.client.ui.TabbedPanel;
 import com.alkacon.vie.shared.I_Entity;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import com.google.gwt.event.logical.shared.HasValueChangeHandlers;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
@@ -41,6 +51,7 @@ import com.google.gwt.event.shared.EventHandler;
 import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.event.shared.SimpleEventBus;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 
@@ -78,15 +89,33 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
         }
     }
 
-    /** Flag indicating the a validation call is running. */
-    boolean m_validating;
+    /** The debounce delay used until the validation latency has been observed. */
+    private static final int DEFAULT_DEBOUNCE_DELAY = 300;
+
+    /** The default maximum debounce delay. */
+    private static final int DEFAULT_MAX_DEBOUNCE_DELAY = 2000;
+
+    /** The default minimum debounce delay. */
+    private static final int DEFAULT_MIN_DEBOUNCE_DELAY = 50;
 
     /** The current validation timer instance. */
     Timer m_validationTimer;
 
+    /** The smoothed validation request latency in milliseconds, negative while not observed. */
+    private double m_averageLatency;
+
+    /** The client side validator, evaluating the declarative attribute rules. */
+    private ClientValidator m_clientValidator;
+
     /** The content service use for validation. */
     private I_ContentServiceAsync m_contentService;
 
+    /** The paths of the attributes changed since the last validation, by joined path. */
+    private Map<String, String[]> m_dirtyPaths;
+
+    /** The sequence number of the currently displayed validation. */
+    private int m_displayedSequence;
+
     /** The event bus. */
     private SimpleEventBus m_eventBus;
 
@@ -96,15 +125,60 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
     /** The handler registration. */
     private HandlerRegistration m_handlerRegistration;
 
+    /** Flag indicating only changed attributes should be validated. */
+    private boolean m_incrementalValidation;
+
+    /** The maximum number of concurrently running validation requests. */
+    private int m_maxConcurrentRequests;
+
+    /** The maximum debounce delay in milliseconds. */
+    private int m_maxDebounceDelay;
+
+    /** The minimum debounce delay in milliseconds. */
+    private int m_minDebounceDelay;
+
     /** Indicates validation is paused. */
     private boolean m_paused;
 
+    /** The number of running validation requests. */
+    private int m_pendingRequests;
+
+    /** The last sequence number issued before the current entity was registered. */
+    private int m_resetSequence;
+
+    /** The tracker of the entity revision acknowledged by the server, used to send entity patches. */
+    private EntityRevisionTracker m_revisionTracker;
+
     /** The root attribute handler. */
     private RootHandler m_rootHandler;
 
+    /** The last issued validation sequence number. */
+    private int m_sequence;
+
+    /** The entity to validate once a running request finishes. */
+    private I_Entity m_trailingEntity;
+
     /** The validation context. */
     private ValidationContext m_validationContext;
 
+    /** The id of the entity the displayed validation result belongs to. */
+    private String m_validationEntityId;
+
+    /** The currently displayed validation result. */
+    private ValidationResult m_validationResult;
+
+    /**
+     * Constructor.<p>
+     */
+    public ValidationHandler() {
+
+        m_dirtyPaths = new LinkedHashMap<String, String[]>();
+        m_averageLatency = -1;
+        m_maxConcurrentRequests = 1;
+        m_minDebounceDelay = DEFAULT_MIN_DEBOUNCE_DELAY;
+        m_maxDebounceDelay = DEFAULT_MAX_DEBOUNCE_DELAY;
+    }
+
     /**
      * @see com.google.gwt.event.logical.shared.HasValueChangeHandlers#addValueChangeHandler(com.google.gwt.event.logical.shared.ValueChangeHandler)
      */
@@ -115,6 +189,8 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
 
     /**
      * Destroys the current handler instance.<p>
+     * 
+     * The state of the current form is discarded, responses to running validation requests will be ignored.<p>
      */
     public void destroy() {
 
@@ -122,6 +198,19 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
             m_handlerRegistration.removeHandler();
             m_handlerRegistration = null;
         }
+        if (m_validationTimer != null) {
+            m_validationTimer.cancel();
+            m_validationTimer = null;
+        }
+        m_dirtyPaths.clear();
+        m_resetSequence = m_sequence;
+        m_displayedSequence = m_sequence;
+        m_trailingEntity = null;
+        m_validationResult = null;
+        m_validationEntityId = null;
+        m_formTabPanel = null;
+        m_rootHandler = null;
+        m_paused = false;
     }
 
     /**
@@ -132,36 +221,35 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
      */
     public void displayValidation(String entityId, ValidationResult validationResult) {
 
+        m_validationResult = validationResult;
+        m_validationEntityId = entityId;
         if (m_formTabPanel != null) {
             AttributeHandler.clearErrorStyles(m_formTabPanel);
         }
         if (validationResult.hasWarnings(entityId)) {
-            for (Entry<String[], String> warning : validationResult.getWarnings(entityId).entrySet()) {
-                String[] pathElements = warning.getKey();
+            Map<AttributePath, String> errors = validationResult.getErrorPaths(entityId);
+            for (Entry<AttributePath, String> warning : validationResult.getWarningPaths(entityId).entrySet()) {
+                AttributePath path = warning.getKey();
                 // check if there are no errors for this attribute
-                if (!validationResult.hasErrors(entityId)
-                    || !validationResult.getErrors(entityId).containsKey(pathElements)) {
-                    AttributeHandler handler = m_rootHandler.getHandlerByPath(pathElements);
+                if (((errors == null) || !errors.containsKey(path)) && !markPendingTab(path, false)) {
+                    expandCollapsedValues(path);
+                    AttributeHandler handler = m_rootHandler.getHandlerByPath(path);
                     if (handler != null) {
-                        String attributeName = pathElements[pathElements.length - 1];
-                        handler.setWarningMessage(
-                            ContentDefinition.extractIndex(attributeName),
-                            warning.getValue(),
-                            m_formTabPanel);
+                        handler.setWarningMessage(path.getLastIndex(), warning.getValue(), m_formTabPanel);
                     }
                 }
             }
         }
         if (validationResult.hasErrors(entityId)) {
-            for (Entry<String[], String> error : validationResult.getErrors(entityId).entrySet()) {
-                String[] pathElements = error.getKey();
-                AttributeHandler handler = m_rootHandler.getHandlerByPath(pathElements);
+            for (Entry<AttributePath, String> error : validationResult.getErrorPaths(entityId).entrySet()) {
+                AttributePath path = error.getKey();
+                if (markPendingTab(path, true)) {
+                    continue;
+                }
+                expandCollapsedValues(path);
+                AttributeHandler handler = m_rootHandler.getHandlerByPath(path);
                 if (handler != null) {
-                    String attributeName = pathElements[pathElements.length - 1];
-                    handler.setErrorMessage(
-                        ContentDefinition.extractIndex(attributeName),
-                        error.getValue(),
-                        m_formTabPanel);
+                    handler.setErrorMessage(path.getLastIndex(), error.getValue(), m_formTabPanel);
                 }
             }
             m_validationContext.addInvalidEntity(entityId);
@@ -169,7 +257,6 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
             m_validationContext.addValidEntity(entityId);
         }
         ValueChangeEvent.fire(this, m_validationContext);
-        m_validating = false;
     }
 
     /**
@@ -180,6 +267,45 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
         ensureHandlers().fireEventFromSource(event, this);
     }
 
+    /**
+     * Returns the delay between the last change and the validation.<p>
+     * 
+     * The delay follows the observed validation request latency within the configured range,
+     * so slow servers receive fewer requests while fast servers validate almost instantly.<p>
+     * 
+     * @return the delay in milliseconds
+     */
+    public int getDebounceDelay() {
+
+        if (m_averageLatency < 0) {
+            return Math.max(m_minDebounceDelay, Math.min(m_maxDebounceDelay, DEFAULT_DEBOUNCE_DELAY));
+        }
+        return Math.max(m_minDebounceDelay, Math.min(m_maxDebounceDelay, (int)m_averageLatency));
+    }
+
+    /**
+     * Returns if only changed attributes are validated.<p>
+     * 
+     * @return <code>true</code> if only changed attributes are validated
+     */
+    public boolean isIncrementalValidation() {
+
+        return m_incrementalValidation;
+    }
+
+    /**
+     * Marks the attribute of the given handler as changed, so it will be validated with the next incremental validation.<p>
+     * 
+     * @param handler the attribute handler
+     */
+    public void markDirty(AttributeHandler handler) {
+
+        if (m_incrementalValidation && !m_paused) {
+            String[] path = handler.getAttributePath();
+            m_dirtyPaths.put(joinPath(path), path);
+        }
+    }
+
     /**
      * @see com.google.gwt.event.logical.shared.ValueChangeHandler#onValueChange(com.google.gwt.event.logical.shared.ValueChangeEvent)
      */
@@ -190,7 +316,17 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
                 m_validationTimer.cancel();
             }
             m_validationTimer = new ValidationTimer(event.getValue());
-            m_validationTimer.schedule(300);
+            m_validationTimer.schedule(getDebounceDelay());
+        }
+    }
+
+    /**
+     * Displays the current validation result again, e.g. after rendering form parts that were not rendered before.<p>
+     */
+    public void refreshValidation() {
+
+        if (m_validationResult != null) {
+            displayValidation(m_validationEntityId, m_validationResult);
         }
     }
 
@@ -212,9 +348,28 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
             m_handlerRegistration.removeHandler();
         }
         m_paused = false;
+        m_validationResult = null;
+        m_dirtyPaths.clear();
+        // responses to requests issued for a previously registered entity are discarded
+        m_resetSequence = m_sequence;
+        m_displayedSequence = m_sequence;
+        m_trailingEntity = null;
         m_handlerRegistration = ((HasValueChangeHandlers<I_Entity>)entity).addValueChangeHandler(this);
     }
 
+    /**
+     * Sets the client side validator.<p>
+     *
+     * The client side rules are evaluated before any validation request is issued.
+     * The content service is only called if any of the validated attributes requires server validation.<p>
+     *
+     * @param clientValidator the client side validator, <code>null</code> to always validate on the server
+     */
+    public void setClientValidator(ClientValidator clientValidator) {
+
+        m_clientValidator = clientValidator;
+    }
+
     /**
      * Sets the content service used for validation.<p>
      * 
@@ -225,6 +380,21 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
         m_contentService = contentService;
     }
 
+    /**
+     * Sets the range of the adaptive debounce delay.<p>
+     * 
+     * @param minDelay the minimum delay in milliseconds
+     * @param maxDelay the maximum delay in milliseconds
+     */
+    public void setDebounceDelayRange(int minDelay, int maxDelay) {
+
+        if ((minDelay < 0) || (maxDelay < minDelay)) {
+            throw new RuntimeException("Invalid debounce delay range: " + minDelay + " - " + maxDelay);
+        }
+        m_minDebounceDelay = minDelay;
+        m_maxDebounceDelay = maxDelay;
+    }
+
     /**
      * Sets the form tabbed panel.<p>
      * 
@@ -235,6 +405,38 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
         m_formTabPanel = tabPanel;
     }
 
+    /**
+     * Enables or disables incremental validation.<p>
+     * 
+     * When enabled, only the attributes changed since the last validation are sent to
+     * {@link I_ContentServiceAsync#validateAttributes(Entity, List, AsyncCallback)}
+     * and the result is merged into the displayed validation state.
+     * With an {@link I_PatchContentServiceAsync} and a revision tracker, 
+     * only the values changed since the last acknowledged revision are sent as an entity patch.<p>
+     * 
+     * @param incrementalValidation <code>true</code> to validate changed attributes only
+     */
+    public void setIncrementalValidation(boolean incrementalValidation) {
+
+        m_incrementalValidation = incrementalValidation;
+        m_dirtyPaths.clear();
+    }
+
+    /**
+     * Sets the maximum number of concurrently running validation requests.<p>
+     * 
+     * Changes made while the limit is reached are validated by a single trailing request.<p>
+     * 
+     * @param maxConcurrentRequests the maximum number of requests, at least 1
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+
+        if (maxConcurrentRequests < 1) {
+            throw new RuntimeException("At least one concurrent validation request is required.");
+        }
+        m_maxConcurrentRequests = maxConcurrentRequests;
+    }
+
     /**
      * Sets the validation to pause.<p>
      * 
@@ -250,14 +452,30 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
                     m_validationTimer.cancel();
                     m_validationTimer = null;
                 }
+                m_trailingEntity = null;
             } else {
+                // changes while paused are not tracked, so validate the whole entity
+                m_dirtyPaths.clear();
                 m_validationTimer = new ValidationTimer(entity);
-                m_validationTimer.schedule(300);
+                m_validationTimer.schedule(getDebounceDelay());
             }
 
         }
     }
 
+    /**
+     * Sets the tracker of the entity revision acknowledged by the server.<p>
+     * 
+     * If the content service is an {@link I_PatchContentServiceAsync}, entities are validated by sending
+     * a patch against the acknowledged revision instead of the complete entity.<p>
+     * 
+     * @param revisionTracker the revision tracker, <code>null</code> to always send the complete entity
+     */
+    public void setRevisionTracker(EntityRevisionTracker revisionTracker) {
+
+        m_revisionTracker = revisionTracker;
+    }
+
     /**
      * Sets the root attribute handler.<p>
      * 
@@ -284,29 +502,344 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
     /**
      * Validates the given entity.<p>
      * 
+     * Each validation is numbered. Responses overtaken by a newer validation are discarded, 
+     * and if the concurrency limit is reached, the latest entity state is validated once a running request finishes.<p>
+     * 
      * @param entity the entity
      */
     protected void validate(final I_Entity entity) {
 
-        if (!m_validating) {
-            m_validating = true;
-            m_contentService.validateEntities(
-                Collections.singletonList(Entity.serializeEntity(entity)),
-                new AsyncCallback<ValidationResult>() {
+        if (m_pendingRequests >= m_maxConcurrentRequests) {
+            m_trailingEntity = entity;
+            return;
+        }
+        m_trailingEntity = null;
+        final int sequence = ++m_sequence;
+        final String entityId = entity.getId();
+        final Map<String[], String> clientErrors = m_clientValidator != null
+        ? m_clientValidator.validate(entity)
+        : null;
+        if (m_incrementalValidation && (m_validationResult != null) && !m_dirtyPaths.isEmpty()) {
+            final List<String[]> attributePaths = new ArrayList<String[]>(m_dirtyPaths.values());
+            m_dirtyPaths.clear();
+            if ((m_clientValidator != null) && !m_clientValidator.requiresServerValidation(entity, attributePaths)) {
+                m_displayedSequence = sequence;
+                displayValidation(
+                    entityId,
+                    combineResults(
+                        entityId,
+                        mergeResult(entityId, attributePaths, new ValidationResult(null, null)),
+                        clientErrors));
+                return;
+            }
+            final long start = System.currentTimeMillis();
+            m_pendingRequests++;
+            final AsyncCallback<ValidationResult> callback = new AsyncCallback<ValidationResult>() {
+
+                public void onFailure(Throwable caught) {
 
-                    public void onFailure(Throwable caught) {
+                    // can be ignored, the attributes will be validated again with the next change
+                    if (sequence > m_resetSequence) {
+                        restoreDirtyPaths(attributePaths);
+                    }
+                    onRequestFinished(start);
+                }
 
-                        // can be ignored
+                public void onSuccess(ValidationResult result) {
+
+                    if (isCurrent(sequence)) {
+                        m_displayedSequence = sequence;
+                        displayValidation(
+                            entityId,
+                            combineResults(entityId, mergeResult(entityId, attributePaths, result), clientErrors));
+                    } else if (sequence > m_resetSequence) {
+                        // a newer validation has been displayed already, validate these attributes again
+                        restoreDirtyPaths(attributePaths);
+                        if (m_trailingEntity == null) {
+                            m_trailingEntity = entity;
+                        }
                     }
+                    onRequestFinished(start);
+                }
+            };
+            // the patch only contains the values changed since the last acknowledged revision
+            EntityPatch patch = createPatch(entity);
+            if (patch != null) {
+                ((I_PatchContentServiceAsync)m_contentService).validateAttributesPatch(
+                    entityId,
+                    m_revisionTracker.getRevision(),
+                    patch,
+                    attributePaths,
+                    m_revisionTracker.wrapCallback(callback, new Command() {
+
+                        public void execute() {
+
+                            m_contentService.validateAttributes(
+                                Entity.serializeEntity(entity),
+                                attributePaths,
+                                callback);
+                        }
+                    }));
+            } else {
+                m_contentService.validateAttributes(Entity.serializeEntity(entity), attributePaths, callback);
+            }
+            return;
+        }
+        m_dirtyPaths.clear();
+        if ((m_clientValidator != null) && !m_clientValidator.requiresServerValidation(entity)) {
+            m_displayedSequence = sequence;
+            displayValidation(entityId, combineResults(entityId, new ValidationResult(null, null), clientErrors));
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        m_pendingRequests++;
+        final AsyncCallback<ValidationResult> callback = new AsyncCallback<ValidationResult>() {
+
+            public void onFailure(Throwable caught) {
 
-                    public void onSuccess(ValidationResult result) {
+                // can be ignored
+                onRequestFinished(start);
+            }
 
-                        displayValidation(entity.getId(), result);
+            public void onSuccess(ValidationResult result) {
+
+                if (isCurrent(sequence)) {
+                    m_displayedSequence = sequence;
+                    displayValidation(entityId, combineResults(entityId, result, clientErrors));
+                }
+                onRequestFinished(start);
+            }
+        };
+        EntityPatch patch = createPatch(entity);
+        if (patch != null) {
+            ((I_PatchContentServiceAsync)m_contentService).validateEntityPatch(
+                entityId,
+                m_revisionTracker.getRevision(),
+                patch,
+                m_revisionTracker.wrapCallback(callback, new Command() {
+
+                    public void execute() {
+
+                        m_contentService.validateEntities(
+                            Collections.singletonList(Entity.serializeEntity(entity)),
+                            callback);
                     }
-                });
+                }));
+        } else {
+            m_contentService.validateEntities(Collections.singletonList(Entity.serializeEntity(entity)), callback);
         }
     }
 
+    /**
+     * Returns if the response to the validation of the given sequence number should be displayed.<p>
+     * 
+     * @param sequence the validation sequence number
+     * 
+     * @return <code>false</code> if the validation was issued for a previously registered entity or has been overtaken
+     */
+    boolean isCurrent(int sequence) {
+
+        return (sequence > m_resetSequence) && (sequence > m_displayedSequence);
+    }
+
+    /**
+     * Merges the result of an attribute validation into the currently displayed validation result.<p>
+     * 
+     * @param entityId the entity id
+     * @param attributePaths the validated attribute paths
+     * @param result the attribute validation result
+     * 
+     * @return the merged validation result
+     */
+    ValidationResult mergeResult(String entityId, List<String[]> attributePaths, ValidationResult result) {
+
+        if (m_validationResult == null) {
+            return result;
+        }
+        Map<String, Map<String[], String>> errors = new HashMap<String, Map<String[], String>>();
+        Map<String, Map<String[], String>> warnings = new HashMap<String, Map<String[], String>>();
+        if (m_validationResult.getErrors() != null) {
+            errors.putAll(m_validationResult.getErrors());
+        }
+        if (m_validationResult.getWarnings() != null) {
+            warnings.putAll(m_validationResult.getWarnings());
+        }
+        Map<String[], String> entityErrors = mergeMessages(
+            m_validationResult.getErrors(entityId),
+            result.getErrors(entityId),
+            attributePaths);
+        if (entityErrors != null) {
+            errors.put(entityId, entityErrors);
+        } else {
+            errors.remove(entityId);
+        }
+        Map<String[], String> entityWarnings = mergeMessages(
+            m_validationResult.getWarnings(entityId),
+            result.getWarnings(entityId),
+            attributePaths);
+        if (entityWarnings != null) {
+            warnings.put(entityId, entityWarnings);
+        } else {
+            warnings.remove(entityId);
+        }
+        return new ValidationResult(errors, warnings);
+    }
+
+    /**
+     * Called when a validation request finished. Updates the observed latency and issues the trailing validation.<p>
+     * 
+     * @param start the time the request was issued
+     */
+    void onRequestFinished(long start) {
+
+        m_pendingRequests--;
+        long latency = System.currentTimeMillis() - start;
+        m_averageLatency = m_averageLatency < 0
+        ? latency
+        : ((m_averageLatency * 3) + latency) / 4;
+        if ((m_trailingEntity != null) && !m_paused) {
+            validate(m_trailingEntity);
+        }
+    }
+
+    /**
+     * Marks the given attribute paths as changed again, after their validation result could not be used.<p>
+     * 
+     * @param attributePaths the attribute paths
+     */
+    void restoreDirtyPaths(List<String[]> attributePaths) {
+
+        if (m_incrementalValidation) {
+            for (String[] path : attributePaths) {
+                m_dirtyPaths.put(joinPath(path), path);
+            }
+        }
+    }
+
+    /**
+     * Adds the client side error messages to the given validation result.<p>
+     * 
+     * Client messages replace any message of the result for the same attribute value.<p>
+     * 
+     * @param entityId the entity id
+     * @param result the validation result
+     * @param clientErrors the client side error messages, may be <code>null</code>
+     * 
+     * @return the combined validation result
+     */
+    private static ValidationResult combineResults(
+        String entityId,
+        ValidationResult result,
+        Map<String[], String> clientErrors) {
+
+        if ((clientErrors == null) || clientErrors.isEmpty()) {
+            return result;
+        }
+        Set<String> clientPaths = new HashSet<String>();
+        for (String[] path : clientErrors.keySet()) {
+            clientPaths.add(joinPath(path));
+        }
+        Map<String[], String> entityErrors = new HashMap<String[], String>();
+        if (result.hasErrors(entityId)) {
+            for (Entry<String[], String> error : result.getErrors(entityId).entrySet()) {
+                if (!clientPaths.contains(joinPath(error.getKey()))) {
+                    entityErrors.put(error.getKey(), error.getValue());
+                }
+            }
+        }
+        entityErrors.putAll(clientErrors);
+        Map<String, Map<String[], String>> errors = new HashMap<String, Map<String[], String>>();
+        if (result.getErrors() != null) {
+            errors.putAll(result.getErrors());
+        }
+        errors.put(entityId, entityErrors);
+        return new ValidationResult(errors, result.getWarnings());
+    }
+
+    /**
+     * Checks whether the given message path lies within one of the given attribute paths.<p>
+     * 
+     * @param path the message path
+     * @param attributePaths the attribute paths
+     * 
+     * @return <code>true</code> if the message path lies within one of the attribute paths
+     */
+    private static boolean isWithinPaths(String[] path, List<String[]> attributePaths) {
+
+        for (String[] attributePath : attributePaths) {
+            int last = attributePath.length - 1;
+            if (path.length > last) {
+                boolean matches = attributePath[last].equals(ContentDefinition.removeIndex(path[last]));
+                for (int i = 0; matches && (i < last); i++) {
+                    matches = attributePath[i].equals(path[i]);
+                }
+                if (matches) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Joins the given path elements.<p>
+     * 
+     * @param path the path elements
+     * 
+     * @return the joined path
+     */
+    private static String joinPath(String[] path) {
+
+        StringBuffer result = new StringBuffer();
+        for (String element : path) {
+            result.append("/").append(element);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Replaces the messages within the given attribute paths with the messages of the update.<p>
+     * 
+     * @param messages the current messages, may be <code>null</code>
+     * @param update the updated messages, may be <code>null</code>
+     * @param attributePaths the validated attribute paths
+     * 
+     * @return the merged messages or <code>null</code> if there are none
+     */
+    private static Map<String[], String> mergeMessages(
+        Map<String[], String> messages,
+        Map<String[], String> update,
+        List<String[]> attributePaths) {
+
+        Map<String[], String> result = new HashMap<String[], String>();
+        if (messages != null) {
+            for (Entry<String[], String> message : messages.entrySet()) {
+                if (!isWithinPaths(message.getKey(), attributePaths)) {
+                    result.put(message.getKey(), message.getValue());
+                }
+            }
+        }
+        if (update != null) {
+            result.putAll(update);
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * Creates the patch from the revision acknowledged by the server to the current state of the given entity.<p>
+     * 
+     * @param entity the entity
+     * 
+     * @return the patch, <code>null</code> if the complete entity has to be sent
+     */
+    private EntityPatch createPatch(I_Entity entity) {
+
+        if ((m_revisionTracker == null) || !(m_contentService instanceof I_PatchContentServiceAsync)) {
+            return null;
+        }
+        return m_revisionTracker.createPatch(entity);
+    }
+
     /**
      * Lazy initializing the handler manager.<p>
      * 
@@ -319,4 +852,45 @@ public final class ValidationHandler implements ValueChangeHandler<I_Entity>, Ha
         }
         return m_eventBus;
     }
+
+    /**
+     * Expands the collapsed entity values containing the attribute of the given path, so the message can be displayed.<p>
+     * 
+     * @param path the attribute path
+     */
+    private void expandCollapsedValues(AttributePath path) {
+
+        for (int i = 1; i < path.getLength(); i++) {
+            AttributeHandler handler = m_rootHandler.getHandlerByPath(path.getPrefix(i));
+            if (handler == null) {
+                return;
+            }
+            handler.expandValue(path.getIndex(i - 1));
+        }
+    }
+
+    /**
+     * Marks the form tab of the given path, in case the attribute has not been rendered yet.<p>
+     * 
+     * @param path the attribute path
+     * @param error <code>true</code> to mark an error, <code>false</code> to mark a warning
+     * 
+     * @return <code>true</code> if the attribute has not been rendered yet
+     */
+    private boolean markPendingTab(AttributePath path, boolean error) {
+
+        // nested handlers of unrendered tabs do not exist yet, so only resolve the top level attribute
+        AttributeHandler handler = m_rootHandler.getHandlerByPath(path.getPrefix(1));
+        if ((handler == null) || (handler.getPendingTabIndex() < 0)) {
+            return false;
+        }
+        if (m_formTabPanel != null) {
+            if (error) {
+                AttributeHandler.markTabError(m_formTabPanel, handler.getPendingTabIndex());
+            } else {
+                AttributeHandler.markTabWarning(m_formTabPanel, handler.getPendingTabIndex());
+            }
+        }
+        return true;
+    }
 }
@@ -107,6 +107,16 @@ public class ValueFocusHandler implements MouseOverHandler, MouseOutHandler, Mou
         clearInstance();
     }
 
+    /**
+     * Returns the focused attribute value view.<p>
+     * 
+     * @return the focused attribute value view, <code>null</code> if there is none
+     */
+    public AttributeValueView getFocus() {
+
+        return m_currentFocus;
+    }
+
     /**
      * Hides all help bubbles.<p>
      * 
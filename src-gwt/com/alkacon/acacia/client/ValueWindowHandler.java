@@ -0,0 +1,217 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.event.logical.shared.ResizeEvent;
+import com.google.gwt.event.logical.shared.ResizeHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Window;
+
+/**
+ * Keeps the value views of large repeating attributes bound to the values within the viewport.<p>
+ * 
+ * The attribute handlers bind a fixed pool of value views to the values scrolled into view,
+ * see {@link AttributeHandler#readValueWindow()} and {@link AttributeHandler#writeValueWindow()}.<p>
+ * 
+ * A single capturing scroll listener and a window resize handler are installed while attribute handlers are registered.
+ * Checks are executed as a {@link LayoutScheduler} task, so the layout is read once per animation frame for all
+ * attribute handlers, before any of them rebinds its views.<p>
+ */
+public class ValueWindowHandler implements ResizeHandler, I_LayoutTask {
+
+    /** The handler instance. */
+    private static ValueWindowHandler INSTANCE;
+
+    /** The attribute handlers rendering their values within a window. */
+    private List<AttributeHandler> m_handlers;
+
+    /** The window resize handler registration. */
+    private HandlerRegistration m_resizeRegistration;
+
+    /** The native scroll listener function. */
+    private JavaScriptObject m_scrollListener;
+
+    /**
+     * Constructor.<p>
+     */
+    private ValueWindowHandler() {
+
+        m_handlers = new ArrayList<AttributeHandler>();
+    }
+
+    /**
+     * Returns the handler instance.<p>
+     * 
+     * @return the handler instance
+     */
+    public static ValueWindowHandler getInstance() {
+
+        if (INSTANCE == null) {
+            INSTANCE = new ValueWindowHandler();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Clears the static instance reference.<p>
+     */
+    private static void clearInstance() {
+
+        INSTANCE = null;
+    }
+
+    /**
+     * Destroys the current handler instance.<p>
+     */
+    public void destroy() {
+
+        m_handlers.clear();
+        removeListeners();
+        clearInstance();
+    }
+
+    /**
+     * @see com.google.gwt.event.logical.shared.ResizeHandler#onResize(com.google.gwt.event.logical.shared.ResizeEvent)
+     */
+    public void onResize(ResizeEvent event) {
+
+        scheduleCheck();
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#readLayout()
+     */
+    public void readLayout() {
+
+        for (AttributeHandler handler : new ArrayList<AttributeHandler>(m_handlers)) {
+            if (!handler.readValueWindow()) {
+                unregister(handler);
+            }
+        }
+    }
+
+    /**
+     * Registers an attribute handler rendering its values within a window.<p>
+     * 
+     * @param handler the attribute handler
+     */
+    public void register(AttributeHandler handler) {
+
+        if (!m_handlers.contains(handler)) {
+            m_handlers.add(handler);
+        }
+        if (m_resizeRegistration == null) {
+            m_resizeRegistration = Window.addResizeHandler(this);
+            m_scrollListener = addScrollListener();
+        }
+        scheduleCheck();
+    }
+
+    /**
+     * Schedules updating the value windows to the current viewport.<p>
+     */
+    public void scheduleCheck() {
+
+        if (!m_handlers.isEmpty()) {
+            LayoutScheduler.getInstance().schedule(this);
+        }
+    }
+
+    /**
+     * Unregisters the given attribute handler.<p>
+     * 
+     * @param handler the attribute handler
+     */
+    public void unregister(AttributeHandler handler) {
+
+        m_handlers.remove(handler);
+        if (m_handlers.isEmpty()) {
+            removeListeners();
+        }
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#writeLayout()
+     */
+    public void writeLayout() {
+
+        for (AttributeHandler handler : new ArrayList<AttributeHandler>(m_handlers)) {
+            handler.writeValueWindow();
+        }
+    }
+
+    /**
+     * Adds a capturing scroll listener to the document, to be notified about scrolling of any element.<p>
+     * 
+     * @return the listener function
+     */
+    private native JavaScriptObject addScrollListener() /*-{
+        var self = this;
+        var listener = $entry(function() {
+            self.@com.alkacon.acacia.client.ValueWindowHandler::scheduleCheck()();
+        });
+        if ($doc.addEventListener) {
+            $doc.addEventListener("scroll", listener, true);
+        } else {
+            $wnd.attachEvent("onscroll", listener);
+        }
+        return listener;
+    }-*/;
+
+    /**
+     * Removes the scroll listener and the window resize handler.<p>
+     */
+    private void removeListeners() {
+
+        if (m_resizeRegistration != null) {
+            m_resizeRegistration.removeHandler();
+            m_resizeRegistration = null;
+        }
+        if (m_scrollListener != null) {
+            removeScrollListener(m_scrollListener);
+            m_scrollListener = null;
+        }
+    }
+
+    /**
+     * Removes the given scroll listener from the document.<p>
+     * 
+     * @param listener the listener function
+     */
+    private native void removeScrollListener(JavaScriptObject listener) /*-{
+        if ($doc.removeEventListener) {
+            $doc.removeEventListener("scroll", listener, true);
+        } else {
+            $wnd.detachEvent("onscroll", listener);
+        }
+    }-*/;
+}
@@ -27,12 +27,15 @@ package com.alkacon.acacia.client;
 import com.alkacon.acacia.client.widgets.FormWidgetWrapper;
 import com.alkacon.acacia.client.widgets.I_EditWidget;
 import com.alkacon.acacia.client.widgets.I_FormEditWidget;
+import com.alkacon.acacia.client.widgets.I_ReusableWidget;
 import com.alkacon.acacia.client.widgets.StringWidget;
 import com.alkacon.acacia.shared.AttributeConfiguration;
 import com.alkacon.acacia.shared.ContentDefinition;
 import com.alkacon.vie.shared.I_Type;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.google.gwt.dom.client.Element;
@@ -40,7 +43,7 @@ import com.google.gwt.dom.client.Element;
 /**
  * Service providing form widget renderer for entity attributes.<p>
  */
-public class WidgetService implements I_WidgetService {
+public class WidgetService implements I_ExtendedWidgetService {
 
     /** The attribute configurations. */
     private Map<String, AttributeConfiguration> m_attributeConfigurations;
@@ -60,6 +63,15 @@ public class WidgetService implements I_WidgetService {
     /** Map of renderers by name. */
     private Map<String, I_EntityRenderer> m_renderers = new HashMap<String, I_EntityRenderer>();
 
+    /** The released form widgets available for reuse, by widget name and configuration. */
+    private Map<String, List<I_FormEditWidget>> m_widgetPool = new HashMap<String, List<I_FormEditWidget>>();
+
+    /** The pool keys of the form widgets currently held by the pool. */
+    private Map<I_FormEditWidget, String> m_widgetPoolKeys = new HashMap<I_FormEditWidget, String>();
+
+    /** The maximum number of released widgets kept per widget name and configuration, 0 if pooling is disabled. */
+    private int m_widgetPoolSize;
+
     /**
      * Constructor.<p>
      */
@@ -105,6 +117,23 @@ public class WidgetService implements I_WidgetService {
         m_widgetFactories.put(widgetName, widgetFactory);
     }
 
+    /**
+     * @see com.alkacon.acacia.client.I_ExtendedWidgetService#clearWidgetPool()
+     */
+    public void clearWidgetPool() {
+
+        m_widgetPool.clear();
+        m_widgetPoolKeys.clear();
+    }
+
+    /**
+     * @see com.alkacon.acacia.client.I_ExtendedWidgetService#getAttributeConfiguration(java.lang.String)
+     */
+    public AttributeConfiguration getAttributeConfiguration(String attributeName) {
+
+        return m_attributeConfigurations != null ? m_attributeConfigurations.get(attributeName) : null;
+    }
+
     /**
      * @see com.alkacon.acacia.client.I_WidgetService#getAttributeFormWidget(java.lang.String)
      */
@@ -115,7 +144,22 @@ public class WidgetService implements I_WidgetService {
             if (config != null) {
                 I_WidgetFactory factory = m_widgetFactories.get(config.getWidgetName());
                 if (factory != null) {
-                    return factory.createFormWidget(config.getWidgetConfig());
+                    if (m_widgetPoolSize == 0) {
+                        return factory.createFormWidget(config.getWidgetConfig());
+                    }
+                    String poolKey = config.getWidgetName() + "|" + config.getWidgetConfig();
+                    List<I_FormEditWidget> pooledWidgets = m_widgetPool.get(poolKey);
+                    if ((pooledWidgets != null) && !pooledWidgets.isEmpty()) {
+                        I_FormEditWidget widget = pooledWidgets.remove(pooledWidgets.size() - 1);
+                        m_widgetPoolKeys.remove(widget);
+                        return widget;
+                    }
+                    I_FormEditWidget widget = factory.createFormWidget(config.getWidgetConfig());
+                    I_ReusableWidget reusable = getReusableWidget(widget);
+                    if (reusable != null) {
+                        reusable.setPoolKey(poolKey);
+                    }
+                    return widget;
                 }
             }
         }
@@ -223,6 +267,20 @@ public class WidgetService implements I_WidgetService {
         m_attributeConfigurations = definition.getConfigurations();
     }
 
+    /**
+     * @see com.alkacon.acacia.client.I_ExtendedWidgetService#isDisplayCollapsed(java.lang.String)
+     */
+    public boolean isDisplayCollapsed(String attributeName) {
+
+        if (m_attributeConfigurations != null) {
+            AttributeConfiguration config = m_attributeConfigurations.get(attributeName);
+            if (config != null) {
+                return config.isDisplayCollapsed();
+            }
+        }
+        return false;
+    }
+
     /**
      * @see com.alkacon.acacia.client.I_WidgetService#isDisplayCompact(java.lang.String)
      */
@@ -265,6 +323,30 @@ public class WidgetService implements I_WidgetService {
         }
     }
 
+    /**
+     * @see com.alkacon.acacia.client.I_ExtendedWidgetService#releaseFormWidget(com.alkacon.acacia.client.widgets.I_FormEditWidget)
+     */
+    public void releaseFormWidget(I_FormEditWidget widget) {
+
+        I_ReusableWidget reusable = getReusableWidget(widget);
+        if ((reusable == null) || (reusable.getPoolKey() == null) || m_widgetPoolKeys.containsKey(widget)) {
+            // not reusable, not created by the pool or already released
+            return;
+        }
+        String poolKey = reusable.getPoolKey();
+        widget.asWidget().removeFromParent();
+        List<I_FormEditWidget> pooledWidgets = m_widgetPool.get(poolKey);
+        if (pooledWidgets == null) {
+            pooledWidgets = new ArrayList<I_FormEditWidget>();
+            m_widgetPool.put(poolKey, pooledWidgets);
+        }
+        if (pooledWidgets.size() < m_widgetPoolSize) {
+            reusable.resetWidget();
+            pooledWidgets.add(widget);
+            m_widgetPoolKeys.put(widget, poolKey);
+        }
+    }
+
     /**
      * Adds the default complex type renderer.<p>
      * 
@@ -283,6 +365,22 @@ public class WidgetService implements I_WidgetService {
         m_widgetFactories = widgetFactories;
     }
 
+    /**
+     * Sets the maximum number of released form widgets kept for reuse, per widget name and configuration.<p>
+     * 
+     * Pooling is disabled by default. Only widgets implementing {@link I_ReusableWidget} are pooled,
+     * directly or wrapped by a {@link FormWidgetWrapper}.<p>
+     * 
+     * @param poolSize the pool size, 0 to disable pooling
+     */
+    public void setWidgetPoolSize(int poolSize) {
+
+        m_widgetPoolSize = poolSize;
+        if (poolSize == 0) {
+            clearWidgetPool();
+        }
+    }
+
     /**
      * @see com.alkacon.acacia.client.I_WidgetService#shouldRemoveLastValueAfterUnfocus(com.alkacon.acacia.client.widgets.I_EditWidget)
      */
@@ -291,6 +389,25 @@ public class WidgetService implements I_WidgetService {
         return false;
     }
 
+    /**
+     * Returns the reusable widget of the given form widget, unwrapping form widget wrappers.<p>
+     * 
+     * @param widget the form widget
+     * 
+     * @return the reusable widget, <code>null</code> if the widget may not be reused
+     */
+    private I_ReusableWidget getReusableWidget(I_FormEditWidget widget) {
+
+        if (widget instanceof I_ReusableWidget) {
+            return (I_ReusableWidget)widget;
+        }
+        if ((widget instanceof FormWidgetWrapper)
+            && (((FormWidgetWrapper)widget).getEditWidget() instanceof I_ReusableWidget)) {
+            return (I_ReusableWidget)((FormWidgetWrapper)widget).getEditWidget();
+        }
+        return null;
+    }
+
     /** 
      * Log method for debugging.<p>
      * 
@@ -196,6 +196,13 @@ public interface I_LayoutBundle extends com.alkacon.geranium.client.ui.css.I_Lay
          */
         String dragOverlay();
 
+        /**
+         * Returns the collapsed entity summary CSS class name.<p>
+         *  
+         * @return the collapsed entity summary CSS class
+         */
+        String entitySummary();
+
         /**
          * Returns the CSS constant value.<p>
          * 
@@ -336,6 +343,13 @@ public interface I_LayoutBundle extends com.alkacon.geranium.client.ui.css.I_Lay
          */
         String simpleValue();
 
+        /**
+         * Returns the tinymce static preview CSS class name.<p>
+         * 
+         * @return the tinymce static preview CSS class name
+         */
+        String tinymcePreview();
+
         /**
          * Returns the tinymce toolbar container CSS class name.<p>
          * 
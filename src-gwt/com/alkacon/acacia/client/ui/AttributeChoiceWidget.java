@@ -27,6 +27,8 @@ package com.alkacon.acacia.client.ui;
 import com.alkacon.acacia.client.ButtonBarHandler;
 import com.alkacon.acacia.client.ChoiceMenuEntryBean;
 import com.alkacon.acacia.client.I_WidgetService;
+import com.alkacon.acacia.client.LayoutScheduler;
+import com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask;
 import com.alkacon.acacia.client.css.I_LayoutBundle;
 
 import com.google.gwt.core.client.GWT;
@@ -53,6 +55,42 @@ import com.google.gwt.user.client.ui.Widget;
  */
 public class AttributeChoiceWidget extends Composite implements HasMouseOverHandlers, HasMouseOutHandlers {
 
+    /**
+     * Places the choice menu above or below the button, depending on the available space.<p>
+     */
+    protected class PlacementTask implements I_LayoutTask {
+
+        /** Flag indicating the choice menu should be displayed above the button. */
+        private boolean m_displayAbove;
+
+        /**
+         * Constructor.<p>
+         */
+        protected PlacementTask() {
+
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#readLayout()
+         */
+        public void readLayout() {
+
+            m_displayAbove = displayAbove();
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#writeLayout()
+         */
+        public void writeLayout() {
+
+            if (m_displayAbove) {
+                addStyleName(I_LayoutBundle.INSTANCE.attributeChoice().displayAbove());
+            } else {
+                removeStyleName(I_LayoutBundle.INSTANCE.attributeChoice().displayAbove());
+            }
+        }
+    }
+
     /**
      * The UI binder interface.<p>
      */
@@ -71,12 +109,16 @@ public class AttributeChoiceWidget extends Composite implements HasMouseOverHand
     @UiField
     FlowPanel m_choices;
 
+    /** The choice menu placement task. */
+    private PlacementTask m_placementTask;
+
     /**
      * Constructor.<p>
      */
     public AttributeChoiceWidget() {
 
         initWidget(uiBinder.createAndBindUi(this));
+        m_placementTask = new PlacementTask();
         addMouseOutHandler(ButtonBarHandler.INSTANCE);
         addMouseOverHandler(ButtonBarHandler.INSTANCE);
     }
@@ -150,15 +192,13 @@ public class AttributeChoiceWidget extends Composite implements HasMouseOverHand
 
     /**
      * Shows the choice menu.<p>
+     * 
+     * The menu placement is updated with the other layout updates of the next animation frame.<p>
      */
     public void show() {
 
         addStyleName(I_LayoutBundle.INSTANCE.attributeChoice().hovering());
-        if (displayAbove()) {
-            addStyleName(I_LayoutBundle.INSTANCE.attributeChoice().displayAbove());
-        } else {
-            removeStyleName(I_LayoutBundle.INSTANCE.attributeChoice().displayAbove());
-        }
+        LayoutScheduler.getInstance().schedule(m_placementTask);
     }
 
     /**
@@ -166,7 +206,7 @@ public class AttributeChoiceWidget extends Composite implements HasMouseOverHand
      * 
      * @return <code>true</code> if the choice select should be displayed above the button
      */
-    private boolean displayAbove() {
+    boolean displayAbove() {
 
         int popupHeight = m_choices.getOffsetHeight();
         // Calculate top position for the choice select
@@ -29,7 +29,9 @@ import com.alkacon.acacia.client.ButtonBarHandler;
 import com.alkacon.acacia.client.ChoiceMenuEntryBean;
 import com.alkacon.acacia.client.EditorBase;
 import com.alkacon.acacia.client.I_EntityRenderer;
+import com.alkacon.acacia.client.I_ExtendedWidgetService;
 import com.alkacon.acacia.client.I_WidgetService;
+import com.alkacon.acacia.client.LayoutScheduler;
 import com.alkacon.acacia.client.ValueFocusHandler;
 import com.alkacon.acacia.client.css.I_LayoutBundle;
 import com.alkacon.acacia.client.widgets.I_EditWidget;
@@ -46,6 +48,7 @@ import com.alkacon.geranium.client.util.DomUtil;
 import com.alkacon.geranium.client.util.StyleVariable;
 import com.alkacon.vie.shared.I_Entity;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.google.gwt.animation.client.Animation;
@@ -87,6 +90,7 @@ import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.HTMLPanel;
 import com.google.gwt.user.client.ui.HasWidgets;
+import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.Widget;
 
 /**
@@ -220,6 +224,15 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
     /** The activation mouse down handler registration. */
     private HandlerRegistration m_activationHandlerRegistration;
 
+    /** The nested entity value not rendered yet, <code>null</code> if not collapsed. */
+    private I_Entity m_collapsedEntity;
+
+    /** The panel holding the summary of the collapsed entity value, and its form once expanded. */
+    private FlowPanel m_collapsedEntityPanel;
+
+    /** The renderer used to render the collapsed entity value when expanded. */
+    private I_EntityRenderer m_collapsedEntityRenderer;
+
     /** Style variable to enable/disable 'collapsed' style. */
     private StyleVariable m_collapsedStyle = new StyleVariable(this);
 
@@ -259,9 +272,15 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
     /** The drag and drop place holder element. */
     private Element m_placeHolder;
 
+    /** The attribute value index, maintained by the attribute handler. */
+    private int m_valueIndex;
+
     /** The editing widget. */
     private I_FormEditWidget m_widget;
 
+    /** The registrations of the handlers added to the editing widget. */
+    private List<HandlerRegistration> m_widgetHandlerRegistrations = new ArrayList<HandlerRegistration>();
+
     /**
      * Constructor.<p>
      * 
@@ -346,6 +365,23 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
         return addDomHandler(handler, MouseOverEvent.getType());
     }
 
+    /**
+     * Renders the form of the collapsed entity value, replacing its summary.<p>
+     */
+    public void expandValueEntity() {
+
+        if (m_collapsedEntity == null) {
+            return;
+        }
+        I_Entity value = m_collapsedEntity;
+        m_collapsedEntity = null;
+        m_collapsedEntityPanel.clear();
+        m_collapsedEntityRenderer.renderForm(value, m_collapsedEntityPanel, m_handler, getValueIndex());
+        m_collapsedEntityRenderer = null;
+        m_collapsedEntityPanel = null;
+        m_handler.updateButtonVisisbility();
+    }
+
     /**
      * @see com.alkacon.geranium.client.dnd.I_Draggable#getDragHelper(com.alkacon.geranium.client.dnd.I_DropTarget)
      */
@@ -431,13 +467,7 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
      */
     public int getValueIndex() {
 
-        int result = 0;
-        Node previousSibling = getElement().getPreviousSibling();
-        while (previousSibling != null) {
-            result++;
-            previousSibling = previousSibling.getPreviousSibling();
-        }
-        return result;
+        return m_valueIndex;
     }
 
     /**
@@ -488,6 +518,16 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
         return m_isSimpleValue;
     }
 
+    /**
+     * Returns if this view displays the summary of a nested entity value, that has not been expanded yet.<p>
+     * 
+     * @return <code>true</code> if the entity value is collapsed
+     */
+    public boolean isValueEntityCollapsed() {
+
+        return m_collapsedEntity != null;
+    }
+
     /**
      * @see com.alkacon.geranium.client.dnd.I_Draggable#onDragCancel()
      */
@@ -523,6 +563,68 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
         return (m_widget != null) && m_widget.owns(element);
     }
 
+    /**
+     * Binds this view to another simple value of the attribute, keeping the editing widget.<p>
+     * 
+     * Used to recycle the value views of attributes rendering their values within a window.<p>
+     * 
+     * @param value the value
+     */
+    public void rebindValue(String value) {
+
+        removeValidationMessage();
+        if (m_widget != null) {
+            m_widget.setValue(value, false);
+        }
+    }
+
+    /**
+     * Binds this view to another entity value of the attribute, replacing the rendered form.<p>
+     * 
+     * Used to recycle the value views of attributes rendering their values within a window.
+     * The handlers of the previously rendered form have to be reset by the attribute handler.<p>
+     * 
+     * @param renderer the entity renderer
+     * @param value the value entity
+     * @param summary the summary to display until the value is expanded, <code>null</code> to render the form
+     */
+    public void rebindValueEntity(I_EntityRenderer renderer, I_Entity value, String summary) {
+
+        removeValidationMessage();
+        m_widgetHolder.clear();
+        m_collapsedEntity = null;
+        m_collapsedEntityRenderer = null;
+        m_collapsedEntityPanel = null;
+        m_hasValue = false;
+        if (summary != null) {
+            setCollapsedValueEntity(renderer, value, summary);
+        } else {
+            setValueEntity(renderer, value);
+        }
+    }
+
+    /**
+     * Releases the editing widget to the widget service for reuse, removing all handlers registered on it.<p>
+     * 
+     * To be called once this view is discarded.<p>
+     */
+    public void releaseValueWidget() {
+
+        if (m_widget == null) {
+            return;
+        }
+        for (HandlerRegistration registration : m_widgetHandlerRegistrations) {
+            registration.removeHandler();
+        }
+        m_widgetHandlerRegistrations.clear();
+        I_FormEditWidget widget = m_widget;
+        m_widget = null;
+        I_WidgetService widgetService = m_handler.getWidgetService();
+        if (widgetService instanceof I_ExtendedWidgetService) {
+            ((I_ExtendedWidgetService)widgetService).releaseFormWidget(widget);
+        }
+    }
+
     /**
      * Removes any present error message.<p>
      */
@@ -591,6 +693,37 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
         m_collapsedStyle.setValue(collapsed ? formCss().collapsed() : formCss().uncollapsed());
     }
 
+    /**
+     * Sets the value entity, displaying only the given summary until the value is expanded by clicking it.<p>
+     * 
+     * @param renderer the entity renderer used once the value is expanded
+     * @param value the value entity
+     * @param summary the summary text
+     */
+    public void setCollapsedValueEntity(I_EntityRenderer renderer, I_Entity value, String summary) {
+
+        if (m_hasValue) {
+            throw new RuntimeException("Value has already been set");
+        }
+        m_hasValue = true;
+        m_isSimpleValue = false;
+        m_collapsedEntity = value;
+        m_collapsedEntityRenderer = renderer;
+        m_collapsedEntityPanel = new FlowPanel();
+        m_widgetHolder.add(m_collapsedEntityPanel);
+        Label summaryLabel = new Label(summary);
+        summaryLabel.setStyleName(formCss().entitySummary());
+        summaryLabel.addClickHandler(new ClickHandler() {
+
+            public void onClick(ClickEvent event) {
+
+                expandValueEntity();
+            }
+        });
+        m_collapsedEntityPanel.add(summaryLabel);
+        removeStyleName(formCss().emptyValue());
+    }
+
     /**
      * Sets the compact view mode.<p>
      * 
@@ -648,6 +781,18 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
         removeStyleName(formCss().emptyValue());
     }
 
+    /**
+     * Sets the attribute value index.<p>
+     * 
+     * Called by the attribute handler, which keeps the indexes of its value views in sync with their position.<p>
+     * 
+     * @param valueIndex the attribute value index
+     */
+    public void setValueIndex(int valueIndex) {
+
+        m_valueIndex = valueIndex;
+    }
+
     /**
      * Sets the value widget.<p>
      * 
@@ -666,7 +811,11 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
         m_isSimpleValue = true;
         m_widget = widget;
         if (AttributeHandler.hasResizeHandler() && (m_widget instanceof HasResizeHandlers)) {
-            ((HasResizeHandlers)m_widget).addResizeHandler(AttributeHandler.getResizeHandler());
+            HandlerRegistration registration = ((HasResizeHandlers)m_widget).addResizeHandler(
+                AttributeHandler.getResizeHandler());
+            if (registration != null) {
+                m_widgetHandlerRegistrations.add(registration);
+            }
         }
         m_widgetHolder.clear();
         m_widget.setWidgetInfo(m_label, m_help);
@@ -677,15 +826,15 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
         }
         m_widgetHolder.add(m_widget);
         m_widget.setName(getHandler().getAttributeName());
-        m_widget.addValueChangeHandler(new ChangeHandler());
-        m_widget.addFocusHandler(new FocusHandler() {
+        m_widgetHandlerRegistrations.add(m_widget.addValueChangeHandler(new ChangeHandler()));
+        m_widgetHandlerRegistrations.add(m_widget.addFocusHandler(new FocusHandler() {
 
             public void onFocus(FocusEvent event) {
 
                 ValueFocusHandler.getInstance().setFocus(AttributeValueView.this);
                 activateWidget();
             }
-        });
+        }));
         m_widget.setActive(active);
         if (!active) {
             addActivationHandler();
@@ -720,17 +869,26 @@ implements I_Draggable, I_HasResizeOnShow, HasMouseOverHandlers, HasMouseOutHand
      * 
      * @param focusOn <code>true</code> to change the display state to 'focused'
      */
-    public void toggleFocus(boolean focusOn) {
+    public void toggleFocus(final boolean focusOn) {
 
-        if (focusOn) {
-            addStyleName(formCss().focused());
-            if (shouldDisplayTooltipAbove()) {
-                addStyleName(formCss().displayAbove());
-            } else {
-                removeStyleName(formCss().displayAbove());
+        // the styles are changed with the other layout updates of the next animation frame
+        LayoutScheduler.getInstance().scheduleWrite(new ScheduledCommand() {
+
+            public void execute() {
+
+                if (focusOn) {
+                    addStyleName(formCss().focused());
+                    if (shouldDisplayTooltipAbove()) {
+                        addStyleName(formCss().displayAbove());
+                    } else {
+                        removeStyleName(formCss().displayAbove());
+                    }
+                } else {
+                    removeStyleName(formCss().focused());
+                }
             }
-        } else {
-            removeStyleName(formCss().focused());
+        });
+        if (!focusOn) {
             if (m_widget != null) {
                 if (m_handler.hasSingleOptionalValue()) {
                     if (m_handler.getWidgetService().shouldRemoveLastValueAfterUnfocus(m_widget)) {
@@ -27,6 +27,8 @@
 
 package com.alkacon.acacia.client.ui;
 
+import com.alkacon.acacia.client.LayoutScheduler;
+import com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask;
 import com.alkacon.geranium.client.util.ClientStringUtil;
 import com.alkacon.geranium.client.util.DomUtil;
 import com.alkacon.geranium.client.util.PositionBean;
@@ -37,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style;
 import com.google.gwt.dom.client.Style.Display;
@@ -59,6 +62,57 @@ import com.google.gwt.user.client.ui.Widget;
  */
 public class InlineEditOverlay extends Composite implements HasClickHandlers {
 
+    /**
+     * Updates the overlay and button positions, reading the layout of all elements before writing any style.<p>
+     */
+    protected class PositionTask implements I_LayoutTask {
+
+        /** The absolute top positions of the button reference elements. */
+        private Map<InlineEntityWidget, Integer> m_buttonTops;
+
+        /** The position of the element to surround. */
+        private PositionBean m_position;
+
+        /**
+         * Constructor.<p>
+         */
+        protected PositionTask() {
+
+            m_buttonTops = new HashMap<InlineEntityWidget, Integer>();
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#readLayout()
+         */
+        public void readLayout() {
+
+            m_position = PositionBean.getInnerDimensions(m_element);
+            readPageSize();
+            m_buttonTops.clear();
+            for (Widget widget : m_buttonPanel) {
+                if (widget instanceof InlineEntityWidget) {
+                    InlineEntityWidget button = (InlineEntityWidget)widget;
+                    m_buttonTops.put(button, Integer.valueOf(button.getReferenceElement().getAbsoluteTop()));
+                }
+            }
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#writeLayout()
+         */
+        public void writeLayout() {
+
+            setPosition(m_position);
+            for (Widget widget : m_buttonPanel) {
+                Integer top = m_buttonTops.get(widget);
+                if (top != null) {
+                    setButtonPosition((InlineEntityWidget)widget, top.intValue());
+                }
+            }
+            m_buttonTops.clear();
+        }
+    }
+
     /** The ui binder. */
     interface I_CmsInlineEditOverlayUiBinder extends UiBinder<HTMLPanel, InlineEditOverlay> {
         // nothing to do
@@ -143,6 +197,15 @@ public class InlineEditOverlay extends Composite implements HasClickHandlers {
     /** The overlay offset. */
     private int m_offset = 3;
 
+    /** The page height, as read during the last position update. */
+    private int m_pageHeight;
+
+    /** The page width, as read during the last position update. */
+    private int m_pageWidth;
+
+    /** The position update task. */
+    private PositionTask m_positionTask;
+
     /** Style of overlay. */
     private Style m_overlayBottomStyle;
 
@@ -183,6 +246,7 @@ public class InlineEditOverlay extends Composite implements HasClickHandlers {
             }
         }, ClickEvent.getType());
         m_buttons = new HashMap<InlineEntityWidget, Integer>();
+        m_positionTask = new PositionTask();
     }
 
     /**
@@ -252,15 +316,16 @@ public class InlineEditOverlay extends Composite implements HasClickHandlers {
 
     /**
      * Adds a button widget to the button panel.<p>
+     * 
+     * The button is positioned with the next position update, so adding many buttons reads the layout only once.<p>
      *  
      * @param widget the button widget
-     * @param absoluteTop the absolute top position
      */
-    public void addButton(InlineEntityWidget widget, int absoluteTop) {
+    public void addButton(InlineEntityWidget widget) {
 
         setButtonBarVisible(true);
         m_buttonPanel.add(widget);
-        setButtonPosition(widget, absoluteTop);
+        updatePosition();
     }
 
     /**
@@ -300,6 +365,32 @@ public class InlineEditOverlay extends Composite implements HasClickHandlers {
         setButtonBarVisible(false);
     }
 
+    /**
+     * Removes the buttons whose reference elements are no longer part of the document.<p>
+     * 
+     * Use this instead of {@link #clearButtonPanel()} when only parts of the HTML have been replaced.<p>
+     */
+    public void removeDetachedButtons() {
+
+        Element body = Document.get().getBody();
+        List<InlineEntityWidget> detached = new ArrayList<InlineEntityWidget>();
+        for (Widget widget : m_buttonPanel) {
+            if (widget instanceof InlineEntityWidget) {
+                Element reference = ((InlineEntityWidget)widget).getReferenceElement();
+                if ((reference != null) && !body.isOrHasChild(reference)) {
+                    detached.add((InlineEntityWidget)widget);
+                }
+            }
+        }
+        for (InlineEntityWidget widget : detached) {
+            m_buttonPanel.remove(widget);
+            m_buttons.remove(widget);
+        }
+        if (m_buttonPanel.getWidgetCount() == 0) {
+            setButtonBarVisible(false);
+        }
+    }
+
     /**
      * Updates the position of the given button widget.<p>
      * 
@@ -346,17 +437,42 @@ public class InlineEditOverlay extends Composite implements HasClickHandlers {
 
     /**
      * Updates the overlay position.<p>
+     * 
+     * The update is batched with the other layout updates of the next animation frame.<p>
      */
     public void updatePosition() {
 
-        setPosition(PositionBean.getInnerDimensions(m_element));
-        for (Widget widget : m_buttonPanel) {
-            if (widget instanceof InlineEntityWidget) {
-                ((InlineEntityWidget)widget).positionWidget();
-            }
+        LayoutScheduler.getInstance().schedule(m_positionTask);
+    }
+
+    /**
+     * Reads the page size.<p>
+     */
+    void readPageSize() {
+
+        m_pageWidth = Window.getClientWidth();
+        int bodyWidth = RootPanel.getBodyElement().getClientWidth() + RootPanel.getBodyElement().getOffsetLeft();
+        if (bodyWidth > m_pageWidth) {
+            m_pageWidth = bodyWidth;
+        }
+        m_pageHeight = Window.getClientHeight();
+        int bodyHeight = RootPanel.getBodyElement().getClientHeight() + RootPanel.getBodyElement().getOffsetTop();
+        if (bodyHeight > m_pageHeight) {
+            m_pageHeight = bodyHeight;
         }
     }
 
+    /**
+     * Sets position and size of the overlay area.<p>
+     * 
+     * @param position the position of highlighted area
+     */
+    void setPosition(PositionBean position) {
+
+        m_currentPosition = position;
+        setSelectPosition(position.getLeft(), position.getTop(), position.getHeight(), position.getWidth());
+    }
+
     /**
      * Returns the available absolute top position for the given button.<p>
      * 
@@ -426,17 +542,6 @@ public class InlineEditOverlay extends Composite implements HasClickHandlers {
         }
     }
 
-    /**
-     * Sets position and size of the overlay area.<p>
-     * 
-     * @param position the position of highlighted area
-     */
-    private void setPosition(PositionBean position) {
-
-        m_currentPosition = position;
-        setSelectPosition(position.getLeft(), position.getTop(), position.getHeight(), position.getWidth());
-    }
-
     /**
      * Sets position and size of the overlay area.<p>
      * 
@@ -447,16 +552,9 @@ public class InlineEditOverlay extends Composite implements HasClickHandlers {
      */
     private void setSelectPosition(int posX, int posY, int height, int width) {
 
-        int useWidth = Window.getClientWidth();
-        int bodyWidth = RootPanel.getBodyElement().getClientWidth() + RootPanel.getBodyElement().getOffsetLeft();
-        if (bodyWidth > useWidth) {
-            useWidth = bodyWidth;
-        }
-        int useHeight = Window.getClientHeight();
-        int bodyHeight = RootPanel.getBodyElement().getClientHeight() + RootPanel.getBodyElement().getOffsetTop();
-        if (bodyHeight > useHeight) {
-            useHeight = bodyHeight;
-        }
+        // the page size has been read before, reading it here would force a layout between style changes
+        int useWidth = m_pageWidth;
+        int useHeight = m_pageHeight;
 
         m_overlayLeftStyle.setWidth(posX - m_offset, Unit.PX);
         m_overlayLeftStyle.setHeight(useHeight, Unit.PX);
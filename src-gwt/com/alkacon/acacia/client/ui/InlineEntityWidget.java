@@ -24,6 +24,7 @@
 
 package com.alkacon.acacia.client.ui;
 
+import com.alkacon.acacia.client.A_LayoutObserver;
 import com.alkacon.acacia.client.AttributeHandler;
 import com.alkacon.acacia.client.ButtonBarHandler;
 import com.alkacon.acacia.client.ChoiceMenuEntryBean;
@@ -31,6 +32,8 @@ import com.alkacon.acacia.client.EditorBase;
 import com.alkacon.acacia.client.I_InlineFormParent;
 import com.alkacon.acacia.client.I_InlineHtmlUpdateHandler;
 import com.alkacon.acacia.client.I_WidgetService;
+import com.alkacon.acacia.client.LayoutScheduler;
+import com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask;
 import com.alkacon.acacia.client.css.I_LayoutBundle;
 import com.alkacon.geranium.client.I_DescendantResizeHandler;
 import com.alkacon.geranium.client.ui.HighlightingBorder;
@@ -46,10 +49,12 @@ import com.alkacon.vie.shared.I_Type;
 
 import java.util.List;
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.shared.GWT;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style.Display;
 import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.dom.client.Style.Visibility;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.MouseOutEvent;
@@ -99,6 +104,180 @@ public class InlineEntityWidget extends Composite {
         }
     }
 
+    /**
+     * Shows or hides the reference element highlighting.<p>
+     */
+    protected class HighlightingTask implements I_LayoutTask {
+
+        /** The reference element position, <code>null</code> to hide the highlighting. */
+        private PositionBean m_position;
+
+        /** Flag indicating the highlighting should be visible. */
+        private boolean m_visible;
+
+        /**
+         * Constructor.<p>
+         */
+        protected HighlightingTask() {
+
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#readLayout()
+         */
+        public void readLayout() {
+
+            m_position = m_visible && (m_referenceElement != null)
+            ? PositionBean.getInnerDimensions(m_referenceElement)
+            : null;
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#writeLayout()
+         */
+        public void writeLayout() {
+
+            if (m_position != null) {
+                if (m_highlighting == null) {
+                    m_highlighting = new HighlightingBorder(m_position, HighlightingBorder.BorderColor.red);
+                    RootPanel.get().add(m_highlighting);
+                } else {
+                    m_highlighting.setPosition(m_position);
+                }
+            } else if (m_highlighting != null) {
+                m_highlighting.removeFromParent();
+                m_highlighting = null;
+            }
+        }
+
+        /**
+         * Sets if the highlighting should be visible.<p>
+         * 
+         * @param visible <code>true</code> if the highlighting should be visible
+         */
+        protected void setVisible(boolean visible) {
+
+            m_visible = visible;
+        }
+    }
+
+    /**
+     * Updates the overlay position once per animation frame while the layout of the updated HTML changes.<p>
+     */
+    protected class OverlayPositionObserver extends A_LayoutObserver {
+
+        /**
+         * Constructor.<p>
+         */
+        protected OverlayPositionObserver() {
+
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.A_LayoutObserver#measure()
+         */
+        @Override
+        protected int measure() {
+
+            PositionBean position = PositionBean.getInnerDimensions(m_formParent.getElement());
+            int result = position.getTop();
+            result = (31 * result) + position.getLeft();
+            result = (31 * result) + position.getWidth();
+            result = (31 * result) + position.getHeight();
+            if (m_referenceElement != null) {
+                result = (31 * result) + m_referenceElement.getAbsoluteTop();
+            }
+            return result;
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.A_LayoutObserver#onLayoutChange(int)
+         */
+        @Override
+        protected void onLayoutChange(int value) {
+
+            InlineEditOverlay.updateCurrentOverlayPosition();
+        }
+    }
+
+    /**
+     * Positions the edit pop-up relative to the reference element.<p>
+     */
+    protected class PopupPositionTask implements I_LayoutTask {
+
+        /** The left pop-up position. */
+        private int m_left;
+
+        /** The scroll position to scroll to, -1 to keep the current scroll position. */
+        private int m_scrollTop;
+
+        /** The top pop-up position. */
+        private int m_top;
+
+        /**
+         * Constructor.<p>
+         */
+        protected PopupPositionTask() {
+
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#readLayout()
+         */
+        public void readLayout() {
+
+            if (m_popup == null) {
+                return;
+            }
+            int windowHeight = Window.getClientHeight();
+            int scrollTop = Window.getScrollTop();
+            int contentHeight = m_popup.getOffsetHeight();
+            // center horizontally
+            m_left = Math.max(Window.getScrollLeft() + ((Window.getClientWidth() - m_popup.getOffsetWidth()) >> 1), 0);
+            m_scrollTop = -1;
+            if (m_referenceElement != null) {
+                PositionBean referencePosition = PositionBean.getInnerDimensions(m_referenceElement);
+                int currentTop = m_popup.getAbsoluteTop();
+                int top = referencePosition.getTop();
+                if (((windowHeight + scrollTop) < (top + referencePosition.getHeight() + contentHeight + 20))
+                    && ((contentHeight + 40) < top)) {
+                    top = top - contentHeight - 5;
+                    if ((currentTop < top) && ((top - currentTop) < 200)) {
+                        // keep the current position
+                        top = currentTop;
+                    }
+                } else {
+                    top = top + referencePosition.getHeight() + 5;
+                    if ((currentTop > top) && ((currentTop - top) < 200)) {
+                        // keep the current position
+                        top = currentTop;
+                    }
+                }
+                m_top = top;
+                if (((contentHeight + top) - scrollTop) > windowHeight) {
+                    m_scrollTop = ((contentHeight + top) - windowHeight) + 20;
+                }
+            } else {
+                m_top = Math.max(scrollTop + ((windowHeight - contentHeight) >> 1), 0);
+            }
+        }
+
+        /**
+         * @see com.alkacon.acacia.client.LayoutScheduler.I_LayoutTask#writeLayout()
+         */
+        public void writeLayout() {
+
+            if (m_popup == null) {
+                return;
+            }
+            m_popup.setPopupPosition(m_left, m_top);
+            m_popup.getElement().getStyle().clearVisibility();
+            if (m_scrollTop > -1) {
+                Window.scrollTo(Window.getScrollLeft(), m_scrollTop);
+            }
+        }
+    }
+
     /**
      * Timer to update the HTML.<p>
      */
@@ -155,6 +334,12 @@ public class InlineEntityWidget extends Composite {
         // nothing to do
     }
 
+    /** The maximum delay between the last entity change and the HTML update in milliseconds. */
+    private static final int MAX_UPDATE_DELAY = 1000;
+
+    /** The minimum delay between the last entity change and the HTML update in milliseconds. */
+    private static final int MIN_UPDATE_DELAY = 150;
+
     /** The UI binder instance. */
     private static InlineEntityWidgetUiBinder uiBinder = GWT.create(InlineEntityWidgetUiBinder.class);
 
@@ -182,23 +367,32 @@ public class InlineEntityWidget extends Composite {
     @UiField
     protected PushButton m_upButton;
 
+    /** The parent widget. */
+    I_InlineFormParent m_formParent;
+
     /** The highlighting border widget. */
     HighlightingBorder m_highlighting;
 
     /** The pop-up panel. */
     Popup m_popup;
 
+    /** The reference DOM element, will be highlighted during editing. */
+    Element m_referenceElement;
+
     /** The handler of the attribute to edit. */
     private AttributeHandler m_attributeHandler;
 
     /** The attribute value index. */
     private int m_attributeIndex;
 
+    /** The average duration of the recent HTML updates of this widget in milliseconds. */
+    private int m_averageUpdateTime;
+
     /** The change handler registration. */
     private HandlerRegistration m_entityChangeHandlerRegistration;
 
-    /** The parent widget. */
-    private I_InlineFormParent m_formParent;
+    /** The highlighting task. */
+    private HighlightingTask m_highlightingTask;
 
     /** Indicates if the content has been changed while the edit pop-up was shown. */
     private boolean m_hasChanges;
@@ -206,8 +400,8 @@ public class InlineEntityWidget extends Composite {
     /** Handles HTML updates if required. */
     private I_InlineHtmlUpdateHandler m_htmlUpdateHandler;
 
-    /** A timer to update the overlay position. */
-    private Timer m_overlayTimer;
+    /** Observes the layout to update the overlay position. */
+    private OverlayPositionObserver m_overlayObserver;
 
     /** The parent of the entity to edit. */
     private I_Entity m_parentEntity;
@@ -215,8 +409,8 @@ public class InlineEntityWidget extends Composite {
     /** Flag indicating the popup has been closed. */
     private boolean m_popupClosed;
 
-    /** The reference DOM element, will be highlighted during editing. */
-    private Element m_referenceElement;
+    /** The pop-up position task. */
+    private PopupPositionTask m_popupPositionTask;
 
     /** Flag indicating it is required to open the edit popup aftera HTML update. */
     private boolean m_requireShowPopup;
@@ -224,6 +418,9 @@ public class InlineEntityWidget extends Composite {
     /** Flag indicating an HTML update is running. */
     private boolean m_runningUpdate;
 
+    /** Flag indicating the entity has been changed after the running HTML update was requested. */
+    private boolean m_updatePending;
+
     /** The dialog title. */
     private String m_title;
 
@@ -264,6 +461,8 @@ public class InlineEntityWidget extends Composite {
         m_title = "";
         m_updateTimer = new UpdateTimer();
         m_popupClosed = true;
+        m_highlightingTask = new HighlightingTask();
+        m_popupPositionTask = new PopupPositionTask();
         initButtons();
         addDomHandler(ButtonBarHandler.INSTANCE, MouseOverEvent.getType());
         addDomHandler(ButtonBarHandler.INSTANCE, MouseOutEvent.getType());
@@ -299,7 +498,7 @@ public class InlineEntityWidget extends Composite {
             attributeIndex,
             htmlUpdateHandler,
             widgetService);
-        InlineEditOverlay.getRootOverlay().addButton(widget, element.getAbsoluteTop());
+        InlineEditOverlay.getRootOverlay().addButton(widget);
         attributeHandler.updateButtonVisibilty(widget);
         return widget;
     }
@@ -317,25 +516,14 @@ public class InlineEntityWidget extends Composite {
     /**
      * Sets the visibility of the reference element highlighting border.<p>
      * 
+     * The highlighting is updated with the other layout updates of the next animation frame.<p>
+     * 
      * @param visible <code>true</code> to show the highlighting
      */
     public void setContentHighlightingVisible(boolean visible) {
 
-        if (visible) {
-            if (m_highlighting == null) {
-                m_highlighting = new HighlightingBorder(
-                    PositionBean.getInnerDimensions(m_referenceElement),
-                    HighlightingBorder.BorderColor.red);
-                RootPanel.get().add(m_highlighting);
-            } else {
-                m_highlighting.setPosition(PositionBean.getInnerDimensions(m_referenceElement));
-            }
-        } else {
-            if (m_highlighting != null) {
-                m_highlighting.removeFromParent();
-                m_highlighting = null;
-            }
-        }
+        m_highlightingTask.setVisible(visible);
+        LayoutScheduler.getInstance().schedule(m_highlightingTask);
     }
 
     /**
@@ -394,14 +582,6 @@ public class InlineEntityWidget extends Composite {
         }
     }
 
-    /**
-     * Positions the widget button above the reference element.<p>
-     */
-    protected void positionWidget() {
-
-        InlineEditOverlay.getRootOverlay().setButtonPosition(this, m_referenceElement.getAbsoluteTop());
-    }
-
     /** Adds a new attribute value. */
     void addNewAttributeValue() {
 
@@ -416,11 +596,15 @@ public class InlineEntityWidget extends Composite {
      */
     void afterHtmlUpdate() {
 
-        if (m_overlayTimer != null) {
-            m_overlayTimer.cancel();
-            m_overlayTimer = null;
+        if (m_overlayObserver != null) {
+            m_overlayObserver.cancel();
         }
         m_runningUpdate = false;
+        if (m_updatePending && m_popupClosed && !m_requireShowPopup) {
+            // the HTML is already outdated, the widgets are reinitialized once the latest changes are rendered
+            runHtmlUpdate();
+            return;
+        }
         List<Element> elements = Vie.getInstance().getAttributeElements(
             m_parentEntity,
             m_attributeHandler.getAttributeName(),
@@ -435,7 +619,6 @@ public class InlineEntityWidget extends Composite {
                 showEditPopup(null);
                 m_hasChanges = true;
             } else {
-                InlineEditOverlay.getRootOverlay().clearButtonPanel();
                 m_htmlUpdateHandler.reinitWidgets(m_formParent);
             }
 
@@ -451,37 +634,39 @@ public class InlineEntityWidget extends Composite {
                 InlineEditOverlay.addOverlayForElement(m_referenceElement);
             }
         }
-        // schedule to update the ovelay position
-        m_overlayTimer = new Timer() {
-
-            /** Timer run counter. */
-            private int timerRuns = 0;
+        // update the overlay position in the next animation frames, as long as the updated HTML layout changes
+        if (m_overlayObserver == null) {
+            m_overlayObserver = new OverlayPositionObserver();
+        }
+        m_overlayObserver.reset();
+        m_overlayObserver.trigger();
+        if (m_updatePending) {
+            // render the changes made while the update was running
+            runHtmlUpdate();
+        }
+    }
 
-            /**
-             * @see com.google.gwt.user.client.Timer#run()
-             */
-            @Override
-            public void run() {
+    /**
+     * Returns the reference element.<p>
+     * 
+     * @return the reference element
+     */
+    Element getReferenceElement() {
 
-                InlineEditOverlay.updateCurrentOverlayPosition();
-                if (timerRuns > 3) {
-                    cancel();
-                }
-                timerRuns++;
-            }
-        };
-        m_overlayTimer.scheduleRepeating(100);
+        return m_referenceElement;
     }
 
     /**
      * Sets the changed flag.<p>
+     * 
+     * The HTML update is delayed until no further change occurs, the delay adapts to the duration of the recent updates.<p>
      */
     void onEntityChange() {
 
         if (m_updateTimer.isScheduled()) {
             m_updateTimer.cancel();
         }
-        m_updateTimer.schedule(150);
+        m_updateTimer.schedule(getUpdateDelay());
         m_hasChanges = true;
     }
 
@@ -498,9 +683,12 @@ public class InlineEntityWidget extends Composite {
             m_entityChangeHandlerRegistration.removeHandler();
         }
         AttributeHandler.setResizeHandler(null);
-        if (!m_runningUpdate) {
+        m_popupClosed = true;
+        if (m_updateTimer.isScheduled()) {
+            // there is no more typing to wait for, render the latest changes right away
+            runHtmlUpdate();
+        } else if (!m_runningUpdate) {
             if (m_hasChanges) {
-                InlineEditOverlay.getRootOverlay().clearButtonPanel();
                 m_htmlUpdateHandler.reinitWidgets(m_formParent);
             }
         }
@@ -521,53 +709,36 @@ public class InlineEntityWidget extends Composite {
 
     /**
      * Positions the given pop-up relative to the reference element.<p>
+     * 
+     * The position is updated with the other layout updates of the next animation frame.<p>
      */
     void positionPopup() {
 
-        if (m_referenceElement != null) {
-            PositionBean referencePosition = PositionBean.getInnerDimensions(m_referenceElement);
-            int currentTop = m_popup.getAbsoluteTop();
-            int windowHeight = Window.getClientHeight();
-            int scrollTop = Window.getScrollTop();
-            int contentHeight = m_popup.getOffsetHeight();
-            int top = referencePosition.getTop();
-            if (((windowHeight + scrollTop) < (top + referencePosition.getHeight() + contentHeight + 20))
-                && ((contentHeight + 40) < top)) {
-                top = top - contentHeight - 5;
-                if ((currentTop < top) && ((top - currentTop) < 200)) {
-                    // keep the current position
-                    top = currentTop;
-                }
-            } else {
-                top = top + referencePosition.getHeight() + 5;
-                if ((currentTop > top) && ((currentTop - top) < 200)) {
-                    // keep the current position
-                    top = currentTop;
-                }
-            }
-            m_popup.center();
-            m_popup.setPopupPosition(m_popup.getPopupLeft(), top);
-            if (((contentHeight + top) - scrollTop) > windowHeight) {
-                Window.scrollTo(Window.getScrollLeft(), ((contentHeight + top) - windowHeight) + 20);
-            }
-        } else {
-            m_popup.center();
-        }
+        LayoutScheduler.getInstance().schedule(m_popupPositionTask);
     }
 
     /**
      * Updates the HTML according to the entity data.<p>
+     * 
+     * Only one update is running at a time. Changes made in the meantime are rendered by a single
+     * update of the then current entity data, once the running update is finished.<p>
      */
     void runHtmlUpdate() {
 
+        if (m_updateTimer.isScheduled()) {
+            m_updateTimer.cancel();
+        }
         if (m_runningUpdate) {
-            m_updateTimer.schedule(50);
+            m_updatePending = true;
         } else {
             m_runningUpdate = true;
+            m_updatePending = false;
+            final Duration duration = new Duration();
             m_htmlUpdateHandler.updateHtml(m_formParent, new Command() {
 
                 public void execute() {
 
+                    addUpdateTime(duration.elapsedMillis());
                     afterHtmlUpdate();
                 }
             });
@@ -612,6 +783,8 @@ public class InlineEntityWidget extends Composite {
         m_popup.add(formPanel);
         m_popup.addDialogClose(null);
         I_LayoutBundle.INSTANCE.dialogCss().ensureInjected();
+        // the pop-up is displayed once positioned
+        m_popup.getElement().getStyle().setVisibility(Visibility.HIDDEN);
         m_popup.show();
         AttributeHandler.setScrollElement(formPanel.getElement());
         AttributeHandler.setResizeHandler(new ResizeHandler() {
@@ -632,6 +805,33 @@ public class InlineEntityWidget extends Composite {
         m_popupClosed = false;
     }
 
+    /**
+     * Adds the duration of an HTML update to the average update time.<p>
+     * 
+     * @param updateTime the update duration in milliseconds
+     */
+    private void addUpdateTime(int updateTime) {
+
+        if (m_averageUpdateTime == 0) {
+            m_averageUpdateTime = updateTime;
+        } else {
+            // weigh the recent updates more than the older ones
+            m_averageUpdateTime = ((3 * m_averageUpdateTime) + updateTime) / 4;
+        }
+    }
+
+    /**
+     * Returns the delay between the last entity change and the HTML update.<p>
+     * 
+     * Expensive updates are delayed longer, to avoid rendering intermediate states.<p>
+     * 
+     * @return the delay in milliseconds
+     */
+    private int getUpdateDelay() {
+
+        return Math.max(MIN_UPDATE_DELAY, Math.min(MAX_UPDATE_DELAY, m_averageUpdateTime));
+    }
+
     /**
      * Initializes the button styling.<p>
      */
@@ -47,6 +47,9 @@ public class ValuePanel extends FlowPanel implements I_DropTarget, I_HasResizeOn
     /** The placeholder position index. */
     protected int m_placeholderIndex = -1;
 
+    /** The vertical cursor position the placeholder has been positioned for last. */
+    private int m_dragPositionY;
+
     /** The highlighting border. */
     private HighlightingBorder m_highlighting;
 
@@ -66,6 +69,16 @@ public class ValuePanel extends FlowPanel implements I_DropTarget, I_HasResizeOn
         return true;
     }
 
+    /**
+     * Returns the vertical cursor position the placeholder has been positioned for last, relative to the client area.<p>
+     * 
+     * @return the vertical cursor position
+     */
+    public int getDragPositionY() {
+
+        return m_dragPositionY;
+    }
+
     /**
      * @see com.alkacon.geranium.client.dnd.I_DropTarget#getPlaceholderIndex()
      */
@@ -130,6 +143,7 @@ public class ValuePanel extends FlowPanel implements I_DropTarget, I_HasResizeOn
     public void repositionPlaceholder(int x, int y, Orientation orientation) {
 
         // handle vertical orientation only
+        m_dragPositionY = y;
         m_placeholderIndex = DomUtil.positionElementInside(m_placeholder, getElement(), m_placeholderIndex, -1, y);
     }
 
@@ -0,0 +1,56 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.client.widgets;
+
+/**
+ * Edit widgets implementing this interface may be released to the widget service and handed out again
+ * for another attribute value, instead of creating a new instance.<p>
+ * 
+ * Only widgets implementing this interface, directly or wrapped by a {@link FormWidgetWrapper}, are pooled.<p>
+ */
+public interface I_ReusableWidget {
+
+    /**
+     * Returns the key of the widget pool this widget belongs to.<p>
+     * 
+     * @return the pool key, <code>null</code> if the widget was not created by a widget pool
+     */
+    String getPoolKey();
+
+    /**
+     * Resets the widget state before it is put back to the widget pool.<p>
+     * 
+     * The widget has already been removed from its parent, the next user will set a new value, name and label.<p>
+     */
+    void resetWidget();
+
+    /**
+     * Sets the key of the widget pool this widget belongs to.<p>
+     * 
+     * @param poolKey the pool key
+     */
+    void setPoolKey(String poolKey);
+
+}
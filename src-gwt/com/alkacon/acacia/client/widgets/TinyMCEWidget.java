@@ -30,6 +30,9 @@ import com.alkacon.geranium.client.util.DomUtil;
 import com.alkacon.geranium.client.util.DomUtil.Style;
 import com.alkacon.geranium.client.util.PositionBean;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
@@ -40,6 +43,8 @@ import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.DomEvent;
+import com.google.gwt.event.dom.client.FocusEvent;
+import com.google.gwt.event.dom.client.FocusHandler;
 import com.google.gwt.event.logical.shared.HasResizeHandlers;
 import com.google.gwt.event.logical.shared.ResizeEvent;
 import com.google.gwt.event.logical.shared.ResizeHandler;
@@ -54,8 +59,14 @@ import com.google.gwt.user.client.Timer;
  * 
  * After constructing the instance, the actual editor is opened using the init() method, and destroyed with the close()
  * method. While the editor is opened, the edited contents can be accessed using the methods of the HasValue interface.  
+ * 
+ * For form based editing, the value is displayed as a static preview until the widget is clicked or focused,
+ * so the editor is only initialized for fields actually edited. The number of live form editors may be limited
+ * using {@link #setMaxLiveEditors(int)}, in that case the least recently used editor is replaced by its preview.
+ * Form widgets may be pooled by the widget service, the editor is removed on detach and initialized again
+ * once the widget is re-attached.<p>
  */
-public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandlers {
+public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandlers, I_ReusableWidget {
 
     /** Use as option to disallow any HTML or formatting the content. */
     public static final String NO_HTML_EDIT = "no_html_edit";
@@ -66,6 +77,12 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
     /** The toolbar container css class name. */
     private static final String TOOLBAR_CONTAINER = I_LayoutBundle.INSTANCE.form().tinymceToolbarContainer();
 
+    /** The form widgets with an initialized editor, the least recently used first. */
+    private static List<TinyMCEWidget> m_liveEditors = new ArrayList<TinyMCEWidget>();
+
+    /** The maximum number of live form editors, 0 for no limit. */
+    private static int m_maxLiveEditors;
+
     /** A flag which indicates whether the editor is currently active. */
     protected boolean m_active;
 
@@ -96,6 +113,12 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
     /** Indicating if the widget has been attached yet. */
     private boolean m_hasBeenAttached;
 
+    /** Flag indicating the editor initialization is deferred until the widget is clicked or focused. */
+    private boolean m_deferredInitialization;
+
+    /** Flag indicating the editor should be focused once initialized. */
+    private boolean m_focusOnInit;
+
     /** Flag indicating the editor has been initialized. */
     private boolean m_initialized;
 
@@ -105,6 +128,12 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
     /** The editor options. */
     private Object m_options;
 
+    /** The key of the widget pool this widget belongs to. */
+    private String m_poolKey;
+
+    /** Flag indicating the static preview is displayed instead of the editor. */
+    private boolean m_previewShown;
+
     /** The in line editing toolbar container. */
     private Element m_toolbarContainer;
 
@@ -148,9 +177,48 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         } else {
             // using a child DIV as content element
             m_contentElement = getElement().appendChild(DOM.createDiv());
+            m_deferredInitialization = true;
+            addDomHandler(new ClickHandler() {
+
+                public void onClick(ClickEvent event) {
+
+                    upgradePreview();
+                }
+            }, ClickEvent.getType());
+            addDomHandler(new FocusHandler() {
+
+                public void onFocus(FocusEvent event) {
+
+                    upgradePreview();
+                }
+            }, FocusEvent.getType());
         }
     }
 
+    /**
+     * Returns the maximum number of live form editors.<p>
+     * 
+     * @return the maximum number of live form editors, 0 for no limit
+     */
+    public static int getMaxLiveEditors() {
+
+        return m_maxLiveEditors;
+    }
+
+    /**
+     * Sets the maximum number of live form editors.<p>
+     * 
+     * Once the limit is reached, initializing another editor replaces the least recently used one by its static preview,
+     * after synchronizing its content. Setting a limit implies deferred initialization for all form widgets.<p>
+     * 
+     * @param maxLiveEditors the maximum number of live form editors, 0 for no limit
+     */
+    public static void setMaxLiveEditors(int maxLiveEditors) {
+
+        m_maxLiveEditors = maxLiveEditors;
+        releaseLiveEditors(null);
+    }
+
     /**
      * @see com.google.gwt.event.logical.shared.HasResizeHandlers#addResizeHandler(com.google.gwt.event.logical.shared.ResizeHandler)
      */
@@ -178,6 +246,14 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         return m_contentElement;
     }
 
+    /**
+     * @see com.alkacon.acacia.client.widgets.I_ReusableWidget#getPoolKey()
+     */
+    public String getPoolKey() {
+
+        return m_poolKey;
+    }
+
     /**
      * @see com.google.gwt.user.client.ui.HasValue#getValue()
      */
@@ -190,6 +266,16 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         return m_originalContent.trim();
     }
 
+    /**
+     * Returns if the editor initialization is deferred until the widget is clicked or focused.<p>
+     * 
+     * @return <code>true</code> if the editor initialization is deferred
+     */
+    public boolean isDeferredInitialization() {
+
+        return m_deferredInitialization;
+    }
+
     /**
      * @see com.alkacon.acacia.client.widgets.I_EditWidget#isActive()
      */
@@ -198,6 +284,23 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         return m_active;
     }
 
+    /**
+     * @see com.alkacon.acacia.client.widgets.I_ReusableWidget#resetWidget()
+     */
+    public void resetWidget() {
+
+        // the editor has already been removed on detach
+        m_originalContent = "";
+        m_currentContent = null;
+        m_externalValueChange = false;
+        setPreviousValue(null);
+        m_active = true;
+        getElement().removeClassName(I_LayoutBundle.INSTANCE.form().inActive());
+        if (m_previewShown) {
+            m_contentElement.setInnerHTML("");
+        }
+    }
+
     /**
      * @see com.alkacon.acacia.client.widgets.I_EditWidget#setActive(boolean)
      */
@@ -207,7 +310,13 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
             return;
         }
         m_active = active;
-        if (m_editor != null) {
+        if (m_previewShown) {
+            if (m_active) {
+                getElement().removeClassName(I_LayoutBundle.INSTANCE.form().inActive());
+            } else {
+                getElement().addClassName(I_LayoutBundle.INSTANCE.form().inActive());
+            }
+        } else if (m_editor != null) {
             if (m_active) {
                 getElement().removeClassName(I_LayoutBundle.INSTANCE.form().inActive());
                 fireValueChange(true);
@@ -217,6 +326,18 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         }
     }
 
+    /**
+     * Sets if the editor initialization is deferred until the widget is clicked or focused.<p>
+     * 
+     * Enabled by default for form based editing, has no effect for in line editing. Has to be set before the widget is attached.<p>
+     * 
+     * @param deferredInitialization <code>true</code> to defer the editor initialization
+     */
+    public void setDeferredInitialization(boolean deferredInitialization) {
+
+        m_deferredInitialization = deferredInitialization && !m_inline;
+    }
+
     /**
      * @see com.alkacon.acacia.client.widgets.I_EditWidget#setName(java.lang.String)
      */
@@ -226,6 +347,14 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
 
     }
 
+    /**
+     * @see com.alkacon.acacia.client.widgets.I_ReusableWidget#setPoolKey(java.lang.String)
+     */
+    public void setPoolKey(String poolKey) {
+
+        m_poolKey = poolKey;
+    }
+
     /**
      * @see com.google.gwt.user.client.ui.HasValue#setValue(java.lang.Object)
      */
@@ -246,6 +375,9 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         if (m_editor == null) {
             // editor has not been initialized yet
             m_originalContent = value;
+            if (m_previewShown) {
+                m_contentElement.setInnerHTML(sanitizePreviewHtml(value));
+            }
         } else {
             m_externalValueChange = true;
             setContent(value);
@@ -350,27 +482,10 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
                 public void execute() {
 
                     if (isAttached()) {
-                        m_editorHeight = calculateEditorHeight();
-                        m_id = ensureId(getMainElement());
-                        m_width = calculateWidth();
-                        checkLibraries();
-                        if (isInline()) {
-                            if (DomUtil.getCurrentStyleInt(getElement(), Style.zIndex) < 1) {
-                                getElement().getStyle().setZIndex(1);
-                            }
-                            addDomHandler(new ClickHandler() {
-
-                                public void onClick(ClickEvent event) {
-
-                                    // prevent event propagation while editing inline, to avoid following links in ancestor nodes
-                                    event.stopPropagation();
-                                    event.preventDefault();
-                                }
-                            }, ClickEvent.getType());
-                        }
-                        initNative();
-                        if (!m_active) {
-                            getElement().addClassName(I_LayoutBundle.INSTANCE.form().inActive());
+                        if (m_deferredInitialization || (!m_inline && (m_maxLiveEditors > 0))) {
+                            showPreview();
+                        } else {
+                            initEditor();
                         }
                     } else {
                         resetAtachedFlag();
@@ -386,11 +501,21 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
     @Override
     protected void onDetach() {
 
+        m_liveEditors.remove(this);
         try {
+            if (m_initialized) {
+                // keep the edited content for the preview or the editor initialized on re-attach
+                m_originalContent = getContent().trim();
+            }
             detachEditor();
         } catch (Throwable t) {
             // may happen in rare cases, can be ignored
         }
+        m_editor = null;
+        m_initialized = false;
+        m_focusOnInit = false;
+        // initialize the preview or editor again once re-attached
+        m_hasBeenAttached = false;
         if (m_toolbarContainer != null) {
             m_toolbarContainer.removeFromParent();
             m_toolbarContainer = null;
@@ -403,6 +528,10 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
      */
     protected void propagateFocusEvent() {
 
+        if (m_liveEditors.remove(this)) {
+            // mark as most recently used
+            m_liveEditors.add(this);
+        }
         NativeEvent nativeEvent = Document.get().createFocusEvent();
         DomEvent.fireNativeEvent(nativeEvent, this, getElement());
     }
@@ -612,6 +741,7 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
                                     ed.getDoc().body.style.height = 'auto';
                                 }
                                 self.@com.alkacon.acacia.client.widgets.TinyMCEWidget::m_initialized = true;
+                                self.@com.alkacon.acacia.client.widgets.TinyMCEWidget::onEditorLoaded()();
                              });
 
                              if (!self.@com.alkacon.acacia.client.widgets.TinyMCEWidget::m_inline) {
@@ -666,6 +796,79 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         m_hasBeenAttached = false;
     }
 
+    /**
+     * Replaces the static preview with the editor, focusing it once initialized.<p>
+     */
+    void upgradePreview() {
+
+        if (m_previewShown && isAttached()) {
+            m_focusOnInit = true;
+            initEditor();
+        }
+    }
+
+    /**
+     * Replaces the least recently used live editors by their preview, until the limit is met.<p>
+     * 
+     * @param keep the widget to keep, may be <code>null</code>
+     */
+    private static void releaseLiveEditors(TinyMCEWidget keep) {
+
+        if (m_maxLiveEditors <= 0) {
+            return;
+        }
+        int index = 0;
+        while ((m_liveEditors.size() > m_maxLiveEditors) && (index < m_liveEditors.size())) {
+            TinyMCEWidget widget = m_liveEditors.get(index);
+            if (widget == keep) {
+                index++;
+            } else {
+                m_liveEditors.remove(index);
+                widget.replaceEditorByPreview();
+            }
+        }
+    }
+
+    /**
+     * Sanitizes the HTML displayed as static preview, as the preview is not rendered within the editor iframe.<p>
+     * 
+     * The HTML is parsed within an inert document, so no scripts are run and no resources are loaded. 
+     * Scripts, frames, embedded objects, event handler attributes and script URLs are removed.<p>
+     * 
+     * @param html the HTML to sanitize
+     * 
+     * @return the sanitized HTML
+     */
+    private static native String sanitizePreviewHtml(String html) /*-{
+                                                                  if (html == null || html.length == 0) {
+                                                                  return "";
+                                                                  }
+                                                                  var doc = $wnd.document.implementation.createHTMLDocument("");
+                                                                  var body = doc.body;
+                                                                  body.innerHTML = html;
+                                                                  var removed = body.querySelectorAll("script,iframe,frame,frameset,object,embed,applet,base,link,meta,form");
+                                                                  for (var i = 0; i < removed.length; i++) {
+                                                                  if (removed[i].parentNode != null) {
+                                                                  removed[i].parentNode.removeChild(removed[i]);
+                                                                  }
+                                                                  }
+                                                                  var elements = body.getElementsByTagName("*");
+                                                                  for (var i = 0; i < elements.length; i++) {
+                                                                  var attributes = elements[i].attributes;
+                                                                  for (var j = attributes.length - 1; j >= 0; j--) {
+                                                                  var name = attributes[j].name.toLowerCase();
+                                                                  var value = attributes[j].value.replace(/[\s\u0000-\u001F]+/g, "").toLowerCase();
+                                                                  if (name.indexOf("on") == 0
+                                                                  || value.indexOf("javascript:") == 0
+                                                                  || value.indexOf("vbscript:") == 0
+                                                                  || (value.indexOf("data:") == 0 && name != "src")) {
+                                                                  elements[i].removeAttribute(attributes[j].name);
+                                                                  }
+                                                                  }
+                                                                  }
+                                                                  return body.innerHTML;
+                                                                  }-*/;
+
     /**
      * Removes the editor.<p>
      */
@@ -712,6 +915,14 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
         ResizeEvent.fire(this, getOffsetWidth(), getOffsetHeight());
     }
 
+    /**
+     * Focuses the editor.<p>
+     */
+    private native void focusEditor() /*-{
+                                      var editor = this.@com.alkacon.acacia.client.widgets.TinyMCEWidget::m_editor;
+                                      editor.focus();
+                                      }-*/;
+
     /**
      * Returns the editor content.<p>
      * 
@@ -722,6 +933,82 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
                                        return editor.getContent();
                                        }-*/;
 
+    /**
+     * Initializes the editor, replacing the static preview if shown.<p>
+     */
+    private void initEditor() {
+
+        if (m_previewShown) {
+            m_previewShown = false;
+            m_contentElement.removeClassName(I_LayoutBundle.INSTANCE.form().tinymcePreview());
+            m_contentElement.setInnerHTML("");
+            getElement().removeAttribute("tabIndex");
+        }
+        m_editorHeight = calculateEditorHeight();
+        m_id = ensureId(getMainElement());
+        m_width = calculateWidth();
+        checkLibraries();
+        if (isInline()) {
+            if (DomUtil.getCurrentStyleInt(getElement(), Style.zIndex) < 1) {
+                getElement().getStyle().setZIndex(1);
+            }
+            addDomHandler(new ClickHandler() {
+
+                public void onClick(ClickEvent event) {
+
+                    // prevent event propagation while editing inline, to avoid following links in ancestor nodes
+                    event.stopPropagation();
+                    event.preventDefault();
+                }
+            }, ClickEvent.getType());
+        }
+        initNative();
+        if (!m_active) {
+            getElement().addClassName(I_LayoutBundle.INSTANCE.form().inActive());
+        }
+        if (!m_inline) {
+            m_liveEditors.remove(this);
+            m_liveEditors.add(this);
+            releaseLiveEditors(this);
+        }
+    }
+
+    /**
+     * Called once the editor content has been loaded, focuses the editor if requested.<p>
+     */
+    private void onEditorLoaded() {
+
+        if (m_focusOnInit) {
+            m_focusOnInit = false;
+            focusEditor();
+        }
+    }
+
+    /**
+     * Removes the editor and displays the static preview instead, after synchronizing the content.<p>
+     */
+    private void replaceEditorByPreview() {
+
+        if (m_editor == null) {
+            return;
+        }
+        if (m_initialized) {
+            m_originalContent = getContent().trim();
+        }
+        try {
+            detachEditor();
+        } catch (Throwable t) {
+            // may happen in rare cases, can be ignored
+        }
+        m_editor = null;
+        m_initialized = false;
+        m_focusOnInit = false;
+        showPreview();
+        // fire any change not propagated yet, comparing the synchronized content with the previous value
+        fireValueChange(false);
+        fireResizeEvent();
+    }
+
     /**
      * Resets the in line editing toolbar position.<p>
      */
@@ -744,4 +1031,19 @@ public final class TinyMCEWidget extends A_EditWidget implements HasResizeHandle
                                                       editor.setContent(newContent);
                                                       }-*/;
 
+    /**
+     * Displays the value as static HTML preview, the editor is initialized once the preview is clicked or focused.<p>
+     */
+    private void showPreview() {
+
+        m_previewShown = true;
+        m_contentElement.addClassName(I_LayoutBundle.INSTANCE.form().tinymcePreview());
+        m_contentElement.setInnerHTML(sanitizePreviewHtml(m_originalContent));
+        // make the preview reachable by keyboard
+        getElement().setTabIndex(0);
+        if (!m_active) {
+            getElement().addClassName(I_LayoutBundle.INSTANCE.form().inActive());
+        }
+    }
+
 }
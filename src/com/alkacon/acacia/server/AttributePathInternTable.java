@@ -0,0 +1,56 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.server;
+
+import com.alkacon.acacia.shared.AttributePath;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enables interning of attribute paths on the server.<p>
+ * 
+ * The server handles requests concurrently, so the paths are interned within a concurrent map.
+ * Concurrent callers may still get distinct instances of equal paths, path equality is not affected.<p>
+ */
+public final class AttributePathInternTable {
+
+    /**
+     * Constructor.<p>
+     */
+    private AttributePathInternTable() {
+
+        // nothing to do
+    }
+
+    /**
+     * Installs a concurrent intern table for attribute paths.<p>
+     * 
+     * To be called once on server start-up, before paths are created by concurrent requests.<p>
+     */
+    public static void install() {
+
+        AttributePath.setInternTable(new ConcurrentHashMap<AttributePath, AttributePath>());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.server;
+
+import com.alkacon.acacia.shared.Entity;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.rpc.EntityRevisionException;
+
+/**
+ * Helper for implementations of {@link com.alkacon.acacia.shared.rpc.I_PatchContentService},
+ * accepting entity patches instead of complete entities.<p>
+ * 
+ * Resolves the base revision of a patch from the revision store, applies the patch to a copy of it
+ * and stores the result as the following revision. Patches have to be applied to the latest revision,
+ * so a client sending two patches based on the same revision gets a conflict for the second one
+ * and has to send the complete entity instead.<p>
+ */
+public class EntityPatchHelper {
+
+    /** The revision store. */
+    private I_EntityRevisionStore m_store;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param store the revision store
+     */
+    public EntityPatchHelper(I_EntityRevisionStore store) {
+
+        m_store = store;
+    }
+
+    /**
+     * Applies the patch to the given base revision and stores the result as the following revision.<p>
+     * 
+     * The base revision has to be the latest revision of the entity, the check and the storing of the result 
+     * are atomic. The returned entity is stored in the revision store and must not be modified.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision
+     * @param patch the patch
+     * 
+     * @return the patched entity
+     * 
+     * @throws EntityRevisionException if the base revision is not available or not the latest revision
+     */
+    public Entity applyPatch(String entityId, int revision, EntityPatch patch) throws EntityRevisionException {
+
+        Entity base = m_store.getEntity(entityId, revision);
+        if (base == null) {
+            throw new EntityRevisionException(entityId, revision, false);
+        }
+        Entity result = base;
+        if (!patch.isEmpty()) {
+            result = Entity.serializeEntity(base);
+            patch.apply(result);
+        }
+        if (!m_store.putEntity(entityId, revision + 1, result)) {
+            // another patch has been applied to the base revision before
+            throw new EntityRevisionException(entityId, revision, true);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the revision store.<p>
+     * 
+     * @return the revision store
+     */
+    public I_EntityRevisionStore getStore() {
+
+        return m_store;
+    }
+
+    /**
+     * Stores a copy of the given entity as the initial revision.<p>
+     * 
+     * Call this when returning the entity from {@link com.alkacon.acacia.shared.rpc.I_ContentService#loadContentDefinition(String)}.
+     * Any other revisions of the entity are discarded.<p>
+     * 
+     * @param entity the entity
+     */
+    public void setInitialRevision(Entity entity) {
+
+        m_store.putEntity(entity.getId(), 0, Entity.serializeEntity(entity));
+    }
+}
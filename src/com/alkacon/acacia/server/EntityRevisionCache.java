@@ -0,0 +1,426 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.server;
+
+import com.alkacon.acacia.shared.Entity;
+import com.alkacon.vie.shared.I_Entity;
+import com.alkacon.vie.shared.I_EntityAttribute;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe least recently used cache of entity revisions, keyed by entity id and revision.<p>
+ * 
+ * Entries are evicted once the maximum entry count or the maximum estimated memory size is exceeded,
+ * or when they have not been accessed for longer than the maximum idle time.<p>
+ */
+public class EntityRevisionCache implements I_EntityRevisionStore {
+
+    /**
+     * A cache entry.<p>
+     */
+    private static class CacheEntry {
+
+        /** The entity. */
+        Entity m_entity;
+
+        /** The cache key. */
+        RevisionKey m_key;
+
+        /** The time of the last access. */
+        long m_lastAccess;
+
+        /** The estimated memory size in bytes. */
+        long m_size;
+
+        /**
+         * Constructor.<p>
+         * 
+         * @param key the cache key
+         * @param entity the entity
+         * @param size the estimated memory size in bytes
+         * @param lastAccess the time of the last access
+         */
+        CacheEntry(RevisionKey key, Entity entity, long size, long lastAccess) {
+
+            m_key = key;
+            m_entity = entity;
+            m_size = size;
+            m_lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * The cached revisions of an entity.<p>
+     */
+    private static class EntityRevisions {
+
+        /** The cache entries by revision. */
+        Map<Integer, CacheEntry> m_entries = new HashMap<Integer, CacheEntry>();
+
+        /** The latest stored revision. */
+        int m_latestRevision;
+    }
+
+    /**
+     * The cache key of an entity revision.<p>
+     */
+    private static final class RevisionKey {
+
+        /** The entity id. */
+        private final String m_entityId;
+
+        /** The revision. */
+        private final int m_revision;
+
+        /**
+         * Constructor.<p>
+         * 
+         * @param entityId the entity id
+         * @param revision the revision
+         */
+        RevisionKey(String entityId, int revision) {
+
+            m_entityId = entityId;
+            m_revision = revision;
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof RevisionKey)) {
+                return false;
+            }
+            RevisionKey other = (RevisionKey)obj;
+            return (m_revision == other.m_revision) && m_entityId.equals(other.m_entityId);
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+
+            return (31 * m_entityId.hashCode()) + m_revision;
+        }
+    }
+
+    /** The estimated memory overhead of an attribute. */
+    private static final int ATTRIBUTE_OVERHEAD = 96;
+
+    /** The estimated memory overhead of an entity. */
+    private static final int ENTITY_OVERHEAD = 160;
+
+    /** The estimated memory overhead of a string. */
+    private static final int STRING_OVERHEAD = 48;
+
+    /** The cache entries in access order. */
+    private LinkedHashMap<RevisionKey, CacheEntry> m_entries;
+
+    /** The number of evicted entries. */
+    private long m_evictionCount;
+
+    /** The number of cache hits. */
+    private long m_hitCount;
+
+    /** The maximum number of entries. */
+    private int m_maxEntries;
+
+    /** The maximum idle time in milliseconds, 0 to disable idle eviction. */
+    private long m_maxIdleTime;
+
+    /** The maximum estimated memory size in bytes. */
+    private long m_maxMemorySize;
+
+    /** The estimated memory size of all entries in bytes. */
+    private long m_memorySize;
+
+    /** The number of cache misses. */
+    private long m_missCount;
+
+    /** The cached revisions by entity id. */
+    private Map<String, EntityRevisions> m_revisionsByEntity;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param maxEntries the maximum number of entries
+     * @param maxMemorySize the maximum estimated memory size in bytes
+     * @param maxIdleTime the maximum idle time of an entry in milliseconds, 0 to disable idle eviction
+     */
+    public EntityRevisionCache(int maxEntries, long maxMemorySize, long maxIdleTime) {
+
+        m_maxEntries = maxEntries;
+        m_maxMemorySize = maxMemorySize;
+        m_maxIdleTime = maxIdleTime;
+        m_entries = new LinkedHashMap<RevisionKey, CacheEntry>(16, 0.75f, true);
+        m_revisionsByEntity = new HashMap<String, EntityRevisions>();
+    }
+
+    /**
+     * Returns the estimated memory size of the given entity in bytes.<p>
+     * 
+     * @param entity the entity
+     * 
+     * @return the estimated memory size
+     */
+    public static long estimateSize(I_Entity entity) {
+
+        long result = ENTITY_OVERHEAD + estimateSize(entity.getId()) + estimateSize(entity.getTypeName());
+        for (I_EntityAttribute attribute : entity.getAttributes()) {
+            result += ATTRIBUTE_OVERHEAD + estimateSize(attribute.getAttributeName());
+            if (attribute.isSimpleValue()) {
+                for (String value : attribute.getSimpleValues()) {
+                    result += estimateSize(value);
+                }
+            } else {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    result += estimateSize(value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the estimated memory size of the given string in bytes.<p>
+     * 
+     * @param value the string
+     * 
+     * @return the estimated memory size
+     */
+    private static long estimateSize(String value) {
+
+        return value == null ? 0 : STRING_OVERHEAD + (2L * value.length());
+    }
+
+    /**
+     * Removes all entries. The counters are not reset.<p>
+     */
+    public synchronized void clear() {
+
+        m_entries.clear();
+        m_revisionsByEntity.clear();
+        m_memorySize = 0;
+    }
+
+    /**
+     * Evicts all entries that have not been accessed for longer than the maximum idle time.<p>
+     * 
+     * Idle entries are evicted on every cache access, call this periodically to release memory of unused caches.<p>
+     */
+    public synchronized void evictIdleEntries() {
+
+        if (m_maxIdleTime <= 0) {
+            return;
+        }
+        long idleLimit = getCurrentTime() - m_maxIdleTime;
+        Iterator<CacheEntry> it = m_entries.values().iterator();
+        while (it.hasNext()) {
+            CacheEntry entry = it.next();
+            // entries are in access order, so all following entries have been accessed later
+            if (entry.m_lastAccess > idleLimit) {
+                break;
+            }
+            it.remove();
+            releaseEntry(entry);
+            m_evictionCount++;
+        }
+    }
+
+    /**
+     * @see com.alkacon.acacia.server.I_EntityRevisionStore#getEntity(java.lang.String, int)
+     */
+    public synchronized Entity getEntity(String entityId, int revision) {
+
+        evictIdleEntries();
+        CacheEntry entry = m_entries.get(new RevisionKey(entityId, revision));
+        if (entry == null) {
+            m_missCount++;
+            return null;
+        }
+        m_hitCount++;
+        entry.m_lastAccess = getCurrentTime();
+        return entry.m_entity;
+    }
+
+    /**
+     * Returns the number of evicted entries.<p>
+     * 
+     * @return the number of evicted entries
+     */
+    public synchronized long getEvictionCount() {
+
+        return m_evictionCount;
+    }
+
+    /**
+     * Returns the number of cache hits.<p>
+     * 
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+
+        return m_hitCount;
+    }
+
+    /**
+     * Returns the estimated memory size of all entries in bytes.<p>
+     * 
+     * @return the estimated memory size
+     */
+    public synchronized long getMemorySize() {
+
+        return m_memorySize;
+    }
+
+    /**
+     * Returns the number of cache misses.<p>
+     * 
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+
+        return m_missCount;
+    }
+
+    /**
+     * @see com.alkacon.acacia.server.I_EntityRevisionStore#putEntity(java.lang.String, int, com.alkacon.acacia.shared.Entity)
+     */
+    public synchronized boolean putEntity(String entityId, int revision, Entity entity) {
+
+        evictIdleEntries();
+        EntityRevisions revisions;
+        if (revision == 0) {
+            removeEntity(entityId);
+            revisions = new EntityRevisions();
+            m_revisionsByEntity.put(entityId, revisions);
+        } else {
+            revisions = m_revisionsByEntity.get(entityId);
+            if ((revisions == null) || (revisions.m_latestRevision != (revision - 1))) {
+                return false;
+            }
+        }
+        RevisionKey key = new RevisionKey(entityId, revision);
+        CacheEntry entry = new CacheEntry(key, entity, estimateSize(entity), getCurrentTime());
+        revisions.m_latestRevision = revision;
+        revisions.m_entries.put(Integer.valueOf(revision), entry);
+        m_entries.put(key, entry);
+        m_memorySize += entry.m_size;
+        // evict the least recently used entries, but keep the new one
+        Iterator<CacheEntry> it = m_entries.values().iterator();
+        while (((m_entries.size() > m_maxEntries) || (m_memorySize > m_maxMemorySize)) && (m_entries.size() > 1)) {
+            CacheEntry eldest = it.next();
+            it.remove();
+            releaseEntry(eldest);
+            m_evictionCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all revisions of the given entity, e.g. when the editing session ends.<p>
+     * 
+     * @param entityId the entity id
+     */
+    public synchronized void removeEntity(String entityId) {
+
+        EntityRevisions revisions = m_revisionsByEntity.remove(entityId);
+        if (revisions != null) {
+            for (CacheEntry entry : revisions.m_entries.values()) {
+                m_entries.remove(entry.m_key);
+                m_memorySize -= entry.m_size;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries.<p>
+     * 
+     * @return the number of entries
+     */
+    public synchronized int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+
+        return "EntityRevisionCache[entries="
+            + m_entries.size()
+            + ", memory="
+            + m_memorySize
+            + ", hits="
+            + m_hitCount
+            + ", misses="
+            + m_missCount
+            + ", evictions="
+            + m_evictionCount
+            + "]";
+    }
+
+    /**
+     * Returns the current time in milliseconds.<p>
+     * 
+     * @return the current time
+     */
+    protected long getCurrentTime() {
+
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Releases an entry removed from the cache entries.<p>
+     * 
+     * Once the last revision of an entity has been evicted, the entity is forgotten,
+     * so following revisions are not accepted before a new initial revision is stored.<p>
+     * 
+     * @param entry the removed entry
+     */
+    private void releaseEntry(CacheEntry entry) {
+
+        m_memorySize -= entry.m_size;
+        EntityRevisions revisions = m_revisionsByEntity.get(entry.m_key.m_entityId);
+        if (revisions != null) {
+            revisions.m_entries.remove(Integer.valueOf(entry.m_key.m_revision));
+            if (revisions.m_entries.isEmpty()) {
+                m_revisionsByEntity.remove(entry.m_key.m_entityId);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.server;
+
+import com.alkacon.acacia.shared.Entity;
+
+/**
+ * Stores entity revisions used as base of entity patches.<p>
+ * 
+ * Implementations have to be thread-safe.<p>
+ */
+public interface I_EntityRevisionStore {
+
+    /**
+     * Returns the given entity revision.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the revision
+     * 
+     * @return the entity or <code>null</code> if the revision is not available
+     */
+    Entity getEntity(String entityId, int revision);
+
+    /**
+     * Stores an entity revision, if it directly follows the latest stored revision of the entity.<p>
+     * 
+     * Revision 0 is always stored and discards all other revisions of the entity.
+     * Checking and storing the revision has to be atomic, so of two revisions following the same revision
+     * only the first one is stored.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the revision
+     * @param entity the entity, which must not be modified after being stored
+     * 
+     * @return <code>true</code> if the revision has been stored, 
+     *         <code>false</code> if it does not follow the latest revision of the entity
+     */
+    boolean putEntity(String entityId, int revision, Entity entity);
+}
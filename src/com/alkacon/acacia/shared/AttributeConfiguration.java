@@ -24,10 +24,14 @@
 
 package com.alkacon.acacia.shared;
 
+import java.util.List;
+
 import com.google.gwt.user.client.rpc.IsSerializable;
 
 /**
  * The attribute configuration. Stating the attribute label, help, widget name and widget configuration.<p>
+ * 
+ * Optionally declares simple validation rules, that are evaluated on the client before any validation request is sent.<p>
  */
 public class AttributeConfiguration implements IsSerializable {
 
@@ -43,6 +47,30 @@ public class AttributeConfiguration implements IsSerializable {
     /** The attribute label. */
     private String m_label;
 
+    /** The maximum value length, evaluated on the client. */
+    private Integer m_maxLength;
+
+    /** The maximum numeric value, evaluated on the client. */
+    private Double m_maxValue;
+
+    /** The minimum value length, evaluated on the client. */
+    private Integer m_minLength;
+
+    /** The minimum numeric value, evaluated on the client. */
+    private Double m_minValue;
+
+    /** The regular expression values have to match, evaluated on the client. */
+    private String m_pattern;
+
+    /** Flag indicating a value is required, evaluated on the client. */
+    private boolean m_required;
+
+    /** Flag indicating the attribute has validation rules only the server can evaluate. */
+    private boolean m_serverValidation = true;
+
+    /** The names of the nested attributes shown as summary of collapsed values. */
+    private List<String> m_summaryAttributes;
+
     /** The widget configuration. */
     private String m_widgetConfig;
 
@@ -93,6 +121,16 @@ public class AttributeConfiguration implements IsSerializable {
         return m_defaultValue;
     }
 
+    /**
+     * Returns the widget display type.<p>
+     * 
+     * @return the widget display type
+     */
+    public String getDisplayType() {
+
+        return m_displayType;
+    }
+
     /**
      * Returns the attribute help information.<p>
      *
@@ -113,6 +151,66 @@ public class AttributeConfiguration implements IsSerializable {
         return m_label;
     }
 
+    /**
+     * Returns the maximum value length.<p>
+     *
+     * @return the maximum value length, <code>null</code> if not restricted
+     */
+    public Integer getMaxLength() {
+
+        return m_maxLength;
+    }
+
+    /**
+     * Returns the maximum numeric value.<p>
+     *
+     * @return the maximum numeric value, <code>null</code> if not restricted
+     */
+    public Double getMaxValue() {
+
+        return m_maxValue;
+    }
+
+    /**
+     * Returns the minimum value length.<p>
+     *
+     * @return the minimum value length, <code>null</code> if not restricted
+     */
+    public Integer getMinLength() {
+
+        return m_minLength;
+    }
+
+    /**
+     * Returns the minimum numeric value.<p>
+     *
+     * @return the minimum numeric value, <code>null</code> if not restricted
+     */
+    public Double getMinValue() {
+
+        return m_minValue;
+    }
+
+    /**
+     * Returns the regular expression the attribute values have to match.<p>
+     *
+     * @return the regular expression, <code>null</code> if not restricted
+     */
+    public String getPattern() {
+
+        return m_pattern;
+    }
+
+    /**
+     * Returns the names of the nested attributes shown as summary of collapsed values.<p>
+     * 
+     * @return the summary attribute names, <code>null</code> if not configured
+     */
+    public List<String> getSummaryAttributes() {
+
+        return m_summaryAttributes;
+    }
+
     /**
      * Returns the widget configuration.<p>
      *
@@ -133,6 +231,31 @@ public class AttributeConfiguration implements IsSerializable {
         return m_widgetName;
     }
 
+    /**
+     * Returns if any client side validation rule is configured.<p>
+     * 
+     * @return <code>true</code> if any client side validation rule is configured
+     */
+    public boolean hasClientValidation() {
+
+        return m_required
+            || (m_pattern != null)
+            || (m_minLength != null)
+            || (m_maxLength != null)
+            || (m_minValue != null)
+            || (m_maxValue != null);
+    }
+
+    /**
+     * Returns if nested entity values should be displayed collapsed, rendering their form when expanded.<p>
+     *
+     * @return <code>true</code> if nested entity values should be displayed collapsed
+     */
+    public boolean isDisplayCollapsed() {
+
+        return "collapsed".equals(m_displayType);
+    }
+
     /**
      * Returns the if the widget should be displayed in compact view.<p>
      *
@@ -153,6 +276,26 @@ public class AttributeConfiguration implements IsSerializable {
         return "singleline".equals(m_displayType);
     }
 
+    /**
+     * Returns if a value is required.<p>
+     *
+     * @return <code>true</code> if a value is required
+     */
+    public boolean isRequired() {
+
+        return m_required;
+    }
+
+    /**
+     * Returns if the attribute has validation rules only the server can evaluate.<p>
+     *
+     * @return <code>true</code> if the server needs to validate the attribute
+     */
+    public boolean isServerValidation() {
+
+        return m_serverValidation;
+    }
+
     /**
      * Sets the widget display type.<p>
      * 
@@ -164,13 +307,70 @@ public class AttributeConfiguration implements IsSerializable {
     }
 
     /**
-     * Returns the widget display type.<p>
+     * Sets the value length range.<p>
      * 
-     * @return the widget display type
+     * @param minLength the minimum value length, <code>null</code> for no restriction
+     * @param maxLength the maximum value length, <code>null</code> for no restriction
      */
-    public String getDisplayType() {
+    public void setLengthRange(Integer minLength, Integer maxLength) {
 
-        return m_displayType;
+        m_minLength = minLength;
+        m_maxLength = maxLength;
+    }
+
+    /**
+     * Sets the numeric value range. Values have to be numbers if any of the bounds is set.<p>
+     * 
+     * @param minValue the minimum value, <code>null</code> for no restriction
+     * @param maxValue the maximum value, <code>null</code> for no restriction
+     */
+    public void setNumericRange(Double minValue, Double maxValue) {
+
+        m_minValue = minValue;
+        m_maxValue = maxValue;
+    }
+
+    /**
+     * Sets the regular expression the attribute values have to match.<p>
+     * 
+     * @param pattern the regular expression, <code>null</code> for no restriction
+     */
+    public void setPattern(String pattern) {
+
+        m_pattern = pattern;
+    }
+
+    /**
+     * Sets if a value is required.<p>
+     * 
+     * @param required <code>true</code> if a value is required
+     */
+    public void setRequired(boolean required) {
+
+        m_required = required;
+    }
+
+    /**
+     * Sets if the attribute has validation rules only the server can evaluate.<p>
+     * 
+     * Defaults to <code>true</code>. Set to <code>false</code> when the declarative rules of this configuration
+     * cover the complete attribute validation, so no validation request needs to be sent for it.<p>
+     * 
+     * @param serverValidation <code>true</code> if the server needs to validate the attribute
+     */
+    public void setServerValidation(boolean serverValidation) {
+
+        m_serverValidation = serverValidation;
+    }
+
+    /**
+     * Sets the names of the nested attributes shown as summary of collapsed values.<p>
+     * 
+     * @param summaryAttributes the summary attribute names
+     */
+    public void setSummaryAttributes(List<String> summaryAttributes) {
+
+        m_summaryAttributes = summaryAttributes;
     }
 
 }
@@ -0,0 +1,167 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared;
+
+import java.util.List;
+
+/**
+ * An invertible change of a single entity attribute, replacing the old attribute values with the new ones.<p>
+ * 
+ * Attribute values are either simple or entity values, <code>null</code> value lists represent a missing attribute.
+ * Entity values are expected to be immutable entity snapshots.<p>
+ */
+public class AttributeDelta {
+
+    /** The attribute name. */
+    private String m_attributeName;
+
+    /** The id of the entity holding the attribute. */
+    private String m_entityId;
+
+    /** The new entity values. */
+    private List<Entity> m_newEntityValues;
+
+    /** The new simple values. */
+    private List<String> m_newSimpleValues;
+
+    /** The old entity values. */
+    private List<Entity> m_oldEntityValues;
+
+    /** The old simple values. */
+    private List<String> m_oldSimpleValues;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param oldSimpleValues the old simple values
+     * @param oldEntityValues the old entity values
+     * @param newSimpleValues the new simple values
+     * @param newEntityValues the new entity values
+     */
+    public AttributeDelta(
+        String entityId,
+        String attributeName,
+        List<String> oldSimpleValues,
+        List<Entity> oldEntityValues,
+        List<String> newSimpleValues,
+        List<Entity> newEntityValues) {
+
+        m_entityId = entityId;
+        m_attributeName = attributeName;
+        m_oldSimpleValues = oldSimpleValues;
+        m_oldEntityValues = oldEntityValues;
+        m_newSimpleValues = newSimpleValues;
+        m_newEntityValues = newEntityValues;
+    }
+
+    /**
+     * Returns the attribute name.<p>
+     * 
+     * @return the attribute name
+     */
+    public String getAttributeName() {
+
+        return m_attributeName;
+    }
+
+    /**
+     * Returns the id of the entity holding the attribute.<p>
+     * 
+     * @return the entity id
+     */
+    public String getEntityId() {
+
+        return m_entityId;
+    }
+
+    /**
+     * Returns the inverse delta, restoring the old attribute values.<p>
+     * 
+     * @return the inverse delta
+     */
+    public AttributeDelta getInverse() {
+
+        return new AttributeDelta(
+            m_entityId,
+            m_attributeName,
+            m_newSimpleValues,
+            m_newEntityValues,
+            m_oldSimpleValues,
+            m_oldEntityValues);
+    }
+
+    /**
+     * Returns the new entity values.<p>
+     * 
+     * @return the new entity values, <code>null</code> if the attribute has no entity values
+     */
+    public List<Entity> getNewEntityValues() {
+
+        return m_newEntityValues;
+    }
+
+    /**
+     * Returns the new simple values.<p>
+     * 
+     * @return the new simple values, <code>null</code> if the attribute has no simple values
+     */
+    public List<String> getNewSimpleValues() {
+
+        return m_newSimpleValues;
+    }
+
+    /**
+     * Returns the old entity values.<p>
+     * 
+     * @return the old entity values, <code>null</code> if the attribute had no entity values
+     */
+    public List<Entity> getOldEntityValues() {
+
+        return m_oldEntityValues;
+    }
+
+    /**
+     * Returns the old simple values.<p>
+     * 
+     * @return the old simple values, <code>null</code> if the attribute had no simple values
+     */
+    public List<String> getOldSimpleValues() {
+
+        return m_oldSimpleValues;
+    }
+
+    /**
+     * Returns if the attribute is removed by this delta.<p>
+     * 
+     * @return <code>true</code> if the attribute is removed
+     */
+    public boolean isRemoval() {
+
+        return (m_newSimpleValues == null) && (m_newEntityValues == null);
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.shared;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable attribute path, as used for validation messages and value lookups.<p>
+ * 
+ * The path elements are attribute names, optionally followed by a value index like <code>Title[2]</code>.
+ * The names and indexes are parsed once on creation, so callers holding on to a path instance 
+ * don't parse its elements again. Paths are equal if their elements are equal.<p>
+ * 
+ * Once an intern table is set, equal paths are represented by the same instance, so paths created again
+ * for the same elements, like the keys of repeated validation results, are neither parsed nor normalized again.<p>
+ */
+public final class AttributePath {
+
+    /** The maximum number of interned paths, the intern table is cleared once it is reached. */
+    private static final int MAX_INTERNED_PATHS = 10000;
+
+    /** The table of interned paths, <code>null</code> if paths are not interned. */
+    private static Map<AttributePath, AttributePath> m_internTable;
+
+    /** The normalized path of the attribute, created on first use. */
+    private AttributePath m_attributePath;
+
+    /** The path elements. */
+    private final String[] m_elements;
+
+    /** The hash code. */
+    private final int m_hashCode;
+
+    /** The value indexes of the path elements, 0 if not specified, <code>null</code> for lookup keys. */
+    private final int[] m_indexes;
+
+    /** The attribute names of the path elements without value index, <code>null</code> for lookup keys. */
+    private final String[] m_names;
+
+    /**
+     * Constructor for lookup keys within the intern table, the elements are not parsed.<p>
+     * 
+     * @param elements the path elements
+     */
+    private AttributePath(String[] elements) {
+
+        this(elements, null, null);
+    }
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param elements the path elements
+     * @param names the attribute names of the path elements
+     * @param indexes the value indexes of the path elements
+     */
+    private AttributePath(String[] elements, String[] names, int[] indexes) {
+
+        m_elements = elements;
+        m_names = names;
+        m_indexes = indexes;
+        m_hashCode = Arrays.hashCode(elements);
+    }
+
+    /**
+     * Sets the table used to intern paths, <code>null</code> to create a new instance for every path.<p>
+     * 
+     * Interning is disabled by default. The client is single threaded and may use any map, on the server 
+     * a concurrent map has to be used, see <code>com.alkacon.acacia.server.AttributePathInternTable</code>.
+     * The table is cleared once it is full, bounding its memory use.<p>
+     * 
+     * @param internTable the intern table
+     */
+    public static void setInternTable(Map<AttributePath, AttributePath> internTable) {
+
+        m_internTable = internTable;
+    }
+
+    /**
+     * Returns the path for the given path elements.<p>
+     * 
+     * @param pathElements the path elements
+     * 
+     * @return the path
+     */
+    public static AttributePath valueOf(String[] pathElements) {
+
+        Map<AttributePath, AttributePath> internTable = m_internTable;
+        if (internTable != null) {
+            AttributePath interned = internTable.get(new AttributePath(pathElements));
+            if (interned != null) {
+                return interned;
+            }
+        }
+        String[] elements = new String[pathElements.length];
+        System.arraycopy(pathElements, 0, elements, 0, pathElements.length);
+        String[] names = new String[elements.length];
+        int[] indexes = new int[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            names[i] = ContentDefinition.removeIndex(elements[i]);
+            indexes[i] = ContentDefinition.extractIndex(elements[i]);
+        }
+        return intern(new AttributePath(elements, names, indexes));
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof AttributePath)) {
+            return false;
+        }
+        AttributePath other = (AttributePath)obj;
+        return (m_hashCode == other.m_hashCode) && Arrays.equals(m_elements, other.m_elements);
+    }
+
+    /**
+     * Returns the normalized path of the attribute itself.<p>
+     * 
+     * All but the last element carry their value index explicitly, the last element has no value index.
+     * Paths addressing values of the same attribute, like <code>Link/Title</code> and <code>Link[0]/Title[2]</code>, 
+     * return equal attribute paths.<p>
+     * 
+     * @return the normalized attribute path
+     */
+    public AttributePath getAttributePath() {
+
+        if (m_attributePath == null) {
+            String[] elements = new String[m_elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = i < (elements.length - 1) ? m_names[i] + "[" + m_indexes[i] + "]" : m_names[i];
+            }
+            if (Arrays.equals(elements, m_elements)) {
+                m_attributePath = this;
+            } else {
+                // the names and indexes are known already, so the normalized elements are not parsed again
+                int[] indexes = new int[m_indexes.length];
+                System.arraycopy(m_indexes, 0, indexes, 0, indexes.length - 1);
+                AttributePath attributePath = intern(new AttributePath(elements, m_names, indexes));
+                attributePath.m_attributePath = attributePath;
+                m_attributePath = attributePath;
+            }
+        }
+        return m_attributePath;
+    }
+
+    /**
+     * Returns the normalized path of a child attribute of the given value of this attribute.<p>
+     * 
+     * The value index is ignored for the empty path, as it is used for the attributes of the root entity.<p>
+     * 
+     * @param index the value index of the last path element
+     * @param name the child attribute name
+     * 
+     * @return the child path
+     */
+    public AttributePath getChildPath(int index, String name) {
+
+        String[] elements = new String[m_elements.length + 1];
+        String[] names = new String[m_elements.length + 1];
+        int[] indexes = new int[m_elements.length + 1];
+        for (int i = 0; i < m_elements.length; i++) {
+            names[i] = m_names[i];
+            indexes[i] = i < (m_elements.length - 1) ? m_indexes[i] : index;
+            elements[i] = names[i] + "[" + indexes[i] + "]";
+        }
+        elements[m_elements.length] = name;
+        names[m_elements.length] = name;
+        AttributePath childPath = intern(new AttributePath(elements, names, indexes));
+        childPath.m_attributePath = childPath;
+        return childPath;
+    }
+
+    /**
+     * Returns a copy of the path elements.<p>
+     * 
+     * @return the path elements
+     */
+    public String[] getElements() {
+
+        String[] result = new String[m_elements.length];
+        System.arraycopy(m_elements, 0, result, 0, m_elements.length);
+        return result;
+    }
+
+    /**
+     * Returns the value index of the given path element.<p>
+     * 
+     * @param position the element position
+     * 
+     * @return the value index, 0 if not specified
+     */
+    public int getIndex(int position) {
+
+        return m_indexes[position];
+    }
+
+    /**
+     * Returns the value index of the last path element.<p>
+     * 
+     * @return the value index, 0 if not specified
+     */
+    public int getLastIndex() {
+
+        return m_indexes[m_indexes.length - 1];
+    }
+
+    /**
+     * Returns the number of path elements.<p>
+     * 
+     * @return the number of path elements
+     */
+    public int getLength() {
+
+        return m_elements.length;
+    }
+
+    /**
+     * Returns the attribute name of the given path element, without value index.<p>
+     * 
+     * @param position the element position
+     * 
+     * @return the attribute name
+     */
+    public String getName(int position) {
+
+        return m_names[position];
+    }
+
+    /**
+     * Returns the path consisting of the given number of leading path elements.<p>
+     * 
+     * @param length the number of path elements
+     * 
+     * @return the path prefix
+     */
+    public AttributePath getPrefix(int length) {
+
+        if (length == m_elements.length) {
+            return this;
+        }
+        String[] prefix = new String[length];
+        String[] names = new String[length];
+        int[] indexes = new int[length];
+        System.arraycopy(m_elements, 0, prefix, 0, length);
+        System.arraycopy(m_names, 0, names, 0, length);
+        System.arraycopy(m_indexes, 0, indexes, 0, length);
+        return intern(new AttributePath(prefix, names, indexes));
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return join(m_elements);
+    }
+
+    /**
+     * Returns the interned instance equal to the given path, interning the path if there is none.<p>
+     * 
+     * @param path the path
+     * 
+     * @return the interned path, or the path itself if paths are not interned
+     */
+    private static AttributePath intern(AttributePath path) {
+
+        Map<AttributePath, AttributePath> internTable = m_internTable;
+        if (internTable == null) {
+            return path;
+        }
+        AttributePath interned = internTable.get(path);
+        if (interned != null) {
+            return interned;
+        }
+        if (internTable.size() >= MAX_INTERNED_PATHS) {
+            internTable.clear();
+        }
+        internTable.put(path, path);
+        return path;
+    }
+
+    /**
+     * Joins the given path elements.<p>
+     * 
+     * @param pathElements the path elements
+     * 
+     * @return the joined path
+     */
+    private static String join(String[] pathElements) {
+
+        StringBuffer result = new StringBuffer();
+        for (int i = 0; i < pathElements.length; i++) {
+            if (i > 0) {
+                result.append("/");
+            }
+            result.append(pathElements[i]);
+        }
+        return result.toString();
+    }
+}
@@ -30,9 +30,11 @@ import com.alkacon.vie.shared.I_EntityAttribute;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * Serializable entity implementation.<p>
@@ -51,6 +53,9 @@ public class Entity implements I_Entity, Serializable {
     /** The simple attribute values. */
     private Map<String, List<String>> m_simpleAttributes;
 
+    /** Flag indicating this is an immutable snapshot, sharing its structure with other snapshots. */
+    private transient boolean m_snapshot;
+
     /** The type name. */
     private String m_typeName;
 
@@ -77,43 +82,133 @@ public class Entity implements I_Entity, Serializable {
     }
 
     /**
-     * Returns the value of a simple attribute for the given path or <code>null</code>, if the value does not exist.<p>
+     * Creates an immutable snapshot of the given entity.<p>
      * 
-     * @param entity the entity to get the value from
-     * @param pathElements the path elements
+     * Unchanged attribute value lists and child entities are shared with the previous snapshot,
+     * so only the path from a changed attribute up to the root is allocated.
+     * If nothing has changed, the previous snapshot instance itself is returned,
+     * so snapshots may be compared by reference.<p>
      * 
-     * @return the value
+     * @param entity the entity
+     * @param previous the previous snapshot of the same entity, may be <code>null</code>
+     * 
+     * @return the snapshot
      */
-    public static String getValueForPath(I_Entity entity, String[] pathElements) {
+    public static Entity createSnapshot(I_Entity entity, Entity previous) {
 
-        String result = null;
-        if ((pathElements != null) && (pathElements.length >= 1)) {
-            String attributeName = pathElements[0];
-            int index = ContentDefinition.extractIndex(attributeName);
-            if (index > 0) {
-                index--;
-            }
-            attributeName = entity.getTypeName() + "/" + ContentDefinition.removeIndex(attributeName);
-            I_EntityAttribute attribute = entity.getAttribute(attributeName);
-            if (!((attribute == null) || (attribute.isComplexValue() && (pathElements.length == 1)))) {
-                if (attribute.isSimpleValue()) {
-                    if ((pathElements.length == 1) && (attribute.getValueCount() > 0)) {
-                        List<String> values = attribute.getSimpleValues();
-                        result = values.get(index);
+        if ((previous != null)
+            && !(previous.m_snapshot
+                && previous.m_id.equals(entity.getId())
+                && previous.m_typeName.equals(entity.getTypeName()))) {
+            previous = null;
+        }
+        Entity result = null;
+        if (previous == null) {
+            result = new Entity(entity.getId(), entity.getTypeName());
+            result.m_snapshot = true;
+        }
+        int attributeCount = 0;
+        for (I_EntityAttribute attribute : entity.getAttributes()) {
+            attributeCount++;
+            String attributeName = attribute.getAttributeName();
+            if (attribute.isSimpleValue()) {
+                List<String> values = attribute.getSimpleValues();
+                List<String> previousValues = previous != null
+                ? previous.m_simpleAttributes.get(attributeName)
+                : null;
+                if ((previousValues == null) || !previousValues.equals(values)) {
+                    if (result == null) {
+                        result = previous.createSnapshotCopy();
                     }
-                } else if (attribute.getValueCount() > (index)) {
-                    String[] childPathElements = new String[pathElements.length - 1];
-                    for (int i = 1; i < pathElements.length; i++) {
-                        childPathElements[i - 1] = pathElements[i];
+                    result.m_entityAttributes.remove(attributeName);
+                    result.m_simpleAttributes.put(attributeName, new ArrayList<String>(values));
+                }
+            } else {
+                List<Entity> previousValues = previous != null
+                ? previous.m_entityAttributes.get(attributeName)
+                : null;
+                List<Entity> values = createSnapshotValues(attribute.getComplexValues(), previousValues);
+                if (values != previousValues) {
+                    if (result == null) {
+                        result = previous.createSnapshotCopy();
                     }
-                    List<I_Entity> values = attribute.getComplexValues();
-                    result = getValueForPath(values.get(index), childPathElements);
+                    result.m_simpleAttributes.remove(attributeName);
+                    result.m_entityAttributes.put(attributeName, values);
+                }
+            }
+        }
+        if ((result == null)
+            && (attributeCount != (previous.m_simpleAttributes.size() + previous.m_entityAttributes.size()))) {
+            result = previous.createSnapshotCopy();
+        }
+        if (result == null) {
+            return previous;
+        }
+        if (previous != null) {
+            // remove attributes no longer present
+            for (String attributeName : new ArrayList<String>(result.m_simpleAttributes.keySet())) {
+                if (!entity.hasAttribute(attributeName)) {
+                    result.m_simpleAttributes.remove(attributeName);
+                }
+            }
+            for (String attributeName : new ArrayList<String>(result.m_entityAttributes.keySet())) {
+                if (!entity.hasAttribute(attributeName)) {
+                    result.m_entityAttributes.remove(attributeName);
                 }
             }
         }
         return result;
     }
 
+    /**
+     * Returns the attribute deltas leading from the previous to the current snapshot of the same entity.<p>
+     * 
+     * As unchanged structure is shared between snapshots, only the changed paths are traversed.<p>
+     * 
+     * @param previous the previous snapshot
+     * @param current the current snapshot
+     * 
+     * @return the attribute deltas
+     */
+    public static List<AttributeDelta> getSnapshotDeltas(Entity previous, Entity current) {
+
+        List<AttributeDelta> result = new ArrayList<AttributeDelta>();
+        collectSnapshotDeltas(previous, current, result);
+        return result;
+    }
+
+    /**
+     * Returns the value of a simple attribute for the given path or <code>null</code>, if the value does not exist.<p>
+     * 
+     * @param entity the entity to get the value from
+     * @param path the attribute path
+     * 
+     * @return the value
+     */
+    public static String getValueForPath(I_Entity entity, AttributePath path) {
+
+        if ((path == null) || (path.getLength() == 0)) {
+            return null;
+        }
+        return getValueForPath(entity, path, 0);
+    }
+
+    /**
+     * Returns the value of a simple attribute for the given path or <code>null</code>, if the value does not exist.<p>
+     * 
+     * @param entity the entity to get the value from
+     * @param pathElements the path elements
+     * 
+     * @return the value
+     */
+    public static String getValueForPath(I_Entity entity, String[] pathElements) {
+
+        if (pathElements == null) {
+            return null;
+        }
+        return getValueForPath(entity, AttributePath.valueOf(pathElements));
+    }
+
     /**
      * Returns a serializable version of the given entity.<p>
      * 
@@ -172,6 +267,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void addAttributeValue(String attributeName, I_Entity value) {
 
+        checkMutable();
         if (m_simpleAttributes.containsKey(attributeName)) {
             throw new RuntimeException("Attribute already exists with a simple type value.");
         }
@@ -192,6 +288,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void addAttributeValue(String attributeName, String value) {
 
+        checkMutable();
         if (m_entityAttributes.containsKey(attributeName)) {
             throw new RuntimeException("Attribute already exists with a entity type value.");
         }
@@ -204,6 +301,48 @@ public class Entity implements I_Entity, Serializable {
         }
     }
 
+    /**
+     * Returns a new snapshot with the given delta applied, sharing all unchanged structure with this snapshot.<p>
+     * 
+     * Returns this snapshot if it does not contain the entity targeted by the delta.<p>
+     * 
+     * @param delta the delta to apply
+     * 
+     * @return the resulting snapshot
+     */
+    public Entity applySnapshotDelta(AttributeDelta delta) {
+
+        if (!m_snapshot) {
+            throw new RuntimeException("Deltas may only be applied to entity snapshots.");
+        }
+        if (m_id.equals(delta.getEntityId())) {
+            Entity result = createSnapshotCopy();
+            result.m_simpleAttributes.remove(delta.getAttributeName());
+            result.m_entityAttributes.remove(delta.getAttributeName());
+            if (delta.getNewSimpleValues() != null) {
+                result.m_simpleAttributes.put(delta.getAttributeName(), delta.getNewSimpleValues());
+            } else if (delta.getNewEntityValues() != null) {
+                result.m_entityAttributes.put(delta.getAttributeName(), delta.getNewEntityValues());
+            }
+            return result;
+        }
+        for (Entry<String, List<Entity>> entityEntry : m_entityAttributes.entrySet()) {
+            List<Entity> values = entityEntry.getValue();
+            for (int i = 0; i < values.size(); i++) {
+                Entity value = values.get(i);
+                Entity patched = value.applySnapshotDelta(delta);
+                if (patched != value) {
+                    Entity result = createSnapshotCopy();
+                    List<Entity> patchedValues = new ArrayList<Entity>(values);
+                    patchedValues.set(i, patched);
+                    result.m_entityAttributes.put(entityEntry.getKey(), patchedValues);
+                    return result;
+                }
+            }
+        }
+        return this;
+    }
+
     /**
      * @see com.alkacon.vie.shared.I_Entity#createDeepCopy(java.lang.String)
      */
@@ -232,6 +371,9 @@ public class Entity implements I_Entity, Serializable {
     @Override
     public boolean equals(Object obj) {
 
+        if (obj == this) {
+            return true;
+        }
         boolean result = false;
         if (obj instanceof Entity) {
             Entity test = (Entity)obj;
@@ -339,11 +481,22 @@ public class Entity implements I_Entity, Serializable {
         return m_simpleAttributes.containsKey(attributeName) || m_entityAttributes.containsKey(attributeName);
     }
 
+    /**
+     * Returns if this is an immutable snapshot created by {@link #createSnapshot(I_Entity, Entity)}.<p>
+     * 
+     * @return <code>true</code> if this is an immutable snapshot
+     */
+    public boolean isSnapshot() {
+
+        return m_snapshot;
+    }
+
     /**
      * @see com.alkacon.vie.shared.I_Entity#insertAttributeValue(java.lang.String, com.alkacon.vie.shared.I_Entity, int)
      */
     public void insertAttributeValue(String attributeName, I_Entity value, int index) {
 
+        checkMutable();
         if (m_entityAttributes.containsKey(attributeName)) {
             m_entityAttributes.get(attributeName).add(index, (Entity)value);
         } else {
@@ -356,6 +509,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void insertAttributeValue(String attributeName, String value, int index) {
 
+        checkMutable();
         if (m_simpleAttributes.containsKey(attributeName)) {
             m_simpleAttributes.get(attributeName).add(index, value);
         } else {
@@ -376,6 +530,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void removeAttributeSilent(String attributeName) {
 
+        checkMutable();
         m_simpleAttributes.remove(attributeName);
         m_entityAttributes.remove(attributeName);
     }
@@ -385,6 +540,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void removeAttributeValue(String attributeName, int index) {
 
+        checkMutable();
         if (m_simpleAttributes.containsKey(attributeName)) {
             List<String> values = m_simpleAttributes.get(attributeName);
             if ((values.size() == 1) && (index == 0)) {
@@ -408,6 +564,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void setAttributeValue(String attributeName, I_Entity value) {
 
+        checkMutable();
         // make sure there is no simple attribute value set
         m_simpleAttributes.remove(attributeName);
         if (!(value instanceof Entity)) {
@@ -423,6 +580,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void setAttributeValue(String attributeName, I_Entity value, int index) {
 
+        checkMutable();
         if (m_simpleAttributes.containsKey(attributeName)) {
             throw new RuntimeException("Attribute already exists with a simple type value.");
         }
@@ -448,6 +606,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void setAttributeValue(String attributeName, String value) {
 
+        checkMutable();
         m_entityAttributes.remove(attributeName);
         List<String> values = new ArrayList<String>();
         values.add(value);
@@ -459,6 +618,7 @@ public class Entity implements I_Entity, Serializable {
      */
     public void setAttributeValue(String attributeName, String value, int index) {
 
+        checkMutable();
         if (m_entityAttributes.containsKey(attributeName)) {
             throw new RuntimeException("Attribute already exists with a simple type value.");
         }
@@ -521,4 +681,179 @@ public class Entity implements I_Entity, Serializable {
 
         return toJSON();
     }
+
+    /**
+     * Collects the attribute deltas leading from the previous to the current snapshot.<p>
+     * 
+     * @param previous the previous snapshot
+     * @param current the current snapshot
+     * @param deltas the list to add the deltas to
+     */
+    private static void collectSnapshotDeltas(Entity previous, Entity current, List<AttributeDelta> deltas) {
+
+        if (previous == current) {
+            return;
+        }
+        Set<String> attributeNames = new HashSet<String>();
+        attributeNames.addAll(previous.m_simpleAttributes.keySet());
+        attributeNames.addAll(previous.m_entityAttributes.keySet());
+        attributeNames.addAll(current.m_simpleAttributes.keySet());
+        attributeNames.addAll(current.m_entityAttributes.keySet());
+        for (String attributeName : attributeNames) {
+            List<String> previousSimple = previous.m_simpleAttributes.get(attributeName);
+            List<String> currentSimple = current.m_simpleAttributes.get(attributeName);
+            List<Entity> previousEntities = previous.m_entityAttributes.get(attributeName);
+            List<Entity> currentEntities = current.m_entityAttributes.get(attributeName);
+            if ((previousSimple == currentSimple) && (previousEntities == currentEntities)) {
+                continue;
+            }
+            if (hasSameEntityIds(previousEntities, currentEntities)) {
+                // the value structure is unchanged, descend into the changed values
+                for (int i = 0; i < currentEntities.size(); i++) {
+                    collectSnapshotDeltas(previousEntities.get(i), currentEntities.get(i), deltas);
+                }
+            } else {
+                deltas.add(new AttributeDelta(
+                    current.m_id,
+                    attributeName,
+                    previousSimple,
+                    previousEntities,
+                    currentSimple,
+                    currentEntities));
+            }
+        }
+    }
+
+    /**
+     * Creates the snapshots of the given complex attribute values.<p>
+     * 
+     * Returns the previous value list, if none of the values has changed.<p>
+     * 
+     * @param values the attribute values
+     * @param previousValues the previous snapshot values, may be <code>null</code>
+     * 
+     * @return the value snapshots
+     */
+    private static List<Entity> createSnapshotValues(List<I_Entity> values, List<Entity> previousValues) {
+
+        List<Entity> result = null;
+        if ((previousValues == null) || (previousValues.size() != values.size())) {
+            result = new ArrayList<Entity>(values.size());
+        }
+        for (int i = 0; i < values.size(); i++) {
+            I_Entity value = values.get(i);
+            Entity previousValue = findSnapshot(previousValues, value.getId(), i);
+            Entity snapshot = createSnapshot(value, previousValue);
+            if ((result == null) && (snapshot != previousValues.get(i))) {
+                result = new ArrayList<Entity>(values.size());
+                result.addAll(previousValues.subList(0, i));
+            }
+            if (result != null) {
+                result.add(snapshot);
+            }
+        }
+        return result != null ? result : previousValues;
+    }
+
+    /**
+     * Returns the snapshot with the given entity id from the given list, checking the expected index first.<p>
+     * 
+     * @param snapshots the snapshots, may be <code>null</code>
+     * @param entityId the entity id
+     * @param index the expected index
+     * 
+     * @return the snapshot or <code>null</code> if not found
+     */
+    private static Entity findSnapshot(List<Entity> snapshots, String entityId, int index) {
+
+        if (snapshots != null) {
+            if ((index < snapshots.size()) && snapshots.get(index).m_id.equals(entityId)) {
+                return snapshots.get(index);
+            }
+            for (Entity snapshot : snapshots) {
+                if (snapshot.m_id.equals(entityId)) {
+                    return snapshot;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of a simple attribute for the path starting at the given element position.<p>
+     * 
+     * @param entity the entity to get the value from
+     * @param path the attribute path
+     * @param position the position of the path element addressing an attribute of the given entity
+     * 
+     * @return the value, <code>null</code> if the value does not exist
+     */
+    private static String getValueForPath(I_Entity entity, AttributePath path, int position) {
+
+        String result = null;
+        int index = path.getIndex(position);
+        if (index > 0) {
+            index--;
+        }
+        boolean isLast = position == (path.getLength() - 1);
+        String attributeName = entity.getTypeName() + "/" + path.getName(position);
+        I_EntityAttribute attribute = entity.getAttribute(attributeName);
+        if (!((attribute == null) || (attribute.isComplexValue() && isLast))) {
+            if (attribute.isSimpleValue()) {
+                if (isLast && (attribute.getValueCount() > 0)) {
+                    List<String> values = attribute.getSimpleValues();
+                    result = values.get(index);
+                }
+            } else if (attribute.getValueCount() > (index)) {
+                List<I_Entity> values = attribute.getComplexValues();
+                result = getValueForPath(values.get(index), path, position + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether both entity value lists contain entities with the same ids in the same order.<p>
+     * 
+     * @param first the first value list
+     * @param second the second value list
+     * 
+     * @return <code>true</code> if both lists contain entities with the same ids in the same order
+     */
+    private static boolean hasSameEntityIds(List<Entity> first, List<Entity> second) {
+
+        if ((first == null) || (second == null) || (first.size() != second.size())) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (!first.get(i).m_id.equals(second.get(i).m_id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ensures this entity may be changed, throws an exception for snapshots.<p>
+     */
+    private void checkMutable() {
+
+        if (m_snapshot) {
+            throw new RuntimeException("Entity snapshots are immutable, use createDeepCopy to obtain a mutable copy.");
+        }
+    }
+
+    /**
+     * Creates a new snapshot sharing all attribute values with this snapshot.<p>
+     * 
+     * @return the new snapshot
+     */
+    private Entity createSnapshotCopy() {
+
+        Entity result = new Entity(m_id, m_typeName);
+        result.m_snapshot = true;
+        result.m_simpleAttributes.putAll(m_simpleAttributes);
+        result.m_entityAttributes.putAll(m_entityAttributes);
+        return result;
+    }
 }
@@ -25,15 +25,21 @@
 package com.alkacon.acacia.shared;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * The entity HTML representation including validation data.<p>
+ * 
+ * The representation either consists of the complete HTML or of the HTML fragments of the changed parts only.<p>
  */
 public class EntityHtml implements Serializable {
 
     /** The serial version id. */
     private static final long serialVersionUID = 8744574711101111191L;
 
+    /** The HTML fragments. */
+    private List<EntityHtmlFragment> m_fragments;
+
     /** The HTML representation. */
     private String m_htmlContent;
 
@@ -52,6 +58,18 @@ public class EntityHtml implements Serializable {
         m_validationResult = validationResult;
     }
 
+    /**
+     * Constructor.<p>
+     * 
+     * @param fragments the HTML fragments of the changed parts
+     * @param validationResult the validation result
+     */
+    public EntityHtml(List<EntityHtmlFragment> fragments, ValidationResult validationResult) {
+
+        m_fragments = fragments;
+        m_validationResult = validationResult;
+    }
+
     /**
      * Constructor needed for serialization.<p>
      */
@@ -59,10 +77,20 @@ public class EntityHtml implements Serializable {
 
     }
 
+    /**
+     * Returns the HTML fragments of the changed parts.<p>
+     * 
+     * @return the HTML fragments, <code>null</code> if this is the complete HTML representation
+     */
+    public List<EntityHtmlFragment> getFragments() {
+
+        return m_fragments;
+    }
+
     /**
      * Returns the HTML representation.<p>
      * 
-     * @return the HTML representation
+     * @return the HTML representation, <code>null</code> if this consists of fragments
      */
     public String getHtmlContent() {
 
@@ -79,4 +107,14 @@ public class EntityHtml implements Serializable {
         return m_validationResult;
     }
 
+    /**
+     * Returns if this consists of the HTML fragments of the changed parts only.<p>
+     * 
+     * @return <code>true</code> if this consists of HTML fragments
+     */
+    public boolean isFragmentUpdate() {
+
+        return m_fragments != null;
+    }
+
 }
@@ -0,0 +1,121 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.shared;
+
+import java.io.Serializable;
+
+/**
+ * The HTML of a part of the entity HTML representation, identified by its RDFa attributes.<p>
+ * 
+ * Without attribute name, the fragment stands for the elements with the RDFa <code>about</code> attribute set to the entity id,
+ * the fragment HTML replaces the content of these elements.
+ * With attribute name, the fragment stands for the elements representing the values of the given entity attribute,
+ * the fragment HTML replaces these elements.
+ * In both cases the fragment HTML contains one element per represented element, in document order.<p>
+ */
+public class EntityHtmlFragment implements Serializable {
+
+    /** The serial version id. */
+    private static final long serialVersionUID = -2381625487012349764L;
+
+    /** The attribute name, <code>null</code> for entity fragments. */
+    private String m_attributeName;
+
+    /** The entity id. */
+    private String m_entityId;
+
+    /** The HTML representation. */
+    private String m_htmlContent;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param entityId the entity id
+     * @param attributeName the attribute name, <code>null</code> for entity fragments
+     * @param htmlContent the HTML representation, <code>null</code> when requesting the fragment
+     */
+    public EntityHtmlFragment(String entityId, String attributeName, String htmlContent) {
+
+        m_entityId = entityId;
+        m_attributeName = attributeName;
+        m_htmlContent = htmlContent;
+    }
+
+    /**
+     * Constructor needed for serialization.<p>
+     */
+    protected EntityHtmlFragment() {
+
+    }
+
+    /**
+     * Returns the attribute name.<p>
+     * 
+     * @return the attribute name, <code>null</code> for entity fragments
+     */
+    public String getAttributeName() {
+
+        return m_attributeName;
+    }
+
+    /**
+     * Returns the entity id.<p>
+     * 
+     * @return the entity id
+     */
+    public String getEntityId() {
+
+        return m_entityId;
+    }
+
+    /**
+     * Returns the HTML representation.<p>
+     * 
+     * @return the HTML representation
+     */
+    public String getHtmlContent() {
+
+        return m_htmlContent;
+    }
+
+    /**
+     * Returns if this fragment stands for the elements representing the entity, not only one of its attributes.<p>
+     * 
+     * @return <code>true</code> if this is an entity fragment
+     */
+    public boolean isEntityFragment() {
+
+        return m_attributeName == null;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return isEntityFragment() ? m_entityId : m_entityId + "/" + m_attributeName;
+    }
+}
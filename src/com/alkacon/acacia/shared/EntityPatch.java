@@ -0,0 +1,381 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared;
+
+import com.alkacon.vie.shared.I_Entity;
+import com.alkacon.vie.shared.I_EntityAttribute;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A serializable patch transforming an entity into another version of the same entity.<p>
+ * 
+ * Operations are keyed by the id of the entity holding the changed attribute and the attribute name,
+ * nested entities are matched by id.<p>
+ */
+public class EntityPatch implements Serializable {
+
+    /** The serial version id. */
+    private static final long serialVersionUID = -4012870547417046633L;
+
+    /** The patch operations. */
+    private List<EntityPatchOperation> m_operations;
+
+    /**
+     * Creates a patch from the given operations.<p>
+     * 
+     * @param operations the patch operations
+     */
+    public EntityPatch(List<EntityPatchOperation> operations) {
+
+        m_operations = new ArrayList<EntityPatchOperation>(operations);
+    }
+
+    /**
+     * Constructor. For serialization only.<p>
+     */
+    protected EntityPatch() {
+
+        m_operations = new ArrayList<EntityPatchOperation>();
+    }
+
+    /**
+     * Creates the patch transforming the base entity into the target entity.<p>
+     * 
+     * @param base the base entity
+     * @param target the target entity
+     * 
+     * @return the patch
+     */
+    public static EntityPatch createPatch(I_Entity base, I_Entity target) {
+
+        EntityPatch result = new EntityPatch();
+        result.diffEntity(base, target);
+        return result;
+    }
+
+    /**
+     * Applies this patch to the given entity.<p>
+     * 
+     * @param entity the entity to patch
+     */
+    public void apply(I_Entity entity) {
+
+        if (m_operations.isEmpty()) {
+            return;
+        }
+        Map<String, I_Entity> entitiesById = new HashMap<String, I_Entity>();
+        indexEntities(entity, entitiesById);
+        for (EntityPatchOperation operation : m_operations) {
+            I_Entity target = entitiesById.get(operation.getEntityId());
+            if (target == null) {
+                throw new RuntimeException("Entity " + operation.getEntityId() + " to patch not found.");
+            }
+            String attributeName = operation.getAttributeName();
+            switch (operation.getType()) {
+                case insert:
+                    if (operation.getSimpleValue() != null) {
+                        insertValue(target, attributeName, operation.getSimpleValue(), operation.getIndex());
+                    } else {
+                        Entity value = Entity.serializeEntity(operation.getEntityValue());
+                        insertValue(target, attributeName, value, operation.getIndex());
+                        indexEntities(value, entitiesById);
+                    }
+                    break;
+                case move:
+                    I_EntityAttribute attribute = target.getAttribute(attributeName);
+                    if (attribute.isSimpleValue()) {
+                        String value = attribute.getSimpleValues().get(operation.getIndex());
+                        target.removeAttributeValue(attributeName, operation.getIndex());
+                        insertValue(target, attributeName, value, operation.getTargetIndex());
+                    } else {
+                        I_Entity value = attribute.getComplexValues().get(operation.getIndex());
+                        target.removeAttributeValue(attributeName, operation.getIndex());
+                        insertValue(target, attributeName, value, operation.getTargetIndex());
+                    }
+                    break;
+                case remove:
+                    target.removeAttributeValue(attributeName, operation.getIndex());
+                    break;
+                case replace:
+                    target.removeAttributeValue(attributeName, operation.getIndex());
+                    insertValue(target, attributeName, operation.getSimpleValue(), operation.getIndex());
+                    break;
+                default:
+                    throw new RuntimeException("Unknown patch operation type " + operation.getType() + ".");
+            }
+        }
+    }
+
+    /**
+     * Returns the patch operations.<p>
+     * 
+     * @return the patch operations
+     */
+    public List<EntityPatchOperation> getOperations() {
+
+        return Collections.unmodifiableList(m_operations);
+    }
+
+    /**
+     * Returns if this patch is empty, meaning both entities have the same content.<p>
+     * 
+     * @return <code>true</code> if this patch is empty
+     */
+    public boolean isEmpty() {
+
+        return m_operations.isEmpty();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_operations.toString();
+    }
+
+    /**
+     * Collects all entities of the given entity tree by id.<p>
+     * 
+     * @param entity the entity
+     * @param entitiesById the map to add the entities to
+     */
+    private static void indexEntities(I_Entity entity, Map<String, I_Entity> entitiesById) {
+
+        entitiesById.put(entity.getId(), entity);
+        for (I_EntityAttribute attribute : entity.getAttributes()) {
+            if (attribute.isComplexValue()) {
+                for (I_Entity value : attribute.getComplexValues()) {
+                    indexEntities(value, entitiesById);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts an entity value at the given index, adding the attribute if required.<p>
+     * 
+     * @param entity the entity
+     * @param attributeName the attribute name
+     * @param value the value
+     * @param index the value index
+     */
+    private static void insertValue(I_Entity entity, String attributeName, I_Entity value, int index) {
+
+        I_EntityAttribute attribute = entity.getAttribute(attributeName);
+        if ((attribute == null) || (attribute.getValueCount() == index)) {
+            entity.addAttributeValue(attributeName, value);
+        } else {
+            entity.insertAttributeValue(attributeName, value, index);
+        }
+    }
+
+    /**
+     * Inserts a simple value at the given index, adding the attribute if required.<p>
+     * 
+     * @param entity the entity
+     * @param attributeName the attribute name
+     * @param value the value
+     * @param index the value index
+     */
+    private static void insertValue(I_Entity entity, String attributeName, String value, int index) {
+
+        I_EntityAttribute attribute = entity.getAttribute(attributeName);
+        if ((attribute == null) || (attribute.getValueCount() == index)) {
+            entity.addAttributeValue(attributeName, value);
+        } else {
+            entity.insertAttributeValue(attributeName, value, index);
+        }
+    }
+
+    /**
+     * Adds the operations transforming the base attribute into the target attribute.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param base the base attribute, may be <code>null</code>
+     * @param target the target attribute, may be <code>null</code>
+     */
+    private void diffAttribute(String entityId, String attributeName, I_EntityAttribute base, I_EntityAttribute target) {
+
+        if ((base != null)
+            && (target != null)
+            && (base.isSimpleValue() != target.isSimpleValue())) {
+            // the value kind has changed, remove all base values first
+            diffAttribute(entityId, attributeName, base, null);
+            base = null;
+        }
+        if (target == null) {
+            for (int i = base.getValueCount() - 1; i >= 0; i--) {
+                m_operations.add(EntityPatchOperation.createRemove(entityId, attributeName, i));
+            }
+        } else if (target.isSimpleValue()) {
+            List<String> baseValues = base != null ? base.getSimpleValues() : Collections.<String> emptyList();
+            diffSimpleValues(entityId, attributeName, baseValues, target.getSimpleValues());
+        } else {
+            List<I_Entity> baseValues = base != null ? base.getComplexValues() : Collections.<I_Entity> emptyList();
+            diffEntityValues(entityId, attributeName, baseValues, target.getComplexValues());
+        }
+    }
+
+    /**
+     * Adds the operations transforming the base entity into the target entity.<p>
+     * 
+     * @param base the base entity
+     * @param target the target entity
+     */
+    private void diffEntity(I_Entity base, I_Entity target) {
+
+        if (base == target) {
+            // snapshots share unchanged nested entities with the previous snapshot
+            return;
+        }
+        Set<String> attributeNames = new HashSet<String>();
+        for (I_EntityAttribute attribute : base.getAttributes()) {
+            attributeNames.add(attribute.getAttributeName());
+        }
+        for (I_EntityAttribute attribute : target.getAttributes()) {
+            attributeNames.add(attribute.getAttributeName());
+        }
+        for (String attributeName : attributeNames) {
+            diffAttribute(base.getId(), attributeName, base.getAttribute(attributeName), target.getAttribute(attributeName));
+        }
+    }
+
+    /**
+     * Adds the operations transforming the base entity values into the target entity values.<p>
+     * 
+     * Values are matched by entity id, values only present in the base are removed,
+     * values only present in the target are inserted and matched values are moved into place and diffed.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param baseValues the base values
+     * @param targetValues the target values
+     */
+    private void diffEntityValues(
+        String entityId,
+        String attributeName,
+        List<I_Entity> baseValues,
+        List<I_Entity> targetValues) {
+
+        Map<String, I_Entity> targetById = new HashMap<String, I_Entity>();
+        for (I_Entity value : targetValues) {
+            targetById.put(value.getId(), value);
+        }
+        List<String> currentIds = new ArrayList<String>();
+        Map<String, I_Entity> baseById = new HashMap<String, I_Entity>();
+        for (I_Entity value : baseValues) {
+            currentIds.add(value.getId());
+            baseById.put(value.getId(), value);
+        }
+        for (int i = baseValues.size() - 1; i >= 0; i--) {
+            if (!targetById.containsKey(currentIds.get(i))) {
+                m_operations.add(EntityPatchOperation.createRemove(entityId, attributeName, i));
+                currentIds.remove(i);
+            }
+        }
+        for (int i = 0; i < targetValues.size(); i++) {
+            I_Entity value = targetValues.get(i);
+            I_Entity baseValue = baseById.get(value.getId());
+            if (baseValue == null) {
+                m_operations.add(EntityPatchOperation.createInsert(
+                    entityId,
+                    attributeName,
+                    i,
+                    Entity.serializeEntity(value)));
+                currentIds.add(i, value.getId());
+            } else {
+                int currentIndex = currentIds.indexOf(value.getId());
+                if (currentIndex != i) {
+                    m_operations.add(EntityPatchOperation.createMove(entityId, attributeName, currentIndex, i));
+                    currentIds.remove(currentIndex);
+                    currentIds.add(i, value.getId());
+                }
+                diffEntity(baseValue, value);
+            }
+        }
+    }
+
+    /**
+     * Adds the operations transforming the base simple values into the target simple values.<p>
+     * 
+     * Values are compared after skipping the common prefix and suffix,
+     * the remaining values are replaced, inserted or removed.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param baseValues the base values
+     * @param targetValues the target values
+     */
+    private void diffSimpleValues(
+        String entityId,
+        String attributeName,
+        List<String> baseValues,
+        List<String> targetValues) {
+
+        int prefix = 0;
+        int maxPrefix = Math.min(baseValues.size(), targetValues.size());
+        while ((prefix < maxPrefix) && baseValues.get(prefix).equals(targetValues.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while ((suffix < maxSuffix)
+            && baseValues.get(baseValues.size() - 1 - suffix).equals(
+                targetValues.get(targetValues.size() - 1 - suffix))) {
+            suffix++;
+        }
+        int baseCount = baseValues.size() - prefix - suffix;
+        int targetCount = targetValues.size() - prefix - suffix;
+        int replaceCount = Math.min(baseCount, targetCount);
+        for (int i = 0; i < replaceCount; i++) {
+            String value = targetValues.get(prefix + i);
+            if (!value.equals(baseValues.get(prefix + i))) {
+                m_operations.add(EntityPatchOperation.createReplace(entityId, attributeName, prefix + i, value));
+            }
+        }
+        for (int i = baseCount - 1; i >= replaceCount; i--) {
+            m_operations.add(EntityPatchOperation.createRemove(entityId, attributeName, prefix + i));
+        }
+        for (int i = replaceCount; i < targetCount; i++) {
+            m_operations.add(EntityPatchOperation.createInsert(
+                entityId,
+                attributeName,
+                prefix + i,
+                targetValues.get(prefix + i)));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared;
+
+import java.io.Serializable;
+
+/**
+ * A single entity patch operation, changing the values of one attribute of the entity with the given id.<p>
+ */
+public class EntityPatchOperation implements Serializable {
+
+    /** The operation types. */
+    public enum OperationType {
+        /** Inserts a value at the given index. */
+        insert,
+
+        /** Moves the value at the given index to the target index. */
+        move,
+
+        /** Removes the value at the given index. */
+        remove,
+
+        /** Replaces the value at the given index. */
+        replace
+    }
+
+    /** The serial version id. */
+    private static final long serialVersionUID = 3427750373263546263L;
+
+    /** The attribute name. */
+    private String m_attributeName;
+
+    /** The id of the entity holding the attribute. */
+    private String m_entityId;
+
+    /** The entity value to insert or replace. */
+    private Entity m_entityValue;
+
+    /** The value index. */
+    private int m_index;
+
+    /** The simple value to insert or replace. */
+    private String m_simpleValue;
+
+    /** The target index of move operations. */
+    private int m_targetIndex;
+
+    /** The operation type. */
+    private OperationType m_type;
+
+    /**
+     * Constructor. For serialization only.<p>
+     */
+    protected EntityPatchOperation() {
+
+        // nothing to do
+    }
+
+    /**
+     * Creates an entity value insert operation.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param index the value index
+     * @param value the value to insert
+     * 
+     * @return the operation
+     */
+    public static EntityPatchOperation createInsert(String entityId, String attributeName, int index, Entity value) {
+
+        EntityPatchOperation result = create(OperationType.insert, entityId, attributeName, index);
+        result.m_entityValue = value;
+        return result;
+    }
+
+    /**
+     * Creates a simple value insert operation.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param index the value index
+     * @param value the value to insert
+     * 
+     * @return the operation
+     */
+    public static EntityPatchOperation createInsert(String entityId, String attributeName, int index, String value) {
+
+        EntityPatchOperation result = create(OperationType.insert, entityId, attributeName, index);
+        result.m_simpleValue = value;
+        return result;
+    }
+
+    /**
+     * Creates a move operation.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param index the current value index
+     * @param targetIndex the target value index
+     * 
+     * @return the operation
+     */
+    public static EntityPatchOperation createMove(String entityId, String attributeName, int index, int targetIndex) {
+
+        EntityPatchOperation result = create(OperationType.move, entityId, attributeName, index);
+        result.m_targetIndex = targetIndex;
+        return result;
+    }
+
+    /**
+     * Creates a remove operation.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param index the value index
+     * 
+     * @return the operation
+     */
+    public static EntityPatchOperation createRemove(String entityId, String attributeName, int index) {
+
+        return create(OperationType.remove, entityId, attributeName, index);
+    }
+
+    /**
+     * Creates a simple value replace operation.<p>
+     * 
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param index the value index
+     * @param value the new value
+     * 
+     * @return the operation
+     */
+    public static EntityPatchOperation createReplace(String entityId, String attributeName, int index, String value) {
+
+        EntityPatchOperation result = create(OperationType.replace, entityId, attributeName, index);
+        result.m_simpleValue = value;
+        return result;
+    }
+
+    /**
+     * Returns the attribute name.<p>
+     * 
+     * @return the attribute name
+     */
+    public String getAttributeName() {
+
+        return m_attributeName;
+    }
+
+    /**
+     * Returns the id of the entity holding the attribute.<p>
+     * 
+     * @return the entity id
+     */
+    public String getEntityId() {
+
+        return m_entityId;
+    }
+
+    /**
+     * Returns the entity value to insert.<p>
+     * 
+     * @return the entity value, <code>null</code> for simple values
+     */
+    public Entity getEntityValue() {
+
+        return m_entityValue;
+    }
+
+    /**
+     * Returns the value index.<p>
+     * 
+     * @return the value index
+     */
+    public int getIndex() {
+
+        return m_index;
+    }
+
+    /**
+     * Returns the simple value to insert or replace.<p>
+     * 
+     * @return the simple value, <code>null</code> for entity values
+     */
+    public String getSimpleValue() {
+
+        return m_simpleValue;
+    }
+
+    /**
+     * Returns the target index of move operations.<p>
+     * 
+     * @return the target index
+     */
+    public int getTargetIndex() {
+
+        return m_targetIndex;
+    }
+
+    /**
+     * Returns the operation type.<p>
+     * 
+     * @return the operation type
+     */
+    public OperationType getType() {
+
+        return m_type;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer();
+        result.append(m_type).append(" ").append(m_entityId).append(" ").append(m_attributeName);
+        result.append("[").append(m_index).append("]");
+        if (OperationType.move.equals(m_type)) {
+            result.append(" -> [").append(m_targetIndex).append("]");
+        } else if (m_simpleValue != null) {
+            result.append(" \"").append(m_simpleValue).append("\"");
+        } else if (m_entityValue != null) {
+            result.append(" ").append(m_entityValue.getId());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Creates an operation.<p>
+     * 
+     * @param type the operation type
+     * @param entityId the id of the entity holding the attribute
+     * @param attributeName the attribute name
+     * @param index the value index
+     * 
+     * @return the operation
+     */
+    private static EntityPatchOperation create(OperationType type, String entityId, String attributeName, int index) {
+
+        EntityPatchOperation result = new EntityPatchOperation();
+        result.m_type = type;
+        result.m_entityId = entityId;
+        result.m_attributeName = attributeName;
+        result.m_index = index;
+        return result;
+    }
+}
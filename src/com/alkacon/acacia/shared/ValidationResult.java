@@ -24,6 +24,7 @@
 
 package com.alkacon.acacia.shared;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import com.google.gwt.user.client.rpc.IsSerializable;
@@ -33,9 +34,15 @@ import com.google.gwt.user.client.rpc.IsSerializable;
  */
 public class ValidationResult implements IsSerializable {
 
+    /** The error messages by entity and attribute path, resolved on first use. */
+    private transient Map<String, Map<AttributePath, String>> m_errorPaths;
+
     /** The error messages by entity and attribute. */
     private Map<String, Map<String[], String>> m_errors;
 
+    /** The warning messages by entity and attribute path, resolved on first use. */
+    private transient Map<String, Map<AttributePath, String>> m_warningPaths;
+
     /** The warning messages by entity and attribute. */
     private Map<String, Map<String[], String>> m_warnings;
 
@@ -59,6 +66,23 @@ public class ValidationResult implements IsSerializable {
         // nothing to do
     }
 
+    /**
+     * Returns the error messages for the given entity by attribute path.<p>
+     * 
+     * The path keys are resolved once, equal paths of errors and warnings are equal keys.<p>
+     * 
+     * @param entityId the entity id
+     * 
+     * @return the error messages for the given entity, <code>null</code> if there are none
+     */
+    public Map<AttributePath, String> getErrorPaths(String entityId) {
+
+        if (m_errorPaths == null) {
+            m_errorPaths = new HashMap<String, Map<AttributePath, String>>();
+        }
+        return getMessagePaths(m_errorPaths, getErrors(entityId), entityId);
+    }
+
     /**
      * Returns all error messages by entity id and attribute.<p>
      * 
@@ -81,6 +105,23 @@ public class ValidationResult implements IsSerializable {
         return m_errors != null ? m_errors.get(entityId) : null;
     }
 
+    /**
+     * Returns the warning messages for the given entity by attribute path.<p>
+     * 
+     * The path keys are resolved once, equal paths of errors and warnings are equal keys.<p>
+     * 
+     * @param entityId the entity id
+     * 
+     * @return the warning messages for the given entity, <code>null</code> if there are none
+     */
+    public Map<AttributePath, String> getWarningPaths(String entityId) {
+
+        if (m_warningPaths == null) {
+            m_warningPaths = new HashMap<String, Map<AttributePath, String>>();
+        }
+        return getMessagePaths(m_warningPaths, getWarnings(entityId), entityId);
+    }
+
     /**
      * Returns all warning messages by entity id and attribute.<p>
      * 
@@ -147,4 +188,32 @@ public class ValidationResult implements IsSerializable {
         return (m_warnings != null) && (m_warnings.get(entityId) != null);
     }
 
+    /**
+     * Returns the messages of the given entity by attribute path, resolving the paths on first use.<p>
+     * 
+     * @param resolved the messages resolved so far, by entity id
+     * @param messages the messages of the entity, by path elements
+     * @param entityId the entity id
+     * 
+     * @return the messages by attribute path, <code>null</code> if there are none
+     */
+    private Map<AttributePath, String> getMessagePaths(
+        Map<String, Map<AttributePath, String>> resolved,
+        Map<String[], String> messages,
+        String entityId) {
+
+        if (messages == null) {
+            return null;
+        }
+        Map<AttributePath, String> result = resolved.get(entityId);
+        if (result == null) {
+            result = new HashMap<AttributePath, String>();
+            for (Map.Entry<String[], String> message : messages.entrySet()) {
+                result.put(AttributePath.valueOf(message.getKey()), message.getValue());
+            }
+            resolved.put(entityId, result);
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,103 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package com.alkacon.acacia.shared.rpc;
+
+/**
+ * Thrown when applying an entity patch, if the base revision of the patch is not available
+ * or is not the latest revision of the entity any more.<p>
+ * 
+ * Clients receiving this from a method of {@link I_PatchContentService} send the complete entity instead.<p>
+ */
+public class EntityRevisionException extends Exception {
+
+    /** The serial version id. */
+    private static final long serialVersionUID = 2405986381203577453L;
+
+    /** Flag indicating the base revision is available, but not the latest revision. */
+    private boolean m_conflict;
+
+    /** The entity id. */
+    private String m_entityId;
+
+    /** The base revision. */
+    private int m_revision;
+
+    /**
+     * Constructor.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision
+     * @param conflict <code>true</code> if the base revision is not the latest revision, 
+     *        <code>false</code> if it is not available
+     */
+    public EntityRevisionException(String entityId, int revision, boolean conflict) {
+
+        super(conflict
+        ? "Revision " + revision + " of entity " + entityId + " is not the latest revision."
+        : "Revision " + revision + " of entity " + entityId + " is not available.");
+        m_entityId = entityId;
+        m_revision = revision;
+        m_conflict = conflict;
+    }
+
+    /**
+     * Constructor. For serialization only.<p>
+     */
+    protected EntityRevisionException() {
+
+        // nothing to do
+    }
+
+    /**
+     * Returns the entity id.<p>
+     * 
+     * @return the entity id
+     */
+    public String getEntityId() {
+
+        return m_entityId;
+    }
+
+    /**
+     * Returns the base revision.<p>
+     * 
+     * @return the base revision
+     */
+    public int getRevision() {
+
+        return m_revision;
+    }
+
+    /**
+     * Returns if the base revision is available, but another patch has been applied to it before.<p>
+     * 
+     * @return <code>true</code> if the base revision is not the latest revision, 
+     *         <code>false</code> if it is not available
+     */
+    public boolean isConflict() {
+
+        return m_conflict;
+    }
+}
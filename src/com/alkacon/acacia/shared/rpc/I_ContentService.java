@@ -27,6 +27,7 @@ package com.alkacon.acacia.shared.rpc;
 import com.alkacon.acacia.shared.ContentDefinition;
 import com.alkacon.acacia.shared.Entity;
 import com.alkacon.acacia.shared.EntityHtml;
+import com.alkacon.acacia.shared.EntityHtmlFragment;
 import com.alkacon.acacia.shared.ValidationResult;
 
 import java.util.List;
@@ -89,6 +90,46 @@ public interface I_ContentService extends RemoteService {
      */
     EntityHtml updateEntityHtml(Entity entity, String contextUri, String htmlContextInfo) throws Exception;
 
+    /**
+     * Retrieves the updated HTML fragments of the changed parts of the entity HTML representation.<p>
+     * The entity data will be validated but not persisted on the server.<p>
+     * 
+     * The result has to contain one fragment per requested fragment, rendered according to the given entity.
+     * Implementations not able to render the fragments may return the complete HTML representation instead.<p>
+     * 
+     * @param entity the entity
+     * @param fragments the requested fragments, without HTML content
+     * @param contextUri the context URI
+     * @param htmlContextInfo information about the HTML context
+     * 
+     * @return the HTML fragments or the complete HTML representation, including the validation result
+     * 
+     * @throws Exception if something goes wrong processing the request
+     */
+    EntityHtml updateEntityHtmlFragments(
+        Entity entity,
+        List<EntityHtmlFragment> fragments,
+        String contextUri,
+        String htmlContextInfo) throws Exception;
+
+    /**
+     * Validates the given attributes of the entity and returns maps of error and warning messages in case of invalid attributes.<p>
+     * 
+     * Each attribute path consists of the attribute names from the entity down to the validated attribute,
+     * all but the last one followed by the index of the value containing the next level, like <code>Paragraph[1]</code>.
+     * The last path element has no index, as all values of the attribute and their nested values are validated.
+     * The validation result has to contain all errors and warnings within the given paths, 
+     * it will replace the existing messages for these paths on the client.<p>
+     * 
+     * @param entity the entity
+     * @param attributePaths the paths of the attributes to validate
+     * 
+     * @return the validation result
+     * 
+     * @throws Exception if something goes wrong processing the request
+     */
+    ValidationResult validateAttributes(Entity entity, List<String[]> attributePaths) throws Exception;
+
     /**
      * Validates the given entities and returns maps of error and warning messages in case of invalid attributes.<p>
      * 
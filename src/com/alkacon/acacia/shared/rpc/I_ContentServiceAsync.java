@@ -27,6 +27,7 @@ package com.alkacon.acacia.shared.rpc;
 import com.alkacon.acacia.shared.ContentDefinition;
 import com.alkacon.acacia.shared.Entity;
 import com.alkacon.acacia.shared.EntityHtml;
+import com.alkacon.acacia.shared.EntityHtmlFragment;
 import com.alkacon.acacia.shared.ValidationResult;
 
 import java.util.List;
@@ -75,6 +76,32 @@ public interface I_ContentServiceAsync {
      */
     void updateEntityHtml(Entity entity, String contextUri, String htmlContextInfo, AsyncCallback<EntityHtml> callback);
 
+    /**
+     * Retrieves the updated HTML fragments of the changed parts of the entity HTML representation.<p>
+     * The entity data will be validated but not persisted on the server.<p>
+     * 
+     * @param entity the entity
+     * @param fragments the requested fragments, without HTML content
+     * @param contextUri the context URI
+     * @param htmlContextInfo information about the HTML context
+     * @param callback the asynchronous callback
+     */
+    void updateEntityHtmlFragments(
+        Entity entity,
+        List<EntityHtmlFragment> fragments,
+        String contextUri,
+        String htmlContextInfo,
+        AsyncCallback<EntityHtml> callback);
+
+    /**
+     * Validates the given attributes of the entity and returns maps of error and warning messages in case of invalid attributes.<p>
+     * 
+     * @param entity the entity
+     * @param attributePaths the paths of the attributes to validate
+     * @param callback the asynchronous callback
+     */
+    void validateAttributes(Entity entity, List<String[]> attributePaths, AsyncCallback<ValidationResult> callback);
+
     /**
      * Validates the given entities and returns maps of error and warning messages in case of invalid attributes.<p>
      * 
@@ -0,0 +1,125 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared.rpc;
+
+import com.alkacon.acacia.shared.EntityHtml;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.ValidationResult;
+
+import java.util.List;
+
+/**
+ * Content service additionally accepting entity patches instead of complete entities.<p>
+ * 
+ * The patch methods send an {@link EntityPatch} against a revision of the entity.
+ * Revision 0 is the entity as returned by {@link #loadContentDefinition(String)},
+ * each successful patch request creates the revision following the given base revision.
+ * Implementations have to throw an {@link EntityRevisionException} if the base revision is not available
+ * or not the latest revision, clients will then fall back to the methods sending the complete entity.
+ * See {@link com.alkacon.acacia.server.EntityPatchHelper}.<p>
+ * 
+ * Clients check for this interface, so implementations of {@link I_ContentService} alone keep working.<p>
+ */
+public interface I_PatchContentService extends I_ContentService {
+
+    /**
+     * Saves the entity resulting from applying the patch to the given revision
+     * and returns a validation result in case of invalid entities.<p>
+     * Invalid entities will not be saved.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * 
+     * @return the validation result in case of invalid entities
+     * 
+     * @throws EntityRevisionException if the base revision is not available or not the latest revision
+     * @throws Exception if something goes wrong processing the request
+     */
+    ValidationResult saveEntityPatch(String entityId, int revision, EntityPatch patch)
+    throws EntityRevisionException, Exception;
+
+    /**
+     * Retrieves the updated entity HTML representation of the entity resulting from applying the patch to the given revision.<p>
+     * The entity data will be validated but not persisted on the server.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * @param contextUri the context URI
+     * @param htmlContextInfo information about the HTML context
+     * 
+     * @return the HTML representation including the validation result
+     * 
+     * @throws EntityRevisionException if the base revision is not available or not the latest revision
+     * @throws Exception if something goes wrong processing the request
+     */
+    EntityHtml updateEntityHtmlPatch(
+        String entityId,
+        int revision,
+        EntityPatch patch,
+        String contextUri,
+        String htmlContextInfo) throws EntityRevisionException, Exception;
+
+    /**
+     * Validates the given attributes of the entity resulting from applying the patch to the given revision
+     * and returns maps of error and warning messages in case of invalid attributes.<p>
+     * 
+     * The attribute paths and the validation result are used like in 
+     * {@link #validateAttributes(com.alkacon.acacia.shared.Entity, List)}.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * @param attributePaths the paths of the attributes to validate
+     * 
+     * @return the validation result
+     * 
+     * @throws EntityRevisionException if the base revision is not available or not the latest revision
+     * @throws Exception if something goes wrong processing the request
+     */
+    ValidationResult validateAttributesPatch(
+        String entityId,
+        int revision,
+        EntityPatch patch,
+        List<String[]> attributePaths) throws EntityRevisionException, Exception;
+
+    /**
+     * Validates the entity resulting from applying the patch to the given revision
+     * and returns maps of error and warning messages in case of invalid attributes.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * 
+     * @return the validation result
+     * 
+     * @throws EntityRevisionException if the base revision is not available or not the latest revision
+     * @throws Exception if something goes wrong processing the request
+     */
+    ValidationResult validateEntityPatch(String entityId, int revision, EntityPatch patch)
+    throws EntityRevisionException, Exception;
+}
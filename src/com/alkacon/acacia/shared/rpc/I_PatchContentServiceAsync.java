@@ -0,0 +1,104 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared.rpc;
+
+import com.alkacon.acacia.shared.EntityHtml;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.ValidationResult;
+
+import java.util.List;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Content service additionally accepting entity patches instead of complete entities.<p>
+ * 
+ * Use this asynchronous interface on the client side.<p>
+ */
+public interface I_PatchContentServiceAsync extends I_ContentServiceAsync {
+
+    /**
+     * Saves the entity resulting from applying the patch to the given revision
+     * and returns a validation result in case of invalid entities.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * @param callback the asynchronous callback
+     */
+    void saveEntityPatch(String entityId, int revision, EntityPatch patch, AsyncCallback<ValidationResult> callback);
+
+    /**
+     * Retrieves the updated entity HTML representation of the entity resulting from applying the patch to the given revision.<p>
+     * The entity data will be validated but not persisted on the server.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * @param contextUri the context URI
+     * @param htmlContextInfo information about the HTML context
+     * @param callback the asynchronous callback
+     */
+    void updateEntityHtmlPatch(
+        String entityId,
+        int revision,
+        EntityPatch patch,
+        String contextUri,
+        String htmlContextInfo,
+        AsyncCallback<EntityHtml> callback);
+
+    /**
+     * Validates the given attributes of the entity resulting from applying the patch to the given revision
+     * and returns maps of error and warning messages in case of invalid attributes.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * @param attributePaths the paths of the attributes to validate
+     * @param callback the asynchronous callback
+     */
+    void validateAttributesPatch(
+        String entityId,
+        int revision,
+        EntityPatch patch,
+        List<String[]> attributePaths,
+        AsyncCallback<ValidationResult> callback);
+
+    /**
+     * Validates the entity resulting from applying the patch to the given revision
+     * and returns maps of error and warning messages in case of invalid attributes.<p>
+     * 
+     * @param entityId the entity id
+     * @param revision the base revision the patch applies to
+     * @param patch the entity patch
+     * @param callback the asynchronous callback
+     */
+    void validateEntityPatch(
+        String entityId,
+        int revision,
+        EntityPatch patch,
+        AsyncCallback<ValidationResult> callback);
+}
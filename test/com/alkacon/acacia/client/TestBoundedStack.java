@@ -0,0 +1,103 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.client;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the bounded stack.<p>
+ */
+public class TestBoundedStack extends TestCase {
+
+    /**
+     * Tests clearing the stack.<p>
+     */
+    public void testClear() {
+
+        BoundedStack<String> stack = new BoundedStack<String>(2);
+        stack.push("a");
+        stack.push("b");
+        stack.push("c");
+        stack.clear();
+        assertTrue("The stack should be empty.", stack.isEmpty());
+        assertNull("Popping an empty stack should return null.", stack.pop());
+        stack.push("d");
+        assertEquals("The stack should be usable after clearing.", 1, stack.size());
+        assertEquals("The pushed element should be on top.", "d", stack.peek());
+    }
+
+    /**
+     * Tests that pushing onto a full stack drops the oldest elements.<p>
+     */
+    public void testOverflow() {
+
+        BoundedStack<Integer> stack = new BoundedStack<Integer>(3);
+        for (int i = 1; i <= 7; i++) {
+            stack.push(Integer.valueOf(i));
+            assertEquals("The size should not exceed the maximum size.", Math.min(i, 3), stack.size());
+            assertEquals("The last pushed element should be on top.", Integer.valueOf(i), stack.peek());
+        }
+        assertEquals("The newest element should be popped first.", Integer.valueOf(7), stack.pop());
+        assertEquals("The elements should be popped in reverse order.", Integer.valueOf(6), stack.pop());
+        stack.push(Integer.valueOf(8));
+        stack.push(Integer.valueOf(9));
+        assertEquals("The stack should be full again.", 3, stack.size());
+        assertEquals("The newest element should be popped first.", Integer.valueOf(9), stack.pop());
+        assertEquals("The elements should be popped in reverse order.", Integer.valueOf(8), stack.pop());
+        assertEquals("The oldest remaining element should be popped last.", Integer.valueOf(5), stack.pop());
+        assertTrue("The stack should be empty.", stack.isEmpty());
+        assertNull("Popping an empty stack should return null.", stack.pop());
+        assertNull("Peeking an empty stack should return null.", stack.peek());
+    }
+
+    /**
+     * Tests changing the maximum size.<p>
+     */
+    public void testSetMaxSize() {
+
+        BoundedStack<Integer> stack = new BoundedStack<Integer>(4);
+        for (int i = 1; i <= 6; i++) {
+            stack.push(Integer.valueOf(i));
+        }
+        stack.setMaxSize(2);
+        assertEquals("The maximum size should be changed.", 2, stack.getMaxSize());
+        assertEquals("The oldest elements should be dropped.", 2, stack.size());
+        stack.setMaxSize(3);
+        stack.push(Integer.valueOf(7));
+        stack.push(Integer.valueOf(8));
+        assertEquals("The stack should be full.", 3, stack.size());
+        assertEquals("The newest element should be popped first.", Integer.valueOf(8), stack.pop());
+        assertEquals("The elements should be popped in reverse order.", Integer.valueOf(7), stack.pop());
+        assertEquals("The newest kept element should remain.", Integer.valueOf(6), stack.pop());
+        assertTrue("The stack should be empty.", stack.isEmpty());
+        try {
+            stack.setMaxSize(0);
+            fail("A maximum size of 0 should be rejected.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
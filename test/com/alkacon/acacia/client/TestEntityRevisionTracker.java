@@ -0,0 +1,151 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.client;
+
+import com.alkacon.acacia.shared.Entity;
+import com.alkacon.acacia.shared.EntityFixture;
+import com.alkacon.acacia.shared.EntityPatch;
+import com.alkacon.acacia.shared.rpc.EntityRevisionException;
+
+import junit.framework.TestCase;
+
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Tests the entity revision tracker.<p>
+ */
+public class TestEntityRevisionTracker extends TestCase {
+
+    /**
+     * Callback recording the responses.<p>
+     */
+    private static class RecordingCallback implements AsyncCallback<String>, Command {
+
+        /** The number of executed fallbacks. */
+        int m_fallbacks;
+
+        /** The number of failures. */
+        int m_failures;
+
+        /** The number of successful responses. */
+        int m_successes;
+
+        /**
+         * @see com.google.gwt.user.client.Command#execute()
+         */
+        public void execute() {
+
+            m_fallbacks++;
+        }
+
+        /**
+         * @see com.google.gwt.user.client.rpc.AsyncCallback#onFailure(java.lang.Throwable)
+         */
+        public void onFailure(Throwable caught) {
+
+            m_failures++;
+        }
+
+        /**
+         * @see com.google.gwt.user.client.rpc.AsyncCallback#onSuccess(java.lang.Object)
+         */
+        public void onSuccess(String result) {
+
+            m_successes++;
+        }
+    }
+
+    /** The keyword attribute name. */
+    private static final String KEYWORD = EntityFixture.ROOT_TYPE + "/Keyword";
+
+    /**
+     * Tests that responses to patches sent before the entity was reset are ignored.<p>
+     */
+    public void testIgnoreOutdatedResponse() {
+
+        Entity entity = EntityFixture.createEntity();
+        EntityRevisionTracker tracker = new EntityRevisionTracker();
+        tracker.setInitialRevision(entity);
+        entity.addAttributeValue(KEYWORD, "added");
+        assertNotNull("A patch should be created.", tracker.createPatch(entity));
+        RecordingCallback callback = new RecordingCallback();
+        AsyncCallback<String> wrapped = tracker.wrapCallback(callback, callback);
+        tracker.setInitialRevision(EntityFixture.createEntity());
+        wrapped.onSuccess("done");
+        assertEquals("The response should be passed on.", 1, callback.m_successes);
+        assertEquals("The outdated response should not be acknowledged.", 0, tracker.getRevision());
+        EntityPatch patch = tracker.createPatch(entity);
+        assertNotNull("Resetting should end the running patch request.", patch);
+        assertFalse("The patch should be based on the reset revision.", patch.isEmpty());
+    }
+
+    /**
+     * Tests acknowledging patches.<p>
+     */
+    public void testPatchRevisions() {
+
+        Entity entity = EntityFixture.createEntity();
+        EntityRevisionTracker tracker = new EntityRevisionTracker();
+        assertNull("No patch should be created before the initial revision is set.", tracker.createPatch(entity));
+        tracker.setInitialRevision(entity);
+        assertNull(
+            "No patch should be created for other entities.",
+            tracker.createPatch(EntityFixture.createChild(EntityFixture.FIRST_CHILD_ID, "text")));
+        entity.addAttributeValue(KEYWORD, "added");
+        EntityPatch patch = tracker.createPatch(entity);
+        assertEquals("The patch should insert the added value.", 1, patch.getOperations().size());
+        assertNull("No patch should be created while a patch request is running.", tracker.createPatch(entity));
+        RecordingCallback callback = new RecordingCallback();
+        tracker.wrapCallback(callback, callback).onSuccess("done");
+        assertEquals("The response should be passed on.", 1, callback.m_successes);
+        assertEquals("The patched state should be acknowledged as the following revision.", 1, tracker.getRevision());
+        assertTrue("The next patch should be based on the acknowledged state.", tracker.createPatch(entity).isEmpty());
+        tracker.wrapCallback(callback, callback).onFailure(new RuntimeException());
+        assertEquals("Other failures should be passed on.", 1, callback.m_failures);
+        assertEquals("A failed patch should not be acknowledged.", 1, tracker.getRevision());
+        assertNotNull("Patches should be created again after a failure.", tracker.createPatch(entity));
+    }
+
+    /**
+     * Tests falling back to the complete entity, if the server can not apply a patch.<p>
+     */
+    public void testRevisionFailure() {
+
+        Entity entity = EntityFixture.createEntity();
+        EntityRevisionTracker tracker = new EntityRevisionTracker();
+        tracker.setInitialRevision(entity);
+        assertNotNull("A patch should be created.", tracker.createPatch(entity));
+        RecordingCallback callback = new RecordingCallback();
+        tracker.wrapCallback(callback, callback).onFailure(
+            new EntityRevisionException(EntityFixture.ROOT_ID, 0, false));
+        assertEquals("The fallback should be executed.", 1, callback.m_fallbacks);
+        assertEquals("The failure should not be passed on.", 0, callback.m_failures);
+        assertNull("No patches should be created after the server failed to apply one.", tracker.createPatch(entity));
+        tracker.setInitialRevision(entity);
+        assertNotNull("Patches should be created again after a reset.", tracker.createPatch(entity));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.server;
+
+import com.alkacon.acacia.shared.Entity;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the entity revision cache.<p>
+ */
+public class TestEntityRevisionCache extends TestCase {
+
+    /**
+     * Revision cache using a settable clock.<p>
+     */
+    private static class TestCache extends EntityRevisionCache {
+
+        /** The current time. */
+        long m_time;
+
+        /**
+         * Constructor.<p>
+         * 
+         * @param maxEntries the maximum number of entries
+         * @param maxMemorySize the maximum estimated memory size in bytes
+         * @param maxIdleTime the maximum idle time of an entry in milliseconds
+         */
+        TestCache(int maxEntries, long maxMemorySize, long maxIdleTime) {
+
+            super(maxEntries, maxMemorySize, maxIdleTime);
+        }
+
+        /**
+         * @see com.alkacon.acacia.server.EntityRevisionCache#getCurrentTime()
+         */
+        @Override
+        protected long getCurrentTime() {
+
+            return m_time;
+        }
+    }
+
+    /**
+     * Tests that entries not accessed for longer than the maximum idle time are evicted.<p>
+     */
+    public void testEvictIdle() {
+
+        TestCache cache = new TestCache(10, Long.MAX_VALUE, 1000);
+        cache.m_time = 0;
+        cache.putEntity("a", 0, createEntity("a", "a value"));
+        cache.m_time = 500;
+        cache.putEntity("b", 0, createEntity("b", "b value"));
+        cache.m_time = 1200;
+        assertNotNull("The recently stored entry should be kept.", cache.getEntity("b", 0));
+        assertNull("The idle entry should be evicted.", cache.getEntity("a", 0));
+        assertEquals("One entry should be evicted.", 1, cache.getEvictionCount());
+        assertFalse("The evicted entity should be forgotten.", cache.putEntity("a", 1, createEntity("a", "next")));
+        cache.m_time = 2000;
+        cache.evictIdleEntries();
+        assertNotNull("The entry accessed within the idle time should be kept.", cache.getEntity("b", 0));
+        cache.m_time = 3200;
+        cache.evictIdleEntries();
+        assertEquals("All idle entries should be evicted.", 0, cache.size());
+        assertEquals("The memory size should be released.", 0, cache.getMemorySize());
+    }
+
+    /**
+     * Tests that the least recently used entries are evicted once the maximum memory size is exceeded.<p>
+     */
+    public void testEvictMemorySize() {
+
+        Entity a = createEntity("a", "value");
+        long entitySize = EntityRevisionCache.estimateSize(a);
+        TestCache cache = new TestCache(10, (2 * entitySize) + (entitySize / 2), 0);
+        cache.putEntity("a", 0, a);
+        cache.putEntity("b", 0, createEntity("b", "value"));
+        assertEquals("The memory size should be the sum of the entry sizes.", 2 * entitySize, cache.getMemorySize());
+        cache.putEntity("c", 0, createEntity("c", "value"));
+        assertEquals("The eldest entry should be evicted.", 2, cache.size());
+        assertNull("The eldest entry should be evicted.", cache.getEntity("a", 0));
+        assertEquals("The memory size should not exceed the maximum.", 2 * entitySize, cache.getMemorySize());
+        StringBuffer largeValue = new StringBuffer();
+        while (largeValue.length() < (2 * entitySize)) {
+            largeValue.append("large value ");
+        }
+        cache.putEntity("d", 0, createEntity("d", largeValue.toString()));
+        assertEquals("A single entry exceeding the maximum memory size should be kept.", 1, cache.size());
+        assertNotNull("A single entry exceeding the maximum memory size should be kept.", cache.getEntity("d", 0));
+    }
+
+    /**
+     * Tests that the least recently used entries are evicted once the maximum entry count is exceeded.<p>
+     */
+    public void testEvictSize() {
+
+        TestCache cache = new TestCache(2, Long.MAX_VALUE, 0);
+        cache.putEntity("a", 0, createEntity("a", "a value"));
+        cache.putEntity("b", 0, createEntity("b", "b value"));
+        assertNotNull("The entry should be cached.", cache.getEntity("a", 0));
+        cache.putEntity("c", 0, createEntity("c", "c value"));
+        assertEquals("The cache should not exceed the maximum entry count.", 2, cache.size());
+        assertEquals("One entry should be evicted.", 1, cache.getEvictionCount());
+        assertNull("The least recently used entry should be evicted.", cache.getEntity("b", 0));
+        assertNotNull("The recently used entry should be kept.", cache.getEntity("a", 0));
+        assertNotNull("The new entry should be kept.", cache.getEntity("c", 0));
+        assertFalse("The evicted entity should be forgotten.", cache.putEntity("b", 1, createEntity("b", "next")));
+    }
+
+    /**
+     * Tests storing and reading revisions.<p>
+     */
+    public void testPutEntity() {
+
+        TestCache cache = new TestCache(10, Long.MAX_VALUE, 0);
+        Entity first = createEntity("a", "first");
+        Entity second = createEntity("a", "second");
+        assertFalse("A revision without predecessor should be rejected.", cache.putEntity("a", 1, first));
+        assertTrue("The initial revision should be accepted.", cache.putEntity("a", 0, first));
+        assertTrue("The following revision should be accepted.", cache.putEntity("a", 1, second));
+        assertFalse("An already stored revision should be rejected.", cache.putEntity("a", 1, first));
+        assertFalse("A skipping revision should be rejected.", cache.putEntity("a", 3, first));
+        assertSame("The stored revision should be returned.", first, cache.getEntity("a", 0));
+        assertSame("The stored revision should be returned.", second, cache.getEntity("a", 1));
+        assertNull("An unknown revision should not be found.", cache.getEntity("a", 2));
+        assertEquals("The hits should be counted.", 2, cache.getHitCount());
+        assertEquals("The misses should be counted.", 1, cache.getMissCount());
+        assertTrue("A new initial revision should be accepted.", cache.putEntity("a", 0, second));
+        assertEquals("A new initial revision should replace all revisions.", 1, cache.size());
+        assertNull("The previous revisions should be removed.", cache.getEntity("a", 1));
+    }
+
+    /**
+     * Tests removing all revisions of an entity.<p>
+     */
+    public void testRemoveEntity() {
+
+        TestCache cache = new TestCache(10, Long.MAX_VALUE, 0);
+        Entity b = createEntity("b", "b value");
+        cache.putEntity("a", 0, createEntity("a", "first"));
+        cache.putEntity("a", 1, createEntity("a", "second"));
+        cache.putEntity("b", 0, b);
+        cache.removeEntity("a");
+        assertEquals("Only the other entity should remain.", 1, cache.size());
+        assertEquals(
+            "The memory size should be released.",
+            EntityRevisionCache.estimateSize(b),
+            cache.getMemorySize());
+        assertNull("The removed revisions should not be found.", cache.getEntity("a", 1));
+        assertFalse("The removed entity should be forgotten.", cache.putEntity("a", 2, createEntity("a", "third")));
+        assertSame("The other entity should be kept.", b, cache.getEntity("b", 0));
+        cache.removeEntity("unknown");
+        assertEquals("Removing an unknown entity should not change the cache.", 1, cache.size());
+    }
+
+    /**
+     * Creates a test entity.<p>
+     * 
+     * @param id the entity id
+     * @param value the title value
+     * 
+     * @return the test entity
+     */
+    private Entity createEntity(String id, String value) {
+
+        Entity entity = new Entity(id, "type");
+        entity.addAttributeValue("type/Title", value);
+        return entity;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared;
+
+/**
+ * Creates the entities used by the shared package tests.<p>
+ */
+public final class EntityFixture {
+
+    /** The child entity type name. */
+    public static final String CHILD_TYPE = "childType";
+
+    /** The id of the first child entity. */
+    public static final String FIRST_CHILD_ID = "first";
+
+    /** The root entity id. */
+    public static final String ROOT_ID = "root";
+
+    /** The root entity type name. */
+    public static final String ROOT_TYPE = "rootType";
+
+    /** The id of the second child entity. */
+    public static final String SECOND_CHILD_ID = "second";
+
+    /**
+     * Constructor.<p>
+     */
+    private EntityFixture() {
+
+        // nothing to do
+    }
+
+    /**
+     * Creates a child entity with a single text value.<p>
+     * 
+     * @param id the entity id
+     * @param text the text value
+     * 
+     * @return the child entity
+     */
+    public static Entity createChild(String id, String text) {
+
+        Entity child = new Entity(id, CHILD_TYPE);
+        child.addAttributeValue(CHILD_TYPE + "/Text", text);
+        return child;
+    }
+
+    /**
+     * Creates the test entity.<p>
+     * 
+     * The root entity has two <code>Title</code> values, three <code>Keyword</code> values and two 
+     * <code>Link</code> child entities. Both children have a <code>Text</code> value, 
+     * the first child also has a <code>Code</code> value.<p>
+     * 
+     * @return the test entity
+     */
+    public static Entity createEntity() {
+
+        Entity entity = new Entity(ROOT_ID, ROOT_TYPE);
+        entity.addAttributeValue(ROOT_TYPE + "/Title", "first title");
+        entity.addAttributeValue(ROOT_TYPE + "/Title", "second title");
+        entity.addAttributeValue(ROOT_TYPE + "/Keyword", "first keyword");
+        entity.addAttributeValue(ROOT_TYPE + "/Keyword", "second keyword");
+        entity.addAttributeValue(ROOT_TYPE + "/Keyword", "third keyword");
+        Entity first = createChild(FIRST_CHILD_ID, "first text");
+        first.addAttributeValue(CHILD_TYPE + "/Code", "first code");
+        entity.addAttributeValue(ROOT_TYPE + "/Link", first);
+        entity.addAttributeValue(ROOT_TYPE + "/Link", createChild(SECOND_CHILD_ID, "second text"));
+        return entity;
+    }
+}
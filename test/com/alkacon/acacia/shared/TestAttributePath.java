@@ -0,0 +1,240 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the attribute paths and the path based value lookup.<p>
+ */
+public class TestAttributePath extends TestCase {
+
+    /**
+     * Tests the child paths used to index the attribute handlers.<p>
+     */
+    public void testChildPath() {
+
+        AttributePath root = AttributePath.valueOf(new String[0]);
+        AttributePath link = root.getChildPath(2, "Link");
+        assertEquals("The value index of the empty path should be ignored.", "Link", link.toString());
+        AttributePath title = link.getChildPath(2, "Title");
+        assertEquals("The value index should be set on the parent element.", "Link[2]/Title", title.toString());
+        assertEquals(
+            "The child path should equal the attribute path of the values.",
+            AttributePath.valueOf(new String[] {"Link[2]", "Title[1]"}).getAttributePath(),
+            title);
+        assertSame("The child path should be its own attribute path.", title, title.getAttributePath());
+        assertEquals(
+            "The parent indexes should be kept.",
+            "Link[2]/Title[0]/Text",
+            title.getChildPath(0, "Text").toString());
+    }
+
+    /**
+     * Tests the equality of paths.<p>
+     */
+    public void testEquals() {
+
+        AttributePath path = AttributePath.valueOf(new String[] {"Link[2]", "Title"});
+        AttributePath equalPath = AttributePath.valueOf(new String[] {"Link[2]", "Title"});
+        assertEquals("Paths with equal elements should be equal.", path, equalPath);
+        assertEquals("Equal paths should have equal hash codes.", path.hashCode(), equalPath.hashCode());
+        assertFalse(
+            "Paths with different indexes should not be equal.",
+            path.equals(AttributePath.valueOf(new String[] {"Link[1]", "Title"})));
+        assertFalse(
+            "Paths with different names should not be equal.",
+            path.equals(AttributePath.valueOf(new String[] {"Link[2]", "Text"})));
+        assertFalse("A path prefix should not be equal.", path.equals(path.getPrefix(1)));
+        assertEquals(
+            "The prefix should equal the path of the leading elements.",
+            AttributePath.valueOf(new String[] {"Link[2]"}),
+            path.getPrefix(1));
+        assertSame("The full length prefix should be the path itself.", path, path.getPrefix(2));
+    }
+
+    /**
+     * Tests the normalized attribute path.<p>
+     */
+    public void testGetAttributePath() {
+
+        AttributePath implicit = AttributePath.valueOf(new String[] {"Link", "Title"});
+        AttributePath explicit = AttributePath.valueOf(new String[] {"Link[0]", "Title[2]"});
+        assertFalse("Paths with different elements should not be equal.", implicit.equals(explicit));
+        assertEquals(
+            "Paths addressing values of the same attribute should have equal attribute paths.",
+            implicit.getAttributePath(),
+            explicit.getAttributePath());
+        assertEquals(
+            "The attribute path should be normalized.",
+            "Link[0]/Title",
+            explicit.getAttributePath().toString());
+        assertSame(
+            "The attribute path should be its own attribute path.",
+            explicit.getAttributePath(),
+            explicit.getAttributePath().getAttributePath());
+        AttributePath normalized = AttributePath.valueOf(new String[] {"Link[1]", "Title"});
+        assertSame("A normalized path should be its own attribute path.", normalized, normalized.getAttributePath());
+        assertFalse(
+            "Paths addressing different parent values should not have equal attribute paths.",
+            normalized.getAttributePath().equals(explicit.getAttributePath()));
+    }
+
+    /**
+     * Tests that the path based value lookup treats the value indexes as 1-based, with 0 addressing the first value.<p>
+     */
+    public void testGetValueForPath() {
+
+        Entity entity = EntityFixture.createEntity();
+        assertEquals(
+            "A missing index should address the first value.",
+            "first title",
+            Entity.getValueForPath(entity, new String[] {"Title"}));
+        assertEquals(
+            "Index 0 should address the first value.",
+            "first title",
+            Entity.getValueForPath(entity, new String[] {"Title[0]"}));
+        assertEquals(
+            "Index 1 should address the first value.",
+            "first title",
+            Entity.getValueForPath(entity, new String[] {"Title[1]"}));
+        assertEquals(
+            "Index 2 should address the second value.",
+            "second title",
+            Entity.getValueForPath(entity, new String[] {"Title[2]"}));
+        assertEquals(
+            "A missing index should address the first nested entity.",
+            "first text",
+            Entity.getValueForPath(entity, new String[] {"Link", "Text"}));
+        assertEquals(
+            "Index 1 should address the first nested entity.",
+            "first text",
+            Entity.getValueForPath(entity, new String[] {"Link[1]", "Text"}));
+        assertEquals(
+            "Index 2 should address the second nested entity.",
+            "second text",
+            Entity.getValueForPath(entity, AttributePath.valueOf(new String[] {"Link[2]", "Text[1]"})));
+        assertNull(
+            "A missing nested entity should result in null.",
+            Entity.getValueForPath(entity, new String[] {"Link[3]", "Text"}));
+        assertNull(
+            "A path ending at a nested entity should result in null.",
+            Entity.getValueForPath(entity, new String[] {"Link"}));
+        assertNull(
+            "An unknown attribute should result in null.",
+            Entity.getValueForPath(entity, new String[] {"Unknown"}));
+        assertNull("An empty path should result in null.", Entity.getValueForPath(entity, new String[0]));
+        assertNull("A null path should result in null.", Entity.getValueForPath(entity, (AttributePath)null));
+    }
+
+    /**
+     * Tests that equal paths are represented by the same instance once an intern table is set.<p>
+     */
+    public void testIntern() {
+
+        AttributePath.setInternTable(new HashMap<AttributePath, AttributePath>());
+        try {
+            AttributePath path = AttributePath.valueOf(new String[] {"Link", "Title[2]"});
+            assertSame(
+                "Paths with equal elements should be the same instance.",
+                path,
+                AttributePath.valueOf(new String[] {"Link", "Title[2]"}));
+            assertSame(
+                "The attribute path should be interned.",
+                AttributePath.valueOf(new String[] {"Link[0]", "Title"}),
+                path.getAttributePath());
+            assertSame(
+                "The path prefix should be interned.",
+                AttributePath.valueOf(new String[] {"Link"}),
+                path.getPrefix(1));
+            assertSame(
+                "The child path should be interned.",
+                path.getAttributePath(),
+                AttributePath.valueOf(new String[] {"Link"}).getChildPath(0, "Title"));
+        } finally {
+            AttributePath.setInternTable(null);
+        }
+        AttributePath path = AttributePath.valueOf(new String[] {"Link", "Title[2]"});
+        assertNotSame(
+            "Paths should not be interned without intern table.",
+            path,
+            AttributePath.valueOf(new String[] {"Link", "Title[2]"}));
+        assertEquals(
+            "Paths should be equal without intern table.",
+            path,
+            AttributePath.valueOf(new String[] {"Link", "Title[2]"}));
+    }
+
+    /**
+     * Tests parsing the path elements.<p>
+     */
+    public void testParse() {
+
+        String[] elements = new String[] {"Link[2]", "Nested", "Title[3]"};
+        AttributePath path = AttributePath.valueOf(elements);
+        assertEquals("The path length should match the element count.", 3, path.getLength());
+        assertEquals("The name should not contain the index.", "Link", path.getName(0));
+        assertEquals("The index should be parsed.", 2, path.getIndex(0));
+        assertEquals("The name should be kept.", "Nested", path.getName(1));
+        assertEquals("A missing index should be 0.", 0, path.getIndex(1));
+        assertEquals("The last name should not contain the index.", "Title", path.getName(2));
+        assertEquals("The last index should be parsed.", 3, path.getLastIndex());
+        assertEquals("The path should join the elements.", "Link[2]/Nested/Title[3]", path.toString());
+        elements[0] = "Changed";
+        assertEquals("The path should not be affected by changes to the element array.", "Link", path.getName(0));
+        path.getElements()[0] = "Changed";
+        assertEquals("The path should not expose its elements.", "Link[2]", path.getElements()[0]);
+    }
+
+    /**
+     * Tests resolving the message paths of a validation result.<p>
+     */
+    public void testValidationResultPaths() {
+
+        Map<String[], String> entityErrors = new HashMap<String[], String>();
+        entityErrors.put(new String[] {"Link[1]", "Title"}, "error");
+        Map<String[], String> entityWarnings = new HashMap<String[], String>();
+        entityWarnings.put(new String[] {"Link[1]", "Title"}, "warning");
+        Map<String, Map<String[], String>> errors = new HashMap<String, Map<String[], String>>();
+        errors.put("entity", entityErrors);
+        Map<String, Map<String[], String>> warnings = new HashMap<String, Map<String[], String>>();
+        warnings.put("entity", entityWarnings);
+        ValidationResult result = new ValidationResult(errors, warnings);
+        AttributePath path = AttributePath.valueOf(new String[] {"Link[1]", "Title"});
+        assertEquals("The error should be found by path.", "error", result.getErrorPaths("entity").get(path));
+        assertTrue(
+            "Errors and warnings for the same path should have equal keys.",
+            result.getErrorPaths("entity").keySet().containsAll(result.getWarningPaths("entity").keySet()));
+        assertSame(
+            "The paths should be resolved once.",
+            result.getErrorPaths("entity"),
+            result.getErrorPaths("entity"));
+        assertNull("An entity without errors should have no error paths.", result.getErrorPaths("other"));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared;
+
+import com.alkacon.acacia.shared.EntityPatchOperation.OperationType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the entity patches.<p>
+ */
+public class TestEntityPatch extends TestCase {
+
+    /** The keyword attribute name. */
+    private static final String KEYWORD = EntityFixture.ROOT_TYPE + "/Keyword";
+
+    /** The link attribute name. */
+    private static final String LINK = EntityFixture.ROOT_TYPE + "/Link";
+
+    /** The text attribute name of the child entities. */
+    private static final String TEXT = EntityFixture.CHILD_TYPE + "/Text";
+
+    /**
+     * Tests that patching equal entities results in an empty patch.<p>
+     */
+    public void testEmptyPatch() {
+
+        EntityPatch patch = EntityPatch.createPatch(EntityFixture.createEntity(), EntityFixture.createEntity());
+        assertTrue("The patch of equal entities should be empty.", patch.isEmpty());
+        Entity entity = EntityFixture.createEntity();
+        patch.apply(entity);
+        assertEquals("Applying an empty patch should not change the entity.", EntityFixture.createEntity(), entity);
+    }
+
+    /**
+     * Tests adding and removing values and attributes of nested entities.<p>
+     */
+    public void testNestedAddRemove() {
+
+        Entity target = EntityFixture.createEntity();
+        Entity first = target.getEntityById(EntityFixture.FIRST_CHILD_ID);
+        first.addAttributeValue(TEXT, "added text");
+        first.removeAttribute(EntityFixture.CHILD_TYPE + "/Code");
+        target.getEntityById(EntityFixture.SECOND_CHILD_ID).addAttributeValue(
+            EntityFixture.CHILD_TYPE + "/Nested",
+            EntityFixture.createChild("grandChild", "grand child text"));
+        target.addAttributeValue(LINK, EntityFixture.createChild("third", "third text"));
+        assertPatch(EntityFixture.createEntity(), target);
+        // and back again
+        assertPatch(target, EntityFixture.createEntity());
+    }
+
+    /**
+     * Tests replacing simple values of the root and nested entities.<p>
+     */
+    public void testNestedReplace() {
+
+        Entity target = EntityFixture.createEntity();
+        target.getEntityById(EntityFixture.SECOND_CHILD_ID).setAttributeValue(TEXT, "replaced text");
+        EntityPatch patch = EntityPatch.createPatch(EntityFixture.createEntity(), target);
+        assertEquals("There should be a single operation.", 1, patch.getOperations().size());
+        EntityPatchOperation operation = patch.getOperations().get(0);
+        assertEquals("The value should be replaced.", OperationType.replace, operation.getType());
+        assertEquals(
+            "The operation should target the nested entity.",
+            EntityFixture.SECOND_CHILD_ID,
+            operation.getEntityId());
+        assertPatch(EntityFixture.createEntity(), target);
+        target.setAttributeValue(EntityFixture.ROOT_TYPE + "/Title", "replaced title");
+        assertPatch(EntityFixture.createEntity(), target);
+    }
+
+    /**
+     * Tests reordering nested entities.<p>
+     */
+    public void testNestedReorder() {
+
+        Entity target = EntityFixture.createEntity();
+        Entity second = target.getEntityById(EntityFixture.SECOND_CHILD_ID);
+        target.removeAttributeValue(LINK, 1);
+        target.insertAttributeValue(LINK, second, 0);
+        second.setAttributeValue(TEXT, "moved text");
+        Entity patched = assertPatch(EntityFixture.createEntity(), target);
+        assertEquals(
+            "The moved entity should keep its id.",
+            EntityFixture.SECOND_CHILD_ID,
+            patched.getAttribute(LINK).getComplexValues().get(0).getId());
+    }
+
+    /**
+     * Tests changing simple value lists.<p>
+     */
+    public void testSimpleValues() {
+
+        Entity target = EntityFixture.createEntity();
+        target.removeAttributeValue(KEYWORD, 1);
+        target.insertAttributeValue(KEYWORD, "inserted", 0);
+        target.addAttributeValue(KEYWORD, "appended");
+        assertPatch(EntityFixture.createEntity(), target);
+        target.removeAttribute(KEYWORD);
+        target.addAttributeValue(KEYWORD, "single");
+        assertPatch(EntityFixture.createEntity(), target);
+    }
+
+    /**
+     * Creates the patch between the given entities, applies it to the base entity 
+     * and checks that the result matches the target.<p>
+     * 
+     * @param base the base entity
+     * @param target the target entity
+     * 
+     * @return the patched entity
+     */
+    private Entity assertPatch(Entity base, Entity target) {
+
+        EntityPatch patch = EntityPatch.createPatch(base, target);
+        assertFalse("The patch of different entities should not be empty.", patch.isEmpty());
+        patch.apply(base);
+        assertEquals("The patched entity should match the target. Patch: " + patch, target, base);
+        assertTrue(
+            "Patching the result again should not find differences.",
+            EntityPatch.createPatch(base, target).isEmpty());
+        return base;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * This library is part of the Acacia Editor -
+ * an open source inline and form based content editor for GWT.
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package com.alkacon.acacia.shared;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the entity snapshots.<p>
+ */
+public class TestEntitySnapshot extends TestCase {
+
+    /** The title attribute name. */
+    private static final String TITLE = EntityFixture.ROOT_TYPE + "/Title";
+
+    /**
+     * Tests that applying the deltas between two snapshots to the previous snapshot results in the current snapshot.<p>
+     */
+    public void testApplySnapshotDeltas() {
+
+        Entity entity = EntityFixture.createEntity();
+        Entity previous = Entity.createSnapshot(entity, null);
+        entity.setAttributeValue(TITLE, "changed title");
+        entity.getEntityById(EntityFixture.FIRST_CHILD_ID).addAttributeValue(
+            EntityFixture.CHILD_TYPE + "/Text",
+            "added text");
+        entity.removeAttribute(EntityFixture.ROOT_TYPE + "/Keyword");
+        Entity current = Entity.createSnapshot(entity, previous);
+        List<AttributeDelta> deltas = Entity.getSnapshotDeltas(previous, current);
+        assertEquals("There should be one delta per changed attribute.", 3, deltas.size());
+        Entity result = previous;
+        for (AttributeDelta delta : deltas) {
+            result = result.applySnapshotDelta(delta);
+        }
+        assertEquals("The patched snapshot should match the current snapshot.", current, result);
+        assertEquals("The patched snapshot should match the entity.", entity, result);
+        assertTrue("The patched snapshot should be a snapshot.", result.isSnapshot());
+        for (int i = deltas.size() - 1; i >= 0; i--) {
+            result = result.applySnapshotDelta(deltas.get(i).getInverse());
+        }
+        assertEquals("Applying the inverse deltas should restore the previous snapshot.", previous, result);
+        assertEquals(
+            "Applying the deltas should not change the previous snapshot.",
+            "first title",
+            Entity.getValueForPath(previous, new String[] {"Title"}));
+    }
+
+    /**
+     * Tests that applying a delta targeting an unknown entity returns the same snapshot.<p>
+     */
+    public void testApplyUnknownEntityDelta() {
+
+        Entity snapshot = Entity.createSnapshot(EntityFixture.createEntity(), null);
+        AttributeDelta delta = new AttributeDelta("unknown", TITLE, null, null, null, null);
+        assertSame("The snapshot should be returned unchanged.", snapshot, snapshot.applySnapshotDelta(delta));
+        try {
+            EntityFixture.createEntity().applySnapshotDelta(delta);
+            fail("Applying a delta to a mutable entity should fail.");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests creating a snapshot of an entity.<p>
+     */
+    public void testCreateSnapshot() {
+
+        Entity entity = EntityFixture.createEntity();
+        Entity snapshot = Entity.createSnapshot(entity, null);
+        assertTrue("The snapshot should be marked as snapshot.", snapshot.isSnapshot());
+        assertFalse("The entity should not be marked as snapshot.", entity.isSnapshot());
+        assertEquals("The snapshot should have the entity id.", EntityFixture.ROOT_ID, snapshot.getId());
+        assertEquals("The snapshot should match the entity.", entity, snapshot);
+        assertTrue(
+            "The child snapshot should be marked as snapshot.",
+            snapshot.getEntityById(EntityFixture.FIRST_CHILD_ID).isSnapshot());
+        assertSame(
+            "The previous snapshot should be returned for an unchanged entity.",
+            snapshot,
+            Entity.createSnapshot(entity, snapshot));
+        assertTrue(
+            "There should be no deltas between equal snapshots.",
+            Entity.getSnapshotDeltas(snapshot, Entity.createSnapshot(entity, snapshot)).isEmpty());
+    }
+
+    /**
+     * Tests that snapshots share the unchanged structure with the previous snapshot.<p>
+     */
+    public void testSnapshotSharesUnchangedStructure() {
+
+        Entity entity = EntityFixture.createEntity();
+        Entity previous = Entity.createSnapshot(entity, null);
+        entity.setAttributeValue(TITLE, "changed title");
+        Entity current = Entity.createSnapshot(entity, previous);
+        assertNotSame("A changed entity should result in a new snapshot.", previous, current);
+        assertSame(
+            "The unchanged child snapshot should be shared.",
+            previous.getEntityById(EntityFixture.FIRST_CHILD_ID),
+            current.getEntityById(EntityFixture.FIRST_CHILD_ID));
+        entity.getEntityById(EntityFixture.FIRST_CHILD_ID).setAttributeValue(
+            EntityFixture.CHILD_TYPE + "/Text",
+            "changed text");
+        Entity next = Entity.createSnapshot(entity, current);
+        assertNotSame(
+            "The changed child should result in a new child snapshot.",
+            current.getEntityById(EntityFixture.FIRST_CHILD_ID),
+            next.getEntityById(EntityFixture.FIRST_CHILD_ID));
+        assertSame(
+            "The unchanged sibling snapshot should be shared.",
+            current.getEntityById(EntityFixture.SECOND_CHILD_ID),
+            next.getEntityById(EntityFixture.SECOND_CHILD_ID));
+        assertEquals(
+            "The previous snapshot should keep the previous child value.",
+            "first text",
+            Entity.getValueForPath(current, new String[] {"Link", "Text"}));
+        assertEquals(
+            "The new snapshot should contain the changed child value.",
+            "changed text",
+            Entity.getValueForPath(next, new String[] {"Link", "Text"}));
+    }
+
+    /**
+     * Tests that snapshots are immutable.<p>
+     */
+    public void testSnapshotsAreImmutable() {
+
+        Entity snapshot = Entity.createSnapshot(EntityFixture.createEntity(), null);
+        try {
+            snapshot.setAttributeValue(TITLE, "changed title");
+            fail("Changing a snapshot should fail.");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        try {
+            snapshot.getEntityById(EntityFixture.FIRST_CHILD_ID).removeAttribute(EntityFixture.CHILD_TYPE + "/Text");
+            fail("Changing a child snapshot should fail.");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+}